@@ -0,0 +1,82 @@
+package com.aem.cmis.dto;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aem.cmis.mapper.ContentMapper;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.repository.InMemoryContentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Jackson writing and reading one {@link ContentDTO} tree of {@code depth}
+ * levels with {@code fanOut} children per node, as the controller does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ContentDTOSerializationBenchmark {
+
+    @Param({ "1", "3", "5" })
+    private int depth;
+
+    @Param({ "2", "5" })
+    private int fanOut;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private ContentDTO dto;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        writer = objectMapper.writerFor(ContentDTO.class);
+        reader = objectMapper.readerFor(ContentDTO.class);
+        dto = new ContentMapper().mapToContentDTO(new InMemoryContentRepository().save(createTree("tree", depth)));
+        json = writer.writeValueAsBytes(dto);
+    }
+
+    private Content createTree(String title, int levels) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor("Admin");
+        content.setTags(new ArrayList<>(Arrays.asList("news", "aem")));
+        content.setPath("/content/" + title);
+        if (levels > 0) {
+            for (int i = 0; i < fanOut; i++) {
+                content.getChildren().add(createTree(title + "-" + i, levels - 1));
+            }
+        }
+        return content;
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return writer.writeValueAsBytes(dto);
+    }
+
+    @Benchmark
+    public ContentDTO deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+}
@@ -0,0 +1,88 @@
+package com.aem.cmis.mapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aem.cmis.dto.ContentDTO;
+import com.aem.cmis.dto.ContentProjection;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.repository.InMemoryContentRepository;
+
+/**
+ * Mapping one tree of {@code depth} levels with {@code fanOut} children per
+ * node, between stored nodes, DTOs and request content.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ContentMapperBenchmark {
+
+    @Param({ "1", "3", "5" })
+    private int depth;
+
+    @Param({ "2", "5" })
+    private int fanOut;
+
+    private final ContentMapper mapper = new ContentMapper();
+    private final ContentProjection firstLevelTitles = ContentProjection.of(1, "title");
+    private ContentNode node;
+    private ContentDTO dto;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Saved, so the nodes carry ids, timestamps and metadata like stored ones
+        node = new InMemoryContentRepository().save(createTree("tree", depth));
+        dto = mapper.mapToContentDTO(node);
+    }
+
+    private Content createTree(String title, int levels) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor("Admin");
+        content.setTags(new ArrayList<>(Arrays.asList("news", "aem")));
+        content.setPath("/content/" + title);
+        if (levels > 0) {
+            for (int i = 0; i < fanOut; i++) {
+                content.getChildren().add(createTree(title + "-" + i, levels - 1));
+            }
+        }
+        return content;
+    }
+
+    @Benchmark
+    public ContentDTO mapToContentDTO() {
+        return mapper.mapToContentDTO(node);
+    }
+
+    @Benchmark
+    public ContentDTO mapToContentDTO_projected() {
+        return mapper.mapToContentDTO(node, firstLevelTitles);
+    }
+
+    @Benchmark
+    public Content mapToContent() {
+        return mapper.mapToContent(dto);
+    }
+
+    @Benchmark
+    public Content roundTrip() {
+        return mapper.mapToContent(mapper.mapToContentDTO(node));
+    }
+}
@@ -0,0 +1,86 @@
+package com.aem.cmis.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aem.cmis.repository.InMemoryContentRepository;
+
+/**
+ * Restores a store of 100k nodes (20k trees of 5) on start, either by
+ * replaying the whole write-ahead log or by loading a snapshot. The score is
+ * the time per restored node, so nanoseconds here are milliseconds per
+ * million nodes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ContentRecoveryBenchmark {
+
+    private static final int TREES = 20_000;
+    private static final int NODES = TREES * 5;
+    private static final long SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    @Param({ "log", "snapshot" })
+    private String source;
+
+    private Path directory;
+    private ContentPersistence persistence;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("content-recovery-benchmark");
+        InMemoryContentRepository repository = new InMemoryContentRepository();
+        try (ContentPersistence writer = open(repository)) {
+            for (int i = 0; i < TREES; i++) {
+                repository.save(WriteAheadLogBenchmark.createTree("tree-" + i, 4));
+            }
+        }
+        if (source.equals("snapshot")) {
+            try (ContentPersistence writer = open(new InMemoryContentRepository())) {
+                writer.snapshot();
+            }
+        }
+    }
+
+    private ContentPersistence open(InMemoryContentRepository repository) throws IOException {
+        ContentPersistence opened = new ContentPersistence(repository, directory, FsyncPolicy.NONE, 5, SEGMENT_BYTES, 0);
+        opened.start();
+        return opened;
+    }
+
+    @TearDown(Level.Invocation)
+    public void close() throws IOException {
+        persistence.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        WriteAheadLogBenchmark.delete(directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public InMemoryContentRepository recover() throws IOException {
+        InMemoryContentRepository repository = new InMemoryContentRepository();
+        persistence = open(repository);
+        return repository;
+    }
+}
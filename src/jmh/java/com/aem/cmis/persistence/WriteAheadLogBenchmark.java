@@ -0,0 +1,91 @@
+package com.aem.cmis.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.repository.InMemoryContentRepository;
+
+/**
+ * Saves of 5 node trees from 8 threads with the write-ahead log on, once per
+ * {@link FsyncPolicy}. Run it on the disk the service will use, fsync cost is
+ * what separates the policies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+public class WriteAheadLogBenchmark {
+
+    @Param({ "SYNC", "INTERVAL", "NONE" })
+    private FsyncPolicy policy;
+
+    private final AtomicInteger next = new AtomicInteger();
+    private Path directory;
+    private InMemoryContentRepository repository;
+    private ContentPersistence persistence;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("content-wal-benchmark");
+        repository = new InMemoryContentRepository();
+        persistence = new ContentPersistence(repository, directory, policy, 5, 64 * 1024 * 1024, 0);
+        persistence.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        persistence.close();
+        delete(directory);
+    }
+
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    static Content createTree(String title, int children) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor("Admin");
+        content.setTags(new ArrayList<>(List.of("news")));
+        content.setPath("/content/" + title);
+        for (int i = 0; i < children; i++) {
+            content.getChildren().add(createTree(title + "-" + i, 0));
+        }
+        return content;
+    }
+
+    @Benchmark
+    public ContentNode save() {
+        return repository.save(createTree("tree-" + next.getAndIncrement(), 4));
+    }
+}
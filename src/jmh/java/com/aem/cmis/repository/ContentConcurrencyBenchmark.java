@@ -0,0 +1,107 @@
+package com.aem.cmis.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+
+/**
+ * Reads of whole trees while a writer keeps updating their roots. Compare
+ * the read score of the one reader group with that of the four readers to
+ * see how reads scale next to a writer.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ContentConcurrencyBenchmark {
+
+    private static final int TREES = 256;
+    private static final int CHILDREN = 8;
+
+    private InMemoryContentRepository repository;
+    private final List<String> ids = new ArrayList<>();
+    private final List<Content> trees = new ArrayList<>();
+    private int writes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        repository = new InMemoryContentRepository();
+        for (int i = 0; i < TREES; i++) {
+            Content root = createContent("tree-" + i, "gen-0");
+            for (int j = 0; j < CHILDREN; j++) {
+                root.getChildren().add(createContent("tree-" + i + "-child-" + j, "gen-0"));
+            }
+            trees.add(root);
+            ids.add(repository.save(root).getId());
+        }
+    }
+
+    private static Content createContent(String title, String... tags) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor("Admin");
+        content.setTags(new ArrayList<>(Arrays.asList(tags)));
+        content.setPath("/content/" + title);
+        return content;
+    }
+
+    private ContentNode read() {
+        return repository.findById(ids.get(ThreadLocalRandom.current().nextInt(TREES))).orElseThrow();
+    }
+
+    // Retags a root and sends its children back unchanged, so the trees keep their size
+    private ContentNode write() {
+        int tree = ThreadLocalRandom.current().nextInt(TREES);
+        Content update = createContent("patch", "tag-" + writes++);
+        update.setChildren(trees.get(tree).getChildren());
+        return repository.update(ids.get(tree), update);
+    }
+
+    @Benchmark
+    @Group("oneReader")
+    @GroupThreads(1)
+    public ContentNode oneReaderRead() {
+        return read();
+    }
+
+    @Benchmark
+    @Group("oneReader")
+    @GroupThreads(1)
+    public ContentNode oneReaderWrite() {
+        return write();
+    }
+
+    @Benchmark
+    @Group("fourReaders")
+    @GroupThreads(4)
+    public ContentNode fourReadersRead() {
+        return read();
+    }
+
+    @Benchmark
+    @Group("fourReaders")
+    @GroupThreads(1)
+    public ContentNode fourReadersWrite() {
+        return write();
+    }
+}
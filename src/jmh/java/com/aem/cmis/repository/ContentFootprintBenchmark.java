@@ -0,0 +1,103 @@
+package com.aem.cmis.repository;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aem.cmis.model.Content;
+
+/**
+ * Heap retained by a store of {@code nodes} nodes, in trees of a root and 9
+ * children sharing a few authors and tags. Besides the time to fill the
+ * store, every run reports the retained bytes per node and the megabytes per
+ * million nodes, indexes included, next to the store's own estimate.
+ * Measured from the used heap after a full GC, so keep the fork alone on
+ * the machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ContentFootprintBenchmark {
+
+    private static final int TREE_SIZE = 10;
+
+    @Param({ "200000" })
+    private int nodes;
+
+    private final List<Content> trees = new ArrayList<>();
+    // Kept until the next run so the store is live while it is measured
+    private InMemoryContentRepository repository;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long bytesPerNode;
+        public long megabytesPerMillionNodes;
+        public long estimatedMegabytesPerMillionNodes;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        for (int i = 0; i < nodes / TREE_SIZE; i++) {
+            Content tree = createContent("tree-" + i, "Author " + i % 50, "news", "tag-" + i % 20);
+            for (int j = 1; j < TREE_SIZE; j++) {
+                tree.getChildren().add(createContent("tree-" + i + "/page-" + j, "Author " + j, "news"));
+            }
+            trees.add(tree);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        repository = null;
+    }
+
+    private static Content createContent(String title, String author, String... tags) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor(author);
+        content.setTags(new ArrayList<>(List.of(tags)));
+        content.setPath("/content/" + title);
+        return content;
+    }
+
+    @Benchmark
+    public InMemoryContentRepository fill(Footprint footprint) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long before = usedHeap(memory);
+        repository = new InMemoryContentRepository();
+        for (Content tree : trees) {
+            repository.save(tree);
+        }
+        long stored = (long) trees.size() * TREE_SIZE;
+        footprint.bytesPerNode = (usedHeap(memory) - before) / stored;
+        footprint.megabytesPerMillionNodes = footprint.bytesPerNode * 1_000_000 / (1 << 20);
+        footprint.estimatedMegabytesPerMillionNodes = repository.estimatedHeapBytes() / stored * 1_000_000 / (1 << 20);
+        return repository;
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,44 @@
+package com.aem.cmis.repository;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * New ids from 8 threads at once, ULIDs against random UUIDs, the two values
+ * of {@code content.repository.id-generator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+public class ContentIdGeneratorBenchmark {
+
+    @Param({ "ulid", "uuid" })
+    private String generator;
+
+    private ContentIdGenerator idGenerator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        idGenerator = generator.equals("ulid") ? UlidGenerator.INSTANCE : ContentIdGenerator.RANDOM_UUID;
+    }
+
+    @Benchmark
+    public String nextId() {
+        return idGenerator.nextId();
+    }
+}
@@ -0,0 +1,70 @@
+package com.aem.cmis.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+
+/**
+ * Reads of a 259 node tree (3 levels of 6 children). Stored versions are
+ * handed out as they are, so run it with {@code -prof gc}: the
+ * {@code gc.alloc.rate.norm} of a read should stay at a few bytes whatever
+ * the size of the tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ContentReadAllocationBenchmark {
+
+    private InMemoryContentRepository repository;
+    private String rootId;
+    private String childId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        repository = new InMemoryContentRepository();
+        ContentNode root = repository.save(createTree("tree", 3, 6));
+        rootId = root.getId();
+        childId = root.getChildren().get(0).getId();
+    }
+
+    private static Content createTree(String title, int depth, int fanOut) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor("Admin");
+        content.setTags(new ArrayList<>(List.of("news")));
+        content.setPath("/content/" + title);
+        if (depth > 0) {
+            for (int i = 0; i < fanOut; i++) {
+                content.getChildren().add(createTree(title + "-" + i, depth - 1, fanOut));
+            }
+        }
+        return content;
+    }
+
+    @Benchmark
+    public ContentNode findRoot() {
+        return repository.findById(rootId).orElseThrow();
+    }
+
+    @Benchmark
+    public ContentNode findChild() {
+        return repository.findById(childId).orElseThrow();
+    }
+}
@@ -0,0 +1,141 @@
+package com.aem.cmis.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.model.TreeWalker;
+
+/**
+ * Reads and writes against a store of {@code storeSize} nodes, made of trees
+ * {@code depth} levels deep with {@code fanOut} children per node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ContentRepositoryBenchmark {
+
+    private static final int TAGS = 100;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({ "10000", "100000" })
+    private int storeSize;
+
+    @Param({ "1", "3" })
+    private int depth;
+
+    @Param({ "2", "5" })
+    private int fanOut;
+
+    private InMemoryContentRepository repository;
+    private String[] ids;
+    private String[] leafIds;
+    // Roots saved by the save benchmark, removed after every iteration so the store keeps its size
+    private final List<String> savedRoots = new ArrayList<>();
+    private int trees;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        repository = new InMemoryContentRepository();
+        int nodesPerTree = 0;
+        for (int level = 0, width = 1; level <= depth; level++, width *= fanOut) {
+            nodesPerTree += width;
+        }
+        List<String> allIds = new ArrayList<>(storeSize);
+        List<String> leaves = new ArrayList<>(storeSize);
+        for (int i = 0; i < Math.max(1, storeSize / nodesPerTree); i++) {
+            ContentNode root = repository.save(createTree("tree-" + i, "tag-" + (i % TAGS), depth));
+            TreeWalker.visit(root, (node, level) -> node.getChildren(), (node, level) -> {
+                allIds.add(node.getId());
+                if (node.getChildren().isEmpty()) {
+                    leaves.add(node.getId());
+                }
+            });
+        }
+        ids = allIds.toArray(new String[0]);
+        leafIds = leaves.toArray(new String[0]);
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeSaved() {
+        for (String id : savedRoots) {
+            repository.delete(id);
+        }
+        savedRoots.clear();
+    }
+
+    private Content createTree(String title, String tag, int levels) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor(title.hashCode() % 2 == 0 ? "Admin" : "Editor");
+        content.setTags(new ArrayList<>(Arrays.asList("news", tag)));
+        content.setPath("/content/" + title);
+        if (levels > 0) {
+            for (int i = 0; i < fanOut; i++) {
+                content.getChildren().add(createTree(title + "-" + i, tag, levels - 1));
+            }
+        }
+        return content;
+    }
+
+    private static String random(String[] candidates) {
+        return candidates[ThreadLocalRandom.current().nextInt(candidates.length)];
+    }
+
+    @Benchmark
+    public ContentNode save() {
+        ContentNode root = repository.save(createTree("saved-" + trees++, "tag-saved", depth));
+        savedRoots.add(root.getId());
+        return root;
+    }
+
+    @Benchmark
+    public ContentNode findById() {
+        return repository.findById(random(ids)).orElseThrow();
+    }
+
+    @Benchmark
+    public List<ContentNode> findByTagOrAuthor() {
+        String tag = "tag-" + ThreadLocalRandom.current().nextInt(TAGS);
+        return repository.findByTagOrAuthor(tag, "Admin", null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ContentNode update() {
+        Content update = new Content();
+        update.setTags(List.of("news", "updated"));
+        // Leaves only, updating an inner node would drop its subtree and shrink the store
+        return repository.update(random(leafIds), update);
+    }
+
+    /**
+     * Delete has to have something to remove, so it is measured together with
+     * the save that puts it there; subtract {@link #save()} for delete alone.
+     */
+    @Benchmark
+    public String saveAndDelete() {
+        ContentNode root = repository.save(createTree("deleted-" + trees++, "tag-deleted", depth));
+        repository.delete(root.getId());
+        return root.getId();
+    }
+}
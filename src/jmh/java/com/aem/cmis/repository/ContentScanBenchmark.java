@@ -0,0 +1,103 @@
+package com.aem.cmis.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+
+/**
+ * Queries the indexes cannot answer, so every shard is filtered, against a
+ * store of {@code storeSize} nodes split into {@code parallelism} shards and
+ * scanned by a fork-join pool of that many threads. Throughput going up with
+ * {@code parallelism}, up to the cores of the machine, is the sharding paying
+ * off; {@code parallelism=1} is the single threaded scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ContentScanBenchmark {
+
+    private static final int TAGS = 100;
+    private static final int PAGE_SIZE = 100;
+
+    @Param({ "100000", "500000" })
+    private int storeSize;
+
+    @Param({ "1", "2", "4", "8", "16", "32", "64" })
+    private int parallelism;
+
+    private ForkJoinPool pool;
+    private InMemoryContentRepository repository;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = new ForkJoinPool(parallelism);
+        repository = new InMemoryContentRepository(parallelism, pool);
+        for (int i = 0; i < storeSize / 2; i++) {
+            Content content = createContent("item-" + i, i);
+            content.getChildren().add(createContent("item-" + i + "-child", i + 1));
+            repository.save(content);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static Content createContent(String title, int i) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor(i % 2 == 0 ? "Admin" : "Editor");
+        // One node in a thousand is not news, excluding news scans the whole store
+        content.setTags(new ArrayList<>(List.of(i % 1000 == 0 ? "archived" : "news", "tag-" + (i % TAGS))));
+        content.setPath("/content/" + title);
+        return content;
+    }
+
+    /**
+     * Few matches: every shard is read to the end.
+     */
+    @Benchmark
+    public List<ContentNode> excludeCommonTag() {
+        return repository.find(new ContentQuery(null, null, "news", null), null, PAGE_SIZE);
+    }
+
+    /**
+     * Many matches: every shard stops after a page.
+     */
+    @Benchmark
+    public List<ContentNode> excludeRareTag() {
+        String tag = "tag-" + ThreadLocalRandom.current().nextInt(TAGS);
+        return repository.find(new ContentQuery(null, null, tag, null), null, PAGE_SIZE);
+    }
+
+    /**
+     * Two exclusions with about one node in four left, all of them returned.
+     */
+    @Benchmark
+    public List<ContentNode> excludeTagAndAuthor() {
+        String tag = "tag-" + ThreadLocalRandom.current().nextInt(TAGS);
+        return repository.find(new ContentQuery(null, null, tag, "Admin"), null, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,72 @@
+package com.aem.cmis.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aem.cmis.mapper.ContentMapper;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.repository.InMemoryContentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Exports a store of 20k trees of 5 nodes to a discarding stream, plain and
+ * gzipped. The score is the time per exported tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ContentExportBenchmark {
+
+    private static final int TREES = 20_000;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ContentExportService exportService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        InMemoryContentRepository repository = new InMemoryContentRepository();
+        for (int i = 0; i < TREES; i++) {
+            repository.save(createTree("tree-" + i, 4));
+        }
+        exportService = new ContentExportService(repository, new ContentMapper(), new ObjectMapper().findAndRegisterModules());
+    }
+
+    private static Content createTree(String title, int children) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor("Admin");
+        content.setTags(new ArrayList<>(List.of("news")));
+        content.setPath("/content/" + title);
+        for (int i = 0; i < children; i++) {
+            content.getChildren().add(createTree(title + "-" + i, 0));
+        }
+        return content;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TREES)
+    public long exportContent() throws IOException {
+        return exportService.exportContent(OutputStream.nullOutputStream(), gzip);
+    }
+}
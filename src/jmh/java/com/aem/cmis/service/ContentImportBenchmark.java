@@ -0,0 +1,106 @@
+package com.aem.cmis.service;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aem.cmis.dto.BulkImportResult;
+import com.aem.cmis.mapper.ContentMapper;
+import com.aem.cmis.repository.InMemoryContentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+
+/**
+ * Streams 100k trees of 2 nodes through {@link ContentImportService} into an
+ * empty repository, the way an NDJSON upload arrives. The score is the time
+ * per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ContentImportBenchmark {
+
+    private static final int RECORDS = 100_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private ContentImportService service;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        service = new ContentImportService(new InMemoryContentRepository(), new ContentMapper(), objectMapper,
+                validator, 500);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public BulkImportResult importContent() {
+        BulkImportResult result = service.importContent(new GeneratedNdjson(RECORDS));
+        if (result.getImported() != RECORDS) {
+            throw new IllegalStateException("Imported " + result.getImported() + " of " + RECORDS + " records");
+        }
+        return result;
+    }
+
+    private static String record(int i) {
+        return "{\"id\":\"import-" + i + "\",\"title\":\"Title " + i + "\",\"body\":\"Body " + i + "\","
+                + "\"author\":\"Importer\",\"tags\":[\"imported\"],\"path\":\"/content/import/" + i + "\","
+                + "\"children\":[{\"title\":\"Child " + i + "\",\"body\":\"Child body\",\"author\":\"Importer\","
+                + "\"path\":\"/content/import/" + i + "/child\"}]}";
+    }
+
+    /**
+     * Produces the records on demand instead of holding the whole input in memory.
+     */
+    private static final class GeneratedNdjson extends InputStream {
+        private final int end;
+        private int next;
+        private byte[] current = new byte[0];
+        private int position;
+
+        GeneratedNdjson(int end) {
+            this.end = end;
+        }
+
+        @Override
+        public int read() {
+            if (position == current.length) {
+                if (next == end) {
+                    return -1;
+                }
+                current = (record(next++) + "\n").getBytes(StandardCharsets.UTF_8);
+                position = 0;
+            }
+            return current[position++];
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            int count = 0;
+            while (count < length) {
+                int value = read();
+                if (value < 0) {
+                    return count == 0 ? -1 : count;
+                }
+                buffer[offset + count++] = (byte) value;
+            }
+            return count;
+        }
+    }
+}
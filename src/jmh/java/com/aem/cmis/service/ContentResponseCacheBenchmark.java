@@ -0,0 +1,87 @@
+package com.aem.cmis.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aem.cmis.dto.ContentProjection;
+import com.aem.cmis.mapper.ContentMapper;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.repository.InMemoryContentRepository;
+import com.aem.cmis.service.ContentResponseCache.CachedContent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * {@code GET /content/{id}} of 1000 trees of 11 nodes, served from
+ * {@link ContentResponseCache} against mapped and serialized on every read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ContentResponseCacheBenchmark {
+
+    private static final int TREES = 1_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final List<String> ids = new ArrayList<>();
+    private ContentService contentService;
+    private ContentResponseCache cache;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        InMemoryContentRepository repository = new InMemoryContentRepository();
+        for (int i = 0; i < TREES; i++) {
+            ids.add(repository.save(createTree("tree-" + i, 10)).getId());
+        }
+        contentService = new ContentService(repository, new ContentMapper());
+        cache = new ContentResponseCache(contentService, objectMapper, 64 * 1024 * 1024);
+        repository.addChangeListener(cache);
+        // Every measured cached read is a hit
+        for (String id : ids) {
+            cache.getContent(id, ContentProjection.FULL);
+        }
+    }
+
+    private static Content createTree(String title, int children) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor("Admin");
+        content.setTags(new ArrayList<>(List.of("news")));
+        content.setPath("/content/" + title);
+        for (int i = 0; i < children; i++) {
+            content.getChildren().add(createTree(title + "-" + i, 0));
+        }
+        return content;
+    }
+
+    private String nextId() {
+        next = (next + 1) % TREES;
+        return ids.get(next);
+    }
+
+    @Benchmark
+    public CachedContent cachedRead() {
+        return cache.getContent(nextId(), ContentProjection.FULL).get();
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(contentService.getContent(nextId(), ContentProjection.FULL).get());
+    }
+}
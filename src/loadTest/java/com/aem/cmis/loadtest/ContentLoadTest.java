@@ -0,0 +1,71 @@
+package com.aem.cmis.loadtest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+
+import com.aem.cmis.config.SecurityConfigTest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Boots the application on a random port and runs a mixed workload against
+ * it over HTTP, see {@link LoadDriver}. Run with {@code ./gradlew loadTest};
+ * every setting below can be given as {@code -PloadTest.<name>=<value>}.
+ * The report is written as JSON to {@code loadTest.report}, so runs of two
+ * builds can be diffed.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "logging.level.com.aem.cmis=WARN")
+@Import(SecurityConfigTest.class)
+public class ContentLoadTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private static int intSetting(String name, int defaultValue) {
+        return Integer.getInteger("loadTest." + name, defaultValue);
+    }
+
+    @Test
+    void mixedWorkload() throws Exception {
+        int clients = intSetting("clients", 16);
+        int warmupSeconds = intSetting("warmupSeconds", 10);
+        int durationSeconds = intSetting("durationSeconds", 30);
+        int seedTrees = intSetting("seedTrees", 1000);
+        int children = intSetting("children", 3);
+        String mix = System.getProperty("loadTest.mix", "read=70,create=10,update=5,search=10,delete=5");
+        Path reportFile = Path.of(System.getProperty("loadTest.report", "build/reports/loadTest/report.json"));
+
+        Workload workload = Workload.parse(mix);
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("clients", clients);
+        settings.put("warmupSeconds", warmupSeconds);
+        settings.put("durationSeconds", durationSeconds);
+        settings.put("seedTrees", seedTrees);
+        settings.put("children", children);
+        settings.put("mix", workload.weights());
+
+        LoadDriver driver = new LoadDriver(URI.create("http://localhost:" + port), workload, clients, objectMapper);
+        driver.seed(seedTrees, children);
+        LoadReport report = driver.run(Duration.ofSeconds(warmupSeconds), Duration.ofSeconds(durationSeconds),
+                children, settings);
+        report.write(reportFile, objectMapper);
+
+        System.out.println(report.summary());
+        System.out.println("Load test report written to " + reportFile.toAbsolutePath());
+        assertEquals(0, report.errors(), "Requests failed under load, see " + reportFile);
+    }
+}
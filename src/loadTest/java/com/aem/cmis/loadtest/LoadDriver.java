@@ -0,0 +1,188 @@
+package com.aem.cmis.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.aem.cmis.loadtest.LoadReport.Stats;
+import com.aem.cmis.loadtest.Workload.Operation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Drives a running server with {@code clients} concurrent clients, each
+ * sending its next request as soon as the previous one is answered. Reads
+ * and searches go to the trees created by {@link #seed}; updates and deletes
+ * only touch trees the client created itself, so clients never fail each
+ * other's requests.
+ *
+ * The clients are closed loop: when the server slows down they send less,
+ * so the percentiles show the latency seen per request, not what an open
+ * stream of users arriving at a fixed rate would see.
+ */
+final class LoadDriver {
+
+    static final int SEARCH_TAGS = 50;
+
+    private final URI baseUri;
+    private final Workload workload;
+    private final int clients;
+    private final ObjectMapper objectMapper;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final List<String> seedIds = new ArrayList<>();
+
+    LoadDriver(URI baseUri, Workload workload, int clients, ObjectMapper objectMapper) {
+        this.baseUri = baseUri;
+        this.workload = workload;
+        this.clients = clients;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Creates the trees reads and searches are spread over, through the API.
+     */
+    void seed(int trees, int children) throws IOException, InterruptedException {
+        for (int i = 0; i < trees; i++) {
+            HttpResponse<byte[]> response = send(create("seed-" + i, i % SEARCH_TAGS, children));
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Seeding failed with status " + response.statusCode());
+            }
+            seedIds.add(id(response));
+        }
+    }
+
+    /**
+     * Runs the workload for {@code warmup} and then {@code duration}, only
+     * requests sent during the latter are measured.
+     */
+    LoadReport run(Duration warmup, Duration duration, int children, Map<String, Object> settings)
+            throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<Map<Operation, Stats>>> results = new ArrayList<>();
+        for (int client = 0; client < clients; client++) {
+            int clientNumber = client;
+            results.add(executor.submit(() -> runClient(clientNumber, measureFrom, end, children)));
+        }
+        LoadReport report = new LoadReport(settings, duration.toNanos() / 1e9);
+        try {
+            for (Future<Map<Operation, Stats>> result : results) {
+                report.add(result.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load test client failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return report;
+    }
+
+    private Map<Operation, Stats> runClient(int client, long measureFrom, long end, int children)
+            throws IOException, InterruptedException {
+        Random random = new Random(client);
+        List<String> ownIds = new ArrayList<>();
+        Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+        int created = 0;
+        while (true) {
+            long start = System.nanoTime();
+            if (start >= end) {
+                return stats;
+            }
+            Operation operation = workload.next(random);
+            if ((operation == Operation.UPDATE || operation == Operation.DELETE) && ownIds.isEmpty()) {
+                // Nothing of our own to change yet
+                operation = Operation.CREATE;
+            }
+            String ownId = ownIds.isEmpty() ? null : ownIds.get(random.nextInt(ownIds.size()));
+            HttpRequest request = switch (operation) {
+                case READ -> get("/content/" + seedIds.get(random.nextInt(seedIds.size())));
+                case CREATE -> create("client-" + client + "-" + created++, random.nextInt(SEARCH_TAGS), children);
+                case UPDATE -> update(ownId);
+                case SEARCH -> get("/content/search?tag=tag-" + random.nextInt(SEARCH_TAGS) + "&limit=20");
+                case DELETE -> delete(ownId);
+            };
+            HttpResponse<byte[]> response = send(request);
+            long micros = (System.nanoTime() - start) / 1_000;
+            boolean succeeded = response.statusCode() == (operation == Operation.CREATE ? 201 : 200);
+            if (succeeded && operation == Operation.CREATE) {
+                ownIds.add(id(response));
+            } else if (succeeded && operation == Operation.DELETE) {
+                ownIds.remove(ownId);
+            }
+            if (start >= measureFrom) {
+                Stats operationStats = stats.computeIfAbsent(operation, key -> new Stats());
+                operationStats.record(micros);
+                if (!succeeded) {
+                    operationStats.error();
+                }
+            }
+        }
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private String id(HttpResponse<byte[]> response) throws IOException {
+        return objectMapper.readTree(response.body()).get("id").asText();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).GET().build();
+    }
+
+    private HttpRequest delete(String id) {
+        return HttpRequest.newBuilder(baseUri.resolve("/content/" + id)).DELETE().build();
+    }
+
+    private HttpRequest create(String title, int tag, int children) throws IOException {
+        Map<String, Object> content = content(title, tag);
+        List<Map<String, Object>> childContent = new ArrayList<>();
+        for (int i = 0; i < children; i++) {
+            childContent.add(content(title + "-" + i, tag));
+        }
+        content.put("children", childContent);
+        return json(HttpRequest.newBuilder(baseUri.resolve("/content")), "POST", content);
+    }
+
+    private HttpRequest update(String id) throws IOException {
+        Map<String, Object> content = content("updated", 0);
+        content.put("id", id);
+        content.put("tags", List.of("updated"));
+        return json(HttpRequest.newBuilder(baseUri.resolve("/content/" + id)), "PATCH", content);
+    }
+
+    private HttpRequest json(HttpRequest.Builder builder, String method, Object body) throws IOException {
+        return builder.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    // Every field the request validation asks for
+    private static Map<String, Object> content(String title, int tag) {
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("id", title);
+        content.put("title", title);
+        content.put("body", "Body of " + title + ", written by the load test.");
+        content.put("author", "LoadTest");
+        content.put("tags", List.of("load", "tag-" + tag));
+        content.put("path", "/content/load/" + title);
+        return content;
+    }
+}
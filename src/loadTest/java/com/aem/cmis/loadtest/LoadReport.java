@@ -0,0 +1,136 @@
+package com.aem.cmis.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+import com.aem.cmis.loadtest.Workload.Operation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Latency and throughput per endpoint over the measured part of a run.
+ * Every client records into its own {@link Stats}, they are merged once the
+ * run is over, so recording needs no synchronization.
+ */
+final class LoadReport {
+
+    // Latencies are recorded in microseconds, anything slower than a minute is clamped
+    static final long MAX_LATENCY_MICROS = 60_000_000L;
+
+    /**
+     * What one client, or after merging all of them, saw for one operation.
+     */
+    static final class Stats {
+        private final Histogram latencies = new Histogram(MAX_LATENCY_MICROS, 3);
+        private long errors;
+
+        void record(long micros) {
+            latencies.recordValue(Math.min(Math.max(micros, 0), MAX_LATENCY_MICROS));
+        }
+
+        void error() {
+            errors++;
+        }
+
+        long requests() {
+            return latencies.getTotalCount();
+        }
+
+        long errors() {
+            return errors;
+        }
+
+        void add(Stats other) {
+            latencies.add(other.latencies);
+            errors += other.errors;
+        }
+    }
+
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final Map<String, Object> settings;
+    private final double measuredSeconds;
+
+    LoadReport(Map<String, Object> settings, double measuredSeconds) {
+        this.settings = settings;
+        this.measuredSeconds = measuredSeconds;
+    }
+
+    void add(Map<Operation, Stats> clientStats) {
+        clientStats.forEach((operation, client) -> stats.computeIfAbsent(operation, key -> new Stats()).add(client));
+    }
+
+    long errors() {
+        return stats.values().stream().mapToLong(Stats::errors).sum();
+    }
+
+    long requests() {
+        return stats.values().stream().mapToLong(Stats::requests).sum();
+    }
+
+    /**
+     * The report as written to disk: the settings of the run, then one entry
+     * per endpoint. Keys are in a fixed order so two reports diff cleanly.
+     */
+    Map<String, Object> toMap() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("finishedAt", Instant.now().toString());
+        report.put("settings", settings);
+        report.put("measuredSeconds", round(measuredSeconds));
+        report.put("throughputPerSecond", round(requests() / measuredSeconds));
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        Stats total = new Stats();
+        stats.forEach((operation, operationStats) -> {
+            endpoints.put(operation.endpoint(), summary(operationStats));
+            total.add(operationStats);
+        });
+        report.put("endpoints", endpoints);
+        report.put("total", summary(total));
+        return report;
+    }
+
+    private Map<String, Object> summary(Stats operationStats) {
+        Histogram latencies = operationStats.latencies;
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", operationStats.requests());
+        summary.put("errors", operationStats.errors());
+        summary.put("throughputPerSecond", round(operationStats.requests() / measuredSeconds));
+        Map<String, Object> latency = new LinkedHashMap<>();
+        latency.put("p50", latencies.getValueAtPercentile(50));
+        latency.put("p99", latencies.getValueAtPercentile(99));
+        latency.put("p999", latencies.getValueAtPercentile(99.9));
+        latency.put("max", latencies.getMaxValue());
+        latency.put("mean", round(latencies.getMean()));
+        summary.put("latencyMicros", latency);
+        return summary;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    void write(Path file, ObjectMapper objectMapper) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        objectMapper.writer().with(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), toMap());
+    }
+
+    String summary() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%-22s %9s %7s %10s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s",
+                "p50 us", "p99 us", "p999 us"));
+        stats.forEach((operation, operationStats) -> text.append(String.format("%-22s %9d %7d %10.1f %9d %9d %9d%n",
+                operation.endpoint(), operationStats.requests(), operationStats.errors(),
+                operationStats.requests() / measuredSeconds, operationStats.latencies.getValueAtPercentile(50),
+                operationStats.latencies.getValueAtPercentile(99),
+                operationStats.latencies.getValueAtPercentile(99.9))));
+        return text.toString();
+    }
+}
@@ -1,17 +1,57 @@
 package com.aem.cmis.config;
 
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.aem.cmis.events.ContentEventLog;
 import com.aem.cmis.mapper.ContentMapper;
+import com.aem.cmis.metrics.ContentMetrics;
+import com.aem.cmis.metrics.ServerTimingFilter;
+import com.aem.cmis.metrics.SlowRequestLog;
+import com.aem.cmis.metrics.SlowRequestsEndpoint;
+import com.aem.cmis.persistence.ContentPersistence;
+import com.aem.cmis.persistence.FsyncPolicy;
+import com.aem.cmis.repository.ContentIdGenerator;
 import com.aem.cmis.repository.ContentRepository;
+import com.aem.cmis.repository.InMemoryContentRepository;
+import com.aem.cmis.repository.UlidGenerator;
+import com.aem.cmis.service.ContentExportService;
+import com.aem.cmis.service.ContentImportService;
+import com.aem.cmis.service.ContentResponseCache;
 import com.aem.cmis.service.ContentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.validation.Validator;
 
 @Configuration
 public class AppConfig {
 	@Bean
-    public ContentRepository contentRepository() {
-        return new ContentRepository();
+    public InMemoryContentRepository contentRepository(@Value("${content.repository.shards:0}") int shards,
+            ContentIdGenerator contentIdGenerator) {
+        int shardCount = shards > 0 ? shards : Runtime.getRuntime().availableProcessors();
+        return new InMemoryContentRepository(shardCount, ForkJoinPool.commonPool(), contentIdGenerator);
+    }
+
+    @Bean
+    public ContentIdGenerator contentIdGenerator(@Value("${content.repository.id-generator:ulid}") String generator) {
+        switch (generator.trim().toLowerCase(Locale.ROOT)) {
+        case "ulid":
+            return UlidGenerator.INSTANCE;
+        case "uuid":
+            return ContentIdGenerator.RANDOM_UUID;
+        default:
+            throw new IllegalArgumentException("Unknown content.repository.id-generator: " + generator);
+        }
     }
 
     @Bean
@@ -20,8 +60,77 @@ public class AppConfig {
     }
 
     @Bean
-    public ContentService contentService(ContentRepository repository, ContentMapper contentMapper) {
-        return new ContentService(repository, contentMapper);
+    public ContentMetrics contentMetrics(MeterRegistry meterRegistry, InMemoryContentRepository repository) {
+        ContentMetrics metrics = new ContentMetrics(meterRegistry);
+        metrics.monitor(repository);
+        return metrics;
+    }
+
+    @Bean
+    public SlowRequestLog slowRequestLog(@Value("${content.timing.slow-threshold-ms:500}") long thresholdMillis,
+            @Value("${content.timing.slow-sample-size:100}") int sampleSize) {
+        return new SlowRequestLog(thresholdMillis, sampleSize);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(SlowRequestLog slowRequestLog) {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter(slowRequestLog));
+        registration.addUrlPatterns("/content/*");
+        return registration;
+    }
+
+    @Bean
+    public SlowRequestsEndpoint slowRequestsEndpoint(SlowRequestLog slowRequestLog) {
+        return new SlowRequestsEndpoint(slowRequestLog);
+    }
+
+    @Bean
+    public ContentService contentService(ContentRepository repository, ContentMapper contentMapper,
+            ContentMetrics contentMetrics) {
+        return new ContentService(repository, contentMapper, contentMetrics);
+    }
+
+    @Bean
+    public ContentImportService contentImportService(ContentRepository repository, ContentMapper contentMapper,
+            ObjectMapper objectMapper, Validator validator,
+            @Value("${content.import.batch-size:500}") int batchSize) {
+        return new ContentImportService(repository, contentMapper, objectMapper, validator, batchSize);
+    }
+
+    @Bean
+    public ContentExportService contentExportService(InMemoryContentRepository repository, ContentMapper contentMapper,
+            ObjectMapper objectMapper) {
+        return new ContentExportService(repository, contentMapper, objectMapper);
+    }
+
+    @Bean
+    public ContentResponseCache contentResponseCache(ContentRepository repository, ContentService contentService,
+            ObjectMapper objectMapper, @Value("${content.cache.size-mb:64}") long sizeMb) {
+        ContentResponseCache cache = new ContentResponseCache(contentService, objectMapper, sizeMb * 1024 * 1024);
+        repository.addChangeListener(cache);
+        return cache;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ContentEventLog contentEventLog(ContentRepository repository,
+            @Value("${content.events.capacity:10000}") int capacity,
+            @Value("${content.events.sender-threads:4}") int senderThreads) {
+        ContentEventLog eventLog = new ContentEventLog(capacity, senderThreads);
+        repository.addChangeListener(eventLog);
+        return eventLog;
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(name = "content.persistence.enabled", havingValue = "true")
+    public ContentPersistence contentPersistence(InMemoryContentRepository repository,
+            @Value("${content.persistence.directory:data}") String directory,
+            @Value("${content.persistence.fsync:SYNC}") FsyncPolicy fsyncPolicy,
+            @Value("${content.persistence.sync-interval-ms:10}") long syncIntervalMillis,
+            @Value("${content.persistence.segment-size-mb:64}") long segmentSizeMb,
+            @Value("${content.persistence.snapshot-interval-minutes:15}") long snapshotIntervalMinutes) {
+        return new ContentPersistence(repository, Path.of(directory), fsyncPolicy, syncIntervalMillis,
+                segmentSizeMb * 1024 * 1024, TimeUnit.MINUTES.toMillis(snapshotIntervalMinutes));
     }
 
 }
@@ -0,0 +1,32 @@
+package com.aem.cmis.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.aem.cmis.metrics.TimedValidator;
+
+import jakarta.validation.Validator;
+
+/**
+ * Kept apart from {@link AppConfig} as web slice tests load MVC configurers
+ * but not the application beans.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+	private final Validator validator;
+
+	public WebConfig(Validator validator) {
+		this.validator = validator;
+	}
+
+	@Override
+	public org.springframework.validation.Validator getValidator() {
+		SmartValidator delegate = validator instanceof SmartValidator smartValidator
+				? smartValidator
+				: new SpringValidatorAdapter(validator);
+		return new TimedValidator(delegate);
+	}
+}
@@ -0,0 +1,128 @@
+package com.aem.cmis.controller;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.aem.cmis.events.ContentEvent;
+import com.aem.cmis.events.ContentEventLog;
+import com.aem.cmis.events.ContentEventSink;
+import com.aem.cmis.events.OverflowPolicy;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/content/events")
+@Tag(name = "Content Events", description = "Push feed of content writes for cache invalidation")
+public class ContentEventController {
+
+	private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+	private final ContentEventLog contentEventLog;
+	private final long timeoutMillis;
+	private final OverflowPolicy defaultOverflow;
+
+	public ContentEventController(ContentEventLog contentEventLog,
+			@Value("${content.events.timeout-ms:1800000}") long timeoutMillis,
+			@Value("${content.events.overflow:SKIP}") OverflowPolicy defaultOverflow) {
+		this.contentEventLog = contentEventLog;
+		this.timeoutMillis = timeoutMillis;
+		this.defaultOverflow = defaultOverflow;
+	}
+
+	/**
+	 * A reconnecting {@code EventSource} sends the id of the last event it got
+	 * as {@code Last-Event-ID}, which wins over {@code from} left in its URL.
+	 * Both are {@code <epoch>:<offset>} event ids of the last event the client
+	 * has, the stream resumes after it; {@code from} may also be a bare offset
+	 * of the current feed.
+	 */
+	@GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@Operation(summary = "Stream saved, updated and deleted events as Server-Sent Events, from an event id or Last-Event-ID when given")
+	public SseEmitter streamEvents(@RequestParam(value = "from", required = false) String from,
+			@RequestParam(value = "overflow", required = false) OverflowPolicy overflow,
+			@RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+		String fromEpoch = contentEventLog.getEpoch();
+		Long fromOffset = null;
+		if (lastEventId != null && !lastEventId.isBlank()) {
+			String id = lastEventId.trim();
+			int separator = id.indexOf(':');
+			// An id without an epoch was sent before the restart that introduced them
+			fromEpoch = separator >= 0 ? id.substring(0, separator) : "";
+			fromOffset = parseOffset(id.substring(separator + 1), LAST_EVENT_ID, lastEventId) + 1;
+		} else if (from != null && !from.isBlank()) {
+			String id = from.trim();
+			int separator = id.indexOf(':');
+			if (separator >= 0) {
+				fromEpoch = id.substring(0, separator);
+			}
+			fromOffset = parseOffset(id.substring(separator + 1), "from", from) + 1;
+		}
+		SseEmitter emitter = new SseEmitter(timeoutMillis);
+		ContentEventLog.Subscription subscription = contentEventLog.subscribe(fromEpoch, fromOffset,
+				overflow != null ? overflow : defaultOverflow, new EmitterSink(contentEventLog, emitter));
+		emitter.onCompletion(subscription::cancel);
+		emitter.onTimeout(subscription::cancel);
+		emitter.onError(error -> subscription.cancel());
+		return emitter;
+	}
+
+	private static long parseOffset(String offset, String name, String value) {
+		try {
+			return Long.parseLong(offset);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid " + name + ": " + value, e);
+		}
+	}
+
+	private static final class EmitterSink implements ContentEventSink {
+		private final ContentEventLog eventLog;
+		private final SseEmitter emitter;
+
+		EmitterSink(ContentEventLog eventLog, SseEmitter emitter) {
+			this.eventLog = eventLog;
+			this.emitter = emitter;
+		}
+
+		@Override
+		public void send(ContentEvent event) throws IOException {
+			emitter.send(SseEmitter.event()
+					.id(eventLog.eventId(event.offset()))
+					.name(event.type().name().toLowerCase(Locale.ROOT))
+					.data(event, MediaType.APPLICATION_JSON));
+		}
+
+		@Override
+		public void missed(long missed, long resumeOffset) throws IOException {
+			// Its id makes a client that reconnects after this resume at the oldest event kept
+			emitter.send(SseEmitter.event()
+					.id(eventLog.eventId(resumeOffset - 1))
+					.name("missed")
+					.data(Map.of("missed", missed, "resumeOffset", resumeOffset), MediaType.APPLICATION_JSON));
+		}
+
+		@Override
+		public void reset(long resumeOffset) throws IOException {
+			emitter.send(SseEmitter.event()
+					.id(eventLog.eventId(resumeOffset - 1))
+					.name("reset")
+					.data(Map.of("epoch", eventLog.getEpoch(), "resumeOffset", resumeOffset),
+							MediaType.APPLICATION_JSON));
+		}
+
+		@Override
+		public void close() {
+			emitter.complete();
+		}
+	}
+}
@@ -1,9 +1,12 @@
 package com.aem.cmis.controller;
 
+import java.io.InputStream;
 import java.util.List;
 
 import org.hibernate.service.spi.ServiceException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,13 +14,30 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.aem.cmis.dto.BatchRequest;
+import com.aem.cmis.dto.BatchResult;
+import com.aem.cmis.dto.BulkImportResult;
 import com.aem.cmis.dto.ContentDTO;
+import com.aem.cmis.dto.ContentFacets;
+import com.aem.cmis.dto.ContentPage;
+import com.aem.cmis.dto.ContentProjection;
 import com.aem.cmis.exception.ResourceNotFoundException;
+import com.aem.cmis.repository.ContentQuery;
+import com.aem.cmis.service.ContentETag;
+import com.aem.cmis.service.ContentExportService;
+import com.aem.cmis.service.ContentImportService;
+import com.aem.cmis.service.ContentResponseCache;
+import com.aem.cmis.service.ContentResponseCache.CachedContent;
 import com.aem.cmis.service.ContentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
 
@@ -29,10 +49,28 @@ import jakarta.validation.Valid;
 @Tag(name = "Content Management System", description = "API for managing content in an AEM like system")
 public class ContentManagementController {
 
+	private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+	private static final int DEFAULT_SEARCH_LIMIT = 100;
+	private static final int DEFAULT_TEXT_LIMIT = 10;
+	private static final int DEFAULT_FACET_LIMIT = 10;
+	private static final int MAX_LIMIT = 1000;
+	private static final int STREAM_PAGE_SIZE = 256;
+	private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
 	private final ContentService contentService;
+	private final ContentImportService contentImportService;
+	private final ContentExportService contentExportService;
+	private final ContentResponseCache contentResponseCache;
+	private final ObjectMapper objectMapper;
 
-	public ContentManagementController(ContentService contentService) {
+	public ContentManagementController(ContentService contentService, ContentImportService contentImportService,
+			ContentExportService contentExportService, ContentResponseCache contentResponseCache,
+			ObjectMapper objectMapper) {
 		this.contentService = contentService;
+		this.contentImportService = contentImportService;
+		this.contentExportService = contentExportService;
+		this.contentResponseCache = contentResponseCache;
+		this.objectMapper = objectMapper;
 	}
 
 	@PostMapping
@@ -46,36 +84,174 @@ public class ContentManagementController {
 		}
 	}
 
+	@PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	@Operation(summary = "Import newline-delimited JSON, one content tree per line, reporting failed lines")
+	public ResponseEntity<BulkImportResult> importContent(InputStream body) {
+		try {
+			return new ResponseEntity<>(contentImportService.importContent(body), HttpStatus.OK);
+		} catch (ServiceException e) {
+			throw new ServiceException("Error importing content: " + e.getMessage(), e);
+		}
+	}
+
+	@PostMapping("/batch")
+	@Operation(summary = "Apply creates, updates and deletes in order, all or none, with the result of each")
+	public ResponseEntity<BatchResult> applyBatch(@Valid @RequestBody BatchRequest batchRequest) {
+		try {
+			BatchResult result = contentService.applyBatch(batchRequest.getOperations());
+			if (result.isApplied()) {
+				return new ResponseEntity<>(result, HttpStatus.OK);
+			}
+			// The status of the operation that failed the batch
+			int status = result.getResults().get(result.getFailedIndex()).getStatus();
+			return new ResponseEntity<>(result, HttpStatus.valueOf(status));
+		} catch (ServiceException e) {
+			throw new ServiceException("Error applying content batch: " + e.getMessage(), e);
+		}
+	}
+
+	@GetMapping("/export")
+	@Operation(summary = "Export every content tree as of one point in time, one NDJSON line per tree, optionally gzipped")
+	public ResponseEntity<StreamingResponseBody> exportContent(
+			@RequestParam(value="gzip",required = false, defaultValue = "false") boolean gzip) {
+		StreamingResponseBody body = outputStream -> contentExportService.exportContent(outputStream, gzip);
+		if (gzip) {
+			return ResponseEntity.ok()
+					.contentType(GZIP)
+					.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"content-export.ndjson.gz\"")
+					.body(body);
+		}
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
 	@GetMapping("/{id}")
-	@Operation(summary = "Retrieve content by ID with children")
-	public ResponseEntity<ContentDTO> getContent(@PathVariable("id") String id) {
+	@Operation(summary = "Retrieve content by ID with children, optionally limited to a depth and a set of fields")
+	public ResponseEntity<byte[]> getContent(@PathVariable("id") String id,
+			@RequestParam(value="depth",required = false) Integer depth,
+			@RequestParam(value="fields",required = false) String fields,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 		try {
-			return contentService.getContent(id).map(contentDTO -> new ResponseEntity<>(contentDTO, HttpStatus.OK))
+			ContentProjection projection = ContentProjection.of(depth, fields);
+			CachedContent content = contentResponseCache.getContent(id, projection)
 					.orElseThrow(() -> new ResourceNotFoundException("Content not found with id: " + id));
+			if (content.matches(ifNoneMatch)) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(content.etag()).build();
+			}
+			return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).eTag(content.etag()).body(content.body());
 		} catch (ServiceException e) {
 			throw new ServiceException("Error retrieving content with id: " + id + ": " + e.getMessage(), e);
 		}
 	}
 
-	@GetMapping("/search")
-	@Operation(summary = "Search content by tag or author, including children")
-	public ResponseEntity<List<ContentDTO>> searchContent(@RequestParam(value="tag",required = false, defaultValue = "tag") String tag,
-			@RequestParam(value="author",required = false) String author) {
+	@GetMapping("/by-path/{*path}")
+	@Operation(summary = "Retrieve content by its JCR path with children, optionally limited to a depth and a set of fields")
+	public ResponseEntity<byte[]> getContentByPath(@PathVariable("path") String path,
+			@RequestParam(value="depth",required = false) Integer depth,
+			@RequestParam(value="fields",required = false) String fields) {
+		try {
+			ContentProjection projection = ContentProjection.of(depth, fields);
+			return contentService.getContentByPath(path, projection)
+					.map(contentDTO -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+							.body(contentResponseCache.serialize(contentDTO, projection)))
+					.orElseThrow(() -> new ResourceNotFoundException("Content not found with path: " + path));
+		} catch (ServiceException e) {
+			throw new ServiceException("Error retrieving content with path: " + path + ": " + e.getMessage(), e);
+		}
+	}
+
+	@GetMapping("/children/{*path}")
+	@Operation(summary = "List content below a JCR path, direct children or the whole subtree")
+	public ResponseEntity<List<ContentDTO>> listChildren(@PathVariable("path") String path,
+			@RequestParam(value = "recursive", required = false, defaultValue = "false") boolean recursive) {
 		try {
-			List<ContentDTO> resultDTOs = contentService.searchContent(tag, author);
+			List<ContentDTO> resultDTOs = contentService.listContentByPath(path, recursive);
 			return new ResponseEntity<>(resultDTOs, HttpStatus.OK);
+		} catch (ServiceException e) {
+			throw new ServiceException("Error listing content below path: " + path + ": " + e.getMessage(), e);
+		}
+	}
+
+	@GetMapping("/search")
+	@Operation(summary = "Search content by tag or author and leave out a tag or author, including children, or rank it by keywords with q")
+	public ResponseEntity<List<ContentDTO>> searchContent(@RequestParam(value="tag",required = false) String tag,
+			@RequestParam(value="author",required = false) String author,
+			@RequestParam(value="excludeTag",required = false) String excludeTag,
+			@RequestParam(value="excludeAuthor",required = false) String excludeAuthor,
+			@RequestParam(value="q",required = false) String query,
+			@RequestParam(value="limit",required = false) Integer limit,
+			@RequestParam(value="cursor",required = false) String cursor) {
+		try {
+			if (query != null && !query.isBlank()) {
+				List<ContentDTO> resultDTOs = contentService.searchText(query, clampLimit(limit, DEFAULT_TEXT_LIMIT));
+				return new ResponseEntity<>(resultDTOs, HttpStatus.OK);
+			}
+			ContentQuery contentQuery = new ContentQuery(tag, author, excludeTag, excludeAuthor);
+			ContentPage page = contentService.searchContent(contentQuery, cursor, clampLimit(limit, DEFAULT_SEARCH_LIMIT));
+			HttpHeaders headers = new HttpHeaders();
+			if (page.getNextCursor() != null) {
+				headers.add(NEXT_CURSOR_HEADER, page.getNextCursor());
+			}
+			return new ResponseEntity<>(page.getItems(), headers, HttpStatus.OK);
 		} catch (ServiceException e) {
 			throw new ServiceException("Error searching content: " + e.getMessage(), e);
 		}
 	}
 
+	@GetMapping(value = "/search", params = "stream=true", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	@Operation(summary = "Stream every tag or author match as newline-delimited JSON")
+	public ResponseEntity<StreamingResponseBody> streamSearchContent(@RequestParam(value="tag",required = false) String tag,
+			@RequestParam(value="author",required = false) String author,
+			@RequestParam(value="excludeTag",required = false) String excludeTag,
+			@RequestParam(value="excludeAuthor",required = false) String excludeAuthor) {
+		ContentQuery contentQuery = new ContentQuery(tag, author, excludeTag, excludeAuthor);
+		// One document per line, so pretty printing is switched off
+		ObjectWriter writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+		StreamingResponseBody body = outputStream -> {
+			String cursor = null;
+			do {
+				ContentPage page = contentService.searchContent(contentQuery, cursor, STREAM_PAGE_SIZE);
+				for (ContentDTO contentDTO : page.getItems()) {
+					outputStream.write(writer.writeValueAsBytes(contentDTO));
+					outputStream.write('\n');
+				}
+				outputStream.flush();
+				cursor = page.getNextCursor();
+			} while (cursor != null);
+		};
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+	}
+
+	@GetMapping("/facets")
+	@Operation(summary = "Count content per tag and per author, the top ones or those named by tag and author")
+	public ResponseEntity<ContentFacets> getFacets(@RequestParam(value="limit",required = false) Integer limit,
+			@RequestParam(value="tag",required = false) List<String> tags,
+			@RequestParam(value="author",required = false) List<String> authors) {
+		try {
+			ContentFacets facets = contentService.getFacets(clampLimit(limit, DEFAULT_FACET_LIMIT), tags, authors);
+			return new ResponseEntity<>(facets, HttpStatus.OK);
+		} catch (ServiceException e) {
+			throw new ServiceException("Error counting content facets: " + e.getMessage(), e);
+		}
+	}
+
+	private static int clampLimit(Integer limit, int defaultLimit) {
+		if (limit == null) {
+			return defaultLimit;
+		}
+		return Math.max(1, Math.min(limit, MAX_LIMIT));
+	}
+
 	@PatchMapping("/{id}")
-	@Operation(summary = "Update content metadata and children")
+	@Operation(summary = "Update content metadata and children, only at the version named by If-Match when given")
 	public ResponseEntity<ContentDTO> updateContent(@PathVariable("id") String id,
-			@Valid @RequestBody ContentDTO contentDTO) {
+			@Valid @RequestBody ContentDTO contentDTO,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 		try {
-			return contentService.updateContent(id, contentDTO)
-					.map(updatedDTO -> new ResponseEntity<>(updatedDTO, HttpStatus.OK))
+			long expectedVersion = ContentETag.expectedVersion(ifMatch);
+			return contentService.updateContent(id, contentDTO, expectedVersion)
+					.map(updatedDTO -> updatedDTO.getVersion() != null
+							? ResponseEntity.ok().eTag(ContentETag.of(updatedDTO.getVersion(), ContentProjection.FULL)).body(updatedDTO)
+							: ResponseEntity.ok(updatedDTO))
 					.orElseThrow(() -> new ResourceNotFoundException("Content not found with id: " + id));
 		} catch (ServiceException e) {
 			throw new ServiceException("Error updating content with id: " + id + ": " + e.getMessage(), e);
@@ -83,10 +259,11 @@ public class ContentManagementController {
 	}
 
 	@DeleteMapping("/{id}")
-	@Operation(summary = "Delete content and its children by ID")
-	public ResponseEntity<String> deleteContent(@PathVariable("id") String id) {
+	@Operation(summary = "Delete content and its children by ID, only at the version named by If-Match when given")
+	public ResponseEntity<String> deleteContent(@PathVariable("id") String id,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 		try {
-			boolean deleted = contentService.deleteContent(id);
+			boolean deleted = contentService.deleteContent(id, ContentETag.expectedVersion(ifMatch));
 			if (deleted) {
 				return new ResponseEntity<>("Content and children deleted", HttpStatus.OK);
 			}
@@ -0,0 +1,31 @@
+package com.aem.cmis.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOperation {
+
+	public enum Type {
+		CREATE, UPDATE, DELETE
+	}
+
+	@NotNull(message = "Operation type is mandatory")
+	private Type op;
+	// Content to update or delete, not used by create
+	private String id;
+	// Content to create, or the tags and children to update to
+	@Valid
+	private ContentDTO content;
+	// Version the content must still be at, like If-Match; any version when left out
+	private Long expectedVersion;
+}
@@ -0,0 +1,28 @@
+package com.aem.cmis.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOperationResult {
+	// 0-based position of the operation in the request
+	private int index;
+	private BatchOperation.Type op;
+	// Status the operation would have had on its own, 424 when another one failed the batch
+	private int status;
+	private String id;
+	private Long version;
+	// The created or updated content
+	private ContentDTO content;
+	private String error;
+}
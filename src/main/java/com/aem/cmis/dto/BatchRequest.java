@@ -0,0 +1,25 @@
+package com.aem.cmis.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchRequest {
+	@NotEmpty(message = "At least one operation is required")
+	@Size(max = 1000, message = "Maximum 1000 operations per batch")
+	@Valid
+	private List<BatchOperation> operations = new ArrayList<>();
+}
@@ -0,0 +1,23 @@
+package com.aem.cmis.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResult {
+	// Either every operation was applied or none was
+	private boolean applied;
+	// Index of the operation that failed the batch, null once applied
+	private Integer failedIndex;
+	private List<BatchOperationResult> results = new ArrayList<>();
+}
@@ -0,0 +1,18 @@
+package com.aem.cmis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportError {
+	// 1-based line of the record in the uploaded stream
+	private long line;
+	private String message;
+}
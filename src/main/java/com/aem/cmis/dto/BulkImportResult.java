@@ -0,0 +1,23 @@
+package com.aem.cmis.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResult {
+	private long imported;
+	private long failed;
+	// Only the first failures are listed, failed counts all of them
+	private List<BulkImportError> errors = new ArrayList<>();
+
+}
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.sun.istack.NotNull;
 
 import jakarta.validation.constraints.NotBlank;
@@ -41,4 +42,8 @@ public class ContentDTO {
 	// Simulating AEM JCR structure
 	private Map<String, Object> jcrMetadata;
 	private List<ContentDTO> children = new ArrayList<>();
+
+	// Set by the server, send it back in If-Match to update or delete only this version
+	@JsonInclude(JsonInclude.Include.NON_NULL)
+	private Long version;
 }
@@ -0,0 +1,24 @@
+package com.aem.cmis.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.aem.cmis.repository.FacetCount;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentFacets {
+	// The top tags, or the requested ones in the order asked for
+	private List<FacetCount> tags = new ArrayList<>();
+	// Same for authors, lower-cased
+	private List<FacetCount> authors = new ArrayList<>();
+}
@@ -0,0 +1,21 @@
+package com.aem.cmis.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Data
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContentPage {
+	private List<ContentDTO> items = new ArrayList<>();
+	// Opaque cursor for the next page, null on the last page
+	private String nextCursor;
+}
@@ -0,0 +1,69 @@
+package com.aem.cmis.dto;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * What part of a content tree a read returns: how many levels of children and
+ * which fields of every node. The id and version are always included.
+ */
+@Getter
+@EqualsAndHashCode
+public final class ContentProjection {
+
+	public static final int UNLIMITED_DEPTH = Integer.MAX_VALUE;
+
+	public static final Set<String> FIELDS = Set.of("title", "body", "author", "tags", "createdAt", "updatedAt",
+			"path", "jcrMetadata");
+
+	public static final ContentProjection FULL = new ContentProjection(UNLIMITED_DEPTH, FIELDS);
+
+	// Levels of children below the requested node, 0 returns the node alone
+	private final int depth;
+	private final Set<String> fields;
+
+	private ContentProjection(int depth, Set<String> fields) {
+		this.depth = depth;
+		this.fields = fields;
+	}
+
+	/**
+	 * Builds a projection from the {@code depth} and comma separated
+	 * {@code fields} request parameters, either of which may be null.
+	 */
+	public static ContentProjection of(Integer depth, String fields) {
+		if (depth == null && (fields == null || fields.isBlank())) {
+			return FULL;
+		}
+		if (depth != null && depth < 0) {
+			throw new IllegalArgumentException("depth must not be negative: " + depth);
+		}
+		Set<String> selected = FIELDS;
+		if (fields != null && !fields.isBlank()) {
+			selected = new LinkedHashSet<>();
+			for (String field : fields.split(",")) {
+				String name = field.trim();
+				if (name.isEmpty() || name.equals("id") || name.equals("version")) {
+					continue;
+				}
+				if (!FIELDS.contains(name)) {
+					throw new IllegalArgumentException("Unknown field: " + name);
+				}
+				selected.add(name);
+			}
+			selected = Set.copyOf(selected);
+		}
+		return new ContentProjection(depth != null ? depth : UNLIMITED_DEPTH, selected);
+	}
+
+	public boolean includes(String field) {
+		return fields.contains(field);
+	}
+
+	public boolean isFull() {
+		return depth == UNLIMITED_DEPTH && fields.size() == FIELDS.size();
+	}
+}
@@ -0,0 +1,17 @@
+package com.aem.cmis.events;
+
+import java.time.Instant;
+import java.util.List;
+
+import com.aem.cmis.repository.ContentChange;
+
+/**
+ * A write as published on the change feed. Offsets number the events of the
+ * feed without gaps from the start of the process, so a subscriber resumes
+ * after the last one it got as long as the feed's epoch is the same.
+ * {@code affectedIds} are the node, its ancestors and any removed
+ * descendants: every id whose copy the write made stale.
+ */
+public record ContentEvent(long offset, ContentChange.Type type, String id, String path, long version,
+		List<String> affectedIds, Instant time) {
+}
@@ -0,0 +1,268 @@
+package com.aem.cmis.events;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aem.cmis.repository.ContentChange;
+import com.aem.cmis.repository.ContentChangeListener;
+import com.aem.cmis.repository.UlidGenerator;
+
+/**
+ * The last {@code capacity} writes to the repository as {@link ContentEvent}s,
+ * in a ring buffer that overwrites the oldest.
+ *
+ * Subscribers are pushed every event from an offset on. A subscription keeps
+ * only its offset, the ring is the one buffer they all read from, so a slow
+ * subscriber costs no memory; once it falls a whole ring behind, its
+ * {@link OverflowPolicy} decides what happens. Events are sent on the sender
+ * threads, a write only appends and wakes the subscriptions. A subscriber
+ * whose connection blocks holds a sender thread until the write times out.
+ *
+ * Offsets start at 0 in every process, so they are only meaningful with the
+ * log's {@link #getEpoch() epoch}, which event ids carry as
+ * {@code <epoch>:<offset>}. A subscriber resuming from another epoch is reset
+ * rather than handed unrelated events.
+ */
+public class ContentEventLog implements ContentChangeListener, AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContentEventLog.class);
+	// Events a subscription takes from the ring per read
+	private static final int BATCH_SIZE = 256;
+
+	private final ContentEvent[] ring;
+	private final ExecutorService sender;
+	private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+	// New on every start, time ordered so it also tells which feed came later
+	private final String epoch = UlidGenerator.INSTANCE.nextId();
+	// Offset of the next event, guarded by this
+	private long nextOffset;
+
+	/**
+	 * Events read from the ring: {@code events} from {@code fromOffset} on,
+	 * after {@code missed} that were already overwritten.
+	 */
+	public record Batch(List<ContentEvent> events, long missed, long fromOffset) {
+	}
+
+	public ContentEventLog(int capacity, int senderThreads) {
+		this(capacity, Executors.newFixedThreadPool(senderThreads, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "content-events-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		}));
+	}
+
+	public ContentEventLog(int capacity, ExecutorService sender) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Event log capacity must be at least 1: " + capacity);
+		}
+		this.ring = new ContentEvent[capacity];
+		this.sender = sender;
+	}
+
+	@Override
+	public void changed(ContentChange change) {
+		synchronized (this) {
+			ring[(int) (nextOffset % ring.length)] = new ContentEvent(nextOffset, change.getType(), change.getId(),
+					change.getPath(), change.getVersion(), change.getAffectedIds(), Instant.now());
+			nextOffset++;
+		}
+		for (Subscription subscription : subscriptions) {
+			subscription.wake();
+		}
+	}
+
+	public String getEpoch() {
+		return epoch;
+	}
+
+	/**
+	 * The id of the event at {@code offset} as sent to subscribers.
+	 */
+	public String eventId(long offset) {
+		return epoch + ":" + offset;
+	}
+
+	public synchronized long nextOffset() {
+		return nextOffset;
+	}
+
+	public synchronized long oldestOffset() {
+		return Math.max(0, nextOffset - ring.length);
+	}
+
+	public int getCapacity() {
+		return ring.length;
+	}
+
+	public int subscriberCount() {
+		return subscriptions.size();
+	}
+
+	/**
+	 * Up to {@code max} events from {@code fromOffset} on. An offset past the
+	 * end reads from the end, one already overwritten from the oldest event
+	 * kept.
+	 */
+	public synchronized Batch read(long fromOffset, int max) {
+		long from = Math.min(Math.max(fromOffset, 0), nextOffset);
+		long oldest = oldestOffset();
+		long missed = 0;
+		if (from < oldest) {
+			missed = oldest - from;
+			from = oldest;
+		}
+		int count = (int) Math.min(max, nextOffset - from);
+		List<ContentEvent> events = new ArrayList<>(count);
+		for (long offset = from; offset < from + count; offset++) {
+			events.add(ring[(int) (offset % ring.length)]);
+		}
+		return new Batch(events, missed, from);
+	}
+
+	/**
+	 * Sends {@code sink} the events from {@code fromOffset} on, then every new
+	 * one as it is published. Without an offset, or with one past the end,
+	 * only new events are sent.
+	 */
+	public Subscription subscribe(Long fromOffset, OverflowPolicy overflow, ContentEventSink sink) {
+		return subscribe(epoch, fromOffset, overflow, sink);
+	}
+
+	/**
+	 * As {@link #subscribe(Long, OverflowPolicy, ContentEventSink)} with an
+	 * offset of the feed of {@code fromEpoch}. An offset from another epoch
+	 * says nothing about what the subscriber has seen here, so the sink is
+	 * told with {@link ContentEventSink#reset} and then sent every event kept.
+	 */
+	public Subscription subscribe(String fromEpoch, Long fromOffset, OverflowPolicy overflow, ContentEventSink sink) {
+		Subscription subscription;
+		if (fromOffset != null && !epoch.equals(fromEpoch)) {
+			subscription = new Subscription(oldestOffset(), true, overflow, sink);
+		} else {
+			long end = nextOffset();
+			subscription = new Subscription(fromOffset != null ? Math.min(fromOffset, end) : end, false, overflow,
+					sink);
+		}
+		subscriptions.add(subscription);
+		subscription.wake();
+		return subscription;
+	}
+
+	@Override
+	public void close() {
+		for (Subscription subscription : subscriptions) {
+			subscription.end();
+		}
+		sender.shutdownNow();
+	}
+
+	/**
+	 * One subscriber's position in the feed. At most one sender thread works
+	 * on it at a time, so its sink sees one call at a time.
+	 */
+	public final class Subscription implements Runnable {
+		private final OverflowPolicy overflow;
+		private final ContentEventSink sink;
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private final AtomicBoolean cancelled = new AtomicBoolean();
+		// Next offset to send, only touched by the sender thread working on it
+		private volatile long offset;
+		// Whether the sink has yet to be told its offset was from another epoch
+		private volatile boolean reset;
+
+		private Subscription(long offset, boolean reset, OverflowPolicy overflow, ContentEventSink sink) {
+			this.offset = offset;
+			this.reset = reset;
+			this.overflow = overflow;
+			this.sink = sink;
+		}
+
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * Stops sending, for when the subscriber went away. The sink is not
+		 * closed.
+		 */
+		public void cancel() {
+			if (cancelled.compareAndSet(false, true)) {
+				subscriptions.remove(this);
+			}
+		}
+
+		// Ends the subscription from the log's side
+		private void end() {
+			if (cancelled.compareAndSet(false, true)) {
+				subscriptions.remove(this);
+				sink.close();
+			}
+		}
+
+		private void wake() {
+			if (!cancelled.get() && scheduled.compareAndSet(false, true)) {
+				try {
+					sender.execute(this);
+				} catch (RejectedExecutionException e) {
+					scheduled.set(false);
+					end();
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				if (reset) {
+					reset = false;
+					sink.reset(offset);
+				}
+				while (!cancelled.get()) {
+					Batch batch = read(offset, BATCH_SIZE);
+					if (batch.missed() > 0) {
+						sink.missed(batch.missed(), batch.fromOffset());
+						if (overflow == OverflowPolicy.DISCONNECT) {
+							end();
+							return;
+						}
+					}
+					if (batch.events().isEmpty()) {
+						break;
+					}
+					for (ContentEvent event : batch.events()) {
+						sink.send(event);
+					}
+					offset = batch.fromOffset() + batch.events().size();
+				}
+			} catch (IOException | RuntimeException e) {
+				LOGGER.debug("Content event subscriber at offset {} failed, ending its subscription", offset, e);
+				end();
+				return;
+			} finally {
+				scheduled.set(false);
+			}
+			// An event published after the last read but before scheduled was cleared found it still set
+			if (offset < nextOffset()) {
+				wake();
+			}
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.aem.cmis.events;
+
+import java.io.IOException;
+
+/**
+ * Where a subscription of the {@link ContentEventLog} delivers its events,
+ * one call at a time. A call that throws ends the subscription.
+ */
+public interface ContentEventSink {
+
+	void send(ContentEvent event) throws IOException;
+
+	/**
+	 * {@code missed} events were overwritten before they could be sent, the
+	 * next one is at {@code resumeOffset}.
+	 */
+	void missed(long missed, long resumeOffset) throws IOException;
+
+	/**
+	 * The subscriber resumed from an offset of another epoch, a feed from
+	 * before a restart, and may have missed any number of events. The next one
+	 * is at {@code resumeOffset}.
+	 */
+	void reset(long resumeOffset) throws IOException;
+
+	/**
+	 * The subscription ended on the log's side.
+	 */
+	void close();
+
+}
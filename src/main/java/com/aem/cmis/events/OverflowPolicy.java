@@ -0,0 +1,14 @@
+package com.aem.cmis.events;
+
+/**
+ * What happens to a subscriber that falls so far behind that events it has
+ * not been sent yet are overwritten in the {@link ContentEventLog}. Either way
+ * it is told how many it missed, and should treat everything it holds as
+ * stale.
+ */
+public enum OverflowPolicy {
+	// Carries on from the oldest event still kept
+	SKIP,
+	// Is disconnected
+	DISCONNECT
+}
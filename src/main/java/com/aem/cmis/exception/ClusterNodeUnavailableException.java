@@ -0,0 +1,16 @@
+package com.aem.cmis.exception;
+
+public class ClusterNodeUnavailableException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	private final String nodeId;
+
+	public ClusterNodeUnavailableException(String nodeId, String message) {
+		super(message);
+		this.nodeId = nodeId;
+	}
+
+	public String getNodeId() {
+		return nodeId;
+	}
+}
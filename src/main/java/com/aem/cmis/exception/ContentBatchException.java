@@ -0,0 +1,22 @@
+package com.aem.cmis.exception;
+
+/**
+ * A batch of writes that was not applied because one of them could not be.
+ * The cause says why: a {@link ResourceNotFoundException} or a
+ * {@link ContentVersionConflictException}.
+ */
+public class ContentBatchException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	private final int index;
+
+	public ContentBatchException(int index, RuntimeException cause) {
+		super("Operation " + index + " of the batch failed: " + cause.getMessage(), cause);
+		this.index = index;
+	}
+
+	// 0-based position of the failed write in the batch
+	public int getIndex() {
+		return index;
+	}
+}
@@ -0,0 +1,21 @@
+package com.aem.cmis.exception;
+
+import java.util.List;
+
+/**
+ * Everything wrong with a content tree, collected in one pass over it.
+ */
+public class ContentValidationException extends IllegalArgumentException {
+	private static final long serialVersionUID = 1L;
+
+	private final List<String> errors;
+
+	public ContentValidationException(List<String> errors) {
+		super(String.join("; ", errors));
+		this.errors = List.copyOf(errors);
+	}
+
+	public List<String> getErrors() {
+		return errors;
+	}
+}
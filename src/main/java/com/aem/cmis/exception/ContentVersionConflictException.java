@@ -0,0 +1,22 @@
+package com.aem.cmis.exception;
+
+public class ContentVersionConflictException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	private final String id;
+	private final long currentVersion;
+
+	public ContentVersionConflictException(String id, long expectedVersion, long currentVersion) {
+		super("Content " + id + " is at version " + currentVersion + ", not " + expectedVersion);
+		this.id = id;
+		this.currentVersion = currentVersion;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public long getCurrentVersion() {
+		return currentVersion;
+	}
+}
@@ -1,5 +1,6 @@
 package com.aem.cmis.exception;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -7,14 +8,31 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import com.aem.cmis.dto.ContentProjection;
+import com.aem.cmis.metrics.ContentMetrics;
+import com.aem.cmis.service.ContentETag;
+
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
+	// Controller method -> the service operation its body is validated for, as ContentMetrics tags it
+	private static final Map<String, String> VALIDATED_OPERATIONS = Map.of("createContent", "create",
+			"updateContent", "update", "applyBatch", "batch");
+
+	private final ContentMetrics metrics;
+
+	public GlobalExceptionHandler(ObjectProvider<ContentMetrics> metrics) {
+		this.metrics = metrics.getIfAvailable(() -> ContentMetrics.NONE);
+	}
+
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	public ResponseEntity<ErrorResponse> handleValidationExceptions(MethodArgumentNotValidException ex) {
+		String method = ex.getParameter().getMethod() != null ? ex.getParameter().getMethod().getName() : "unknown";
+		metrics.validationFailed(VALIDATED_OPERATIONS.getOrDefault(method, method));
 		List<String> details = ex.getBindingResult().getFieldErrors().stream().map(FieldError::getDefaultMessage)
 				.collect(Collectors.toList());
 		ErrorResponse error = new ErrorResponse(LocalDateTime.now(), HttpStatus.BAD_REQUEST.value(), "Validation Failed",
@@ -22,6 +40,13 @@ public class GlobalExceptionHandler {
 		return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
 	}
 
+	@ExceptionHandler(ContentValidationException.class)
+	public ResponseEntity<ErrorResponse> handleContentValidationException(ContentValidationException ex) {
+		ErrorResponse error = new ErrorResponse(LocalDateTime.now(), HttpStatus.BAD_REQUEST.value(), "Validation Failed",
+				"Invalid input data", ex.getErrors());
+		return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+	}
+
 	@ExceptionHandler(ResourceNotFoundException.class)
 	public ResponseEntity<ErrorResponse> handleResourceNotFoundException(ResourceNotFoundException ex) {
 		ErrorResponse error = new ErrorResponse(LocalDateTime.now(),HttpStatus.NOT_FOUND.value(), "Not Found", ex.getMessage(),
@@ -29,6 +54,21 @@ public class GlobalExceptionHandler {
 		return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
 	}
 
+	@ExceptionHandler(ContentVersionConflictException.class)
+	public ResponseEntity<ErrorResponse> handleVersionConflictException(ContentVersionConflictException ex) {
+		ErrorResponse error = new ErrorResponse(LocalDateTime.now(), HttpStatus.PRECONDITION_FAILED.value(), "Precondition Failed",
+				ex.getMessage(), List.of(ex.getMessage()));
+		// The current version, so the client can re-read and retry
+		return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(ContentETag.of(ex.getCurrentVersion(), ContentProjection.FULL)).body(error);
+	}
+
+	@ExceptionHandler(IllegalArgumentException.class)
+	public ResponseEntity<ErrorResponse> handleIllegalArgumentException(IllegalArgumentException ex) {
+		ErrorResponse error = new ErrorResponse(LocalDateTime.now(), HttpStatus.BAD_REQUEST.value(), "Bad Request", ex.getMessage(),
+				List.of(ex.getMessage()));
+		return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+	}
+
 	@ExceptionHandler(Exception.class)
 	public ResponseEntity<ErrorResponse> handleGenericException(Exception ex) {
 		ErrorResponse error = new ErrorResponse(LocalDateTime.now(),HttpStatus.INTERNAL_SERVER_ERROR.value(), "Server Error",
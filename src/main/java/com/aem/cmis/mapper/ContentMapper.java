@@ -1,70 +1,141 @@
 package com.aem.cmis.mapper;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.stream.Collectors;
+import java.util.List;
 
 import org.hibernate.service.spi.ServiceException;
 import org.springframework.stereotype.Component;
 
 import com.aem.cmis.dto.ContentDTO;
+import com.aem.cmis.dto.ContentProjection;
+import com.aem.cmis.exception.ContentValidationException;
 import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.model.TreeWalker;
 
 @Component
 public class ContentMapper {
 	
+	// More errors than this are counted but not listed
+	private static final int MAX_REPORTED_ERRORS = 100;
+
+	/**
+	 * Validates the whole tree first, reporting every invalid node at once,
+	 * then maps it. Neither pass recurses, so any depth is accepted.
+	 */
 	public Content mapToContent(ContentDTO dto) {
-		try {
-            if (dto == null) {
-                throw new ServiceException("ContentDTO cannot be null");
-            }
-            if (dto.getTitle() == null || dto.getTitle().isBlank()) {
-                throw new ServiceException("Title is mandatory for ContentDTO");
-            }
-            if (dto.getBody() == null || dto.getBody().isBlank()) {
-                throw new ServiceException("Body is mandatory for ContentDTO");
-            }
-            if (dto.getAuthor() == null || dto.getAuthor().isBlank()) {
-                throw new ServiceException("Author is mandatory for ContentDTO");
-            }
+		List<String> errors = validate(dto);
+		if (!errors.isEmpty()) {
+			throw new ContentValidationException(errors);
+		}
+		return TreeWalker.map(dto, (node, depth) -> node.getChildren(), (node, children, depth) -> {
+			Content content = new Content();
+			content.setId(node.getId());
+			content.setTitle(node.getTitle());
+			content.setBody(node.getBody());
+			content.setAuthor(node.getAuthor());
+			content.setTags(node.getTags());
+			content.setCreatedAt(node.getCreatedAt());
+			content.setUpdatedAt(node.getUpdatedAt());
+			content.setPath(node.getPath());
+			content.setJcrMetadata(node.getJcrMetadata());
+			content.setChildren(children != null ? children : Collections.emptyList());
+			return content;
+		});
+	}
 
-            Content content = new Content();
-            content.setId(dto.getId());
-            content.setTitle(dto.getTitle());
-            content.setBody(dto.getBody());
-            content.setAuthor(dto.getAuthor());
-            content.setTags(dto.getTags());
-            content.setCreatedAt(dto.getCreatedAt());
-            content.setUpdatedAt(dto.getUpdatedAt());
-            content.setJcrMetadata(dto.getJcrMetadata());
-            content.setChildren(dto.getChildren() != null
-                    ? dto.getChildren().stream().map(this::mapToContent).collect(Collectors.toList())
-                    : Collections.emptyList());
-            return content;
-        } catch (Exception e) {
-            throw new ServiceException("Failed to map ContentDTO to Content: " + e.getMessage(), e);
-        }
+	private static List<String> validate(ContentDTO root) {
+		List<String> errors = new ArrayList<>();
+		int[] count = new int[1];
+		TreeWalker.visit(root, (node, depth) -> node.getChildren(), (node, depth) -> {
+			List<String> nodeErrors = new ArrayList<>(3);
+			if (node == null) {
+				nodeErrors.add("ContentDTO cannot be null");
+			} else {
+				if (node.getTitle() == null || node.getTitle().isBlank()) {
+					nodeErrors.add("Title is mandatory");
+				}
+				if (node.getBody() == null || node.getBody().isBlank()) {
+					nodeErrors.add("Body is mandatory");
+				}
+				if (node.getAuthor() == null || node.getAuthor().isBlank()) {
+					nodeErrors.add("Author is mandatory");
+				}
+			}
+			for (String error : nodeErrors) {
+				if (count[0]++ < MAX_REPORTED_ERRORS) {
+					errors.add(error + " (" + location(node, depth) + ")");
+				}
+			}
+		});
+		if (count[0] > MAX_REPORTED_ERRORS) {
+			errors.add((count[0] - MAX_REPORTED_ERRORS) + " more errors not listed");
+		}
+		return errors;
+	}
+
+	// The node's path when it has one, which is what a client will recognise
+	private static String location(ContentDTO node, int depth) {
+		if (node != null && node.getPath() != null && !node.getPath().isBlank()) {
+			return node.getPath();
+		}
+		return depth == 0 ? "root" : "depth " + depth;
+	}
+
+    public ContentDTO mapToContentDTO(ContentNode content) {
+        return mapToContentDTO(content, ContentProjection.FULL);
     }
 
-    public ContentDTO mapToContentDTO(Content content) {
-    	try {
-            if (content == null) {
-                throw new ServiceException("Content cannot be null");
-            }
-            ContentDTO dto = new ContentDTO();
-            dto.setId(content.getId());
-            dto.setTitle(content.getTitle());
-            dto.setBody(content.getBody());
-            dto.setAuthor(content.getAuthor());
-            dto.setTags(content.getTags());
-            dto.setCreatedAt(content.getCreatedAt());
-            dto.setUpdatedAt(content.getUpdatedAt());
-            dto.setJcrMetadata(content.getJcrMetadata());
-            dto.setChildren(content.getChildren() != null
-                    ? content.getChildren().stream().map(this::mapToContentDTO).collect(Collectors.toList())
-                    : Collections.emptyList());
-            return dto;
+    /**
+     * Maps only the selected fields, and children only down to the projected
+     * depth. Deeper nodes are not visited and their {@code children} stay null.
+     */
+    public ContentDTO mapToContentDTO(ContentNode content, ContentProjection projection) {
+        try {
+            return mapProjected(content, projection);
         } catch (Exception e) {
             throw new ServiceException("Failed to map Content to ContentDTO: " + e.getMessage(), e);
         }
     }
+
+    private ContentDTO mapProjected(ContentNode content, ContentProjection projection) {
+        if (content == null) {
+            throw new ServiceException("Content cannot be null");
+        }
+        return TreeWalker.map(content,
+                (node, depth) -> depth < projection.getDepth() ? node.getChildren() : null,
+                (node, children, depth) -> {
+                    ContentDTO dto = new ContentDTO();
+                    dto.setId(node.getId());
+                    dto.setVersion(node.getVersion());
+                    if (projection.includes("title")) {
+                        dto.setTitle(node.getTitle());
+                    }
+                    if (projection.includes("body")) {
+                        dto.setBody(node.getBody());
+                    }
+                    if (projection.includes("author")) {
+                        dto.setAuthor(node.getAuthor());
+                    }
+                    if (projection.includes("tags")) {
+                        dto.setTags(node.getTags());
+                    }
+                    if (projection.includes("createdAt")) {
+                        dto.setCreatedAt(node.getCreatedAt());
+                    }
+                    if (projection.includes("updatedAt")) {
+                        dto.setUpdatedAt(node.getUpdatedAt());
+                    }
+                    if (projection.includes("path")) {
+                        dto.setPath(node.getPath());
+                    }
+                    if (projection.includes("jcrMetadata")) {
+                        dto.setJcrMetadata(node.getJcrMetadata());
+                    }
+                    // Null below the projected depth
+                    dto.setChildren(children);
+                    return dto;
+                });
+    }
 }
@@ -0,0 +1,159 @@
+package com.aem.cmis.metrics;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.aem.cmis.exception.ContentValidationException;
+import com.aem.cmis.exception.ContentVersionConflictException;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.TreeWalker;
+import com.aem.cmis.repository.InMemoryContentRepository;
+import com.aem.cmis.repository.index.ContentIndex;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+/**
+ * Meters for content operations and the shape of the store, published through
+ * {@code /actuator/metrics} and {@code /actuator/prometheus}:
+ *
+ * <ul>
+ * <li>{@code content.operations}: timer per service operation and outcome
+ * ({@code success}, {@code not_found}, {@code invalid}, {@code conflict},
+ * {@code error})</li>
+ * <li>{@code content.not.found}, {@code content.validation.failures}: counters
+ * per operation, the latter also counting bodies rejected before the service
+ * runs</li>
+ * <li>{@code content.tree.depth}, {@code content.tree.fanout}: levels and most
+ * children of any node, per tree written</li>
+ * <li>{@code content.store.nodes}, {@code content.store.roots},
+ * {@code content.store.heap.estimate}, {@code content.index.size}: gauges read
+ * from the repository on every scrape</li>
+ * </ul>
+ */
+public class ContentMetrics {
+
+	// Meters go nowhere, for services built without a registry
+	public static final ContentMetrics NONE = new ContentMetrics(new CompositeMeterRegistry());
+
+	private static final String SUCCESS = "success";
+	private static final String NOT_FOUND = "not_found";
+	private static final String INVALID = "invalid";
+	private static final String CONFLICT = "conflict";
+	private static final String ERROR = "error";
+
+	private final MeterRegistry registry;
+	// operation and outcome -> timer, so a call does not look the timer up in the registry
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+	private final DistributionSummary treeDepth;
+	private final DistributionSummary treeFanOut;
+
+	public ContentMetrics(MeterRegistry registry) {
+		this.registry = registry;
+		this.treeDepth = DistributionSummary.builder("content.tree.depth")
+				.description("Levels of a written content tree")
+				.publishPercentileHistogram()
+				.register(registry);
+		this.treeFanOut = DistributionSummary.builder("content.tree.fanout")
+				.description("Most children of any node in a written content tree")
+				.publishPercentileHistogram()
+				.register(registry);
+	}
+
+	/**
+	 * Registers the store gauges. They hold the repository weakly and read it
+	 * only when scraped.
+	 */
+	public void monitor(InMemoryContentRepository repository) {
+		Gauge.builder("content.store.nodes", repository, InMemoryContentRepository::nodeCount)
+				.description("Content nodes in the store")
+				.register(registry);
+		Gauge.builder("content.store.roots", repository, InMemoryContentRepository::rootCount)
+				.description("Content trees in the store")
+				.register(registry);
+		Gauge.builder("content.store.heap.estimate", repository, InMemoryContentRepository::estimatedHeapBytes)
+				.description("Estimated heap held by the stored nodes")
+				.baseUnit("bytes")
+				.register(registry);
+		for (ContentIndex index : repository.getIndexes()) {
+			Gauge.builder("content.index.size", index, ContentIndex::size)
+					.description("Distinct keys held by a secondary index")
+					.tag("index", index.getClass().getSimpleName())
+					.register(registry);
+		}
+	}
+
+	/**
+	 * Runs and times one service operation. An empty {@link Optional} or
+	 * {@code false} result counts as not found.
+	 */
+	public <T> T time(String operation, Supplier<T> call) {
+		long start = System.nanoTime();
+		String outcome = ERROR;
+		try {
+			T result = call.get();
+			outcome = isNotFound(result) ? NOT_FOUND : SUCCESS;
+			return result;
+		} catch (ContentValidationException e) {
+			outcome = INVALID;
+			throw e;
+		} catch (ContentVersionConflictException e) {
+			outcome = CONFLICT;
+			throw e;
+		} finally {
+			timer(operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			if (outcome.equals(NOT_FOUND)) {
+				registry.counter("content.not.found", "operation", operation).increment();
+			} else if (outcome.equals(INVALID)) {
+				validationFailed(operation);
+			}
+		}
+	}
+
+	/**
+	 * Counts a request of {@code operation} rejected as invalid, including one
+	 * whose body fails its {@code @Valid} constraints before the service runs.
+	 */
+	public void validationFailed(String operation) {
+		registry.counter("content.validation.failures", "operation", operation).increment();
+	}
+
+	private static boolean isNotFound(Object result) {
+		return (result instanceof Optional<?> optional && optional.isEmpty()) || Boolean.FALSE.equals(result);
+	}
+
+	private Timer timer(String operation, String outcome) {
+		return timers.computeIfAbsent(operation + ':' + outcome, key -> Timer.builder("content.operations")
+				.description("Content service operations")
+				.tag("operation", operation)
+				.tag("outcome", outcome)
+				.publishPercentileHistogram()
+				.register(registry));
+	}
+
+	/**
+	 * Records the depth and fan-out of a tree about to be written, and its
+	 * size and depth on the {@link RequestTiming} of the request.
+	 */
+	public void recordTree(Content root) {
+		// depth, fan-out, nodes
+		int[] shape = new int[3];
+		TreeWalker.visit(root, (node, depth) -> node.getChildren(), (node, depth) -> {
+			shape[2]++;
+			shape[0] = Math.max(shape[0], depth + 1);
+			if (node.getChildren() != null) {
+				shape[1] = Math.max(shape[1], node.getChildren().size());
+			}
+		});
+		treeDepth.record(shape[0]);
+		treeFanOut.record(shape[1]);
+		RequestTiming.tree(shape[2], shape[0]);
+	}
+}
@@ -0,0 +1,133 @@
+package com.aem.cmis.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Time spent per phase of one request, e.g. {@code validate}, {@code mapper},
+ * {@code repository} or {@code serialize}. The {@link ServerTimingFilter}
+ * starts one per request on the request thread; code that wants its work
+ * broken out wraps it in {@link #phase}, which just runs the call when there is
+ * no request being timed. Phases are not nested, a phase inside another is
+ * counted in both.
+ */
+public final class RequestTiming {
+
+	private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+	private final long startNanos = System.nanoTime();
+	// phase -> nanos, in the order the phases first ran
+	private final Map<String, Long> phases = new LinkedHashMap<>();
+	private int treeNodes = -1;
+	private int treeDepth = -1;
+	// Start of the phase timed by mark and endMark, 0 when none is running
+	private long markNanos;
+
+	RequestTiming() {
+	}
+
+	static RequestTiming start() {
+		RequestTiming timing = new RequestTiming();
+		CURRENT.set(timing);
+		return timing;
+	}
+
+	static void clear() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * Runs {@code call}, adding its time to the phase {@code name} of the
+	 * request on this thread, if any.
+	 */
+	public static <T> T phase(String name, Supplier<T> call) {
+		RequestTiming timing = CURRENT.get();
+		if (timing == null) {
+			return call.get();
+		}
+		long start = System.nanoTime();
+		try {
+			return call.get();
+		} finally {
+			timing.add(name, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Starts timing a phase whose start and end are seen by different calls,
+	 * such as reading the request body.
+	 */
+	static void mark() {
+		RequestTiming timing = CURRENT.get();
+		if (timing != null) {
+			timing.markNanos = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Ends the phase started by {@link #mark()} as {@code name}.
+	 */
+	static void endMark(String name) {
+		RequestTiming timing = CURRENT.get();
+		if (timing != null && timing.markNanos != 0) {
+			timing.add(name, System.nanoTime() - timing.markNanos);
+			timing.markNanos = 0;
+		}
+	}
+
+	/**
+	 * Notes the shape of the tree the request writes, kept with slow requests.
+	 */
+	public static void tree(int nodes, int depth) {
+		RequestTiming timing = CURRENT.get();
+		if (timing != null) {
+			timing.setTree(nodes, depth);
+		}
+	}
+
+	// Synchronized, a streaming response reads the phases from another thread
+	synchronized void add(String name, long nanos) {
+		phases.merge(name, nanos, Long::sum);
+	}
+
+	private synchronized void setTree(int nodes, int depth) {
+		treeNodes = nodes;
+		treeDepth = depth;
+	}
+
+	long startNanos() {
+		return startNanos;
+	}
+
+	synchronized Map<String, Long> phases() {
+		return new LinkedHashMap<>(phases);
+	}
+
+	synchronized int treeNodes() {
+		return treeNodes;
+	}
+
+	synchronized int treeDepth() {
+		return treeDepth;
+	}
+
+	/**
+	 * The {@code Server-Timing} header value: every phase so far and the
+	 * {@code total} up to {@code nowNanos}, in milliseconds.
+	 */
+	synchronized String header(long nowNanos) {
+		StringBuilder header = new StringBuilder();
+		for (Map.Entry<String, Long> phase : phases.entrySet()) {
+			appendMetric(header, phase.getKey(), phase.getValue());
+			header.append(", ");
+		}
+		appendMetric(header, "total", nowNanos - startNanos);
+		return header.toString();
+	}
+
+	private static void appendMetric(StringBuilder header, String name, long nanos) {
+		header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1e6));
+	}
+}
@@ -0,0 +1,210 @@
+package com.aem.cmis.metrics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Times every request with a {@link RequestTiming} and sends the phases in a
+ * {@code Server-Timing} header. The header goes out with the first byte of the
+ * body, so work done while the body is written, usually Jackson serializing
+ * the result, is not in it; requests slower than the threshold of the
+ * {@link SlowRequestLog} are kept there with that {@code write} phase too.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+	public static final String SERVER_TIMING = "Server-Timing";
+
+	// Where ContentEventController streams its events
+	private static final String EVENT_STREAM_PATH = "/content/events";
+
+	private final SlowRequestLog slowRequests;
+
+	public ServerTimingFilter(SlowRequestLog slowRequests) {
+		this.slowRequests = slowRequests;
+	}
+
+	/**
+	 * The event stream stays open for as long as its client listens, its
+	 * timing says nothing about the server. It is told by its path, whatever
+	 * the client accepts.
+	 */
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		return path.equals(EVENT_STREAM_PATH) || path.equals(EVENT_STREAM_PATH + "/");
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		RequestTiming timing = RequestTiming.start();
+		TimedResponse timedResponse = new TimedResponse(response, timing);
+		try {
+			chain.doFilter(request, timedResponse);
+		} finally {
+			RequestTiming.clear();
+			if (request.isAsyncStarted()) {
+				// Streamed responses are written after this returns, finish when they are done
+				request.getAsyncContext().addListener(new AsyncListener() {
+					@Override
+					public void onComplete(AsyncEvent event) {
+						finish(request, timedResponse, timing);
+					}
+
+					@Override
+					public void onTimeout(AsyncEvent event) {
+					}
+
+					@Override
+					public void onError(AsyncEvent event) {
+					}
+
+					@Override
+					public void onStartAsync(AsyncEvent event) {
+					}
+				});
+			} else {
+				finish(request, timedResponse, timing);
+			}
+		}
+	}
+
+	private void finish(HttpServletRequest request, TimedResponse response, RequestTiming timing) {
+		long end = System.nanoTime();
+		// A response without a body, a 304 for one, still gets its header
+		response.sendTiming(end);
+		long total = end - timing.startNanos();
+		if (!slowRequests.isSlow(total)) {
+			return;
+		}
+		Map<String, Double> phases = new LinkedHashMap<>();
+		timing.phases().forEach((phase, nanos) -> phases.put(phase, nanos / 1e6));
+		if (response.bodyStartNanos > 0) {
+			phases.put("write", (end - response.bodyStartNanos) / 1e6);
+		}
+		String uri = request.getQueryString() != null
+				? request.getRequestURI() + '?' + request.getQueryString()
+				: request.getRequestURI();
+		slowRequests.add(new SlowRequest(Instant.now(), request.getMethod(), uri, response.getStatus(), total / 1e6,
+				phases, request.getContentLengthLong(), response.bodyBytes(),
+				timing.treeNodes() >= 0 ? timing.treeNodes() : null,
+				timing.treeDepth() >= 0 ? timing.treeDepth() : null));
+	}
+
+	/**
+	 * Sets the header just before the response commits and counts the body
+	 * bytes written through the output stream.
+	 */
+	private static final class TimedResponse extends HttpServletResponseWrapper {
+		private final RequestTiming timing;
+		private volatile long bodyStartNanos;
+		private CountingOutputStream output;
+
+		TimedResponse(HttpServletResponse response, RequestTiming timing) {
+			super(response);
+			this.timing = timing;
+		}
+
+		synchronized void sendTiming(long nowNanos) {
+			if (bodyStartNanos == 0) {
+				bodyStartNanos = nowNanos;
+				if (!isCommitted()) {
+					setHeader(SERVER_TIMING, timing.header(nowNanos));
+				}
+			}
+		}
+
+		synchronized long bodyBytes() {
+			return output != null ? output.count : -1;
+		}
+
+		@Override
+		public synchronized ServletOutputStream getOutputStream() throws IOException {
+			sendTiming(System.nanoTime());
+			if (output == null) {
+				output = new CountingOutputStream(super.getOutputStream());
+			}
+			return output;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			sendTiming(System.nanoTime());
+			return super.getWriter();
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			sendTiming(System.nanoTime());
+			super.flushBuffer();
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			sendTiming(System.nanoTime());
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			sendTiming(System.nanoTime());
+			super.sendError(sc);
+		}
+	}
+
+	private static final class CountingOutputStream extends ServletOutputStream {
+		private final ServletOutputStream delegate;
+		private volatile long count;
+
+		CountingOutputStream(ServletOutputStream delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			delegate.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			delegate.write(b, off, len);
+			count += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			delegate.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			delegate.close();
+		}
+
+		@Override
+		public boolean isReady() {
+			return delegate.isReady();
+		}
+
+		@Override
+		public void setWriteListener(WriteListener writeListener) {
+			delegate.setWriteListener(writeListener);
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package com.aem.cmis.metrics;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A request that took at least the slow request threshold, with its phases in
+ * milliseconds. {@code write} is the time spent writing the response body
+ * after the handler returned, which is where Jackson serializes most
+ * responses. Byte counts are -1 and tree figures null when not known.
+ */
+public record SlowRequest(Instant at, String method, String uri, int status, double totalMillis,
+		Map<String, Double> phasesMillis, long requestBytes, long responseBytes, Integer treeNodes,
+		Integer treeDepth) {
+}
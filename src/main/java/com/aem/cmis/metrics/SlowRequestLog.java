@@ -0,0 +1,67 @@
+package com.aem.cmis.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The last {@code capacity} requests that took at least {@code threshold}, in
+ * a ring that overwrites the oldest. Only slow requests take the lock, so the
+ * cost for the others is one comparison.
+ */
+public class SlowRequestLog {
+
+	private final long thresholdNanos;
+	private final SlowRequest[] ring;
+	// Requests ever added, the next one goes to ring[added % ring.length]
+	private long added;
+
+	public SlowRequestLog(long thresholdMillis, int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+		}
+		this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+		this.ring = new SlowRequest[capacity];
+	}
+
+	public boolean isSlow(long nanos) {
+		return nanos >= thresholdNanos;
+	}
+
+	public long getThresholdMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+	}
+
+	public int getCapacity() {
+		return ring.length;
+	}
+
+	public synchronized void add(SlowRequest request) {
+		ring[(int) (added++ % ring.length)] = request;
+	}
+
+	/**
+	 * Slow requests seen since start, including the ones overwritten.
+	 */
+	public synchronized long getAdded() {
+		return added;
+	}
+
+	/**
+	 * The requests still held, newest first.
+	 */
+	public synchronized List<SlowRequest> recent() {
+		int held = (int) Math.min(added, ring.length);
+		List<SlowRequest> recent = new ArrayList<>(held);
+		for (long i = added - 1; i >= added - held; i--) {
+			recent.add(ring[(int) (i % ring.length)]);
+		}
+		return recent;
+	}
+
+	public synchronized void clear() {
+		Arrays.fill(ring, null);
+		added = 0;
+	}
+}
@@ -0,0 +1,37 @@
+package com.aem.cmis.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * {@code /actuator/slowrequests}: the requests held by the
+ * {@link SlowRequestLog}, newest first. A {@code DELETE} empties it.
+ */
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+
+	private final SlowRequestLog slowRequests;
+
+	public SlowRequestsEndpoint(SlowRequestLog slowRequests) {
+		this.slowRequests = slowRequests;
+	}
+
+	@ReadOperation
+	public Map<String, Object> slowRequests() {
+		Map<String, Object> result = new LinkedHashMap<>();
+		result.put("thresholdMillis", slowRequests.getThresholdMillis());
+		result.put("capacity", slowRequests.getCapacity());
+		result.put("seen", slowRequests.getAdded());
+		result.put("requests", slowRequests.recent());
+		return result;
+	}
+
+	@DeleteOperation
+	public void clear() {
+		slowRequests.clear();
+	}
+}
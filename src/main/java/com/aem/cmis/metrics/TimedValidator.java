@@ -0,0 +1,38 @@
+package com.aem.cmis.metrics;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+
+/**
+ * Validator for {@code @Valid} arguments that counts the bean validation as
+ * the {@code validate} phase of the {@link RequestTiming}.
+ */
+public class TimedValidator implements SmartValidator {
+
+	private final SmartValidator delegate;
+
+	public TimedValidator(SmartValidator delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public boolean supports(Class<?> clazz) {
+		return delegate.supports(clazz);
+	}
+
+	@Override
+	public void validate(Object target, Errors errors) {
+		RequestTiming.phase("validate", () -> {
+			delegate.validate(target, errors);
+			return null;
+		});
+	}
+
+	@Override
+	public void validate(Object target, Errors errors, Object... validationHints) {
+		RequestTiming.phase("validate", () -> {
+			delegate.validate(target, errors, validationHints);
+			return null;
+		});
+	}
+}
@@ -0,0 +1,179 @@
+package com.aem.cmis.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Immutable version of a stored content node. Collections are copied with
+ * {@code List.copyOf}/{@code Map.copyOf}, which return already immutable
+ * instances as they are, so a new version shares every list, map and child it
+ * does not change with the version it replaces.
+ *
+ * Nodes are laid out for a store holding millions of them. Timestamps are
+ * kept as primitives and built on read. Authors, tags, tag lists and metadata
+ * are interned, so nodes with the same values share one instance of them.
+ * A {@code jcr:created} or {@code jcr:lastModified} entry that is just the
+ * text of the node's own timestamp is not stored at all but derived from it,
+ * which leaves most nodes with the same small metadata map.
+ */
+@Getter
+public final class ContentNode {
+	private static final String CREATED = "jcr:created";
+	private static final String LAST_MODIFIED = "jcr:lastModified";
+	// Bits of derivedMetadata
+	private static final int DERIVED_CREATED = 1;
+	private static final int DERIVED_LAST_MODIFIED = 2;
+	// Seconds of a missing timestamp
+	private static final long NO_TIME = Long.MIN_VALUE;
+	// Distinct values each dictionary shares, later ones are kept per node
+	private static final int MAX_INTERNED = 100_000;
+	private static final Interner<String> STRINGS = new Interner<>(MAX_INTERNED);
+	private static final Interner<List<String>> TAG_LISTS = new Interner<>(MAX_INTERNED);
+	private static final Interner<Map<String, Object>> METADATA = new Interner<>(MAX_INTERNED);
+
+	private final String id;
+	private final String title;
+	private final String body;
+	private final String author;
+	private final List<String> tags;
+	// Seconds and nanoseconds since the epoch, as UTC
+	@Getter(AccessLevel.NONE)
+	private final long createdSeconds;
+	@Getter(AccessLevel.NONE)
+	private final int createdNanos;
+	@Getter(AccessLevel.NONE)
+	private final long updatedSeconds;
+	@Getter(AccessLevel.NONE)
+	private final int updatedNanos;
+	private final String path;
+
+	// Simulating AEM JCR structure, without the entries derived from the timestamps
+	@Getter(AccessLevel.NONE)
+	private final Map<String, Object> metadata;
+	@Getter(AccessLevel.NONE)
+	private final byte derivedMetadata;
+	private final List<ContentNode> children;
+	// Starts at 1 and grows with every write to the node or anywhere below it
+	private final long version;
+
+	public ContentNode(String id, String title, String body, String author, List<String> tags,
+			LocalDateTime createdAt, LocalDateTime updatedAt, String path, Map<String, Object> jcrMetadata,
+			List<ContentNode> children, long version) {
+		this.id = id;
+		this.title = title;
+		this.body = body;
+		this.author = STRINGS.intern(author);
+		this.tags = internTags(tags);
+		this.createdSeconds = createdAt != null ? createdAt.toEpochSecond(ZoneOffset.UTC) : NO_TIME;
+		this.createdNanos = createdAt != null ? createdAt.getNano() : 0;
+		this.updatedSeconds = updatedAt != null ? updatedAt.toEpochSecond(ZoneOffset.UTC) : NO_TIME;
+		this.updatedNanos = updatedAt != null ? updatedAt.getNano() : 0;
+		this.path = path;
+		Map<String, Object> stored = jcrMetadata != null ? jcrMetadata : Map.of();
+		int derived = 0;
+		if (createdAt != null && createdAt.toString().equals(stored.get(CREATED))) {
+			derived |= DERIVED_CREATED;
+		}
+		if (updatedAt != null && updatedAt.toString().equals(stored.get(LAST_MODIFIED))) {
+			derived |= DERIVED_LAST_MODIFIED;
+		}
+		if (derived != 0) {
+			stored = new HashMap<>(stored);
+			stored.keySet().removeAll(derivedKeys(derived));
+		}
+		this.metadata = METADATA.intern(Map.copyOf(stored));
+		this.derivedMetadata = (byte) derived;
+		this.children = children != null ? List.copyOf(children) : List.of();
+		this.version = version;
+	}
+
+	// A version of source with other children, its fields are already interned
+	private ContentNode(ContentNode source, List<ContentNode> children, long version) {
+		this.id = source.id;
+		this.title = source.title;
+		this.body = source.body;
+		this.author = source.author;
+		this.tags = source.tags;
+		this.createdSeconds = source.createdSeconds;
+		this.createdNanos = source.createdNanos;
+		this.updatedSeconds = source.updatedSeconds;
+		this.updatedNanos = source.updatedNanos;
+		this.path = source.path;
+		this.metadata = source.metadata;
+		this.derivedMetadata = source.derivedMetadata;
+		this.children = children != null ? List.copyOf(children) : List.of();
+		this.version = version;
+	}
+
+	private static List<String> internTags(List<String> tags) {
+		if (tags == null) {
+			return null;
+		}
+		List<String> interned = new ArrayList<>(tags.size());
+		for (String tag : tags) {
+			interned.add(STRINGS.intern(tag));
+		}
+		return TAG_LISTS.intern(List.copyOf(interned));
+	}
+
+	private static List<String> derivedKeys(int derived) {
+		List<String> keys = new ArrayList<>(2);
+		if ((derived & DERIVED_CREATED) != 0) {
+			keys.add(CREATED);
+		}
+		if ((derived & DERIVED_LAST_MODIFIED) != 0) {
+			keys.add(LAST_MODIFIED);
+		}
+		return keys;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdSeconds != NO_TIME ? LocalDateTime.ofEpochSecond(createdSeconds, createdNanos, ZoneOffset.UTC) : null;
+	}
+
+	public LocalDateTime getUpdatedAt() {
+		return updatedSeconds != NO_TIME ? LocalDateTime.ofEpochSecond(updatedSeconds, updatedNanos, ZoneOffset.UTC) : null;
+	}
+
+	/**
+	 * The metadata as it was given, the shared map itself unless an entry is
+	 * derived from a timestamp.
+	 */
+	public Map<String, Object> getJcrMetadata() {
+		if (derivedMetadata == 0) {
+			return metadata;
+		}
+		Map<String, Object> full = new HashMap<>(metadata);
+		if ((derivedMetadata & DERIVED_CREATED) != 0) {
+			full.put(CREATED, getCreatedAt().toString());
+		}
+		if ((derivedMetadata & DERIVED_LAST_MODIFIED) != 0) {
+			full.put(LAST_MODIFIED, getUpdatedAt().toString());
+		}
+		return Collections.unmodifiableMap(full);
+	}
+
+	public ContentNode withChildren(List<ContentNode> newChildren) {
+		return new ContentNode(this, newChildren, version);
+	}
+
+	/**
+	 * The next version of this node, for a write that changed its children.
+	 */
+	public ContentNode nextVersion(List<ContentNode> newChildren) {
+		return new ContentNode(this, newChildren, version + 1);
+	}
+
+	@Override
+	public String toString() {
+		return "ContentNode(id=" + id + ", path=" + path + ", version=" + version + ", children=" + children.size() + ")";
+	}
+}
@@ -0,0 +1,38 @@
+package com.aem.cmis.model;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One shared instance per distinct value, for values repeated across many
+ * nodes such as authors, tag lists and metadata. Values are never dropped,
+ * so at most {@code maxSize} are kept; past that, new values are handed back
+ * as they are and simply not shared.
+ */
+final class Interner<T> {
+
+	private final ConcurrentHashMap<T, T> values = new ConcurrentHashMap<>();
+	private final int maxSize;
+
+	Interner(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	T intern(T value) {
+		if (value == null) {
+			return null;
+		}
+		T shared = values.get(value);
+		if (shared != null) {
+			return shared;
+		}
+		if (values.size() >= maxSize) {
+			return value;
+		}
+		shared = values.putIfAbsent(value, value);
+		return shared != null ? shared : value;
+	}
+
+	int size() {
+		return values.size();
+	}
+}
@@ -0,0 +1,104 @@
+package com.aem.cmis.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Depth first traversal of content trees on an explicit stack instead of the
+ * call stack, so a tree of any depth is walked without a
+ * {@link StackOverflowError}. Memory grows with the depth of the tree and
+ * the width of the levels above the current node, never with recursion.
+ *
+ * Works on any tree shape, {@link Content}, {@link ContentNode} or the DTOs,
+ * through a {@link Children} function. The root is at depth 0.
+ */
+public final class TreeWalker {
+
+	private TreeWalker() {
+	}
+
+	/**
+	 * The children of a node, or null to not descend below it.
+	 */
+	@FunctionalInterface
+	public interface Children<S> {
+		List<? extends S> of(S node, int depth);
+	}
+
+	/**
+	 * Builds the result for a node from the results of its children, in
+	 * order. {@code children} is null when the node was not descended into.
+	 */
+	@FunctionalInterface
+	public interface Builder<S, T> {
+		T build(S node, List<T> children, int depth);
+	}
+
+	private static final class Frame<S, T> {
+		private final S node;
+		private final int depth;
+		private final List<? extends S> pending;
+		private final List<T> built;
+		private int next;
+
+		Frame(S node, int depth, List<? extends S> pending) {
+			this.node = node;
+			this.depth = depth;
+			this.pending = pending;
+			this.built = pending != null ? new ArrayList<>(pending.size()) : null;
+		}
+	}
+
+	/**
+	 * Maps a tree bottom-up: every node is built once all of its children are.
+	 */
+	public static <S, T> T map(S root, Children<S> children, Builder<S, T> builder) {
+		Deque<Frame<S, T>> stack = new ArrayDeque<>();
+		stack.push(new Frame<>(root, 0, children.of(root, 0)));
+		while (true) {
+			Frame<S, T> frame = stack.peek();
+			if (frame.pending != null && frame.next < frame.pending.size()) {
+				S child = frame.pending.get(frame.next++);
+				int depth = frame.depth + 1;
+				stack.push(new Frame<>(child, depth, children.of(child, depth)));
+				continue;
+			}
+			stack.pop();
+			T result = builder.build(frame.node, frame.built, frame.depth);
+			Frame<S, T> parent = stack.peek();
+			if (parent == null) {
+				return result;
+			}
+			parent.built.add(result);
+		}
+	}
+
+	/**
+	 * Visits every node, parents before their children and children in order.
+	 * A null node is visited but not descended into.
+	 */
+	public static <S> void visit(S root, Children<S> children, ObjIntConsumer<S> visitor) {
+		// Array lists rather than deques, a node may be null
+		List<S> nodes = new ArrayList<>();
+		List<Integer> depths = new ArrayList<>();
+		nodes.add(root);
+		depths.add(0);
+		while (!nodes.isEmpty()) {
+			S node = nodes.remove(nodes.size() - 1);
+			int depth = depths.remove(depths.size() - 1);
+			visitor.accept(node, depth);
+			List<? extends S> below = node != null ? children.of(node, depth) : null;
+			if (below == null) {
+				continue;
+			}
+			// Pushed last to first so the first child is visited next
+			for (int i = below.size() - 1; i >= 0; i--) {
+				nodes.add(below.get(i));
+				depths.add(depth + 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,319 @@
+package com.aem.cmis.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.model.TreeWalker;
+import com.aem.cmis.repository.ContentId;
+
+/**
+ * Compact binary form of content trees for the write-ahead log and snapshots.
+ * A node is written as its scalar fields, tags, metadata, version and then its children,
+ * depth first. Strings are UTF-8 with an int length, -1 standing for null.
+ * A node id that is a ULID is written as its 16 bytes after a length of -2,
+ * which records written before ULIDs never have, so those still read back.
+ */
+public final class ContentCodec {
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte LONG = 2;
+	private static final byte DOUBLE = 3;
+	private static final byte BOOLEAN = 4;
+	private static final byte LIST = 5;
+	private static final byte MAP = 6;
+	// Length that stands for a ULID id in binary form
+	private static final int ULID = -2;
+
+	private ContentCodec() {
+	}
+
+	/**
+	 * Growable buffer the encoder writes into, reused between records so
+	 * encoding a tree does not allocate per field.
+	 */
+	public static final class Buffer extends ByteArrayOutputStream {
+		private final DataOutputStream output = new DataOutputStream(this);
+
+		public Buffer(int initialSize) {
+			super(initialSize);
+		}
+
+		public ByteBuffer asByteBuffer() {
+			return ByteBuffer.wrap(buf, 0, count);
+		}
+
+		public byte[] array() {
+			return buf;
+		}
+	}
+
+	public static void encodeTree(ContentNode node, Buffer buffer) {
+		// Parents before children, in order, which is the order decodeTree reads them back in
+		TreeWalker.visit(node, (current, depth) -> current.getChildren(), (current, depth) -> {
+			try {
+				writeNode(current, buffer.output);
+			} catch (IOException e) {
+				// Only an in-memory buffer is written to
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	public static void encodeId(String id, Buffer buffer) {
+		try {
+			writeId(id, buffer.output);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads a tree back without recursing. Nodes wait on a stack until all of
+	 * their children have been read, then are built and handed to their parent.
+	 */
+	public static ContentNode decodeTree(ByteBuffer input) {
+		Deque<DecodedNode> incomplete = new ArrayDeque<>();
+		while (true) {
+			DecodedNode decoded = readNode(input);
+			if (decoded.childCount > 0) {
+				incomplete.push(decoded);
+				continue;
+			}
+			ContentNode node = decoded.build();
+			while (true) {
+				DecodedNode parent = incomplete.peek();
+				if (parent == null) {
+					return node;
+				}
+				parent.children.add(node);
+				if (parent.children.size() < parent.childCount) {
+					break;
+				}
+				incomplete.pop();
+				node = parent.build();
+			}
+		}
+	}
+
+	// The fields of a node whose children are still to be read
+	private static final class DecodedNode {
+		private String id;
+		private String title;
+		private String body;
+		private String author;
+		private String path;
+		private List<String> tags;
+		private LocalDateTime createdAt;
+		private LocalDateTime updatedAt;
+		private Map<String, Object> jcrMetadata;
+		private long version;
+		private int childCount;
+		private List<ContentNode> children;
+
+		ContentNode build() {
+			return new ContentNode(id, title, body, author, tags, createdAt, updatedAt, path, jcrMetadata, children,
+					version);
+		}
+	}
+
+	private static DecodedNode readNode(ByteBuffer input) {
+		DecodedNode node = new DecodedNode();
+		node.id = readId(input);
+		node.title = readString(input);
+		node.body = readString(input);
+		node.author = readString(input);
+		node.path = readString(input);
+		int tagCount = input.getInt();
+		if (tagCount >= 0) {
+			node.tags = new ArrayList<>(tagCount);
+			for (int i = 0; i < tagCount; i++) {
+				node.tags.add(readString(input));
+			}
+		}
+		node.createdAt = readTimestamp(input);
+		node.updatedAt = readTimestamp(input);
+		int metadataSize = input.getInt();
+		node.jcrMetadata = new HashMap<>(Math.max(4, metadataSize * 2));
+		for (int i = 0; i < metadataSize; i++) {
+			node.jcrMetadata.put(readString(input), readValue(input));
+		}
+		node.version = input.getLong();
+		node.childCount = input.getInt();
+		node.children = new ArrayList<>(node.childCount);
+		return node;
+	}
+
+	public static String decodeId(ByteBuffer input) {
+		return readId(input);
+	}
+
+	private static void writeNode(ContentNode node, DataOutputStream output) throws IOException {
+		writeId(node.getId(), output);
+		writeString(node.getTitle(), output);
+		writeString(node.getBody(), output);
+		writeString(node.getAuthor(), output);
+		writeString(node.getPath(), output);
+		if (node.getTags() == null) {
+			output.writeInt(-1);
+		} else {
+			output.writeInt(node.getTags().size());
+			for (String tag : node.getTags()) {
+				writeString(tag, output);
+			}
+		}
+		writeTimestamp(node.getCreatedAt(), output);
+		writeTimestamp(node.getUpdatedAt(), output);
+		output.writeInt(node.getJcrMetadata().size());
+		for (Map.Entry<String, Object> entry : node.getJcrMetadata().entrySet()) {
+			writeString(entry.getKey(), output);
+			writeValue(entry.getValue(), output);
+		}
+		output.writeLong(node.getVersion());
+		// The children follow, written by encodeTree
+		output.writeInt(node.getChildren().size());
+	}
+
+	private static void writeString(String value, DataOutputStream output) throws IOException {
+		if (value == null) {
+			output.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		output.writeInt(bytes.length);
+		output.write(bytes);
+	}
+
+	private static void writeId(String id, DataOutputStream output) throws IOException {
+		if (!ContentId.isUlid(id)) {
+			writeString(id, output);
+			return;
+		}
+		output.writeInt(ULID);
+		output.writeLong(ContentId.high(id));
+		output.writeLong(ContentId.low(id));
+	}
+
+	private static String readId(ByteBuffer input) {
+		int length = input.getInt();
+		if (length == ULID) {
+			long high = input.getLong();
+			return ContentId.format(high, input.getLong());
+		}
+		return readString(length, input);
+	}
+
+	private static String readString(ByteBuffer input) {
+		return readString(input.getInt(), input);
+	}
+
+	private static String readString(int length, ByteBuffer input) {
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		input.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeTimestamp(LocalDateTime value, DataOutputStream output) throws IOException {
+		output.writeBoolean(value != null);
+		if (value != null) {
+			output.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+			output.writeInt(value.getNano());
+		}
+	}
+
+	private static LocalDateTime readTimestamp(ByteBuffer input) {
+		if (input.get() == 0) {
+			return null;
+		}
+		long epochSecond = input.getLong();
+		return LocalDateTime.ofEpochSecond(epochSecond, input.getInt(), ZoneOffset.UTC);
+	}
+
+	/**
+	 * Metadata values are whatever JSON produced: strings, numbers, booleans,
+	 * lists and maps. Anything else is kept as its string form.
+	 */
+	private static void writeValue(Object value, DataOutputStream output) throws IOException {
+		if (value == null) {
+			output.writeByte(NULL);
+		} else if (value instanceof String text) {
+			output.writeByte(STRING);
+			writeString(text, output);
+		} else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+			output.writeByte(LONG);
+			output.writeLong(((Number) value).longValue());
+		} else if (value instanceof Double || value instanceof Float) {
+			output.writeByte(DOUBLE);
+			output.writeDouble(((Number) value).doubleValue());
+		} else if (value instanceof Boolean flag) {
+			output.writeByte(BOOLEAN);
+			output.writeBoolean(flag);
+		} else if (value instanceof List<?> list) {
+			output.writeByte(LIST);
+			output.writeInt(list.size());
+			for (Object element : list) {
+				writeValue(element, output);
+			}
+		} else if (value instanceof Map<?, ?> map) {
+			output.writeByte(MAP);
+			output.writeInt(map.size());
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				writeString(String.valueOf(entry.getKey()), output);
+				writeValue(entry.getValue(), output);
+			}
+		} else {
+			output.writeByte(STRING);
+			writeString(value.toString(), output);
+		}
+	}
+
+	private static Object readValue(ByteBuffer input) {
+		byte type = input.get();
+		switch (type) {
+		case NULL:
+			return null;
+		case STRING:
+			return readString(input);
+		case LONG:
+			return input.getLong();
+		case DOUBLE:
+			return input.getDouble();
+		case BOOLEAN:
+			return input.get() != 0;
+		case LIST: {
+			int size = input.getInt();
+			List<Object> list = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				list.add(readValue(input));
+			}
+			return list;
+		}
+		case MAP: {
+			int size = input.getInt();
+			Map<String, Object> map = new HashMap<>(Math.max(4, size * 2));
+			for (int i = 0; i < size; i++) {
+				map.put(readString(input), readValue(input));
+			}
+			return map;
+		}
+		default:
+			throw new IllegalStateException("Unknown value type " + type);
+		}
+	}
+}
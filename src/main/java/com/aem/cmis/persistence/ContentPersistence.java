@@ -0,0 +1,139 @@
+package com.aem.cmis.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.repository.ContentJournal;
+import com.aem.cmis.repository.InMemoryContentRepository;
+import com.aem.cmis.repository.ContentSnapshot;
+
+/**
+ * Makes a {@link InMemoryContentRepository} survive restarts. On start the newest
+ * snapshot is loaded and the write-ahead log replayed on top of it, then every
+ * write is logged before it becomes visible. Snapshots are taken periodically
+ * from a {@link ContentSnapshot}, without stopping writers, and let the log
+ * segments they cover be deleted.
+ */
+public class ContentPersistence implements AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContentPersistence.class);
+	private static final int SNAPSHOT_WINDOW_BYTES = 64 * 1024 * 1024;
+
+	private final InMemoryContentRepository repository;
+	private final Path directory;
+	private final WriteAheadLog wal;
+	private final SnapshotStore snapshots;
+	private final long snapshotIntervalMillis;
+	private ScheduledExecutorService scheduler;
+
+	public ContentPersistence(InMemoryContentRepository repository, Path directory, FsyncPolicy fsyncPolicy,
+			long syncIntervalMillis, long segmentBytes, long snapshotIntervalMillis) {
+		this.repository = repository;
+		this.directory = directory;
+		this.wal = new WriteAheadLog(directory, fsyncPolicy, syncIntervalMillis, segmentBytes);
+		this.snapshots = new SnapshotStore(directory, SNAPSHOT_WINDOW_BYTES);
+		this.snapshotIntervalMillis = snapshotIntervalMillis;
+	}
+
+	/**
+	 * Restores the repository from disk and starts journaling its writes. The
+	 * repository must not be written to before this returns.
+	 */
+	public void start() throws IOException {
+		Files.createDirectories(directory);
+		long start = System.nanoTime();
+		long snapshotSequence = snapshots.load(repository::applySaved);
+		long lastSequence = wal.replay(snapshotSequence, this::apply);
+		repository.advanceSequence(lastSequence);
+		wal.open();
+		repository.setJournal(wal);
+		LOGGER.info("Restored content from {} up to commit {} (snapshot {}) in {} ms", directory, lastSequence,
+				snapshotSequence, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		if (snapshotIntervalMillis > 0) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "content-snapshot");
+				thread.setDaemon(true);
+				return thread;
+			});
+			scheduler.scheduleWithFixedDelay(this::scheduledSnapshot, snapshotIntervalMillis, snapshotIntervalMillis,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void apply(long sequence, byte type, ByteBuffer payload) {
+		switch (type) {
+		case WriteAheadLog.SAVED:
+			repository.applySaved(ContentCodec.decodeTree(payload));
+			break;
+		case WriteAheadLog.UPDATED:
+			repository.applyUpdated(ContentCodec.decodeTree(payload));
+			break;
+		case WriteAheadLog.DELETED:
+			repository.delete(ContentCodec.decodeId(payload));
+			break;
+		case WriteAheadLog.BATCH:
+			List<ContentNode> roots = new ArrayList<>();
+			for (int count = payload.getInt(); count > 0; count--) {
+				roots.add(ContentCodec.decodeTree(payload));
+			}
+			List<String> deletedRootIds = new ArrayList<>();
+			for (int count = payload.getInt(); count > 0; count--) {
+				deletedRootIds.add(ContentCodec.decodeId(payload));
+			}
+			repository.applyTrees(roots, deletedRootIds);
+			break;
+		default:
+			throw new IllegalStateException("Unknown record type " + type + " at commit " + sequence);
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the current state and drops the log segments it
+	 * covers. Returns the commit sequence of the snapshot.
+	 */
+	public synchronized long snapshot() throws IOException {
+		try (ContentSnapshot snapshot = repository.openSnapshot()) {
+			snapshots.write(snapshot);
+			wal.truncate(snapshot.getSequence());
+			return snapshot.getSequence();
+		}
+	}
+
+	private void scheduledSnapshot() {
+		try {
+			snapshot();
+		} catch (IOException | UncheckedIOException e) {
+			// The log still holds everything, the next run tries again
+			LOGGER.error("Failed to write a content snapshot", e);
+		}
+	}
+
+	public int segmentCount() {
+		return wal.segmentCount();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (scheduler != null) {
+			scheduler.shutdown();
+			try {
+				scheduler.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		repository.setJournal(ContentJournal.NONE);
+		wal.close();
+	}
+}
@@ -0,0 +1,25 @@
+package com.aem.cmis.persistence;
+
+/**
+ * When the write-ahead log forces its records to disk.
+ */
+public enum FsyncPolicy {
+
+	/**
+	 * A write returns only once its record has been fsynced. Writers arriving
+	 * while an fsync is in progress share the next one (group commit).
+	 */
+	SYNC,
+
+	/**
+	 * Records are written and fsynced in the background every sync interval,
+	 * a crash loses at most the writes of the last interval.
+	 */
+	INTERVAL,
+
+	/**
+	 * Records are written in the background every sync interval but never
+	 * fsynced, they survive a process crash once written but not a power loss.
+	 */
+	NONE
+}
@@ -0,0 +1,211 @@
+package com.aem.cmis.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.repository.ContentSnapshot;
+
+/**
+ * Snapshot files of the whole store, written and read through memory-mapped
+ * windows of the file.
+ *
+ * Layout: {@code [long magic][int version][long sequence]}, one
+ * {@code [int length][tree]} record per root, then {@code [int -1][long rootCount]}.
+ * A snapshot is written to a temporary file and renamed once complete, so a
+ * {@code snapshot-<sequence>.snap} file is always whole.
+ */
+public class SnapshotStore {
+	private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotStore.class);
+
+	private static final long MAGIC = 0x434d49534e415031L;
+	private static final int VERSION = 2;
+	private static final int END_OF_ROOTS = -1;
+	private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d{20})\\.snap");
+
+	private final Path directory;
+	private final int windowBytes;
+
+	public SnapshotStore(Path directory, int windowBytes) {
+		this.directory = directory;
+		this.windowBytes = windowBytes;
+	}
+
+	/**
+	 * Writes every tree of the snapshot, then removes the older snapshot files.
+	 * Returns the number of trees written.
+	 */
+	public long write(ContentSnapshot snapshot) throws IOException {
+		Files.createDirectories(directory);
+		Path target = snapshotPath(snapshot.getSequence());
+		Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+		long roots = 0;
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			MappedWriter writer = new MappedWriter(channel);
+			writer.reserve(20).putLong(MAGIC).putInt(VERSION).putLong(snapshot.getSequence());
+			ContentCodec.Buffer buffer = new ContentCodec.Buffer(64 * 1024);
+			Iterator<ContentNode> trees = snapshot.roots().iterator();
+			while (trees.hasNext()) {
+				buffer.reset();
+				ContentCodec.encodeTree(trees.next(), buffer);
+				writer.reserve(4 + buffer.size()).putInt(buffer.size()).put(buffer.array(), 0, buffer.size());
+				roots++;
+			}
+			writer.reserve(12).putInt(END_OF_ROOTS).putLong(roots);
+			long size = writer.finish();
+			channel.truncate(size);
+			channel.force(true);
+		}
+		Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		syncDirectory();
+		for (Map.Entry<Long, Path> older : listSnapshots().headMap(snapshot.getSequence()).entrySet()) {
+			Files.deleteIfExists(older.getValue());
+		}
+		LOGGER.info("Wrote snapshot {} with {} content trees", snapshot.getSequence(), roots);
+		return roots;
+	}
+
+	/**
+	 * Hands every tree of the newest snapshot to {@code consumer} and returns the
+	 * sequence the snapshot was taken at, 0 when there is none.
+	 */
+	public long load(Consumer<ContentNode> consumer) throws IOException {
+		TreeMap<Long, Path> snapshots = listSnapshots();
+		if (snapshots.isEmpty()) {
+			return 0;
+		}
+		Path path = snapshots.lastEntry().getValue();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedReader reader = new MappedReader(channel, path);
+			ByteBuffer header = reader.next(20);
+			if (header.getLong() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException("Not a content snapshot: " + path);
+			}
+			long sequence = header.getLong();
+			long roots = 0;
+			while (true) {
+				int length = reader.next(4).getInt();
+				if (length == END_OF_ROOTS) {
+					break;
+				}
+				ByteBuffer record = reader.next(length);
+				// Decode from a view of the mapping, the tree is not copied into a buffer first
+				ByteBuffer view = record.slice(record.position(), length);
+				consumer.accept(ContentCodec.decodeTree(view));
+				record.position(record.position() + length);
+				roots++;
+			}
+			long expected = reader.next(8).getLong();
+			if (expected != roots) {
+				throw new IOException("Snapshot " + path + " holds " + roots + " trees instead of " + expected);
+			}
+			LOGGER.info("Loaded snapshot {} with {} content trees", sequence, roots);
+			return sequence;
+		}
+	}
+
+	private TreeMap<Long, Path> listSnapshots() throws IOException {
+		TreeMap<Long, Path> snapshots = new TreeMap<>();
+		if (!Files.isDirectory(directory)) {
+			return snapshots;
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			files.forEach(file -> {
+				Matcher matcher = SNAPSHOT_NAME.matcher(file.getFileName().toString());
+				if (matcher.matches()) {
+					snapshots.put(Long.parseLong(matcher.group(1)), file);
+				}
+			});
+		}
+		return snapshots;
+	}
+
+	private Path snapshotPath(long sequence) {
+		return directory.resolve(String.format("snapshot-%020d.snap", sequence));
+	}
+
+	private void syncDirectory() {
+		// Makes the rename durable, not every platform lets a directory be opened
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			LOGGER.debug("Could not sync directory {}", directory, e);
+		}
+	}
+
+	/**
+	 * Maps the file window by window as it is written. A record that does not
+	 * fit the rest of the current window starts a new window at the record.
+	 */
+	private final class MappedWriter {
+		private final FileChannel channel;
+		private long windowStart;
+		private MappedByteBuffer window;
+
+		MappedWriter(FileChannel channel) throws IOException {
+			this.channel = channel;
+			this.window = channel.map(FileChannel.MapMode.READ_WRITE, 0, windowBytes);
+		}
+
+		ByteBuffer reserve(int bytes) throws IOException {
+			if (window.remaining() < bytes) {
+				window.force();
+				windowStart += window.position();
+				window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.max(windowBytes, bytes));
+			}
+			return window;
+		}
+
+		long finish() {
+			window.force();
+			return windowStart + window.position();
+		}
+	}
+
+	private final class MappedReader {
+		private final FileChannel channel;
+		private final Path path;
+		private final long size;
+		private long windowStart;
+		private MappedByteBuffer window;
+
+		MappedReader(FileChannel channel, Path path) throws IOException {
+			this.channel = channel;
+			this.path = path;
+			this.size = channel.size();
+			this.window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, windowBytes));
+		}
+
+		ByteBuffer next(int bytes) throws IOException {
+			if (bytes < 0) {
+				throw new IOException("Corrupt snapshot " + path);
+			}
+			if (window.remaining() < bytes) {
+				windowStart += window.position();
+				long length = Math.min(size - windowStart, Math.max(windowBytes, bytes));
+				if (length < bytes) {
+					throw new IOException("Snapshot " + path + " ends in the middle of a record");
+				}
+				window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+			}
+			return window;
+		}
+	}
+}
@@ -0,0 +1,422 @@
+package com.aem.cmis.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.repository.ContentJournal;
+
+/**
+ * Append-only log of repository writes, split into numbered segment files.
+ *
+ * Each record is framed as {@code [int length][int crc32c][long lsn][byte type][payload]},
+ * the log sequence number being the repository commit sequence. Records of
+ * different trees may be appended slightly out of sequence order, records of
+ * one tree never are.
+ *
+ * Appends only copy the record into a memory buffer. Whoever flushes takes the
+ * whole buffer, so under {@link FsyncPolicy#SYNC} the writers that queue up
+ * behind an fsync are all made durable by the next one.
+ */
+public class WriteAheadLog implements ContentJournal, AutoCloseable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(WriteAheadLog.class);
+
+	static final byte SAVED = 1;
+	static final byte UPDATED = 2;
+	static final byte DELETED = 3;
+	static final byte BATCH = 4;
+
+	private static final int HEADER_BYTES = 8;
+	private static final int FLUSH_THRESHOLD = 1 << 20;
+	private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d{20})\\.log");
+	private static final ThreadLocal<ContentCodec.Buffer> ENCODE_BUFFERS =
+			ThreadLocal.withInitial(() -> new ContentCodec.Buffer(4096));
+
+	private final Path directory;
+	private final FsyncPolicy policy;
+	private final long syncIntervalMillis;
+	private final long segmentBytes;
+
+	// Guarded by appendLock
+	private final ReentrantLock appendLock = new ReentrantLock();
+	private ContentCodec.Buffer pending = new ContentCodec.Buffer(FLUSH_THRESHOLD);
+	private long pendingMaxLsn;
+	private long appended;
+
+	// Guarded by flushLock
+	private final ReentrantLock flushLock = new ReentrantLock();
+	private ContentCodec.Buffer spare = new ContentCodec.Buffer(FLUSH_THRESHOLD);
+	private FileChannel channel;
+	private long segmentNumber;
+	private long segmentSize;
+	private long segmentMaxLsn;
+	// Segment number -> highest lsn it holds, for the segments no longer written to
+	private final TreeMap<Long, Long> closedSegments = new TreeMap<>();
+
+	private volatile long written;
+	private volatile long durable;
+	private volatile IOException failure;
+	private ScheduledExecutorService flusher;
+
+	/**
+	 * Called for every replayed record, {@code payload} is positioned at the
+	 * start of the record payload.
+	 */
+	public interface RecordHandler {
+		void apply(long lsn, byte type, ByteBuffer payload);
+	}
+
+	public WriteAheadLog(Path directory, FsyncPolicy policy, long syncIntervalMillis, long segmentBytes) {
+		this.directory = directory;
+		this.policy = policy;
+		this.syncIntervalMillis = syncIntervalMillis;
+		this.segmentBytes = segmentBytes;
+	}
+
+	/**
+	 * Hands every record with an lsn above {@code afterLsn} to the handler, in
+	 * log order, and returns the highest lsn found. A torn record at the end of
+	 * the last segment, left by a crash in the middle of a write, is cut off.
+	 */
+	public long replay(long afterLsn, RecordHandler handler) throws IOException {
+		long maxLsn = afterLsn;
+		List<Long> segments = new ArrayList<>(listSegments().keySet());
+		for (int i = 0; i < segments.size(); i++) {
+			long number = segments.get(i);
+			long segmentMax = replaySegment(segmentPath(number), afterLsn, handler, i == segments.size() - 1);
+			closedSegments.put(number, segmentMax);
+			maxLsn = Math.max(maxLsn, segmentMax);
+		}
+		return maxLsn;
+	}
+
+	private long replaySegment(Path path, long afterLsn, RecordHandler handler, boolean last) throws IOException {
+		long maxLsn = 0;
+		try (FileChannel segment = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			long position = 0;
+			long size = segment.size();
+			CRC32C crc = new CRC32C();
+			while (position < size) {
+				header.clear();
+				ByteBuffer body = null;
+				if (readFully(segment, header, position)) {
+					int length = header.getInt(0);
+					if (length > 0 && position + HEADER_BYTES + length <= size) {
+						body = ByteBuffer.allocate(length);
+						readFully(segment, body, position + HEADER_BYTES);
+						crc.reset();
+						crc.update(body.array(), 0, length);
+						if ((int) crc.getValue() != header.getInt(4)) {
+							body = null;
+						}
+					}
+				}
+				if (body == null) {
+					if (!last) {
+						throw new IOException("Corrupt record at offset " + position + " of " + path);
+					}
+					LOGGER.warn("Truncating torn record at offset {} of {}", position, path);
+					segment.truncate(position);
+					segment.force(true);
+					break;
+				}
+				body.flip();
+				long lsn = body.getLong();
+				byte type = body.get();
+				maxLsn = Math.max(maxLsn, lsn);
+				if (lsn > afterLsn) {
+					handler.apply(lsn, type, body);
+				}
+				position += HEADER_BYTES + body.limit();
+			}
+		}
+		return maxLsn;
+	}
+
+	private static boolean readFully(FileChannel source, ByteBuffer target, long position) throws IOException {
+		while (target.hasRemaining()) {
+			if (source.read(target, position + target.position()) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Starts a new segment after the existing ones and, unless every write is
+	 * synced, the background flusher.
+	 */
+	public void open() throws IOException {
+		Files.createDirectories(directory);
+		flushLock.lock();
+		try {
+			TreeMap<Long, Long> existing = listSegments();
+			segmentNumber = existing.isEmpty() ? 1 : existing.lastKey() + 1;
+			openSegment();
+		} finally {
+			flushLock.unlock();
+		}
+		if (policy != FsyncPolicy.SYNC) {
+			flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "wal-flusher");
+				thread.setDaemon(true);
+				return thread;
+			});
+			flusher.scheduleWithFixedDelay(this::backgroundFlush, syncIntervalMillis, syncIntervalMillis,
+					TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@Override
+	public void saved(long sequence, ContentNode root) {
+		ContentCodec.Buffer buffer = startRecord(sequence, SAVED);
+		ContentCodec.encodeTree(root, buffer);
+		append(sequence, buffer);
+	}
+
+	@Override
+	public void updated(long sequence, ContentNode node) {
+		ContentCodec.Buffer buffer = startRecord(sequence, UPDATED);
+		ContentCodec.encodeTree(node, buffer);
+		append(sequence, buffer);
+	}
+
+	@Override
+	public void deleted(long sequence, String id) {
+		ContentCodec.Buffer buffer = startRecord(sequence, DELETED);
+		ContentCodec.encodeId(id, buffer);
+		append(sequence, buffer);
+	}
+
+	/**
+	 * One record for the whole batch, {@code [int count][trees][int count][ids]},
+	 * so a torn batch is cut off whole on replay.
+	 */
+	@Override
+	public void batch(long sequence, List<ContentNode> roots, List<String> deletedRootIds) {
+		ContentCodec.Buffer buffer = startRecord(sequence, BATCH);
+		writeCount(roots.size(), buffer);
+		for (ContentNode root : roots) {
+			ContentCodec.encodeTree(root, buffer);
+		}
+		writeCount(deletedRootIds.size(), buffer);
+		for (String id : deletedRootIds) {
+			ContentCodec.encodeId(id, buffer);
+		}
+		append(sequence, buffer);
+	}
+
+	private static void writeCount(int count, ContentCodec.Buffer buffer) {
+		buffer.write(ByteBuffer.allocate(4).putInt(count).array(), 0, 4);
+	}
+
+	private static ContentCodec.Buffer startRecord(long lsn, byte type) {
+		ContentCodec.Buffer buffer = ENCODE_BUFFERS.get();
+		buffer.reset();
+		// Room for the length and checksum, filled in once the body is encoded
+		buffer.write(new byte[HEADER_BYTES], 0, HEADER_BYTES);
+		ByteBuffer fields = ByteBuffer.allocate(9).putLong(lsn).put(type);
+		buffer.write(fields.array(), 0, 9);
+		return buffer;
+	}
+
+	private void append(long lsn, ContentCodec.Buffer record) {
+		checkNotFailed();
+		ByteBuffer frame = record.asByteBuffer();
+		int length = frame.limit() - HEADER_BYTES;
+		CRC32C crc = new CRC32C();
+		crc.update(record.array(), HEADER_BYTES, length);
+		frame.putInt(0, length).putInt(4, (int) crc.getValue());
+
+		long ticket;
+		int buffered;
+		appendLock.lock();
+		try {
+			pending.write(record.array(), 0, frame.limit());
+			pendingMaxLsn = Math.max(pendingMaxLsn, lsn);
+			ticket = ++appended;
+			buffered = pending.size();
+		} finally {
+			appendLock.unlock();
+		}
+		if (record.array().length > FLUSH_THRESHOLD) {
+			// Do not keep a buffer sized for an unusually large tree around
+			ENCODE_BUFFERS.remove();
+		}
+		if (policy == FsyncPolicy.SYNC) {
+			while (durable < ticket) {
+				flush(true);
+			}
+		} else if (buffered >= FLUSH_THRESHOLD) {
+			flush(false);
+		}
+	}
+
+	private void backgroundFlush() {
+		try {
+			flush(policy == FsyncPolicy.INTERVAL);
+		} catch (RuntimeException e) {
+			LOGGER.error("Background flush of the write-ahead log failed", e);
+		}
+	}
+
+	/**
+	 * Writes everything appended so far to the current segment, forcing it to
+	 * disk when {@code force} is set.
+	 */
+	private void flush(boolean force) {
+		flushLock.lock();
+		try {
+			checkNotFailed();
+			ContentCodec.Buffer batch;
+			long batchMaxLsn;
+			long upTo;
+			appendLock.lock();
+			try {
+				batch = pending;
+				pending = spare;
+				batchMaxLsn = pendingMaxLsn;
+				pendingMaxLsn = 0;
+				upTo = appended;
+			} finally {
+				appendLock.unlock();
+			}
+			if (upTo == written && (!force || upTo == durable)) {
+				spare = batch;
+				return;
+			}
+			ByteBuffer bytes = batch.asByteBuffer();
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			segmentSize += batch.size();
+			segmentMaxLsn = Math.max(segmentMaxLsn, batchMaxLsn);
+			batch.reset();
+			spare = batch;
+			if (force) {
+				channel.force(false);
+				durable = upTo;
+			}
+			written = upTo;
+			if (segmentSize >= segmentBytes) {
+				rollSegment();
+			}
+		} catch (IOException e) {
+			failure = e;
+			throw new UncheckedIOException("Failed to write the write-ahead log", e);
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	/**
+	 * Drops the segments holding nothing above {@code snapshotLsn}, once a
+	 * snapshot covers them. The current segment is closed first, so that every
+	 * record up to the snapshot is in a segment that can go.
+	 */
+	public void truncate(long snapshotLsn) throws IOException {
+		flush(policy != FsyncPolicy.NONE);
+		flushLock.lock();
+		try {
+			if (segmentSize > 0) {
+				rollSegment();
+			}
+			while (!closedSegments.isEmpty() && closedSegments.firstEntry().getValue() <= snapshotLsn) {
+				long number = closedSegments.pollFirstEntry().getKey();
+				Files.deleteIfExists(segmentPath(number));
+				LOGGER.debug("Deleted write-ahead log segment {} covered by snapshot {}", number, snapshotLsn);
+			}
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	private void rollSegment() throws IOException {
+		channel.force(true);
+		channel.close();
+		closedSegments.put(segmentNumber, segmentMaxLsn);
+		segmentNumber++;
+		openSegment();
+	}
+
+	private void openSegment() throws IOException {
+		channel = FileChannel.open(segmentPath(segmentNumber), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE);
+		segmentSize = 0;
+		segmentMaxLsn = 0;
+	}
+
+	private TreeMap<Long, Long> listSegments() throws IOException {
+		TreeMap<Long, Long> segments = new TreeMap<>();
+		if (!Files.isDirectory(directory)) {
+			return segments;
+		}
+		try (Stream<Path> files = Files.list(directory)) {
+			files.forEach(file -> {
+				Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+				if (matcher.matches()) {
+					segments.put(Long.parseLong(matcher.group(1)), 0L);
+				}
+			});
+		}
+		return segments;
+	}
+
+	private Path segmentPath(long number) {
+		return directory.resolve(String.format("wal-%020d.log", number));
+	}
+
+	private void checkNotFailed() {
+		IOException cause = failure;
+		if (cause != null) {
+			// Records after a failed write could not be replayed in order, so refuse them
+			throw new UncheckedIOException("Write-ahead log is unusable after an earlier failure", cause);
+		}
+	}
+
+	public int segmentCount() {
+		flushLock.lock();
+		try {
+			return closedSegments.size() + (channel != null ? 1 : 0);
+		} finally {
+			flushLock.unlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (flusher != null) {
+			flusher.shutdown();
+		}
+		if (channel == null) {
+			return;
+		}
+		flush(policy != FsyncPolicy.NONE);
+		flushLock.lock();
+		try {
+			channel.close();
+		} finally {
+			flushLock.unlock();
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.aem.cmis.repository;
+
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * A committed write, as handed to {@link ContentChangeListener}s. Besides the
+ * node the write was made on it names every node whose stored version it
+ * replaced or removed: the node itself, its ancestors (which now hold a new
+ * version of it) and any descendants it rewrote or removed.
+ *
+ * {@code path} and {@code version} are those of the node the write was made
+ * on: its new version after a save or update, the removed one after a delete.
+ */
+@Getter
+public final class ContentChange {
+
+	public enum Type {
+		SAVED, UPDATED, DELETED
+	}
+
+	private final Type type;
+	private final long sequence;
+	private final String id;
+	private final String path;
+	private final long version;
+	private final List<String> affectedIds;
+
+	public ContentChange(Type type, long sequence, String id, String path, long version, List<String> affectedIds) {
+		this.type = type;
+		this.sequence = sequence;
+		this.id = id;
+		this.path = path;
+		this.version = version;
+		this.affectedIds = affectedIds;
+	}
+}
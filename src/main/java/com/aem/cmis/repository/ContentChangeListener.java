@@ -0,0 +1,12 @@
+package com.aem.cmis.repository;
+
+/**
+ * Notified of every write once it is visible to readers. Calls for one tree
+ * arrive in commit order, on the writing thread, so a listener must be quick.
+ */
+@FunctionalInterface
+public interface ContentChangeListener {
+
+	void changed(ContentChange change);
+
+}
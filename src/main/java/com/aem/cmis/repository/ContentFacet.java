@@ -0,0 +1,9 @@
+package com.aem.cmis.repository;
+
+/**
+ * Fields whose values are counted across the store, authors ignoring case.
+ */
+public enum ContentFacet {
+	TAG,
+	AUTHOR
+}
@@ -0,0 +1,90 @@
+package com.aem.cmis.repository;
+
+import java.util.Arrays;
+
+/**
+ * The 128 bit ULID behind an id from {@link UlidGenerator}, and its text
+ * form: 26 Crockford base32 characters, most significant first. The text
+ * sorts like the number, so ids order by the millisecond they were made in.
+ *
+ * Only the canonical form (upper case, first character at most 7) counts as
+ * a ULID here, so parsing and formatting one gives back the same string.
+ */
+public final class ContentId {
+
+	public static final int LENGTH = 26;
+	private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+	// char -> its 5 bit value, -1 for characters outside the canonical alphabet
+	private static final byte[] VALUES = new byte[128];
+
+	static {
+		Arrays.fill(VALUES, (byte) -1);
+		for (int i = 0; i < ALPHABET.length; i++) {
+			VALUES[ALPHABET[i]] = (byte) i;
+		}
+	}
+
+	private ContentId() {
+	}
+
+	public static boolean isUlid(String id) {
+		if (id == null || id.length() != LENGTH || id.charAt(0) > '7') {
+			return false;
+		}
+		for (int i = 0; i < LENGTH; i++) {
+			char c = id.charAt(i);
+			if (c >= VALUES.length || VALUES[c] < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Text form of the ULID whose upper 64 bits are {@code high} and lower 64
+	 * bits {@code low}.
+	 */
+	public static String format(long high, long low) {
+		char[] chars = new char[LENGTH];
+		// 26 characters hold 130 bits, the first one only the top 3 of the 128
+		for (int i = 0, shift = 5 * (LENGTH - 1); i < LENGTH; i++, shift -= 5) {
+			int value;
+			if (shift >= 64) {
+				value = (int) (high >>> (shift - 64));
+			} else if (shift > 59) {
+				value = (int) ((low >>> shift) | (high << (64 - shift)));
+			} else {
+				value = (int) (low >>> shift);
+			}
+			chars[i] = ALPHABET[value & 31];
+		}
+		return new String(chars);
+	}
+
+	// Upper 64 bits of a ULID, see isUlid
+	public static long high(String id) {
+		long high = 0;
+		long low = 0;
+		for (int i = 0; i < LENGTH; i++) {
+			high = (high << 5) | (low >>> 59);
+			low = (low << 5) | VALUES[id.charAt(i)];
+		}
+		return high;
+	}
+
+	public static long low(String id) {
+		long low = 0;
+		for (int i = 0; i < LENGTH; i++) {
+			low = (low << 5) | VALUES[id.charAt(i)];
+		}
+		return low;
+	}
+
+	/**
+	 * Milliseconds since the epoch at which the ULID was made, its top 48
+	 * bits.
+	 */
+	public static long timestamp(String id) {
+		return high(id) >>> 16;
+	}
+}
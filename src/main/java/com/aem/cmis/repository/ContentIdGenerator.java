@@ -0,0 +1,16 @@
+package com.aem.cmis.repository;
+
+import java.util.UUID;
+
+/**
+ * Source of the ids of new nodes. Ids must be unique across the store, and
+ * their string order is the order id-ordered scans and pages return nodes in.
+ */
+@FunctionalInterface
+public interface ContentIdGenerator {
+
+	// Random UUIDs, the ids used before; every one is drawn from the shared SecureRandom
+	ContentIdGenerator RANDOM_UUID = () -> UUID.randomUUID().toString();
+
+	String nextId();
+}
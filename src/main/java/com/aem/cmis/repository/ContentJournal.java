@@ -0,0 +1,55 @@
+package com.aem.cmis.repository;
+
+import java.util.List;
+
+import com.aem.cmis.model.ContentNode;
+
+/**
+ * Durable record of the writes to a {@code InMemoryContentRepository}. Every method is
+ * called with the commit sequence of the write before the write is published,
+ * so a journal that returns only once the entry is on disk makes every visible
+ * write recoverable. Entries of one tree arrive in commit order.
+ */
+public interface ContentJournal {
+
+	ContentJournal NONE = new ContentJournal() {
+		@Override
+		public void saved(long sequence, ContentNode root) {
+		}
+
+		@Override
+		public void updated(long sequence, ContentNode node) {
+		}
+
+		@Override
+		public void deleted(long sequence, String id) {
+		}
+
+		@Override
+		public void batch(long sequence, List<ContentNode> roots, List<String> deletedRootIds) {
+		}
+	};
+
+	/**
+	 * A new tree, with the ids and timestamps the repository assigned.
+	 */
+	void saved(long sequence, ContentNode root);
+
+	/**
+	 * New version of an existing node, including its new children. Its
+	 * ancestors follow from it and are not journaled.
+	 */
+	void updated(long sequence, ContentNode node);
+
+	/**
+	 * A node and its subtree were removed.
+	 */
+	void deleted(long sequence, String id);
+
+	/**
+	 * The trees a batch changed, committed as one write: the new version of
+	 * every tree it saved or changed, whole, and the roots it deleted.
+	 */
+	void batch(long sequence, List<ContentNode> roots, List<String> deletedRootIds);
+
+}
@@ -0,0 +1,42 @@
+package com.aem.cmis.repository;
+
+import java.util.function.Predicate;
+
+import com.aem.cmis.model.ContentNode;
+
+/**
+ * What a search matches: a tag and an author to have, a tag and an author not
+ * to have. Every part is optional, authors compare ignoring case.
+ *
+ * The tag and author are answered from the index; the exclusions are not
+ * indexed, so a query with only those is a filter over every node.
+ */
+public record ContentQuery(String tag, String author, String excludedTag, String excludedAuthor)
+		implements Predicate<ContentNode> {
+
+	public static final ContentQuery ALL = new ContentQuery(null, null, null, null);
+
+	public static ContentQuery of(String tag, String author) {
+		return new ContentQuery(tag, author, null, null);
+	}
+
+	public boolean isIndexed() {
+		return tag != null || author != null;
+	}
+
+	public boolean matchesAll() {
+		return !isIndexed() && excludedTag == null && excludedAuthor == null;
+	}
+
+	@Override
+	public boolean test(ContentNode content) {
+		return (tag == null || hasTag(content, tag))
+				&& (author == null || author.equalsIgnoreCase(content.getAuthor()))
+				&& (excludedTag == null || !hasTag(content, excludedTag))
+				&& (excludedAuthor == null || !excludedAuthor.equalsIgnoreCase(content.getAuthor()));
+	}
+
+	private static boolean hasTag(ContentNode content, String tag) {
+		return content.getTags() != null && content.getTags().contains(tag);
+	}
+}
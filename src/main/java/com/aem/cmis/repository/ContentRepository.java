@@ -1,135 +1,140 @@
 package com.aem.cmis.repository;
 
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
-import java.util.stream.Collectors;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Repository;
+import java.util.Optional;
+import java.util.function.Predicate;
 
+import com.aem.cmis.exception.ResourceNotFoundException;
 import com.aem.cmis.model.Content;
-import java.util.*;
-
-@Repository
-public class ContentRepository {
-	private static final Logger LOGGER = LoggerFactory.getLogger(ContentRepository.class);
-    private final Map<String, Content> contentStore = new HashMap<>();
-
-    public Content save(Content content) {
-        String id = UUID.randomUUID().toString();
-        content.setId(id);
-        content.setCreatedAt(LocalDateTime.now());
-        content.setUpdatedAt(LocalDateTime.now());
-        content.setJcrMetadata(createJcrMetadata(content.getCreatedAt()));
-
-        // Save children recursively
-        List<Content> savedChildren = new ArrayList<>();
-        for (Content child : content.getChildren()) {
-            savedChildren.add(saveChild(child));
-        }
-        content.setChildren(savedChildren);
-
-        contentStore.put(id, content);
-        return content;
-    }
+import com.aem.cmis.model.ContentNode;
 
-    private Content saveChild(Content child) {
-        String childId = UUID.randomUUID().toString();
-        child.setId(childId);
-        child.setCreatedAt(LocalDateTime.now());
-        child.setUpdatedAt(LocalDateTime.now());
-        child.setJcrMetadata(createJcrMetadata(child.getCreatedAt()));
-
-        // Recursively save child's children
-        List<Content> savedGrandChildren = new ArrayList<>();
-        for (Content grandChild : child.getChildren()) {
-            savedGrandChildren.add(saveChild(grandChild));
-        }
-        child.setChildren(savedGrandChildren);
-
-        contentStore.put(childId, child);
-        return child;
-    }
+/**
+ * Where content trees are stored. {@link InMemoryContentRepository} keeps them
+ * in this JVM, {@code cluster.PartitionedContentRepository} spreads them over
+ * several nodes.
+ *
+ * Nodes are immutable versions handed out as they are. Every node of a tree
+ * lives wherever its root does.
+ */
+public interface ContentRepository {
 
-    private Map<String, Object> createJcrMetadata(LocalDateTime createdAt) {
-        return new HashMap<String, Object>() {{
-            put("jcr:primaryType", "nt:unstructured");
-            put("jcr:created", createdAt.toString());
-        }};
-    }
+    // Expected version that skips the version check of update and delete
+    long ANY_VERSION = 0;
 
-    public Optional<Content> findById(String id) {
-        Content content = contentStore.get(id);
-        if (content == null) {
-            return Optional.empty();
-        }
-        // Ensure children are fully loaded
-        Content clonedContent = cloneContent(content);
-        return Optional.of(clonedContent);
-    }
+    ContentNode save(Content content);
 
-    public List<Content> findByTagOrAuthor(String tag, String author) {
-        return contentStore.values().stream()
-                .filter(content -> (tag == null || content.getTags().contains(tag)) &&
-                        (author == null || content.getAuthor().equalsIgnoreCase(author)))
-                .map(this::cloneContent)
-                .collect(Collectors.toList());
-    }
+    /**
+     * Stores a tree whose ids and timestamps are already assigned, replacing
+     * the stored version of it if there is one.
+     */
+    ContentNode applySaved(ContentNode root);
+
+    List<ContentNode> saveAll(List<Content> contents);
+
+    Optional<ContentNode> findById(String id);
 
-    public Content update(String id, Content updatedContent) {
-        Content existingContent = contentStore.get(id);
-        if (existingContent == null) {
-            throw new RuntimeException("Content not found: " + id);
-        }
-        existingContent.setTags(updatedContent.getTags());
-        existingContent.setUpdatedAt(LocalDateTime.now());
-        existingContent.getJcrMetadata().put("jcr:lastModified", existingContent.getUpdatedAt().toString());
+    /**
+     * Id of the root of the tree holding {@code id}, the id itself for a root.
+     */
+    Optional<String> findRootId(String id);
 
-        List<Content> savedChildren = new ArrayList<>();
+    /**
+     * The current root of every tree, in no particular order.
+     */
+    List<ContentNode> findRoots();
 
-        for (Content child : updatedContent.getChildren()) {
-        	savedChildren.add(saveChild(child));
-        }
-        existingContent.setChildren(savedChildren);
+    /**
+     * The current root of every tree whose root id {@code rootIds} accepts.
+     */
+    List<ContentNode> findRoots(Predicate<String> rootIds);
 
-        contentStore.put(id, existingContent);
-        return cloneContent(existingContent);
+    Optional<ContentNode> findByPath(String path);
+
+    /**
+     * Content below {@code path} in path order, without their children.
+     */
+    List<ContentNode> findByPathPrefix(String path, boolean recursive);
+
+    default List<ContentNode> findByTagOrAuthor(String tag, String author) {
+        return findByTagOrAuthor(tag, author, null, Integer.MAX_VALUE);
     }
 
-    public void delete(String id) {
-        Content content = contentStore.get(id);
-        if (content != null) {
-            deleteChildren(content.getChildren());
-            contentStore.remove(id);
-        }
+    /**
+     * Matches in id order, starting after {@code afterId} when given, so a caller
+     * can page through the results with the last id it has seen.
+     */
+    default List<ContentNode> findByTagOrAuthor(String tag, String author, String afterId, int limit) {
+        return find(ContentQuery.of(tag, author), afterId, limit);
     }
 
-    private void deleteChildren(List<Content> children) {
-        for (Content child : children) {
-            deleteChildren(child.getChildren());
-            contentStore.remove(child.getId());
-        }
+    /**
+     * Matches of {@code query} in id order, starting after {@code afterId} when
+     * given.
+     */
+    List<ContentNode> find(ContentQuery query, String afterId, int limit);
+
+    /**
+     * Keyword search over title and body, best match first.
+     */
+    List<ContentNode> searchText(String query, int limit);
+
+    /**
+     * The {@code limit} values of {@code facet} held by the most nodes, most
+     * first. Counts are kept up to date by every write, not made on request.
+     */
+    List<FacetCount> topFacets(ContentFacet facet, int limit);
+
+    /**
+     * Number of nodes holding {@code value}, 0 for one nobody holds.
+     */
+    long facetCount(ContentFacet facet, String value);
+
+    /**
+     * Counts facets only over the trees whose root id {@code rootIds} accepts,
+     * recounting the trees held. A node of a cluster counts the trees it is
+     * primary for, so that the counts of the nodes add up to the cluster's.
+     */
+    void countFacetsOf(Predicate<String> rootIds);
+
+    default ContentNode update(String id, Content updatedContent) {
+        return update(id, updatedContent, ANY_VERSION);
     }
 
-    private Content cloneContent(Content content) {
-        Content clone = new Content();
-        clone.setId(content.getId());
-        clone.setTitle(content.getTitle());
-        clone.setBody(content.getBody());
-        clone.setAuthor(content.getAuthor());
-        clone.setTags(new ArrayList<>(content.getTags()));
-        clone.setCreatedAt(content.getCreatedAt());
-        clone.setUpdatedAt(content.getUpdatedAt());
-        clone.setJcrMetadata(new HashMap<>(content.getJcrMetadata()));
-        List<Content> clonedChildren = content.getChildren().stream()
-                .map(this::cloneContent)
-                .collect(Collectors.toList());
-        clone.setChildren(clonedChildren);
-        return clone;
+    /**
+     * Replaces the tags and children of the node, if it is still at
+     * {@code expectedVersion} unless that is {@link #ANY_VERSION}. A node
+     * that is not stored is a {@link ResourceNotFoundException}.
+     */
+    ContentNode update(String id, Content updatedContent, long expectedVersion);
+
+    /**
+     * Replaces a node with a version built elsewhere. The node keeps its place
+     * in its tree.
+     */
+    ContentNode applyUpdated(ContentNode node);
+
+    default void delete(String id) {
+        delete(id, ANY_VERSION);
     }
-    
+
+    /**
+     * Removes the node and its subtree, if it is still at
+     * {@code expectedVersion} unless that is {@link #ANY_VERSION}. A node
+     * that is not stored is a {@link ResourceNotFoundException}.
+     */
+    void delete(String id, long expectedVersion);
+
+    /**
+     * Applies the writes in order, all of them or none. Every version check is
+     * made against the state the writes before it leave behind; if one fails,
+     * or names a node that is gone, a {@link com.aem.cmis.exception.ContentBatchException}
+     * says which and nothing is written. Returns, per write, the saved root,
+     * the updated node or the deleted one.
+     */
+    List<ContentNode> applyBatch(List<ContentWrite> writes);
+
+    void addChangeListener(ContentChangeListener listener);
+
+    void removeChangeListener(ContentChangeListener listener);
+
 }
@@ -0,0 +1,69 @@
+package com.aem.cmis.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+import com.aem.cmis.model.ContentNode;
+
+/**
+ * One hash partition of the store: the current version of its nodes and
+ * their ids in order. A scan over one shard runs without touching the others,
+ * so a filter over the whole store is split across threads by shard.
+ *
+ * Nodes are held twice: hashed for lookups by id and sorted by id for scans,
+ * which read them from the sorted map without a lookup per id. A scan may see
+ * a node a moment before or after {@link #get} does.
+ */
+final class ContentShard {
+
+	private final Map<String, ContentNode> nodes = new ConcurrentHashMap<>();
+	private final ConcurrentSkipListMap<String, ContentNode> sorted = new ConcurrentSkipListMap<>();
+
+	ContentNode get(String id) {
+		return nodes.get(id);
+	}
+
+	ContentNode put(ContentNode node) {
+		ContentNode previous = nodes.put(node.getId(), node);
+		sorted.put(node.getId(), node);
+		return previous;
+	}
+
+	ContentNode remove(String id) {
+		ContentNode previous = nodes.remove(id);
+		sorted.remove(id);
+		return previous;
+	}
+
+	int size() {
+		return nodes.size();
+	}
+
+	/**
+	 * The nodes after {@code afterId}, when given, in id order.
+	 */
+	Iterator<ContentNode> iterator(String afterId) {
+		return (afterId != null ? sorted.tailMap(afterId, false) : sorted).values().iterator();
+	}
+
+	/**
+	 * The first {@code limit} nodes after {@code afterId} that match, in id
+	 * order.
+	 */
+	List<ContentNode> scan(String afterId, Predicate<ContentNode> filter, int limit) {
+		List<ContentNode> matches = new ArrayList<>();
+		Iterator<ContentNode> iterator = iterator(afterId);
+		while (matches.size() < limit && iterator.hasNext()) {
+			ContentNode node = iterator.next();
+			if (filter.test(node)) {
+				matches.add(node);
+			}
+		}
+		return matches;
+	}
+}
@@ -0,0 +1,45 @@
+package com.aem.cmis.repository;
+
+import java.util.stream.Stream;
+
+import com.aem.cmis.model.ContentNode;
+
+/**
+ * Point-in-time view of the whole store, see {@link InMemoryContentRepository#openSnapshot()}.
+ * Writes made after the snapshot was opened are not visible through it. It must
+ * be closed, an open snapshot keeps every root version it can still see alive.
+ */
+public final class ContentSnapshot implements AutoCloseable {
+
+	private final InMemoryContentRepository repository;
+	private final long sequence;
+	private boolean closed;
+
+	ContentSnapshot(InMemoryContentRepository repository, long sequence) {
+		this.repository = repository;
+		this.sequence = sequence;
+	}
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Every tree as of the snapshot, one root per element with its whole
+	 * subtree. The stream is lazy, trees are only looked up as it is consumed.
+	 */
+	public Stream<ContentNode> roots() {
+		if (closed) {
+			throw new IllegalStateException("Snapshot " + sequence + " is closed");
+		}
+		return repository.rootsAt(sequence);
+	}
+
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			repository.closeSnapshot(sequence);
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package com.aem.cmis.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.model.TreeWalker;
+
+/**
+ * Turns new content trees into nodes ready to be stored.
+ */
+public final class ContentTreeBuilder {
+
+	private ContentTreeBuilder() {
+	}
+
+	// An incoming node and the existing one it replaces, null for a new node
+	private record Match(Content content, ContentNode existing) {
+	}
+
+	public static ContentNode build(Content content) {
+		return build(content, UlidGenerator.INSTANCE);
+	}
+
+	/**
+	 * Assigns ids from {@code ids}, timestamps and JCR metadata to every node of
+	 * the tree. Walks the tree without recursing, so its depth is not limited
+	 * by the stack.
+	 */
+	public static ContentNode build(Content content, ContentIdGenerator ids) {
+		return build(content, ids, null);
+	}
+
+	/**
+	 * As {@link #build(Content, ContentIdGenerator)}, with {@code rootId} as the
+	 * id of the root unless it is null, for trees placed by their root id.
+	 */
+	public static ContentNode build(Content content, ContentIdGenerator ids, String rootId) {
+		return TreeWalker.map(content, (node, depth) -> node.getChildren(), (node, children, depth) -> {
+			LocalDateTime now = LocalDateTime.now();
+			String id = depth == 0 && rootId != null ? rootId : ids.nextId();
+			return new ContentNode(id, node.getTitle(), node.getBody(), node.getAuthor(),
+					node.getTags(), now, now, node.getPath(), createJcrMetadata(now), children, 1);
+		});
+	}
+
+	/**
+	 * Builds the children replacing {@code existing} from {@code incoming}.
+	 * An incoming node takes the place of the existing sibling with its id, or
+	 * else with its path, and the same goes for its own children. A matched
+	 * node with the same fields and children is kept as it is, one that
+	 * changed becomes its next version under the same id; incoming nodes
+	 * without a match get new ids from {@code ids}. Existing nodes nobody
+	 * matched are not in the result.
+	 *
+	 * {@code current} gives the version of an existing node to compare with,
+	 * or null for one to treat as gone. Walks the tree without recursing.
+	 */
+	public static List<ContentNode> reconcile(List<ContentNode> existing, List<Content> incoming,
+			ContentIdGenerator ids, UnaryOperator<ContentNode> current) {
+		LocalDateTime now = LocalDateTime.now();
+		List<ContentNode> children = new ArrayList<>(incoming.size());
+		for (Match match : match(existing, incoming, current)) {
+			children.add(TreeWalker.map(match,
+					(node, depth) -> match(node.existing() != null ? node.existing().getChildren() : List.of(),
+							node.content().getChildren(), current),
+					(node, built, depth) -> reconciled(node, built, ids, current, now)));
+		}
+		return children;
+	}
+
+	private static List<Match> match(List<ContentNode> existing, List<Content> incoming,
+			UnaryOperator<ContentNode> current) {
+		Map<String, ContentNode> byId = new LinkedHashMap<>();
+		for (ContentNode child : existing) {
+			ContentNode version = current.apply(child);
+			if (version != null) {
+				byId.put(version.getId(), version);
+			}
+		}
+		ContentNode[] matched = new ContentNode[incoming.size()];
+		// Ids first, so a path never takes a node another incoming node names by id
+		for (int i = 0; i < matched.length; i++) {
+			String id = incoming.get(i).getId();
+			matched[i] = id != null ? byId.remove(id) : null;
+		}
+		Map<String, ContentNode> byPath = new HashMap<>();
+		for (ContentNode left : byId.values()) {
+			if (left.getPath() != null) {
+				byPath.putIfAbsent(left.getPath(), left);
+			}
+		}
+		List<Match> matches = new ArrayList<>(matched.length);
+		for (int i = 0; i < matched.length; i++) {
+			String path = incoming.get(i).getPath();
+			if (matched[i] == null && path != null) {
+				matched[i] = byPath.remove(path);
+			}
+			matches.add(new Match(incoming.get(i), matched[i]));
+		}
+		return matches;
+	}
+
+	private static ContentNode reconciled(Match match, List<ContentNode> children, ContentIdGenerator ids,
+			UnaryOperator<ContentNode> current, LocalDateTime now) {
+		Content content = match.content();
+		ContentNode existing = match.existing();
+		if (existing == null) {
+			return new ContentNode(ids.nextId(), content.getTitle(), content.getBody(), content.getAuthor(),
+					content.getTags(), now, now, content.getPath(), createJcrMetadata(now), children, 1);
+		}
+		if (Objects.equals(content.getTitle(), existing.getTitle()) && Objects.equals(content.getBody(), existing.getBody())
+				&& Objects.equals(content.getAuthor(), existing.getAuthor())
+				&& Objects.equals(content.getTags(), existing.getTags())
+				&& Objects.equals(content.getPath(), existing.getPath())
+				&& sameNodes(children, existing.getChildren(), current)) {
+			return existing;
+		}
+		return new ContentNode(existing.getId(), content.getTitle(), content.getBody(), content.getAuthor(),
+				content.getTags(), existing.getCreatedAt(), now, content.getPath(), modifiedJcrMetadata(existing, now),
+				children, existing.getVersion() + 1);
+	}
+
+	// Whether the built children are the current versions of the existing ones, in the same order
+	private static boolean sameNodes(List<ContentNode> built, List<ContentNode> existing,
+			UnaryOperator<ContentNode> current) {
+		int matched = 0;
+		for (ContentNode child : existing) {
+			ContentNode version = current.apply(child);
+			if (version == null) {
+				continue;
+			}
+			if (matched == built.size() || built.get(matched) != version) {
+				return false;
+			}
+			matched++;
+		}
+		return matched == built.size();
+	}
+
+	private static Map<String, Object> createJcrMetadata(LocalDateTime createdAt) {
+		return Map.of("jcr:primaryType", "nt:unstructured", "jcr:created", createdAt.toString());
+	}
+
+	/**
+	 * The metadata of {@code existing} marked as modified at {@code now}.
+	 */
+	public static Map<String, Object> modifiedJcrMetadata(ContentNode existing, LocalDateTime now) {
+		Map<String, Object> jcrMetadata = new HashMap<>(existing.getJcrMetadata());
+		jcrMetadata.put("jcr:lastModified", now.toString());
+		return jcrMetadata;
+	}
+}
@@ -0,0 +1,27 @@
+package com.aem.cmis.repository;
+
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+
+/**
+ * One write of a batch handed to {@link ContentRepository#applyBatch}.
+ */
+public sealed interface ContentWrite {
+
+	record Save(Content content) implements ContentWrite {
+	}
+
+	// A new tree whose ids are already assigned, stored as it is
+	record Saved(ContentNode root) implements ContentWrite {
+	}
+
+	record Update(String id, Content content, long expectedVersion) implements ContentWrite {
+	}
+
+	// A new version of a node built elsewhere, as an update returned it, stored without a version check
+	record Updated(ContentNode node) implements ContentWrite {
+	}
+
+	record Delete(String id, long expectedVersion) implements ContentWrite {
+	}
+}
@@ -0,0 +1,7 @@
+package com.aem.cmis.repository;
+
+/**
+ * Number of nodes holding a tag or an author.
+ */
+public record FacetCount(String value, long count) {
+}
@@ -0,0 +1,1088 @@
+package com.aem.cmis.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Repository;
+
+import com.aem.cmis.exception.ContentBatchException;
+import com.aem.cmis.exception.ContentVersionConflictException;
+import com.aem.cmis.exception.ResourceNotFoundException;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.model.TreeWalker;
+import com.aem.cmis.repository.index.ContentIndex;
+import com.aem.cmis.repository.index.FacetIndex;
+import com.aem.cmis.repository.index.FullTextIndex;
+import com.aem.cmis.repository.index.PathIndex;
+import com.aem.cmis.repository.index.TagAuthorIndex;
+
+/**
+ * In-memory content store, the {@link ContentRepository} of a single JVM.
+ *
+ * Nodes are stored as immutable {@link ContentNode} versions and handed out to
+ * callers as they are, without copying. A write builds new versions of the
+ * changed node and of its ancestors only (path copying); every other subtree
+ * is shared with the previous version. Readers therefore never take a lock and
+ * always observe a consistent version of the subtree they asked for. Writers
+ * are serialized per root id, so writes to different trees proceed in parallel.
+ *
+ * Every write gets a commit sequence number. A {@link ContentSnapshot} pins a
+ * sequence number and sees every tree as it was at that point; while one is
+ * open, writers keep the root versions they replace instead of dropping them.
+ *
+ * Nodes are spread over hash {@link ContentShard}s by id. Tag and author
+ * lookups go through the index; a query it cannot answer, such as one that
+ * only excludes, filters every shard in parallel on a fork-join pool and
+ * merges the matches in id order.
+ */
+@Repository("contentRepository")
+public class InMemoryContentRepository implements ContentRepository {
+	private static final Logger LOGGER = LoggerFactory.getLogger(InMemoryContentRepository.class);
+    // Node object, timestamps included, plus its entries in the store, id order, root and parent maps
+    private static final long NODE_BYTES = 80 + 4 * 48;
+    // Below this many nodes a filter runs over the shards on the calling thread
+    private static final int PARALLEL_SCAN_MIN_NODES = 16_384;
+    private static final Comparator<ContentNode> BY_ID = Comparator.comparing(ContentNode::getId);
+    private final ContentShard[] shards;
+    private final ForkJoinPool scanPool;
+    private final ContentIdGenerator idGenerator;
+    // node id -> id of the root of the tree the node belongs to
+    private final Map<String, String> rootIndex = new ConcurrentHashMap<>();
+    // node id -> id of its parent, roots have no entry
+    private final Map<String, String> parentIndex = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> rootLocks = new ConcurrentHashMap<>();
+    private final TagAuthorIndex tagAuthorIndex = new TagAuthorIndex();
+    private final PathIndex pathIndex = new PathIndex();
+    private final FullTextIndex fullTextIndex = new FullTextIndex();
+    private final FacetIndex facetIndex = new FacetIndex();
+    private final List<ContentIndex> indexes = List.of(tagAuthorIndex, pathIndex, fullTextIndex, facetIndex);
+    // Root ids of the trees the facet index counts, changed under the commit write lock
+    private volatile Predicate<String> facetScope = rootId -> true;
+
+    // Writers hold the read lock while they commit, opening a snapshot takes the write lock
+    private final ReentrantReadWriteLock commitLock = new ReentrantReadWriteLock();
+    private final AtomicLong commitSequence = new AtomicLong();
+    // root id -> current root version, or a tombstone (null root) that an open snapshot may still need
+    private final Map<String, RootVersion> roots = new ConcurrentHashMap<>();
+    // root id -> versions replaced while snapshots were open
+    private final Map<String, List<RootVersion>> retainedVersions = new ConcurrentHashMap<>();
+    private final Queue<String> tombstones = new ConcurrentLinkedQueue<>();
+    // sequence -> number of open snapshots pinning it, guarded by commitLock
+    private final TreeMap<Long, Integer> openSnapshots = new TreeMap<>();
+    private volatile ContentJournal journal = ContentJournal.NONE;
+    // Sum of estimateBytes over the current version of every node
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    private final List<ContentChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * A root version and the commit sequence range it was current for, {@code to}
+     * is exclusive and {@code Long.MAX_VALUE} while it still is.
+     */
+    private record RootVersion(ContentNode root, long from, long to) {
+    }
+
+    // Next node of a shard in a merge, and the ones after it
+    private record ShardHead(ContentNode node, Iterator<ContentNode> rest) {
+    }
+
+    // How a write describes itself to the journal once it has a sequence number
+    private interface JournalEntry {
+        void writeTo(ContentJournal journal, long sequence);
+    }
+
+    public InMemoryContentRepository() {
+        this(Runtime.getRuntime().availableProcessors(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * A store split into {@code shards} partitions, rounded up to a power of
+     * two, whose filtered scans run on {@code scanPool}.
+     */
+    public InMemoryContentRepository(int shards, ForkJoinPool scanPool) {
+        this(shards, scanPool, UlidGenerator.INSTANCE);
+    }
+
+    /**
+     * A store that assigns the ids of new nodes from {@code idGenerator}.
+     */
+    public InMemoryContentRepository(int shards, ForkJoinPool scanPool, ContentIdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+        this.shards = new ContentShard[shards <= 1 ? 1 : Integer.highestOneBit(shards - 1) << 1];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new ContentShard();
+        }
+        this.scanPool = scanPool;
+    }
+
+    /**
+     * Journal every later write goes through. Set it once the store has been
+     * restored, replaying into a journaled repository would journal everything
+     * again.
+     */
+    public void setJournal(ContentJournal journal) {
+        this.journal = journal != null ? journal : ContentJournal.NONE;
+    }
+
+    @Override
+    public void addChangeListener(ContentChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(ContentChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Moves the commit sequence forward after a restore, so new writes are
+     * numbered after the restored ones.
+     */
+    public void advanceSequence(long sequence) {
+        commitSequence.accumulateAndGet(sequence, Math::max);
+    }
+
+    public long currentSequence() {
+        return commitSequence.get();
+    }
+
+    public int nodeCount() {
+        int nodes = 0;
+        for (ContentShard shard : shards) {
+            nodes += shard.size();
+        }
+        return nodes;
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Nodes without a parent. Read from two maps without a lock, so it can be
+     * off by the size of a write in progress.
+     */
+    public int rootCount() {
+        return Math.max(0, nodeCount() - parentIndex.size());
+    }
+
+    public List<ContentIndex> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * Rough heap held by the current nodes, see {@link #estimateBytes}. Old
+     * versions kept for open snapshots are not counted.
+     */
+    public long estimatedHeapBytes() {
+        return estimatedBytes.get();
+    }
+
+    @Override
+    public ContentNode save(Content content) {
+        return applySaved(ContentTreeBuilder.build(content, idGenerator));
+    }
+
+    /**
+     * Stores a tree whose ids and timestamps are already assigned, as recorded
+     * by a {@link ContentJournal}. A stored version of the tree is replaced,
+     * dropping the nodes the new one no longer has.
+     */
+    @Override
+    public ContentNode applySaved(ContentNode root) {
+        ReentrantLock lock = lockFor(root.getId());
+        lock.lock();
+        try {
+            TreeDiff diff = diffTree(root.getId(), root);
+            publish(ContentChange.Type.SAVED, root, root.getId(), root, diff.written(), diff.removed(),
+                    (target, sequence) -> target.saved(sequence, root));
+            return root;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Saves a batch of independent trees. Every tree is built before the first
+     * one is published, so a tree that cannot be built fails the batch without
+     * storing any of it.
+     */
+    @Override
+    public List<ContentNode> saveAll(List<Content> contents) {
+        List<ContentNode> trees = new ArrayList<>(contents.size());
+        for (Content content : contents) {
+            trees.add(ContentTreeBuilder.build(content, idGenerator));
+        }
+        for (ContentNode root : trees) {
+            applySaved(root);
+        }
+        return trees;
+    }
+
+    @Override
+    public Optional<ContentNode> findById(String id) {
+        return Optional.ofNullable(node(id));
+    }
+
+    @Override
+    public Optional<String> findRootId(String id) {
+        return Optional.ofNullable(rootIndex.get(id));
+    }
+
+    @Override
+    public List<ContentNode> findRoots() {
+        List<ContentNode> current = new ArrayList<>(roots.size());
+        for (RootVersion version : roots.values()) {
+            if (version.root() != null) {
+                current.add(version.root());
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public List<ContentNode> findRoots(Predicate<String> rootIds) {
+        List<ContentNode> current = new ArrayList<>();
+        for (Map.Entry<String, RootVersion> entry : roots.entrySet()) {
+            if (entry.getValue().root() != null && rootIds.test(entry.getKey())) {
+                current.add(entry.getValue().root());
+            }
+        }
+        return current;
+    }
+
+    private ContentNode node(String id) {
+        return shardFor(id).get(id);
+    }
+
+    private ContentShard shardFor(String id) {
+        int hash = id.hashCode();
+        return shards[(hash ^ (hash >>> 16)) & (shards.length - 1)];
+    }
+
+    @Override
+    public Optional<ContentNode> findByPath(String path) {
+        String id = pathIndex.lookup(path);
+        return id != null ? findById(id) : Optional.empty();
+    }
+
+    /**
+     * Content below {@code path} in path order, returned without their children
+     * so a recursive listing does not repeat every subtree.
+     */
+    @Override
+    public List<ContentNode> findByPathPrefix(String path, boolean recursive) {
+        return pathIndex.descendants(path, recursive).stream()
+                .map(this::node)
+                .filter(content -> content != null)
+                .map(content -> content.withChildren(List.of()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Matches of {@code query} in id order, starting after {@code afterId} when
+     * given. With a tag or author only their postings are read; otherwise every
+     * shard is filtered, in parallel once the store is large enough.
+     */
+    @Override
+    public List<ContentNode> find(ContentQuery query, String afterId, int limit) {
+        if (query.isIndexed()) {
+            // Postings may briefly run ahead of or behind the store, so re-check every hit
+            return tagAuthorIndex.lookup(query.tag(), query.author(), afterId)
+                    .map(this::node)
+                    .filter(content -> content != null && query.test(content))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+        if (query.matchesAll()) {
+            // Nothing to filter, merging the shards lazily reads no more than the page
+            List<Iterator<ContentNode>> perShard = new ArrayList<>(shards.length);
+            for (ContentShard shard : shards) {
+                perShard.add(shard.iterator(afterId));
+            }
+            return mergeInIdOrder(perShard, limit);
+        }
+        List<ContentNode> matches = new ArrayList<>();
+        for (List<ContentNode> shardMatches : scanShards(query, afterId, limit)) {
+            matches.addAll(shardMatches);
+        }
+        // Each shard's matches are a sorted run, which the merge sort of List.sort merges in a pass per level
+        matches.sort(BY_ID);
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * The first {@code limit} matches of every shard. A shard with more
+     * matches stops there, the merged page cannot need them.
+     */
+    private List<List<ContentNode>> scanShards(ContentQuery query, String afterId, int limit) {
+        List<List<ContentNode>> results = new ArrayList<>(shards.length);
+        if (shards.length == 1 || nodeCount() < PARALLEL_SCAN_MIN_NODES) {
+            for (ContentShard shard : shards) {
+                results.add(shard.scan(afterId, query, limit));
+            }
+            return results;
+        }
+        List<ForkJoinTask<List<ContentNode>>> tasks = new ArrayList<>(shards.length);
+        for (ContentShard shard : shards) {
+            tasks.add(scanPool.submit(() -> shard.scan(afterId, query, limit)));
+        }
+        for (ForkJoinTask<List<ContentNode>> task : tasks) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    /**
+     * Merges per shard sequences, each in id order, into the first
+     * {@code limit} nodes overall.
+     */
+    private static List<ContentNode> mergeInIdOrder(List<Iterator<ContentNode>> sources, int limit) {
+        PriorityQueue<ShardHead> heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                (first, second) -> BY_ID.compare(first.node(), second.node()));
+        for (Iterator<ContentNode> source : sources) {
+            if (source.hasNext()) {
+                heads.add(new ShardHead(source.next(), source));
+            }
+        }
+        List<ContentNode> merged = new ArrayList<>();
+        while (merged.size() < limit && !heads.isEmpty()) {
+            ShardHead head = heads.poll();
+            merged.add(head.node());
+            if (head.rest().hasNext()) {
+                heads.add(new ShardHead(head.rest().next(), head.rest()));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Keyword search over title and body, best BM25 match first.
+     */
+    @Override
+    public List<ContentNode> searchText(String query, int limit) {
+        return fullTextIndex.search(query, limit).stream()
+                .map(hit -> node(hit.id()))
+                .filter(content -> content != null)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<FacetCount> topFacets(ContentFacet facet, int limit) {
+        return facetIndex.top(facet, limit);
+    }
+
+    @Override
+    public long facetCount(ContentFacet facet, String value) {
+        return facetIndex.count(facet, value);
+    }
+
+    /**
+     * Commits wait while the trees held are recounted.
+     */
+    @Override
+    public void countFacetsOf(Predicate<String> rootIds) {
+        commitLock.writeLock().lock();
+        try {
+            facetScope = rootIds;
+            facetIndex.clear();
+            for (Map.Entry<String, RootVersion> entry : roots.entrySet()) {
+                ContentNode root = entry.getValue().root();
+                if (root != null && rootIds.test(entry.getKey())) {
+                    for (ContentNode node : flatten(root)) {
+                        facetIndex.update(null, node);
+                    }
+                }
+            }
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the tags and children of the node. The incoming children are
+     * reconciled with the existing ones by id or path: unchanged nodes are
+     * kept as they are, changed ones keep their ids, and only those two kinds
+     * are written. Existing nodes left without a match are removed from the
+     * store with their subtrees. Unless {@code expectedVersion} is
+     * {@link #ANY_VERSION} the node must still be at that version; the check
+     * and the write happen under the tree's lock.
+     */
+    @Override
+    public ContentNode update(String id, Content updatedContent, long expectedVersion) {
+        String rootId = rootIndex.get(id);
+        if (rootId == null) {
+            throw new ResourceNotFoundException("Content not found: " + id);
+        }
+        ReentrantLock lock = lockFor(rootId);
+        lock.lock();
+        try {
+            ContentNode existing = node(id);
+            // The node may have been removed while we were waiting for the lock
+            if (existing == null || !rootId.equals(rootIndex.get(id))) {
+                throw new ResourceNotFoundException("Content not found: " + id);
+            }
+            checkVersion(existing, expectedVersion);
+            ContentNode updated = updatedNode(existing, updatedContent, UnaryOperator.identity());
+            replaceNode(rootId, existing, updated);
+            return updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The next version of existing with the tags of updatedContent and its children reconciled
+    private ContentNode updatedNode(ContentNode existing, Content updatedContent, UnaryOperator<ContentNode> current) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ContentNode> children = ContentTreeBuilder.reconcile(existing.getChildren(), updatedContent.getChildren(),
+                idGenerator, current);
+        return new ContentNode(existing.getId(), existing.getTitle(), existing.getBody(), existing.getAuthor(),
+                updatedContent.getTags(), existing.getCreatedAt(), now, existing.getPath(),
+                ContentTreeBuilder.modifiedJcrMetadata(existing, now), children, existing.getVersion() + 1);
+    }
+
+    /**
+     * Replaces a node with a version built elsewhere, as recorded by a
+     * {@link ContentJournal}. The node keeps its place in its tree.
+     */
+    @Override
+    public ContentNode applyUpdated(ContentNode node) {
+        String rootId = rootIndex.get(node.getId());
+        if (rootId == null) {
+            throw new ResourceNotFoundException("Content not found: " + node.getId());
+        }
+        ReentrantLock lock = lockFor(rootId);
+        lock.lock();
+        try {
+            ContentNode existing = node(node.getId());
+            if (existing == null || !rootId.equals(rootIndex.get(node.getId()))) {
+                throw new ResourceNotFoundException("Content not found: " + node.getId());
+            }
+            replaceNode(rootId, existing, node);
+            return node;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void replaceNode(String rootId, ContentNode existing, ContentNode updated) {
+        List<ContentNode> written = new ArrayList<>();
+        List<ContentNode> removed = new ArrayList<>();
+        diffChildren(existing, updated, UnaryOperator.identity(), written, removed);
+        written.add(updated);
+        written.addAll(copyPath(existing, updated));
+        // copyPath returns the ancestors bottom-up, so the new root is written last
+        publish(ContentChange.Type.UPDATED, updated, rootId, written.get(written.size() - 1), written, removed,
+                (target, sequence) -> target.updated(sequence, updated));
+    }
+
+    /**
+     * Compares the subtrees below two versions of a node. Nodes below
+     * {@code updated} that are not the current version of their id go to
+     * {@code written}; a subtree that is, was kept as it is and is skipped.
+     * Nodes below {@code existing} whose id is no longer there go to
+     * {@code removed}. {@code current} gives the current version of a stored
+     * node, null for one that is gone.
+     */
+    private void diffChildren(ContentNode existing, ContentNode updated, UnaryOperator<ContentNode> current,
+            List<ContentNode> written, List<ContentNode> removed) {
+        Set<String> writtenIds = new HashSet<>();
+        Set<String> keptIds = new HashSet<>();
+        for (ContentNode child : updated.getChildren()) {
+            TreeWalker.visit(child, (node, depth) -> keptIds.contains(node.getId()) ? null : node.getChildren(),
+                    (node, depth) -> {
+                        ContentNode stored = node(node.getId());
+                        if (stored != null && current.apply(stored) == node) {
+                            keptIds.add(node.getId());
+                        } else {
+                            written.add(node);
+                            writtenIds.add(node.getId());
+                        }
+                    });
+        }
+        for (ContentNode child : existing.getChildren()) {
+            ContentNode version = current.apply(child);
+            if (version == null) {
+                continue;
+            }
+            TreeWalker.visit(version, (node, depth) -> keptIds.contains(node.getId()) ? null : currentChildren(node, current),
+                    (node, depth) -> {
+                        if (!keptIds.contains(node.getId()) && !writtenIds.contains(node.getId())) {
+                            removed.add(node);
+                        }
+                    });
+        }
+    }
+
+    private static List<ContentNode> currentChildren(ContentNode node, UnaryOperator<ContentNode> current) {
+        List<ContentNode> children = new ArrayList<>(node.getChildren().size());
+        for (ContentNode child : node.getChildren()) {
+            ContentNode version = current.apply(child);
+            if (version != null) {
+                children.add(version);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Removes the node and its subtree, if it is still at
+     * {@code expectedVersion} unless that is {@link #ANY_VERSION}. A node
+     * that is not stored is a {@link ResourceNotFoundException}.
+     */
+    @Override
+    public void delete(String id, long expectedVersion) {
+        String rootId = rootIndex.get(id);
+        if (rootId == null) {
+            throw new ResourceNotFoundException("Content not found: " + id);
+        }
+        ReentrantLock lock = lockFor(rootId);
+        lock.lock();
+        try {
+            ContentNode existing = node(id);
+            if (existing == null || !rootId.equals(rootIndex.get(id))) {
+                throw new ResourceNotFoundException("Content not found: " + id);
+            }
+            checkVersion(existing, expectedVersion);
+            List<ContentNode> written = rootId.equals(id) ? List.of() : copyPath(existing, null);
+            ContentNode newRoot = written.isEmpty() ? null : written.get(written.size() - 1);
+            publish(ContentChange.Type.DELETED, existing, rootId, newRoot, written, flatten(existing),
+                    (target, sequence) -> target.deleted(sequence, id));
+            if (rootId.equals(id)) {
+                rootLocks.remove(rootId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the locks of every tree the batch touches, in root id order so two
+     * batches cannot deadlock, and works out the new version of every one of
+     * those trees, checking each write against the trees as the writes before
+     * it leave them. Nothing is visible until all of it is built. The trees
+     * are then committed together, under one commit sequence and one journal
+     * record: a journal that fails publishes none of the batch, and a restart
+     * restores either all of it or nothing.
+     */
+    @Override
+    public List<ContentNode> applyBatch(List<ContentWrite> writes) {
+        SortedSet<String> rootIds = new TreeSet<>();
+        List<ContentNode> built = new ArrayList<>(writes.size());
+        for (int i = 0; i < writes.size(); i++) {
+            ContentWrite write = writes.get(i);
+            if (write instanceof ContentWrite.Save save) {
+                built.add(ContentTreeBuilder.build(save.content(), idGenerator));
+                continue;
+            }
+            if (write instanceof ContentWrite.Saved saved) {
+                built.add(saved.root());
+                continue;
+            }
+            String id = targetOf(write);
+            String rootId = rootIndex.get(id);
+            if (rootId == null) {
+                throw new ContentBatchException(i, new ResourceNotFoundException("Content not found: " + id));
+            }
+            rootIds.add(rootId);
+            built.add(null);
+        }
+        List<ReentrantLock> locks = new ArrayList<>(rootIds.size());
+        try {
+            for (String rootId : rootIds) {
+                ReentrantLock lock = lockFor(rootId);
+                lock.lock();
+                locks.add(lock);
+            }
+            StagedBatch batch = stageBatch(writes, built);
+            List<TreeDiff> diffs = new ArrayList<>(batch.trees().size());
+            List<ContentNode> journaledRoots = new ArrayList<>();
+            List<String> deletedRootIds = new ArrayList<>();
+            for (Map.Entry<String, ContentNode> tree : batch.trees().entrySet()) {
+                diffs.add(diffTree(tree.getKey(), tree.getValue()));
+                if (tree.getValue() != null) {
+                    journaledRoots.add(tree.getValue());
+                } else {
+                    deletedRootIds.add(tree.getKey());
+                }
+            }
+            long sequence = commitTrees(diffs,
+                    (target, commit) -> target.batch(commit, journaledRoots, deletedRootIds));
+            deletedRootIds.forEach(rootLocks::remove);
+            if (!changeListeners.isEmpty()) {
+                for (StagedChange change : batch.changes()) {
+                    notifyListeners(new ContentChange(change.type(), sequence, change.node().getId(),
+                            change.node().getPath(), change.node().getVersion(), change.affectedIds()));
+                }
+            }
+            return batch.results();
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Replaces whole trees in one commit, as recorded by a {@link ContentJournal}
+     * batch: every tree of {@code roots} gets that root as its current version
+     * and the trees of {@code deletedRootIds} are removed.
+     */
+    public void applyTrees(List<ContentNode> roots, List<String> deletedRootIds) {
+        // Sorted, so the trees are locked in root id order like a batch does
+        TreeMap<String, ContentNode> trees = new TreeMap<>();
+        for (ContentNode root : roots) {
+            trees.put(root.getId(), root);
+        }
+        for (String rootId : deletedRootIds) {
+            trees.put(rootId, null);
+        }
+        List<ReentrantLock> locks = new ArrayList<>(trees.size());
+        try {
+            for (String rootId : trees.keySet()) {
+                ReentrantLock lock = lockFor(rootId);
+                lock.lock();
+                locks.add(lock);
+            }
+            List<TreeDiff> diffs = new ArrayList<>(trees.size());
+            for (Map.Entry<String, ContentNode> tree : trees.entrySet()) {
+                diffs.add(diffTree(tree.getKey(), tree.getValue()));
+            }
+            long sequence = commitTrees(diffs, (target, commit) -> target.batch(commit, roots, deletedRootIds));
+            deletedRootIds.forEach(rootLocks::remove);
+            if (!changeListeners.isEmpty()) {
+                for (TreeDiff diff : diffs) {
+                    ContentNode node = diff.root() != null ? diff.root() : diff.previous();
+                    if (node == null) {
+                        // Deleted by the batch, but already gone here
+                        continue;
+                    }
+                    ContentChange.Type type = diff.root() == null ? ContentChange.Type.DELETED
+                            : diff.previous() == null ? ContentChange.Type.SAVED : ContentChange.Type.UPDATED;
+                    notifyListeners(new ContentChange(type, sequence, node.getId(), node.getPath(), node.getVersion(),
+                            affectedIds(diff.written(), diff.removed())));
+                }
+            }
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static String targetOf(ContentWrite write) {
+        if (write instanceof ContentWrite.Update update) {
+            return update.id();
+        }
+        if (write instanceof ContentWrite.Updated updated) {
+            return updated.node().getId();
+        }
+        return ((ContentWrite.Delete) write).id();
+    }
+
+    // A write of a batch, reported to the change listeners once the batch is committed
+    private record StagedChange(ContentChange.Type type, ContentNode node, List<String> affectedIds) {
+    }
+
+    /**
+     * What a batch leaves behind: the node each write returns, the new root of
+     * every tree it touches, null for a tree it deletes, and its changes.
+     */
+    private record StagedBatch(List<ContentNode> results, Map<String, ContentNode> trees,
+            List<StagedChange> changes) {
+    }
+
+    /**
+     * Applies every write of the batch to new versions of the trees, without
+     * publishing anything: an update reconciles the children of its node and
+     * a delete detaches it, and either copies the path up to the root. Each
+     * update and delete is checked against the trees as the writes before it
+     * leave them. Runs under the locks of every tree involved.
+     */
+    private StagedBatch stageBatch(List<ContentWrite> writes, List<ContentNode> built) {
+        // Stored nodes as the writes so far leave them; the children of a staged node are current too
+        Map<String, ContentNode> staged = new HashMap<>();
+        Set<String> deleted = new HashSet<>();
+        UnaryOperator<ContentNode> current = node -> deleted.contains(node.getId()) ? null
+                : staged.getOrDefault(node.getId(), node);
+        Map<String, ContentNode> trees = new LinkedHashMap<>();
+        List<ContentNode> results = new ArrayList<>(writes.size());
+        List<StagedChange> changes = new ArrayList<>(writes.size());
+        for (int i = 0; i < writes.size(); i++) {
+            ContentWrite write = writes.get(i);
+            if (write instanceof ContentWrite.Save || write instanceof ContentWrite.Saved) {
+                ContentNode root = built.get(i);
+                List<ContentNode> nodes = flatten(root);
+                trees.put(root.getId(), root);
+                results.add(root);
+                changes.add(new StagedChange(ContentChange.Type.SAVED, root, affectedIds(nodes, List.of())));
+                continue;
+            }
+            String id = targetOf(write);
+            ContentNode existing = node(id);
+            if (existing == null || deleted.contains(id) || removedByBatch(id, deleted)) {
+                throw new ContentBatchException(i, new ResourceNotFoundException("Content not found: " + id));
+            }
+            ContentNode view = current.apply(existing);
+            long expectedVersion = write instanceof ContentWrite.Update update ? update.expectedVersion()
+                    : write instanceof ContentWrite.Delete delete ? delete.expectedVersion() : ANY_VERSION;
+            if (expectedVersion != ANY_VERSION && view.getVersion() != expectedVersion) {
+                throw new ContentBatchException(i,
+                        new ContentVersionConflictException(id, expectedVersion, view.getVersion()));
+            }
+            String rootId = rootIndex.get(id);
+            List<ContentNode> written = new ArrayList<>();
+            List<ContentNode> removed = new ArrayList<>();
+            boolean deletes = write instanceof ContentWrite.Delete;
+            ContentNode result;
+            if (!deletes) {
+                result = write instanceof ContentWrite.Update update ? updatedNode(view, update.content(), current)
+                        : ((ContentWrite.Updated) write).node();
+                diffChildren(view, result, current, written, removed);
+                written.add(result);
+            } else {
+                result = view;
+                removed.addAll(flatten(view));
+            }
+            List<ContentNode> ancestors = copyPath(view, deletes ? null : result, current);
+            written.addAll(ancestors);
+            for (ContentNode node : written) {
+                if (node(node.getId()) != null) {
+                    staged.put(node.getId(), node);
+                }
+            }
+            for (ContentNode node : removed) {
+                deleted.add(node.getId());
+            }
+            trees.put(rootId, rootId.equals(id) ? (deletes ? null : result) : ancestors.get(ancestors.size() - 1));
+            results.add(result);
+            changes.add(new StagedChange(deletes ? ContentChange.Type.DELETED : ContentChange.Type.UPDATED, result,
+                    affectedIds(written, removed)));
+        }
+        return new StagedBatch(results, trees, changes);
+    }
+
+    // Whether an earlier write of the batch removes the node along with an ancestor of it
+    private boolean removedByBatch(String id, Set<String> deleted) {
+        for (String ancestor = parentIndex.get(id); ancestor != null; ancestor = parentIndex.get(ancestor)) {
+            if (deleted.contains(ancestor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void checkVersion(ContentNode existing, long expectedVersion) {
+        if (expectedVersion != ANY_VERSION && existing.getVersion() != expectedVersion) {
+            throw new ContentVersionConflictException(existing.getId(), expectedVersion, existing.getVersion());
+        }
+    }
+
+    private ReentrantLock lockFor(String rootId) {
+        return rootLocks.computeIfAbsent(rootId, key -> new ReentrantLock());
+    }
+
+    /**
+     * New versions of every ancestor of {@code replaced}, bottom-up, with the
+     * node swapped for {@code replacement} or detached when that is null. Their
+     * version numbers go up, their subtree changed.
+     */
+    private List<ContentNode> copyPath(ContentNode replaced, ContentNode replacement) {
+        return copyPath(replaced, replacement, UnaryOperator.identity());
+    }
+
+    // As copyPath, starting from the versions of the ancestors current gives
+    private List<ContentNode> copyPath(ContentNode replaced, ContentNode replacement,
+            UnaryOperator<ContentNode> current) {
+        List<ContentNode> ancestors = new ArrayList<>();
+        String childId = replaced.getId();
+        ContentNode newChild = replacement;
+        String parentId = parentIndex.get(childId);
+        while (parentId != null) {
+            ContentNode parent = current.apply(node(parentId));
+            List<ContentNode> children = new ArrayList<>(parent.getChildren().size());
+            for (ContentNode child : parent.getChildren()) {
+                if (!child.getId().equals(childId)) {
+                    children.add(child);
+                } else if (newChild != null) {
+                    children.add(newChild);
+                }
+            }
+            newChild = parent.nextVersion(children);
+            ancestors.add(newChild);
+            childId = parentId;
+            parentId = parentIndex.get(parentId);
+        }
+        return ancestors;
+    }
+
+    /**
+     * Publishes new node versions, then drops removed nodes. A concurrent reader
+     * sees either the old or the new version of a node, never a missing one
+     * that still exists. {@code node} is the node the write was made on,
+     * {@code newRoot} the new version of the whole tree, null when the tree is
+     * deleted. The journal gets the write first, change
+     * listeners once it is visible.
+     */
+    private void publish(ContentChange.Type type, ContentNode node, String rootId, ContentNode newRoot,
+            List<ContentNode> written, List<ContentNode> removed, JournalEntry journalEntry) {
+        long sequence;
+        commitLock.readLock().lock();
+        try {
+            sequence = commitSequence.incrementAndGet();
+            journalEntry.writeTo(journal, sequence);
+            publishNodes(rootId, written, removed);
+            publishRoot(rootId, newRoot, sequence);
+        } finally {
+            commitLock.readLock().unlock();
+        }
+        if (!changeListeners.isEmpty()) {
+            notifyListeners(new ContentChange(type, sequence, node.getId(), node.getPath(), node.getVersion(),
+                    affectedIds(written, removed)));
+        }
+    }
+
+    // How committing a new version of a whole tree changes the store, root null when the tree goes
+    private record TreeDiff(String rootId, ContentNode previous, ContentNode root, List<ContentNode> written,
+            List<ContentNode> removed) {
+    }
+
+    /**
+     * The nodes to publish and remove to make {@code root} the current version
+     * of the tree, against the version stored now. Subtrees the new version
+     * shares with it are skipped; the root, when there is one, comes last.
+     */
+    private TreeDiff diffTree(String rootId, ContentNode root) {
+        RootVersion version = roots.get(rootId);
+        ContentNode previous = version != null ? version.root() : null;
+        List<ContentNode> written = new ArrayList<>();
+        List<ContentNode> removed = new ArrayList<>();
+        if (root == null) {
+            if (previous != null) {
+                removed.addAll(flatten(previous));
+            }
+        } else if (previous == null) {
+            written.addAll(flatten(root));
+        } else if (previous != root) {
+            diffChildren(previous, root, UnaryOperator.identity(), written, removed);
+            written.add(root);
+        }
+        return new TreeDiff(rootId, previous, root, written, removed);
+    }
+
+    /**
+     * Publishes new versions of several trees as one commit: one sequence
+     * number and one journal entry, written before any of the trees is
+     * published. The caller holds the lock of every tree.
+     */
+    private long commitTrees(List<TreeDiff> diffs, JournalEntry journalEntry) {
+        long sequence;
+        commitLock.readLock().lock();
+        try {
+            sequence = commitSequence.incrementAndGet();
+            journalEntry.writeTo(journal, sequence);
+            for (TreeDiff diff : diffs) {
+                publishNodes(diff.rootId(), diff.written(), diff.removed());
+                publishRoot(diff.rootId(), diff.root(), sequence);
+            }
+        } finally {
+            commitLock.readLock().unlock();
+        }
+        return sequence;
+    }
+
+    private static List<String> affectedIds(List<ContentNode> written, List<ContentNode> removed) {
+        List<String> ids = new ArrayList<>(written.size() + removed.size());
+        for (ContentNode node : written) {
+            ids.add(node.getId());
+        }
+        for (ContentNode node : removed) {
+            ids.add(node.getId());
+        }
+        return ids;
+    }
+
+    private void notifyListeners(ContentChange change) {
+        for (ContentChangeListener listener : changeListeners) {
+            try {
+                listener.changed(change);
+            } catch (RuntimeException e) {
+                // The write is already committed, a failing listener must not fail it
+                LOGGER.error("Content change listener failed for {} of {}", change.getType(), change.getId(), e);
+            }
+        }
+    }
+
+    private void publishNodes(String rootId, List<ContentNode> written, List<ContentNode> removed) {
+        for (ContentNode node : written) {
+            rootIndex.put(node.getId(), rootId);
+            for (ContentNode child : node.getChildren()) {
+                parentIndex.put(child.getId(), node.getId());
+            }
+            ContentNode previous = shardFor(node.getId()).put(node);
+            estimatedBytes.addAndGet(estimateBytes(node) - (previous != null ? estimateBytes(previous) : 0));
+            updateIndexes(rootId, previous, node);
+        }
+        for (ContentNode node : removed) {
+            ContentNode previous = shardFor(node.getId()).remove(node.getId());
+            rootIndex.remove(node.getId());
+            parentIndex.remove(node.getId());
+            if (previous != null) {
+                estimatedBytes.addAndGet(-estimateBytes(previous));
+                updateIndexes(rootId, previous, null);
+            }
+        }
+        LOGGER.debug("Published {} and removed {} nodes of tree {}", written.size(), removed.size(), rootId);
+    }
+
+    /**
+     * Makes {@code root} the current version of the tree. Runs under the commit
+     * read lock, so the set of open snapshots cannot change meanwhile.
+     */
+    private void publishRoot(String rootId, ContentNode root, long sequence) {
+        RootVersion previous = roots.get(rootId);
+        boolean retain = !openSnapshots.isEmpty();
+        // Retain before replacing, a snapshot that sees the new version must find the old one
+        if (previous != null && retain) {
+            retainedVersions.computeIfAbsent(rootId, key -> new CopyOnWriteArrayList<>())
+                    .add(new RootVersion(previous.root(), previous.from(), sequence));
+        }
+        if (root != null) {
+            roots.put(rootId, new RootVersion(root, sequence, Long.MAX_VALUE));
+        } else if (retain) {
+            roots.put(rootId, new RootVersion(null, sequence, Long.MAX_VALUE));
+            tombstones.add(rootId);
+        } else {
+            roots.remove(rootId);
+        }
+    }
+
+    /**
+     * Pins the current commit sequence. Until the snapshot is closed it returns
+     * every tree as it was at that point, whatever is written meanwhile.
+     */
+    public ContentSnapshot openSnapshot() {
+        commitLock.writeLock().lock();
+        try {
+            long sequence = commitSequence.get();
+            openSnapshots.merge(sequence, 1, Integer::sum);
+            return new ContentSnapshot(this, sequence);
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    void closeSnapshot(long sequence) {
+        commitLock.writeLock().lock();
+        try {
+            openSnapshots.computeIfPresent(sequence, (key, count) -> count > 1 ? count - 1 : null);
+            long oldest = openSnapshots.isEmpty() ? Long.MAX_VALUE : openSnapshots.firstKey();
+            // Drop the versions and tombstones no remaining snapshot can see
+            retainedVersions.values().removeIf(versions -> {
+                versions.removeIf(version -> version.to() <= oldest);
+                return versions.isEmpty();
+            });
+            tombstones.removeIf(rootId -> {
+                RootVersion version = roots.get(rootId);
+                if (version == null || version.root() != null) {
+                    return true;
+                }
+                if (version.from() <= oldest) {
+                    roots.remove(rootId);
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            commitLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The roots as of {@code sequence}, in no particular order. Every root that
+     * existed then is still in {@link #roots}, live or as a tombstone, so a
+     * single pass over it finds them all.
+     */
+    Stream<ContentNode> rootsAt(long sequence) {
+        return roots.entrySet().stream()
+                .map(entry -> versionAt(entry.getKey(), entry.getValue(), sequence))
+                .filter(root -> root != null);
+    }
+
+    private ContentNode versionAt(String rootId, RootVersion current, long sequence) {
+        if (current.from() <= sequence) {
+            return current.root();
+        }
+        List<RootVersion> versions = retainedVersions.get(rootId);
+        if (versions != null) {
+            for (RootVersion version : versions) {
+                if (version.from() <= sequence && sequence < version.to()) {
+                    return version.root();
+                }
+            }
+        }
+        // Created after the snapshot
+        return null;
+    }
+
+    private void updateIndexes(String rootId, ContentNode previous, ContentNode current) {
+        for (ContentIndex index : indexes) {
+            if (index != facetIndex || facetScope.test(rootId)) {
+                index.update(previous, current);
+            }
+        }
+    }
+
+    /**
+     * Bytes a node holds: the node itself, its own strings and child list,
+     * plus its store and lookup entries. Strings are taken as compact (one
+     * byte per char). Author, tags and metadata are interned by the node and
+     * shared with every node holding the same values, so they are not counted.
+     * Strings and lists shared between versions are counted for each version,
+     * so it is an upper bound rather than an exact figure.
+     */
+    private static long estimateBytes(ContentNode node) {
+        return NODE_BYTES + estimateBytes(node.getId()) + estimateBytes(node.getTitle())
+                + estimateBytes(node.getBody()) + estimateBytes(node.getPath())
+                + 16 + 4L * node.getChildren().size();
+    }
+
+    private static long estimateBytes(String value) {
+        return value != null ? 40 + value.length() : 0;
+    }
+
+    private List<ContentNode> flatten(ContentNode root) {
+        List<ContentNode> nodes = new ArrayList<>();
+        TreeWalker.visit(root, (node, depth) -> node.getChildren(), (node, depth) -> nodes.add(node));
+        return nodes;
+    }
+
+}
\ No newline at end of file
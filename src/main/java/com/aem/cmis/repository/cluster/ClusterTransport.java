@@ -0,0 +1,19 @@
+package com.aem.cmis.repository.cluster;
+
+import com.aem.cmis.exception.ClusterNodeUnavailableException;
+import com.aem.cmis.repository.ContentRepository;
+
+/**
+ * How a {@link PartitionedContentRepository} reaches the nodes of its cluster.
+ * Each node is addressed as the {@link ContentRepository} it holds; a networked
+ * transport hands out a client that sends every call to the node.
+ */
+public interface ClusterTransport {
+
+	/**
+	 * The repository of {@code nodeId}. Throws, or has its calls throw, a
+	 * {@link ClusterNodeUnavailableException} while the node cannot be reached.
+	 */
+	ContentRepository connect(String nodeId);
+
+}
@@ -0,0 +1,182 @@
+package com.aem.cmis.repository.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Consistent hash ring. Every node is placed at {@code virtualNodes} points
+ * of a 64-bit ring and a key belongs to the nodes at the first points
+ * clockwise from its hash, so adding or removing a node only moves the keys
+ * between its points and the ones before them.
+ */
+final class ConsistentHashRing {
+
+	// Points and members together, replaced as a whole so lookups never lock
+	private record Members(NavigableMap<Long, String> points, List<String> nodes) {
+	}
+
+	private final int virtualNodes;
+	private volatile Members members = new Members(new TreeMap<>(), List.of());
+
+	ConsistentHashRing(int virtualNodes) {
+		if (virtualNodes < 1) {
+			throw new IllegalArgumentException("Virtual nodes must be at least 1: " + virtualNodes);
+		}
+		this.virtualNodes = virtualNodes;
+	}
+
+	synchronized boolean add(String node) {
+		Members current = members;
+		if (current.nodes().contains(node)) {
+			return false;
+		}
+		TreeMap<Long, String> points = new TreeMap<>(current.points());
+		for (int i = 0; i < virtualNodes; i++) {
+			// A collision keeps the point with the node placed first
+			points.putIfAbsent(hash(node + '#' + i), node);
+		}
+		List<String> nodes = new ArrayList<>(current.nodes());
+		nodes.add(node);
+		members = new Members(points, List.copyOf(nodes));
+		return true;
+	}
+
+	synchronized boolean remove(String node) {
+		Members current = members;
+		if (!current.nodes().contains(node)) {
+			return false;
+		}
+		TreeMap<Long, String> points = new TreeMap<>(current.points());
+		points.values().removeIf(node::equals);
+		List<String> nodes = new ArrayList<>(current.nodes());
+		nodes.remove(node);
+		members = new Members(points, List.copyOf(nodes));
+		return true;
+	}
+
+	List<String> nodes() {
+		return members.nodes();
+	}
+
+	/**
+	 * The points of the ring as it is now, unchanged by later adds and removes.
+	 */
+	NavigableMap<Long, String> points() {
+		return Collections.unmodifiableNavigableMap(members.points());
+	}
+
+	/**
+	 * The first {@code count} distinct nodes clockwise from the hash of
+	 * {@code key}, fewer when the ring has fewer nodes.
+	 */
+	List<String> ownersOf(String key, int count) {
+		return ownersAt(members.points(), hash(key), count);
+	}
+
+	private static List<String> ownersAt(NavigableMap<Long, String> points, long hash, int count) {
+		List<String> owners = new ArrayList<>(count);
+		collect(points.tailMap(hash, true).values(), owners, count);
+		collect(points.headMap(hash, false).values(), owners, count);
+		return owners;
+	}
+
+	/**
+	 * The arcs whose first {@code count} owners differ between {@code before},
+	 * the {@link #points()} of an earlier ring, and the ring now. Only the keys
+	 * hashing into them changed owners. Between two adjacent points of either
+	 * ring every key has the same owners, so comparing the owners at each
+	 * point is enough; the work grows with the points, not with the keys.
+	 */
+	Arcs movedArcs(NavigableMap<Long, String> before, int count) {
+		NavigableMap<Long, String> after = members.points();
+		TreeSet<Long> bounds = new TreeSet<>(before.keySet());
+		bounds.addAll(after.keySet());
+		Arcs moved = new Arcs();
+		if (bounds.isEmpty()) {
+			return moved;
+		}
+		long previous = bounds.last();
+		for (long bound : bounds) {
+			if (!ownersAt(before, bound, count).equals(ownersAt(after, bound, count))) {
+				moved.add(previous, bound);
+			}
+			previous = bound;
+		}
+		return moved;
+	}
+
+	private static void collect(Iterable<String> points, List<String> owners, int wanted) {
+		for (String node : points) {
+			if (owners.size() == wanted) {
+				return;
+			}
+			if (!owners.contains(node)) {
+				owners.add(node);
+			}
+		}
+	}
+
+	/**
+	 * Ranges of hashes, each the keys from just after one point of the ring up
+	 * to and including the next.
+	 */
+	static final class Arcs {
+		// first hash -> last hash of a range, neither wrapping around the ring
+		private final NavigableMap<Long, Long> ranges = new TreeMap<>();
+
+		// The keys after point from up to and including point to, clockwise
+		void add(long from, long to) {
+			if (from < to) {
+				addRange(from + 1, to);
+				return;
+			}
+			// Wraps past the end of the ring, or is the whole ring when from == to
+			if (from != Long.MAX_VALUE) {
+				addRange(from + 1, Long.MAX_VALUE);
+			}
+			addRange(Long.MIN_VALUE, to);
+		}
+
+		private void addRange(long first, long last) {
+			Map.Entry<Long, Long> before = ranges.lowerEntry(first);
+			if (before != null && before.getValue() == first - 1) {
+				ranges.put(before.getKey(), last);
+			} else {
+				ranges.put(first, last);
+			}
+		}
+
+		boolean contains(String key) {
+			long hash = hash(key);
+			Map.Entry<Long, Long> range = ranges.floorEntry(hash);
+			return range != null && hash <= range.getValue();
+		}
+
+		boolean isEmpty() {
+			return ranges.isEmpty();
+		}
+	}
+
+	/**
+	 * FNV-1a over the chars, then the MurmurHash3 finalizer to spread the
+	 * bits of similar keys such as the points of one node.
+	 */
+	static long hash(String key) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < key.length(); i++) {
+			hash ^= key.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
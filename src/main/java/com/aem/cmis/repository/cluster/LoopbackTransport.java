@@ -0,0 +1,52 @@
+package com.aem.cmis.repository.cluster;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.aem.cmis.exception.ClusterNodeUnavailableException;
+import com.aem.cmis.repository.ContentRepository;
+import com.aem.cmis.repository.InMemoryContentRepository;
+
+/**
+ * Runs every node of the cluster in this JVM, each with its own
+ * {@link InMemoryContentRepository}, and calls it directly. A node can be
+ * marked unavailable to see how the cluster copes without it.
+ */
+public class LoopbackTransport implements ClusterTransport {
+
+	private final Map<String, ContentRepository> nodes = new ConcurrentHashMap<>();
+	private final Set<String> unavailable = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Starts {@code nodeId} with an empty repository, unless it already runs.
+	 */
+	public ContentRepository start(String nodeId) {
+		return nodes.computeIfAbsent(nodeId, id -> new InMemoryContentRepository());
+	}
+
+	public void setAvailable(String nodeId, boolean available) {
+		if (available) {
+			unavailable.remove(nodeId);
+		} else {
+			unavailable.add(nodeId);
+		}
+	}
+
+	/**
+	 * The repository of {@code nodeId}, reachable or not, to look at what the
+	 * node holds.
+	 */
+	public ContentRepository node(String nodeId) {
+		return nodes.get(nodeId);
+	}
+
+	@Override
+	public ContentRepository connect(String nodeId) {
+		ContentRepository node = nodes.get(nodeId);
+		if (node == null || unavailable.contains(nodeId)) {
+			throw new ClusterNodeUnavailableException(nodeId, "Cluster node " + nodeId + " is unavailable");
+		}
+		return node;
+	}
+}
@@ -0,0 +1,832 @@
+package com.aem.cmis.repository.cluster;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aem.cmis.exception.ClusterNodeUnavailableException;
+import com.aem.cmis.exception.ContentBatchException;
+import com.aem.cmis.exception.ContentValidationException;
+import com.aem.cmis.exception.ResourceNotFoundException;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.repository.ContentChange;
+import com.aem.cmis.repository.ContentChangeListener;
+import com.aem.cmis.repository.ContentFacet;
+import com.aem.cmis.repository.ContentIdGenerator;
+import com.aem.cmis.repository.ContentQuery;
+import com.aem.cmis.repository.ContentRepository;
+import com.aem.cmis.repository.ContentTreeBuilder;
+import com.aem.cmis.repository.ContentWrite;
+import com.aem.cmis.repository.FacetCount;
+import com.aem.cmis.repository.UlidGenerator;
+
+/**
+ * Content spread over the nodes of a cluster, reached through a
+ * {@link ClusterTransport}.
+ *
+ * Trees are placed whole by the id of their root on a consistent hash ring:
+ * the first {@code replicationFactor} nodes clockwise hold a replica each, the
+ * first reachable one acting as primary. A write runs on the primary, which
+ * checks the version and builds the new nodes, and the result is then applied
+ * to the other replicas. A replica that is down misses the write, and a tree
+ * whose replicas are all down cannot be written.
+ *
+ * The version of a root goes up with every write to its tree, so replicas
+ * compare it to find out which of them are behind. Before a write, and when
+ * a read finds them apart, the reachable replicas are given the newest
+ * version; a replica is never set back to an older one. A tree deleted while
+ * one of its replicas was down is remembered, so that replica drops it
+ * instead of handing it back.
+ *
+ * A root is read from its replicas; a node below a root, and any search, is
+ * asked of every node at once and the answers are merged, dropping the
+ * repeats of the replicas. Adding or removing a node only moves the trees
+ * whose replicas changed.
+ */
+public class PartitionedContentRepository implements ContentRepository {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedContentRepository.class);
+	public static final int DEFAULT_VIRTUAL_NODES = 128;
+	// Root ids drawn for a new tree of a batch before giving up, each takes well under a microsecond
+	private static final int PLACEMENT_TRIES = 100_000;
+	private static final Comparator<ContentNode> BY_ID = Comparator.comparing(ContentNode::getId);
+	private static final Comparator<ContentNode> BY_PATH = Comparator
+			.comparing(ContentNode::getPath, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+			.thenComparing(ContentNode::getId);
+	private static final Comparator<FacetCount> BY_COUNT = Comparator.comparingLong(FacetCount::count).reversed()
+			.thenComparing(FacetCount::value);
+
+	private final ClusterTransport transport;
+	private final int replicationFactor;
+	private final Executor executor;
+	private final ContentIdGenerator idGenerator;
+	private final ConsistentHashRing ring;
+	// Writes hold the read lock, adding or removing a node takes the write lock
+	private final ReentrantReadWriteLock topologyLock = new ReentrantReadWriteLock();
+	// Writes to a tree are serialized, so its replicas apply them in the order of the primary
+	private final Map<String, ReentrantLock> rootLocks = new ConcurrentHashMap<>();
+	// Root ids of trees deleted while some replica missed it, until every replica has dropped them
+	private final Set<String> deletedRoots = ConcurrentHashMap.newKeySet();
+	private final List<ContentChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+	// node id -> the listener forwarding its changes, one per node on the ring
+	private final Map<String, NodeListener> nodeListeners = new ConcurrentHashMap<>();
+	// The node a write is running on as primary, on the thread running it
+	private final ThreadLocal<String> writingPrimary = new ThreadLocal<>();
+	// Root ids of the trees the facet counts cover, changed under the topology write lock
+	private Predicate<String> facetScope = rootId -> true;
+
+	public PartitionedContentRepository(ClusterTransport transport, int replicationFactor) {
+		this(transport, replicationFactor, DEFAULT_VIRTUAL_NODES, ForkJoinPool.commonPool(), UlidGenerator.INSTANCE);
+	}
+
+	/**
+	 * A cluster without nodes yet, see {@link #addNode}. The calls a read or
+	 * search sends to every node run on {@code executor}, and the nodes of new
+	 * trees get their ids from {@code idGenerator}.
+	 */
+	public PartitionedContentRepository(ClusterTransport transport, int replicationFactor, int virtualNodes,
+			Executor executor, ContentIdGenerator idGenerator) {
+		if (replicationFactor < 1) {
+			throw new IllegalArgumentException("Replication factor must be at least 1: " + replicationFactor);
+		}
+		this.transport = transport;
+		this.replicationFactor = replicationFactor;
+		this.ring = new ConsistentHashRing(virtualNodes);
+		this.executor = executor;
+		this.idGenerator = idGenerator;
+	}
+
+	public int getReplicationFactor() {
+		return replicationFactor;
+	}
+
+	public List<String> getNodes() {
+		return ring.nodes();
+	}
+
+	/**
+	 * Nodes holding the tree of the root {@code rootId}, its primary first.
+	 */
+	public List<String> replicasOf(String rootId) {
+		return ring.ownersOf(rootId, replicationFactor);
+	}
+
+	/**
+	 * Adds {@code nodeId} to the ring and copies to it the trees it now holds a
+	 * replica of, dropping each from the node it replaces. Returns the number
+	 * of trees copied.
+	 */
+	public int addNode(String nodeId) {
+		topologyLock.writeLock().lock();
+		try {
+			ContentRepository node = transport.connect(nodeId);
+			NavigableMap<Long, String> before = ring.points();
+			if (!ring.add(nodeId)) {
+				return 0;
+			}
+			NodeListener listener = new NodeListener(nodeId);
+			nodeListeners.put(nodeId, listener);
+			node.addChangeListener(listener);
+			int copied = rebalance(ring.nodes(), ring.movedArcs(before, replicationFactor));
+			countFacets();
+			return copied;
+		} finally {
+			topologyLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Takes {@code nodeId} off the ring and copies its trees to the nodes that
+	 * replace it, from the node itself if it is still reachable and from the
+	 * other replicas otherwise. Returns the number of trees copied.
+	 */
+	public int removeNode(String nodeId) {
+		topologyLock.writeLock().lock();
+		try {
+			NavigableMap<Long, String> before = ring.points();
+			if (!ring.remove(nodeId)) {
+				return 0;
+			}
+			NodeListener listener = nodeListeners.remove(nodeId);
+			try {
+				transport.connect(nodeId).removeChangeListener(listener);
+			} catch (ClusterNodeUnavailableException e) {
+				// Left registered, but it no longer forwards anything
+				LOGGER.warn("Cluster node {} is unavailable, its change listener is left behind", nodeId);
+			}
+			List<String> sources = new ArrayList<>(ring.nodes());
+			sources.add(0, nodeId);
+			int copied = rebalance(sources, ring.movedArcs(before, replicationFactor));
+			countFacets();
+			return copied;
+		} finally {
+			topologyLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Brings the trees held by {@code sources} whose root ids hash into the
+	 * {@code moved} arcs, the only ones whose replicas changed, to their
+	 * replicas on the current ring, copying each to those that miss it or
+	 * hold an older version. A source that is no longer a replica of a tree
+	 * drops it, once all the replicas have it.
+	 */
+	private int rebalance(List<String> sources, ConsistentHashRing.Arcs moved) {
+		if (moved.isEmpty()) {
+			return 0;
+		}
+		// root id -> whether every replica of the tree has it
+		Map<String, Boolean> placed = new HashMap<>();
+		int copied = 0;
+		for (String source : sources) {
+			ContentRepository node;
+			List<ContentNode> roots;
+			try {
+				node = transport.connect(source);
+				roots = node.findRoots(moved::contains);
+			} catch (ClusterNodeUnavailableException e) {
+				LOGGER.warn("Cluster node {} is unavailable, its trees are rebalanced from their other replicas", source);
+				continue;
+			}
+			for (ContentNode root : roots) {
+				List<String> replicas = replicasOf(root.getId());
+				Boolean complete = placed.get(root.getId());
+				if (complete == null) {
+					Map<String, ContentNode> held = readReplicas(root.getId(), replicas);
+					copied += level(root.getId(), replicas.size(), held, root);
+					complete = held.size() == replicas.size();
+					placed.put(root.getId(), complete);
+				}
+				if (complete && !replicas.contains(source)) {
+					node.delete(root.getId());
+				}
+			}
+		}
+		LOGGER.info("Rebalanced {} trees over {} cluster nodes, {} copied", placed.size(), ring.nodes().size(), copied);
+		return copied;
+	}
+
+	/**
+	 * Has every node count the facets of the trees it is primary for, which
+	 * moves with the ring. The caller holds the topology write lock.
+	 */
+	private void countFacets() {
+		Predicate<String> scope = facetScope;
+		for (String nodeId : ring.nodes()) {
+			try {
+				transport.connect(nodeId)
+						.countFacetsOf(rootId -> scope.test(rootId) && nodeId.equals(ring.ownersOf(rootId, 1).get(0)));
+			} catch (ClusterNodeUnavailableException e) {
+				LOGGER.warn("Cluster node {} is unavailable, its facet counts are not moved to the new ring", nodeId);
+			}
+		}
+	}
+
+	@Override
+	public ContentNode save(Content content) {
+		return applySaved(ContentTreeBuilder.build(content, idGenerator));
+	}
+
+	@Override
+	public ContentNode applySaved(ContentNode root) {
+		return write(root.getId(), node -> node.applySaved(root), (node, saved) -> node.applySaved(saved));
+	}
+
+	/**
+	 * Every tree is built before the first one is stored. The trees go to
+	 * different replicas, so unlike on a single node a failing write can leave
+	 * the batch partly stored.
+	 */
+	@Override
+	public List<ContentNode> saveAll(List<Content> contents) {
+		List<ContentNode> trees = new ArrayList<>(contents.size());
+		for (Content content : contents) {
+			trees.add(ContentTreeBuilder.build(content, idGenerator));
+		}
+		for (ContentNode root : trees) {
+			applySaved(root);
+		}
+		return trees;
+	}
+
+	@Override
+	public ContentNode update(String id, Content updatedContent, long expectedVersion) {
+		String rootId = findRootId(id).orElseThrow(() -> new ResourceNotFoundException("Content not found: " + id));
+		return write(rootId, node -> node.update(id, updatedContent, expectedVersion),
+				(node, updated) -> node.applyUpdated(updated));
+	}
+
+	@Override
+	public ContentNode applyUpdated(ContentNode updated) {
+		String rootId = findRootId(updated.getId())
+				.orElseThrow(() -> new ResourceNotFoundException("Content not found: " + updated.getId()));
+		return write(rootId, node -> node.applyUpdated(updated), (node, applied) -> node.applyUpdated(applied));
+	}
+
+	@Override
+	public void delete(String id, long expectedVersion) {
+		String rootId = findRootId(id).orElseThrow(() -> new ResourceNotFoundException("Content not found: " + id));
+		Set<String> deletedRootIds = rootId.equals(id) ? Set.of(id) : Set.of();
+		write(List.of(rootId), deletedRootIds, node -> {
+			node.delete(id, expectedVersion);
+			return id;
+		}, (node, deleted) -> node.delete(deleted));
+		if (rootId.equals(id)) {
+			rootLocks.remove(id);
+		}
+	}
+
+	/**
+	 * Atomic only where a single node can make it so: every tree the batch
+	 * updates or deletes content of must be replicated by the same nodes, in
+	 * whatever order. New trees are given root ids that place them on those
+	 * nodes too, so the whole batch runs on one of them and its results are
+	 * replayed on each of the others as one batch, all or nothing there as
+	 * well. A batch writing to trees of different nodes is rejected.
+	 */
+	@Override
+	public List<ContentNode> applyBatch(List<ContentWrite> writes) {
+		topologyLock.readLock().lock();
+		try {
+			Set<String> replicas = null;
+			int placedBy = -1;
+			Set<String> rootIds = new TreeSet<>();
+			Set<String> deletedRootIds = new HashSet<>();
+			for (int i = 0; i < writes.size(); i++) {
+				String id;
+				if (writes.get(i) instanceof ContentWrite.Update update) {
+					id = update.id();
+				} else if (writes.get(i) instanceof ContentWrite.Updated updated) {
+					id = updated.node().getId();
+				} else if (writes.get(i) instanceof ContentWrite.Delete delete) {
+					id = delete.id();
+				} else if (writes.get(i) instanceof ContentWrite.Saved saved) {
+					id = saved.root().getId();
+				} else {
+					continue;
+				}
+				// A tree built elsewhere is placed by its own root id
+				Optional<String> rootId = writes.get(i) instanceof ContentWrite.Saved ? Optional.of(id) : findRootId(id);
+				if (rootId.isEmpty()) {
+					throw new ContentBatchException(i, new ResourceNotFoundException("Content not found: " + id));
+				}
+				Set<String> treeReplicas = new HashSet<>(replicasOf(rootId.get()));
+				if (replicas == null) {
+					replicas = treeReplicas;
+					placedBy = i;
+				} else if (!replicas.equals(treeReplicas)) {
+					throw new ContentValidationException(List.of("Operations " + placedBy + " and " + i
+							+ " write to trees held by different cluster nodes, a batch must stay on one partition"));
+				}
+				rootIds.add(rootId.get());
+				if (rootId.get().equals(id) && writes.get(i) instanceof ContentWrite.Delete) {
+					deletedRootIds.add(id);
+				}
+			}
+			List<ContentWrite> routed = new ArrayList<>(writes.size());
+			for (ContentWrite write : writes) {
+				if (!(write instanceof ContentWrite.Save save)) {
+					routed.add(write);
+					continue;
+				}
+				String rootId;
+				if (replicas == null) {
+					rootId = idGenerator.nextId();
+					replicas = new HashSet<>(replicasOf(rootId));
+				} else {
+					rootId = rootIdOn(replicas);
+				}
+				rootIds.add(rootId);
+				routed.add(new ContentWrite.Saved(ContentTreeBuilder.build(save.content(), idGenerator, rootId)));
+			}
+			if (replicas == null) {
+				return List.of();
+			}
+			List<ContentNode> results = write(new ArrayList<>(rootIds), deletedRootIds, node -> node.applyBatch(routed),
+					(node, applied) -> node.applyBatch(replayOf(routed, applied)));
+			rootLocks.keySet().removeAll(deletedRootIds);
+			return results;
+		} finally {
+			topologyLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * The batch as the primary applied it, to replay on a replica in one
+	 * batch of its own: every write carries its result, so nothing is
+	 * rebuilt or version checked again.
+	 */
+	private static List<ContentWrite> replayOf(List<ContentWrite> writes, List<ContentNode> applied) {
+		List<ContentWrite> replay = new ArrayList<>(writes.size());
+		for (int i = 0; i < writes.size(); i++) {
+			if (writes.get(i) instanceof ContentWrite.Saved) {
+				replay.add(new ContentWrite.Saved(applied.get(i)));
+			} else if (writes.get(i) instanceof ContentWrite.Delete) {
+				replay.add(new ContentWrite.Delete(applied.get(i).getId(), ANY_VERSION));
+			} else {
+				replay.add(new ContentWrite.Updated(applied.get(i)));
+			}
+		}
+		return replay;
+	}
+
+	/**
+	 * A new root id whose tree {@code replicas} replicate. Ids cannot be chosen
+	 * by their hash, so they are drawn until one lands on those nodes: the
+	 * odds are the share of the ring they hold together, which any order of
+	 * them counts toward. A share too small to be hit in
+	 * {@link #PLACEMENT_TRIES} draws fails the batch.
+	 */
+	private String rootIdOn(Set<String> replicas) {
+		for (int i = 0; i < PLACEMENT_TRIES; i++) {
+			String rootId = idGenerator.nextId();
+			if (replicas.equals(new HashSet<>(replicasOf(rootId)))) {
+				return rootId;
+			}
+		}
+		throw new ContentValidationException(List.of("No id for a new tree lands on cluster nodes " + replicas
+				+ " after " + PLACEMENT_TRIES + " tries, create it in a batch of its own"));
+	}
+
+	private <T> T write(String rootId, Function<ContentRepository, T> write, BiConsumer<ContentRepository, T> replicate) {
+		return write(List.of(rootId), Set.of(), write, replicate);
+	}
+
+	/**
+	 * Runs {@code write} on the primary of the trees, the first of their
+	 * replicas that is reachable, then {@code replicate} with its result on the
+	 * others. The trees share their replicas and are locked in the order given,
+	 * which callers keep sorted. The reachable replicas are first brought level
+	 * with the newest version among them, so the primary never writes over a
+	 * tree it is behind on and every replay lands on the version it was made
+	 * from. The write is committed once the primary has it, a replica that
+	 * fails to follow is only logged; if it misses the deletion of one of
+	 * {@code deletedRootIds}, that tree is remembered as deleted.
+	 */
+	private <T> T write(List<String> rootIds, Set<String> deletedRootIds, Function<ContentRepository, T> write,
+			BiConsumer<ContentRepository, T> replicate) {
+		topologyLock.readLock().lock();
+		List<ReentrantLock> locks = new ArrayList<>(rootIds.size());
+		try {
+			for (String rootId : rootIds) {
+				ReentrantLock lock = rootLocks.computeIfAbsent(rootId, key -> new ReentrantLock());
+				lock.lock();
+				locks.add(lock);
+			}
+			String trees = rootIds.size() == 1 ? "tree " + rootIds.get(0) : "trees " + rootIds;
+			List<String> replicas = replicasOf(rootIds.get(0));
+			List<String> level = levelReplicas(rootIds, replicas);
+			int next = 0;
+			T result = null;
+			boolean written = false;
+			while (!written && next < level.size()) {
+				writingPrimary.set(level.get(next));
+				try {
+					result = write.apply(transport.connect(level.get(next)));
+					written = true;
+				} catch (ClusterNodeUnavailableException e) {
+					LOGGER.warn("Replica {} of {} is unavailable, trying the next one", level.get(next), trees);
+				} finally {
+					writingPrimary.remove();
+				}
+				next++;
+			}
+			if (!written) {
+				throw new ClusterNodeUnavailableException(replicas.isEmpty() ? null : replicas.get(0),
+						"No replica of " + trees + " is available: " + replicas);
+			}
+			boolean everyReplica = next == 1 && level.size() == replicas.size();
+			for (; next < level.size(); next++) {
+				try {
+					replicate.accept(transport.connect(level.get(next)), result);
+				} catch (RuntimeException e) {
+					everyReplica = false;
+					LOGGER.warn("Replica {} of {} missed a write", level.get(next), trees, e);
+				}
+			}
+			if (!everyReplica) {
+				deletedRoots.addAll(deletedRootIds);
+			}
+			return result;
+		} finally {
+			for (ReentrantLock lock : locks) {
+				lock.unlock();
+			}
+			topologyLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * The replicas that are reachable, in ring order, once each holds the
+	 * newest version of every tree of {@code rootIds}. The caller holds the
+	 * locks of the trees.
+	 */
+	private List<String> levelReplicas(List<String> rootIds, List<String> replicas) {
+		List<String> level = new ArrayList<>(replicas);
+		for (String rootId : rootIds) {
+			Map<String, ContentNode> held = readReplicas(rootId, replicas);
+			level(rootId, replicas.size(), held, null);
+			level.retainAll(held.keySet());
+		}
+		return level;
+	}
+
+	/**
+	 * The version of the root {@code rootId} each reachable node of
+	 * {@code replicas} holds, null for one that does not hold it as a root.
+	 */
+	private Map<String, ContentNode> readReplicas(String rootId, List<String> replicas) {
+		Map<String, ContentNode> held = new LinkedHashMap<>();
+		for (String replica : replicas) {
+			try {
+				ContentRepository node = transport.connect(replica);
+				held.put(replica, node.findRootId(rootId).filter(rootId::equals).flatMap(node::findById).orElse(null));
+			} catch (ClusterNodeUnavailableException e) {
+				LOGGER.debug("Replica {} of tree {} is unavailable", replica, rootId);
+			}
+		}
+		return held;
+	}
+
+	/**
+	 * Brings the replicas of {@code held} level with the newest version of the
+	 * tree among them and {@code known}: a replica that misses it or holds an
+	 * older one gets a copy, none is ever set back. A tree remembered as
+	 * deleted is dropped from them instead. {@code held} is left with what
+	 * each replica holds now, without the replicas a copy failed on. Returns
+	 * the number of copies made. The caller holds the lock of the tree or the
+	 * topology write lock.
+	 */
+	private int level(String rootId, int replicaCount, Map<String, ContentNode> held, ContentNode known) {
+		if (deletedRoots.contains(rootId)) {
+			boolean dropped = held.size() == replicaCount;
+			for (Map.Entry<String, ContentNode> replica : held.entrySet()) {
+				if (replica.getValue() == null) {
+					continue;
+				}
+				try {
+					transport.connect(replica.getKey()).delete(rootId);
+					replica.setValue(null);
+					LOGGER.info("Replica {} missed the deletion of tree {}, dropped it", replica.getKey(), rootId);
+				} catch (RuntimeException e) {
+					dropped = false;
+					LOGGER.warn("Replica {} still holds deleted tree {}", replica.getKey(), rootId, e);
+				}
+			}
+			if (dropped) {
+				deletedRoots.remove(rootId);
+			}
+			return 0;
+		}
+		ContentNode newest = known;
+		for (ContentNode root : held.values()) {
+			if (root != null && (newest == null || root.getVersion() > newest.getVersion())) {
+				newest = root;
+			}
+		}
+		if (newest == null) {
+			return 0;
+		}
+		int copied = 0;
+		Iterator<Map.Entry<String, ContentNode>> replicas = held.entrySet().iterator();
+		while (replicas.hasNext()) {
+			Map.Entry<String, ContentNode> replica = replicas.next();
+			if (replica.getValue() != null && replica.getValue().getVersion() >= newest.getVersion()) {
+				continue;
+			}
+			try {
+				transport.connect(replica.getKey()).applySaved(newest);
+				replica.setValue(newest);
+				copied++;
+				LOGGER.info("Replica {} was behind on tree {}, copied version {}", replica.getKey(), rootId,
+						newest.getVersion());
+			} catch (RuntimeException e) {
+				replicas.remove();
+				LOGGER.warn("Replica {} of tree {} could not be brought up to date", replica.getKey(), rootId, e);
+			}
+		}
+		return copied;
+	}
+
+	/**
+	 * Root {@code id} is read from every reachable replica. When they are
+	 * apart, the newest version is copied to the others under the lock of the
+	 * tree, as a write would. A node below a root, or a root still being moved
+	 * by a rebalance, is not on the replicas its id hashes to, and the newest
+	 * version any node holds is taken.
+	 */
+	@Override
+	public Optional<ContentNode> findById(String id) {
+		Optional<ContentNode> root = readRoot(id);
+		if (root.isPresent()) {
+			return root;
+		}
+		return scatter(node -> node.findById(id)).stream()
+				.flatMap(Optional::stream)
+				.max(Comparator.comparingLong(ContentNode::getVersion));
+	}
+
+	@Override
+	public Optional<String> findRootId(String id) {
+		if (readRoot(id).isPresent()) {
+			return Optional.of(id);
+		}
+		for (Optional<String> found : scatter(node -> node.findRootId(id))) {
+			if (found.isPresent()) {
+				return found;
+			}
+		}
+		return Optional.empty();
+	}
+
+	// The newest version of root rootId on its reachable replicas, copied to the ones behind
+	private Optional<ContentNode> readRoot(String rootId) {
+		Map<String, ContentNode> held = readReplicas(rootId, replicasOf(rootId));
+		// 0 where a replica does not hold the tree, versions start at 1
+		Set<Long> versions = held.values().stream()
+				.map(root -> root != null ? root.getVersion() : 0L)
+				.collect(Collectors.toSet());
+		if (versions.isEmpty() || versions.equals(Set.of(0L))) {
+			return Optional.empty();
+		}
+		if (versions.size() == 1 && !deletedRoots.contains(rootId)) {
+			return Optional.of(held.values().iterator().next());
+		}
+		topologyLock.readLock().lock();
+		ReentrantLock lock = rootLocks.computeIfAbsent(rootId, key -> new ReentrantLock());
+		lock.lock();
+		try {
+			List<String> replicas = replicasOf(rootId);
+			held = readReplicas(rootId, replicas);
+			level(rootId, replicas.size(), held, null);
+			return held.values().stream().filter(Objects::nonNull).findFirst();
+		} finally {
+			lock.unlock();
+			topologyLock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public List<ContentNode> findRoots() {
+		return mergeDistinct(scatter(ContentRepository::findRoots), BY_ID, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public List<ContentNode> findRoots(Predicate<String> rootIds) {
+		return mergeDistinct(scatter(node -> node.findRoots(rootIds)), BY_ID, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public Optional<ContentNode> findByPath(String path) {
+		for (Optional<ContentNode> found : scatter(node -> node.findByPath(path))) {
+			if (found.isPresent()) {
+				return found;
+			}
+		}
+		return Optional.empty();
+	}
+
+	@Override
+	public List<ContentNode> findByPathPrefix(String path, boolean recursive) {
+		return mergeDistinct(scatter(node -> node.findByPathPrefix(path, recursive)), BY_PATH, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Every node answers with its own first {@code limit} matches, together
+	 * they hold the first {@code limit} of the cluster.
+	 */
+	@Override
+	public List<ContentNode> find(ContentQuery query, String afterId, int limit) {
+		return mergeDistinct(scatter(node -> node.find(query, afterId, limit)), BY_ID, limit);
+	}
+
+	/**
+	 * Scores are relative to what each node holds, so instead of being
+	 * compared the hits of the nodes are taken in turns, best first.
+	 */
+	@Override
+	public List<ContentNode> searchText(String query, int limit) {
+		List<List<ContentNode>> perNode = scatter(node -> node.searchText(query, limit));
+		Set<String> seen = new HashSet<>();
+		List<ContentNode> hits = new ArrayList<>();
+		boolean more = true;
+		for (int rank = 0; more && hits.size() < limit; rank++) {
+			more = false;
+			for (List<ContentNode> nodeHits : perNode) {
+				if (rank < nodeHits.size()) {
+					more = true;
+					ContentNode hit = nodeHits.get(rank);
+					if (hits.size() < limit && seen.add(hit.getId())) {
+						hits.add(hit);
+					}
+				}
+			}
+		}
+		return hits;
+	}
+
+	/**
+	 * Adds up the counts of the nodes, each counting the trees it is primary
+	 * for, and ranks the sums. The trees whose primary is down are left out.
+	 */
+	@Override
+	public List<FacetCount> topFacets(ContentFacet facet, int limit) {
+		Map<String, Long> counts = new HashMap<>();
+		topologyLock.readLock().lock();
+		try {
+			for (List<FacetCount> nodeCounts : scatter(node -> node.topFacets(facet, Integer.MAX_VALUE))) {
+				for (FacetCount count : nodeCounts) {
+					counts.merge(count.value(), count.count(), Long::sum);
+				}
+			}
+		} finally {
+			topologyLock.readLock().unlock();
+		}
+		return counts.entrySet().stream()
+				.map(entry -> new FacetCount(entry.getKey(), entry.getValue()))
+				.sorted(BY_COUNT)
+				.limit(limit)
+				.collect(Collectors.toList());
+	}
+
+	@Override
+	public long facetCount(ContentFacet facet, String value) {
+		topologyLock.readLock().lock();
+		try {
+			long count = 0;
+			for (long nodeCount : scatter(node -> node.facetCount(facet, value))) {
+				count += nodeCount;
+			}
+			return count;
+		} finally {
+			topologyLock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void countFacetsOf(Predicate<String> rootIds) {
+		topologyLock.writeLock().lock();
+		try {
+			facetScope = rootIds;
+			countFacets();
+		} finally {
+			topologyLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Sends {@code request} to every node at once and returns the answers of
+	 * the reachable ones, in the order the nodes joined.
+	 */
+	private <T> List<T> scatter(Function<ContentRepository, T> request) {
+		List<String> nodes = ring.nodes();
+		List<CompletableFuture<T>> calls = new ArrayList<>(nodes.size());
+		for (String node : nodes) {
+			calls.add(CompletableFuture.supplyAsync(() -> request.apply(transport.connect(node)), executor));
+		}
+		List<T> answers = new ArrayList<>(nodes.size());
+		for (int i = 0; i < calls.size(); i++) {
+			try {
+				answers.add(calls.get(i).join());
+			} catch (CompletionException e) {
+				if (!(e.getCause() instanceof ClusterNodeUnavailableException)) {
+					throw e.getCause() instanceof RuntimeException cause ? cause : e;
+				}
+				LOGGER.warn("Cluster node {} is unavailable, answering without it", nodes.get(i));
+			}
+		}
+		return answers;
+	}
+
+	/**
+	 * The first {@code limit} nodes of lists sorted by {@code order}, each
+	 * node once however many replicas returned it.
+	 */
+	private static List<ContentNode> mergeDistinct(List<List<ContentNode>> sorted, Comparator<ContentNode> order,
+			int limit) {
+		List<ContentNode> all = new ArrayList<>();
+		for (List<ContentNode> nodes : sorted) {
+			all.addAll(nodes);
+		}
+		all.sort(order);
+		Set<String> seen = new HashSet<>();
+		List<ContentNode> merged = new ArrayList<>();
+		for (ContentNode node : all) {
+			if (merged.size() == limit) {
+				break;
+			}
+			if (seen.add(node.getId())) {
+				merged.add(node);
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * Changes are forwarded from the node a write ran on as primary, so each
+	 * write is seen once. What replicas apply after it, and the copies and
+	 * drops that repair or rebalance trees, are not changes to the content and
+	 * are not forwarded. A node calls its listeners on the writing thread,
+	 * which is how its changes are told apart.
+	 */
+	@Override
+	public void addChangeListener(ContentChangeListener listener) {
+		changeListeners.add(listener);
+	}
+
+	@Override
+	public void removeChangeListener(ContentChangeListener listener) {
+		changeListeners.remove(listener);
+	}
+
+	// Forwards the changes of one node while it is on the ring
+	private final class NodeListener implements ContentChangeListener {
+		private final String nodeId;
+
+		NodeListener(String nodeId) {
+			this.nodeId = nodeId;
+		}
+
+		@Override
+		public void changed(ContentChange change) {
+			if (nodeListeners.get(nodeId) == this && nodeId.equals(writingPrimary.get())) {
+				notifyListeners(change);
+			}
+		}
+	}
+
+	private void notifyListeners(ContentChange change) {
+		for (ContentChangeListener listener : changeListeners) {
+			try {
+				listener.changed(change);
+			} catch (RuntimeException e) {
+				LOGGER.error("Content change listener failed for {} of {}", change.getType(), change.getId(), e);
+			}
+		}
+	}
+}
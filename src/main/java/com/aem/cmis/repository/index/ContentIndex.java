@@ -0,0 +1,21 @@
+package com.aem.cmis.repository.index;
+
+import com.aem.cmis.model.ContentNode;
+
+/**
+ * Secondary index maintained by {@code InMemoryContentRepository} on every write.
+ */
+public interface ContentIndex {
+
+	/**
+	 * Called once per published node version. {@code previous} is null for a new
+	 * node and {@code current} is null when the node has been removed.
+	 */
+	void update(ContentNode previous, ContentNode current);
+
+	/**
+	 * Number of distinct keys held, such as tags, paths or terms.
+	 */
+	int size();
+
+}
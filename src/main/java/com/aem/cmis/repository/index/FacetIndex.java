@@ -0,0 +1,146 @@
+package com.aem.cmis.repository.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.repository.ContentFacet;
+import com.aem.cmis.repository.FacetCount;
+
+/**
+ * Number of nodes per tag and per lower-cased author, kept up to date on
+ * every write. Besides the count of each value, the values are ranked by
+ * count, so the top ones are read off the front of the ranking without
+ * counting anything.
+ */
+public class FacetIndex implements ContentIndex {
+
+	private final Counts tags = new Counts();
+	private final Counts authors = new Counts();
+
+	@Override
+	public void update(ContentNode previous, ContentNode current) {
+		// Most writes only give ancestors a new version
+		if (previous != null && current != null && Objects.equals(previous.getTags(), current.getTags())
+				&& Objects.equals(previous.getAuthor(), current.getAuthor())) {
+			return;
+		}
+		Set<String> previousTags = tagsOf(previous);
+		Set<String> currentTags = tagsOf(current);
+		String previousAuthor = previous != null ? TagAuthorIndex.normalizeAuthor(previous.getAuthor()) : null;
+		String currentAuthor = current != null ? TagAuthorIndex.normalizeAuthor(current.getAuthor()) : null;
+
+		for (String tag : previousTags) {
+			if (!currentTags.contains(tag)) {
+				tags.add(tag, -1);
+			}
+		}
+		for (String tag : currentTags) {
+			if (!previousTags.contains(tag)) {
+				tags.add(tag, 1);
+			}
+		}
+		if (!Objects.equals(previousAuthor, currentAuthor)) {
+			authors.add(previousAuthor, -1);
+			authors.add(currentAuthor, 1);
+		}
+	}
+
+	/**
+	 * The {@code limit} values held by the most nodes, most first and ties
+	 * by value. Each value appears once, with a count it had during the call.
+	 */
+	public List<FacetCount> top(ContentFacet facet, int limit) {
+		return countsOf(facet).top(limit);
+	}
+
+	public long count(ContentFacet facet, String value) {
+		return countsOf(facet).count(facet == ContentFacet.AUTHOR ? TagAuthorIndex.normalizeAuthor(value) : value);
+	}
+
+	@Override
+	public int size() {
+		return tags.size() + authors.size();
+	}
+
+	public void clear() {
+		tags.clear();
+		authors.clear();
+	}
+
+	private Counts countsOf(ContentFacet facet) {
+		return facet == ContentFacet.TAG ? tags : authors;
+	}
+
+	// A node counts once per tag however often it lists it
+	private static Set<String> tagsOf(ContentNode content) {
+		if (content == null || content.getTags() == null) {
+			return Collections.emptySet();
+		}
+		return new HashSet<>(content.getTags());
+	}
+
+	private static final class Counts {
+		private static final Comparator<FacetCount> BY_COUNT = Comparator.comparingLong(FacetCount::count).reversed()
+				.thenComparing(FacetCount::value);
+
+		private final Map<String, Long> counts = new ConcurrentHashMap<>();
+		// One entry per counted value, briefly two while its count changes
+		private final NavigableSet<FacetCount> ranking = new ConcurrentSkipListSet<>(BY_COUNT);
+
+		void add(String value, long delta) {
+			if (value == null) {
+				return;
+			}
+			counts.compute(value, (key, count) -> {
+				long previous = count != null ? count : 0;
+				long next = previous + delta;
+				// Add the new entry before dropping the old one, so a reader never misses the value
+				if (next > 0) {
+					ranking.add(new FacetCount(key, next));
+				}
+				if (previous > 0) {
+					ranking.remove(new FacetCount(key, previous));
+				}
+				return next > 0 ? next : null;
+			});
+		}
+
+		long count(String value) {
+			Long count = value != null ? counts.get(value) : null;
+			return count != null ? count : 0;
+		}
+
+		List<FacetCount> top(int limit) {
+			List<FacetCount> top = new ArrayList<>();
+			Set<String> seen = new HashSet<>();
+			for (FacetCount entry : ranking) {
+				if (top.size() >= limit) {
+					break;
+				}
+				if (seen.add(entry.value())) {
+					top.add(entry);
+				}
+			}
+			return top;
+		}
+
+		int size() {
+			return counts.size();
+		}
+
+		void clear() {
+			counts.clear();
+			ranking.clear();
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package com.aem.cmis.repository.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.aem.cmis.model.ContentNode;
+
+/**
+ * Incremental inverted index over {@code title} and {@code body}, scored with
+ * BM25. Title terms count double so a match in the title outranks the same
+ * match buried in the body.
+ *
+ * Queries are evaluated term-at-a-time, rarest term first, with MaxScore
+ * pruning: once the current k-th best score beats the best score any unseen
+ * document could still reach, the remaining (common) terms only re-score the
+ * existing candidates instead of walking their whole posting lists.
+ */
+public class FullTextIndex implements ContentIndex {
+
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+	private static final int TITLE_WEIGHT = 2;
+	private static final Set<String> STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "by", "for",
+			"from", "in", "is", "it", "of", "on", "or", "that", "the", "this", "to", "was", "with");
+
+	private final Map<String, Postings> postings = new ConcurrentHashMap<>();
+	private final Map<String, Integer> documentLengths = new ConcurrentHashMap<>();
+	private final AtomicLong totalLength = new AtomicLong();
+
+	public record ScoredId(String id, double score) {
+	}
+
+	private static final class Postings {
+		// content id -> weighted term frequency
+		private final Map<String, Integer> frequencies = new ConcurrentHashMap<>();
+		// Only ever grows, which keeps it a valid upper bound after removals
+		private volatile int maxFrequency;
+	}
+
+	private record QueryTerm(Postings postings, double idf, double upperBound) {
+	}
+
+	@Override
+	public void update(ContentNode previous, ContentNode current) {
+		if (previous != null && current != null && Objects.equals(previous.getId(), current.getId())
+				&& Objects.equals(previous.getTitle(), current.getTitle())
+				&& Objects.equals(previous.getBody(), current.getBody())) {
+			return;
+		}
+		if (previous != null) {
+			remove(previous.getId(), termFrequencies(previous));
+		}
+		if (current != null) {
+			add(current.getId(), termFrequencies(current));
+		}
+	}
+
+	/**
+	 * Returns at most {@code limit} ids ordered by descending BM25 score.
+	 */
+	public List<ScoredId> search(String query, int limit) {
+		int documentCount = documentLengths.size();
+		if (documentCount == 0 || limit <= 0) {
+			return Collections.emptyList();
+		}
+		double averageLength = Math.max(1.0, (double) totalLength.get() / documentCount);
+
+		List<QueryTerm> terms = new ArrayList<>();
+		for (String token : new LinkedHashSet<>(tokenize(query))) {
+			Postings termPostings = postings.get(token);
+			if (termPostings != null) {
+				int documentFrequency = termPostings.frequencies.size();
+				double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+				int maxFrequency = termPostings.maxFrequency;
+				// Best case contribution: highest frequency in the shortest possible document
+				double upperBound = idf * maxFrequency * (K1 + 1) / (maxFrequency + K1 * (1 - B));
+				terms.add(new QueryTerm(termPostings, idf, upperBound));
+			}
+		}
+		if (terms.isEmpty()) {
+			return Collections.emptyList();
+		}
+		terms.sort((left, right) -> Integer.compare(left.postings().frequencies.size(),
+				right.postings().frequencies.size()));
+		double[] remainingBound = new double[terms.size() + 1];
+		for (int i = terms.size() - 1; i >= 0; i--) {
+			remainingBound[i] = remainingBound[i + 1] + terms.get(i).upperBound();
+		}
+
+		Map<String, double[]> scores = new HashMap<>();
+		boolean acceptNewCandidates = true;
+		for (int i = 0; i < terms.size(); i++) {
+			QueryTerm term = terms.get(i);
+			if (acceptNewCandidates) {
+				term.postings().frequencies.forEach((id, frequency) -> scores
+						.computeIfAbsent(id, key -> new double[1])[0] += score(term, id, frequency, averageLength));
+			} else {
+				for (Map.Entry<String, double[]> candidate : scores.entrySet()) {
+					Integer frequency = term.postings().frequencies.get(candidate.getKey());
+					if (frequency != null) {
+						candidate.getValue()[0] += score(term, candidate.getKey(), frequency, averageLength);
+					}
+				}
+			}
+			if (acceptNewCandidates && scores.size() >= limit
+					&& kthBestScore(scores, limit) >= remainingBound[i + 1]) {
+				// No document outside the candidates can reach the top k any more
+				acceptNewCandidates = false;
+			}
+		}
+		return topHits(scores, limit);
+	}
+
+	private double score(QueryTerm term, String id, int frequency, double averageLength) {
+		int length = documentLengths.getOrDefault(id, 0);
+		double norm = frequency + K1 * (1 - B + B * length / averageLength);
+		return term.idf() * frequency * (K1 + 1) / norm;
+	}
+
+	private static double kthBestScore(Map<String, double[]> scores, int limit) {
+		PriorityQueue<Double> best = new PriorityQueue<>(limit);
+		for (double[] score : scores.values()) {
+			if (best.size() < limit) {
+				best.add(score[0]);
+			} else if (score[0] > best.peek()) {
+				best.poll();
+				best.add(score[0]);
+			}
+		}
+		return best.peek();
+	}
+
+	private static List<ScoredId> topHits(Map<String, double[]> scores, int limit) {
+		// Min-heap of the best hits seen so far, never larger than the limit
+		PriorityQueue<ScoredId> topHits = new PriorityQueue<>(Math.min(limit, Math.max(1, scores.size())),
+				(left, right) -> Double.compare(left.score(), right.score()));
+		scores.forEach((id, score) -> {
+			if (topHits.size() < limit) {
+				topHits.add(new ScoredId(id, score[0]));
+			} else if (score[0] > topHits.peek().score()) {
+				topHits.poll();
+				topHits.add(new ScoredId(id, score[0]));
+			}
+		});
+		List<ScoredId> ranked = new ArrayList<>(topHits);
+		ranked.sort((left, right) -> Double.compare(right.score(), left.score()));
+		return ranked;
+	}
+
+	@Override
+	public int size() {
+		return termCount();
+	}
+
+	public int termCount() {
+		return postings.size();
+	}
+
+	public static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null) {
+			return tokens;
+		}
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (letter && start < 0) {
+				start = i;
+			} else if (!letter && start >= 0) {
+				String token = text.substring(start, i).toLowerCase(Locale.ROOT);
+				if (!STOP_WORDS.contains(token)) {
+					tokens.add(token);
+				}
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	private static Map<String, Integer> termFrequencies(ContentNode content) {
+		Map<String, Integer> frequencies = new HashMap<>();
+		for (String token : tokenize(content.getTitle())) {
+			frequencies.merge(token, TITLE_WEIGHT, Integer::sum);
+		}
+		for (String token : tokenize(content.getBody())) {
+			frequencies.merge(token, 1, Integer::sum);
+		}
+		return frequencies;
+	}
+
+	private void add(String id, Map<String, Integer> frequencies) {
+		int length = 0;
+		for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+			int frequency = entry.getValue();
+			postings.compute(entry.getKey(), (key, existing) -> {
+				Postings target = existing != null ? existing : new Postings();
+				target.frequencies.put(id, frequency);
+				if (frequency > target.maxFrequency) {
+					target.maxFrequency = frequency;
+				}
+				return target;
+			});
+			length += frequency;
+		}
+		Integer previousLength = documentLengths.put(id, length);
+		totalLength.addAndGet(length - (previousLength != null ? previousLength : 0));
+	}
+
+	private void remove(String id, Map<String, Integer> frequencies) {
+		for (String term : frequencies.keySet()) {
+			postings.computeIfPresent(term, (key, existing) -> {
+				existing.frequencies.remove(id);
+				return existing.frequencies.isEmpty() ? null : existing;
+			});
+		}
+		Integer previousLength = documentLengths.remove(id);
+		if (previousLength != null) {
+			totalLength.addAndGet(-previousLength);
+		}
+	}
+}
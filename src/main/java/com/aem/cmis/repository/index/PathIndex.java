@@ -0,0 +1,175 @@
+package com.aem.cmis.repository.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.aem.cmis.model.ContentNode;
+
+/**
+ * Trie over the segments of the content {@code path}, so lookups cost O(path depth)
+ * independent of the store size. Reads are lock-free, structural changes are
+ * serialized on the index.
+ *
+ * Paths are not unique: every node holding a path is kept under it, so
+ * removing one leaves the others findable.
+ */
+public class PathIndex implements ContentIndex {
+
+	private final TrieNode root = new TrieNode();
+	// Paths that resolve to content, changed under the index lock
+	private volatile int pathCount;
+
+	private static final class TrieNode {
+		// Sorted so listings come out in a stable path order
+		private final Map<String, TrieNode> children = new ConcurrentSkipListMap<>();
+		// Sorted by id, replaced as a whole under the index lock
+		private volatile List<String> contentIds = List.of();
+	}
+
+	@Override
+	public void update(ContentNode previous, ContentNode current) {
+		String previousPath = previous != null ? previous.getPath() : null;
+		String currentPath = current != null ? current.getPath() : null;
+		String previousId = previous != null ? previous.getId() : null;
+		String currentId = current != null ? current.getId() : null;
+		if (Objects.equals(previousPath, currentPath) && Objects.equals(previousId, currentId)) {
+			return;
+		}
+		synchronized (this) {
+			if (previousPath != null) {
+				remove(segments(previousPath), previousId);
+			}
+			if (currentPath != null) {
+				put(segments(currentPath), currentId);
+			}
+		}
+	}
+
+	/**
+	 * Id of the content at {@code path}, the first in id order when several
+	 * nodes share it; for time-ordered ids that is the oldest.
+	 */
+	public String lookup(String path) {
+		TrieNode node = find(path);
+		List<String> ids = node != null ? node.contentIds : List.of();
+		return ids.isEmpty() ? null : ids.get(0);
+	}
+
+	/**
+	 * Ids of the content below {@code path} in path order. Without
+	 * {@code recursive} only the nearest content on each branch is returned.
+	 */
+	public List<String> descendants(String path, boolean recursive) {
+		List<String> ids = new ArrayList<>();
+		TrieNode start = find(path);
+		if (start == null) {
+			return ids;
+		}
+		Deque<TrieNode> pending = new ArrayDeque<>();
+		pushChildren(pending, start);
+		while (!pending.isEmpty()) {
+			TrieNode node = pending.pop();
+			List<String> atPath = node.contentIds;
+			if (!atPath.isEmpty()) {
+				ids.addAll(atPath);
+				if (!recursive) {
+					continue;
+				}
+			}
+			pushChildren(pending, node);
+		}
+		return ids;
+	}
+
+	private static void pushChildren(Deque<TrieNode> pending, TrieNode node) {
+		List<TrieNode> children = new ArrayList<>(node.children.values());
+		for (int i = children.size() - 1; i >= 0; i--) {
+			pending.push(children.get(i));
+		}
+	}
+
+	private TrieNode find(String path) {
+		if (path == null) {
+			return null;
+		}
+		TrieNode node = root;
+		for (String segment : segments(path)) {
+			node = node.children.get(segment);
+			if (node == null) {
+				return null;
+			}
+		}
+		return node;
+	}
+
+	private void put(List<String> segments, String id) {
+		TrieNode node = root;
+		for (String segment : segments) {
+			node = node.children.computeIfAbsent(segment, key -> new TrieNode());
+		}
+		List<String> ids = node.contentIds;
+		int position = Collections.binarySearch(ids, id);
+		if (position >= 0) {
+			return;
+		}
+		if (ids.isEmpty()) {
+			pathCount++;
+		}
+		List<String> added = new ArrayList<>(ids.size() + 1);
+		added.addAll(ids);
+		added.add(-position - 1, id);
+		node.contentIds = List.copyOf(added);
+	}
+
+	private void remove(List<String> segments, String id) {
+		List<TrieNode> trail = new ArrayList<>();
+		TrieNode node = root;
+		trail.add(node);
+		for (String segment : segments) {
+			node = node.children.get(segment);
+			if (node == null) {
+				return;
+			}
+			trail.add(node);
+		}
+		List<String> ids = node.contentIds;
+		if (!ids.contains(id)) {
+			return;
+		}
+		List<String> remaining = new ArrayList<>(ids);
+		remaining.remove(id);
+		node.contentIds = List.copyOf(remaining);
+		if (!remaining.isEmpty()) {
+			return;
+		}
+		pathCount--;
+		for (int i = trail.size() - 1; i > 0; i--) {
+			TrieNode candidate = trail.get(i);
+			if (!candidate.contentIds.isEmpty() || !candidate.children.isEmpty()) {
+				break;
+			}
+			trail.get(i - 1).children.remove(segments.get(i - 1));
+		}
+	}
+
+	@Override
+	public int size() {
+		return pathCount;
+	}
+
+	public static List<String> segments(String path) {
+		List<String> segments = new ArrayList<>();
+		for (String segment : path.split("/")) {
+			if (!segment.isEmpty()) {
+				segments.add(segment);
+			}
+		}
+		return segments;
+	}
+}
@@ -0,0 +1,124 @@
+package com.aem.cmis.repository.index;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+import com.aem.cmis.model.ContentNode;
+
+/**
+ * Inverted indexes from tag to content ids and from lower-cased author to
+ * content ids. Posting lists are kept sorted by id so callers can page through
+ * them with a cursor.
+ */
+public class TagAuthorIndex implements ContentIndex {
+
+	private static final NavigableSet<String> EMPTY = Collections.unmodifiableNavigableSet(new ConcurrentSkipListSet<>());
+
+	private final Map<String, NavigableSet<String>> idsByTag = new ConcurrentHashMap<>();
+	private final Map<String, NavigableSet<String>> idsByAuthor = new ConcurrentHashMap<>();
+
+	@Override
+	public void update(ContentNode previous, ContentNode current) {
+		List<String> previousTags = previous != null ? tagsOf(previous) : Collections.emptyList();
+		List<String> currentTags = current != null ? tagsOf(current) : Collections.emptyList();
+		String previousAuthor = previous != null ? normalizeAuthor(previous.getAuthor()) : null;
+		String currentAuthor = current != null ? normalizeAuthor(current.getAuthor()) : null;
+		String previousId = previous != null ? previous.getId() : null;
+		String currentId = current != null ? current.getId() : null;
+
+		if (Objects.equals(previousId, currentId) && previousTags.equals(currentTags)
+				&& Objects.equals(previousAuthor, currentAuthor)) {
+			return;
+		}
+		if (previous != null) {
+			for (String tag : previousTags) {
+				removePosting(idsByTag, tag, previousId);
+			}
+			removePosting(idsByAuthor, previousAuthor, previousId);
+		}
+		if (current != null) {
+			for (String tag : currentTags) {
+				addPosting(idsByTag, tag, currentId);
+			}
+			addPosting(idsByAuthor, currentAuthor, currentId);
+		}
+	}
+
+	/**
+	 * Returns the ids matching both criteria in id order, starting after
+	 * {@code afterId} when given. A null criterion matches everything. Both null
+	 * is not an index lookup and returns null.
+	 */
+	public Stream<String> lookup(String tag, String author, String afterId) {
+		if (tag == null && author == null) {
+			return null;
+		}
+		NavigableSet<String> byTag = tag != null ? idsByTag.getOrDefault(tag, EMPTY) : null;
+		NavigableSet<String> byAuthor = author != null
+				? idsByAuthor.getOrDefault(normalizeAuthor(author), EMPTY)
+				: null;
+		if (byAuthor == null) {
+			return tail(byTag, afterId).stream();
+		}
+		if (byTag == null) {
+			return tail(byAuthor, afterId).stream();
+		}
+		// Walk the shorter posting list and probe the longer one
+		NavigableSet<String> smaller = byTag.size() <= byAuthor.size() ? byTag : byAuthor;
+		NavigableSet<String> larger = smaller == byTag ? byAuthor : byTag;
+		return tail(smaller, afterId).stream().filter(larger::contains);
+	}
+
+	private static NavigableSet<String> tail(NavigableSet<String> ids, String afterId) {
+		return afterId != null ? ids.tailSet(afterId, false) : ids;
+	}
+
+	@Override
+	public int size() {
+		return idsByTag.size() + idsByAuthor.size();
+	}
+
+	public int tagCount() {
+		return idsByTag.size();
+	}
+
+	public int authorCount() {
+		return idsByAuthor.size();
+	}
+
+	public static String normalizeAuthor(String author) {
+		return author != null ? author.toLowerCase(Locale.ROOT) : null;
+	}
+
+	private static List<String> tagsOf(ContentNode content) {
+		return content.getTags() != null ? content.getTags() : Collections.emptyList();
+	}
+
+	private static void addPosting(Map<String, NavigableSet<String>> postings, String key, String id) {
+		if (key == null) {
+			return;
+		}
+		postings.compute(key, (k, ids) -> {
+			NavigableSet<String> target = ids != null ? ids : new ConcurrentSkipListSet<>();
+			target.add(id);
+			return target;
+		});
+	}
+
+	private static void removePosting(Map<String, NavigableSet<String>> postings, String key, String id) {
+		if (key == null) {
+			return;
+		}
+		postings.computeIfPresent(key, (k, ids) -> {
+			ids.remove(id);
+			return ids.isEmpty() ? null : ids;
+		});
+	}
+}
@@ -0,0 +1,50 @@
+package com.aem.cmis.service;
+
+import com.aem.cmis.dto.ContentProjection;
+import com.aem.cmis.repository.ContentRepository;
+
+/**
+ * Entity tags of content responses, built from the node version. A node gets a
+ * new version whenever it or anything below it changes, so the version alone
+ * identifies the full representation; a projection adds a suffix of its own.
+ */
+public final class ContentETag {
+
+	private ContentETag() {
+	}
+
+	public static String of(long version, ContentProjection projection) {
+		if (projection.isFull()) {
+			return "\"" + version + "\"";
+		}
+		return "\"" + version + "-" + Integer.toHexString(projection.hashCode()) + "\"";
+	}
+
+	/**
+	 * The version an {@code If-Match} header asks for: {@link ContentRepository#ANY_VERSION}
+	 * for {@code *} or no header, -1 (matching nothing) for a tag that is not
+	 * one of ours. Weak tags never match, If-Match uses the strong comparison.
+	 */
+	public static long expectedVersion(String ifMatch) {
+		if (ifMatch == null || ifMatch.isBlank()) {
+			return ContentRepository.ANY_VERSION;
+		}
+		String tag = ifMatch.trim();
+		if (tag.equals("*")) {
+			return ContentRepository.ANY_VERSION;
+		}
+		if (tag.indexOf(',') >= 0) {
+			throw new IllegalArgumentException("If-Match must name a single entity tag");
+		}
+		if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+			return -1;
+		}
+		String value = tag.substring(1, tag.length() - 1);
+		int suffix = value.indexOf('-');
+		try {
+			return Long.parseLong(suffix >= 0 ? value.substring(0, suffix) : value);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+}
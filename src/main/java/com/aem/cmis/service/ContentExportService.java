@@ -0,0 +1,67 @@
+package com.aem.cmis.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.aem.cmis.mapper.ContentMapper;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.repository.InMemoryContentRepository;
+import com.aem.cmis.repository.ContentSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Writes the whole store as newline-delimited JSON, one content tree per line,
+ * in the format {@link ContentImportService} reads. The export works on a
+ * {@link ContentSnapshot}, so it is consistent as of the moment it started
+ * while writes go on, and only one tree is mapped and buffered at a time.
+ */
+@Service
+public class ContentExportService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContentExportService.class);
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final InMemoryContentRepository repository;
+    private final ContentMapper contentMapper;
+    private final ObjectWriter contentWriter;
+
+    public ContentExportService(InMemoryContentRepository repository, ContentMapper contentMapper, ObjectMapper objectMapper) {
+        this.repository = repository;
+        this.contentMapper = contentMapper;
+        // One document per line, so pretty printing is switched off
+        this.contentWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Streams every tree to {@code output} and returns how many were written.
+     * The output stream is flushed but left open.
+     */
+    public long exportContent(OutputStream output, boolean gzip) throws IOException {
+        try (ContentSnapshot snapshot = repository.openSnapshot()) {
+            OutputStream target = gzip
+                    ? new GZIPOutputStream(output, BUFFER_SIZE)
+                    : new BufferedOutputStream(output, BUFFER_SIZE);
+            long exported = 0;
+            Iterator<ContentNode> roots = snapshot.roots().iterator();
+            while (roots.hasNext()) {
+                target.write(contentWriter.writeValueAsBytes(contentMapper.mapToContentDTO(roots.next())));
+                target.write('\n');
+                exported++;
+            }
+            if (target instanceof GZIPOutputStream gzipTarget) {
+                gzipTarget.finish();
+            }
+            target.flush();
+            LOGGER.info("Exported {} content trees as of commit {}", exported, snapshot.getSequence());
+            return exported;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.aem.cmis.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hibernate.service.spi.ServiceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import com.aem.cmis.dto.BulkImportError;
+import com.aem.cmis.dto.BulkImportResult;
+import com.aem.cmis.dto.ContentDTO;
+import com.aem.cmis.mapper.ContentMapper;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.repository.ContentRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Imports newline-delimited JSON, one content tree per line. The stream is read
+ * line by line and committed in batches, so memory use is bounded by the batch
+ * size rather than by the size of the upload. A bad line is reported and
+ * skipped, it does not stop the import.
+ */
+@Service
+public class ContentImportService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ContentImportService.class);
+	private static final int MAX_REPORTED_ERRORS = 1000;
+
+	private final ContentRepository repository;
+    private final ContentMapper contentMapper;
+    private final ObjectReader contentReader;
+    private final Validator validator;
+    private final int batchSize;
+
+    public ContentImportService(ContentRepository repository, ContentMapper contentMapper, ObjectMapper objectMapper,
+            Validator validator, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Import batch size must be positive: " + batchSize);
+        }
+        this.repository = repository;
+        this.contentMapper = contentMapper;
+        this.contentReader = objectMapper.readerFor(ContentDTO.class);
+        this.validator = validator;
+        this.batchSize = batchSize;
+    }
+
+    public BulkImportResult importContent(InputStream input) {
+        BulkImportResult result = new BulkImportResult();
+        List<Content> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                Content content;
+                try {
+                    content = parse(line);
+                } catch (ServiceException | IllegalArgumentException e) {
+                    recordFailure(result, lineNumber, e.getMessage());
+                    continue;
+                }
+                batch.add(content);
+                batchLines.add(lineNumber);
+                if (batch.size() >= batchSize) {
+                    commit(batch, batchLines, result);
+                }
+            }
+            commit(batch, batchLines, result);
+        } catch (IOException e) {
+            // Lines committed so far stay imported, the caller sees how far we got
+            throw new ServiceException("Failed to read import stream after " + result.getImported() + " imported records", e);
+        }
+        LOGGER.info("Bulk import finished: {} imported, {} failed", result.getImported(), result.getFailed());
+        return result;
+    }
+
+    private Content parse(String line) {
+        ContentDTO contentDTO;
+        try {
+            contentDTO = contentReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON: " + e.getOriginalMessage());
+        }
+        if (contentDTO == null) {
+            throw new IllegalArgumentException("Record must be a JSON object");
+        }
+        Set<ConstraintViolation<ContentDTO>> violations = validator.validate(contentDTO);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        return contentMapper.mapToContent(contentDTO);
+    }
+
+    private void commit(List<Content> batch, List<Long> batchLines, BulkImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            repository.saveAll(batch);
+            result.setImported(result.getImported() + batch.size());
+        } catch (RuntimeException e) {
+            // Nothing of the batch was stored, save record by record to find the bad ones
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    repository.save(batch.get(i));
+                    result.setImported(result.getImported() + 1);
+                } catch (RuntimeException recordFailure) {
+                    recordFailure(result, batchLines.get(i), "Failed to store content: " + recordFailure.getMessage());
+                }
+            }
+        }
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private static void recordFailure(BulkImportResult result, long line, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new BulkImportError(line, message));
+        }
+    }
+}
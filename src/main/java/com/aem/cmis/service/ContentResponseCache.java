@@ -0,0 +1,214 @@
+package com.aem.cmis.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+
+import com.aem.cmis.dto.ContentDTO;
+import com.aem.cmis.dto.ContentProjection;
+import com.aem.cmis.metrics.RequestTiming;
+import com.aem.cmis.repository.ContentChange;
+import com.aem.cmis.repository.ContentChangeListener;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Serialized {@code GET /content/{id}} responses, per content id and
+ * projection, with their {@link ContentETag}. A hit is served without
+ * looking at the repository, mapping or serializing anything.
+ *
+ * Entries are dropped when a write replaces or removes the node they were
+ * rendered from, which includes writes anywhere below it since those give the
+ * node a new version too. The cache is split into segments by id, each an LRU
+ * bounded by its share of {@code maxBytes}.
+ */
+@Service
+public class ContentResponseCache implements ContentChangeListener {
+
+	private static final int SEGMENTS = 16;
+	// Rough cost of an entry besides its bytes: keys, map nodes and the ETag
+	private static final int ENTRY_OVERHEAD = 160;
+
+	private final ContentService contentService;
+	private final ObjectMapper objectMapper;
+	// Projected responses leave out the fields and children they did not select
+	private final ObjectWriter projectedWriter;
+	private final Segment[] segments = new Segment[SEGMENTS];
+
+	/**
+	 * A cached response body and its ETag, quoted as sent in the header.
+	 */
+	public record CachedContent(byte[] body, String etag) {
+
+		/**
+		 * Whether an {@code If-None-Match} header value names this response.
+		 */
+		public boolean matches(String ifNoneMatch) {
+			if (ifNoneMatch == null) {
+				return false;
+			}
+			for (String tag : ifNoneMatch.split(",")) {
+				String candidate = tag.trim();
+				if (candidate.startsWith("W/")) {
+					// If-None-Match uses the weak comparison
+					candidate = candidate.substring(2);
+				}
+				if (candidate.equals("*") || candidate.equals(etag)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	public ContentResponseCache(ContentService contentService, ObjectMapper objectMapper, long maxBytes) {
+		this.contentService = contentService;
+		this.objectMapper = objectMapper;
+		this.projectedWriter = objectMapper.copy()
+				.setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL)
+				.writer();
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(maxBytes / SEGMENTS);
+		}
+	}
+
+	/**
+	 * The response for {@code id}, from the cache or rendered and cached now.
+	 * Empty when there is no such content.
+	 */
+	public Optional<CachedContent> getContent(String id, ContentProjection projection) {
+		Segment segment = segmentFor(id);
+		CachedContent cached = segment.get(id, projection);
+		if (cached != null) {
+			return Optional.of(cached);
+		}
+		// Taken before the repository is read, so a write committed meanwhile keeps the result out
+		long invalidations = segment.invalidations();
+		Optional<CachedContent> rendered = contentService.getContent(id, projection)
+				.map(contentDTO -> render(contentDTO, projection));
+		rendered.ifPresent(content -> segment.put(id, projection, content, invalidations));
+		return rendered;
+	}
+
+	private CachedContent render(ContentDTO contentDTO, ContentProjection projection) {
+		byte[] body = RequestTiming.phase("serialize", () -> serialize(contentDTO, projection));
+		return new CachedContent(body, ContentETag.of(contentDTO.getVersion(), projection));
+	}
+
+	/**
+	 * The JSON body for a content tree read with {@code projection}. A full read
+	 * keeps null fields, a projected one omits them.
+	 */
+	public byte[] serialize(ContentDTO contentDTO, ContentProjection projection) {
+		try {
+			if (!projection.isFull()) {
+				return projectedWriter.writeValueAsBytes(contentDTO);
+			}
+			return objectMapper.writeValueAsBytes(contentDTO);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Failed to serialize content", e);
+		}
+	}
+
+	@Override
+	public void changed(ContentChange change) {
+		for (String id : change.getAffectedIds()) {
+			segmentFor(id).invalidate(id);
+		}
+	}
+
+	public void invalidateAll() {
+		for (Segment segment : segments) {
+			segment.clear();
+		}
+	}
+
+	public long sizeInBytes() {
+		long bytes = 0;
+		for (Segment segment : segments) {
+			bytes += segment.bytes();
+		}
+		return bytes;
+	}
+
+	private Segment segmentFor(String id) {
+		int hash = id.hashCode();
+		return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+	}
+
+	/**
+	 * Ids in access order, each with the responses rendered for it. Every
+	 * projection of an id lives in the same segment so one lookup drops them all.
+	 */
+	private static final class Segment {
+		private final long maxBytes;
+		private final LinkedHashMap<String, Map<ContentProjection, CachedContent>> entries =
+				new LinkedHashMap<>(64, 0.75f, true);
+		private long bytes;
+		private long invalidations;
+
+		Segment(long maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+
+		synchronized CachedContent get(String id, ContentProjection projection) {
+			Map<ContentProjection, CachedContent> responses = entries.get(id);
+			return responses != null ? responses.get(projection) : null;
+		}
+
+		synchronized long invalidations() {
+			return invalidations;
+		}
+
+		synchronized void put(String id, ContentProjection projection, CachedContent content, long seenInvalidations) {
+			long weight = weight(content);
+			if (invalidations != seenInvalidations || weight > maxBytes) {
+				return;
+			}
+			CachedContent previous = entries.computeIfAbsent(id, key -> new HashMap<>(4)).put(projection, content);
+			bytes += weight - (previous != null ? weight(previous) : 0);
+			Iterator<Map.Entry<String, Map<ContentProjection, CachedContent>>> eldest = entries.entrySet().iterator();
+			while (bytes > maxBytes && eldest.hasNext()) {
+				Map.Entry<String, Map<ContentProjection, CachedContent>> entry = eldest.next();
+				bytes -= weight(entry.getValue());
+				eldest.remove();
+			}
+		}
+
+		synchronized void invalidate(String id) {
+			invalidations++;
+			Map<ContentProjection, CachedContent> removed = entries.remove(id);
+			if (removed != null) {
+				bytes -= weight(removed);
+			}
+		}
+
+		synchronized void clear() {
+			invalidations++;
+			entries.clear();
+			bytes = 0;
+		}
+
+		synchronized long bytes() {
+			return bytes;
+		}
+
+		private static long weight(Map<ContentProjection, CachedContent> responses) {
+			long total = 0;
+			for (CachedContent content : responses.values()) {
+				total += weight(content);
+			}
+			return total;
+		}
+
+		private static long weight(CachedContent content) {
+			return content.body().length + ENTRY_OVERHEAD;
+		}
+	}
+}
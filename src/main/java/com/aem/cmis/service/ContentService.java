@@ -1,61 +1,88 @@
 package com.aem.cmis.service;
 
-import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
 import org.hibernate.service.spi.ServiceException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import com.aem.cmis.dto.BatchOperation;
+import com.aem.cmis.dto.BatchOperationResult;
+import com.aem.cmis.dto.BatchResult;
 import com.aem.cmis.dto.ContentDTO;
+import com.aem.cmis.dto.ContentFacets;
+import com.aem.cmis.dto.ContentPage;
+import com.aem.cmis.dto.ContentProjection;
+import com.aem.cmis.exception.ContentBatchException;
+import com.aem.cmis.exception.ContentValidationException;
+import com.aem.cmis.exception.ContentVersionConflictException;
+import com.aem.cmis.exception.ResourceNotFoundException;
 import com.aem.cmis.mapper.ContentMapper;
+import com.aem.cmis.metrics.ContentMetrics;
+import com.aem.cmis.metrics.RequestTiming;
 import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.repository.ContentFacet;
+import com.aem.cmis.repository.ContentQuery;
 import com.aem.cmis.repository.ContentRepository;
+import com.aem.cmis.repository.ContentWrite;
+import com.aem.cmis.repository.FacetCount;
 
 @Service
 public class ContentService {
 
+    // Phases of the RequestTiming
+    private static final String MAPPER = "mapper";
+    private static final String REPOSITORY = "repository";
+
 	private final ContentRepository repository;
     private final ContentMapper contentMapper;
+    private final ContentMetrics metrics;
 
     public ContentService(ContentRepository repository, ContentMapper contentMapper) {
+        this(repository, contentMapper, ContentMetrics.NONE);
+    }
+
+    public ContentService(ContentRepository repository, ContentMapper contentMapper, ContentMetrics metrics) {
         this.repository = repository;
         this.contentMapper = contentMapper;
+        this.metrics = metrics;
     }
 
     public ContentDTO createContent(ContentDTO contentDTO) {
+        return metrics.time("create", () -> create(contentDTO));
+    }
+
+    private ContentDTO create(ContentDTO contentDTO) {
         try {
             if (contentDTO == null) {
                 throw new ServiceException("ContentDTO cannot be null");
             }
-            Content content = contentMapper.mapToContent(contentDTO);
-            content.setCreatedAt(LocalDateTime.now());
-            content.setUpdatedAt(LocalDateTime.now());
-            content.setJcrMetadata(new HashMap<String, Object>() {{
-                put("jcr:primaryType", "nt:unstructured");
-                put("jcr:created", content.getCreatedAt().toString());
-            }});
-            for (Content child : content.getChildren()) {
-                child.setCreatedAt(LocalDateTime.now());
-                child.setUpdatedAt(LocalDateTime.now());
-                child.setJcrMetadata(new HashMap<String, Object>() {{
-                    put("jcr:primaryType", "nt:unstructured");
-                    put("jcr:created", child.getCreatedAt().toString());
-                }});
-            }
-            Content savedContent = repository.save(content);
-            return contentMapper.mapToContentDTO(savedContent);
-        } catch (ServiceException e) {
+            Content content = RequestTiming.phase(MAPPER, () -> contentMapper.mapToContent(contentDTO));
+            metrics.recordTree(content);
+            ContentNode savedContent = RequestTiming.phase(REPOSITORY, () -> repository.save(content));
+            return RequestTiming.phase(MAPPER, () -> contentMapper.mapToContentDTO(savedContent));
+        } catch (ServiceException | ContentValidationException e) {
             throw e; 
         } catch (Exception e) {
             throw new ServiceException("Failed to create content", e);
         }
     }
 
-    public Optional<ContentDTO> getContent(String id) {
+    /**
+     * Stored nodes are shared as they are, so the projection only limits how
+     * much of the tree is mapped and serialized.
+     */
+    public Optional<ContentDTO> getContent(String id, ContentProjection projection) {
+        return metrics.time("get", () -> get(id, projection));
+    }
+
+    private Optional<ContentDTO> get(String id, ContentProjection projection) {
         try {
-            Optional<Content> content = repository.findById(id);
-            return content.map(contentMapper::mapToContentDTO);
+            Optional<ContentNode> content = RequestTiming.phase(REPOSITORY, () -> repository.findById(id));
+            return RequestTiming.phase(MAPPER, () -> content.map(node -> contentMapper.mapToContentDTO(node, projection)));
         } catch (ServiceException e) {
             throw e; 
         } catch (Exception e) {
@@ -63,49 +90,272 @@ public class ContentService {
         }
     }
 
-    public List<ContentDTO> searchContent(String tag, String author) {
+    public Optional<ContentDTO> getContentByPath(String path, ContentProjection projection) {
+        return metrics.time("get_by_path", () -> getByPath(path, projection));
+    }
+
+    private Optional<ContentDTO> getByPath(String path, ContentProjection projection) {
+        try {
+            Optional<ContentNode> content = RequestTiming.phase(REPOSITORY, () -> repository.findByPath(path));
+            return RequestTiming.phase(MAPPER, () -> content.map(node -> contentMapper.mapToContentDTO(node, projection)));
+        } catch (ServiceException e) {
+            throw e; 
+        } catch (Exception e) {
+            throw new ServiceException("Failed to retrieve content with path: " + path, e);
+        }
+    }
+
+    public List<ContentDTO> listContentByPath(String path, boolean recursive) {
+        return metrics.time("list", () -> listByPath(path, recursive));
+    }
+
+    private List<ContentDTO> listByPath(String path, boolean recursive) {
+        try {
+            List<ContentNode> results = RequestTiming.phase(REPOSITORY, () -> repository.findByPathPrefix(path, recursive));
+            return mapAll(results);
+        } catch (ServiceException e) {
+            throw e; 
+        } catch (Exception e) {
+            throw new ServiceException("Failed to list content below path: " + path, e);
+        }
+    }
+
+    public ContentPage searchContent(String tag, String author, String cursor, int limit) {
+        return searchContent(ContentQuery.of(tag, author), cursor, limit);
+    }
+
+    public ContentPage searchContent(ContentQuery query, String cursor, int limit) {
+        return metrics.time("search", () -> search(query, cursor, limit));
+    }
+
+    private ContentPage search(ContentQuery query, String cursor, int limit) {
         try {
-            List<Content> results = repository.findByTagOrAuthor(tag, author);
-            return results.stream().map(contentMapper::mapToContentDTO).collect(Collectors.toList());
+            String afterId = cursor != null ? decodeCursor(cursor) : null;
+            // One extra hit tells us whether there is a next page
+            List<ContentNode> results = RequestTiming.phase(REPOSITORY, () -> repository.find(query, afterId, limit + 1));
+            boolean hasMore = results.size() > limit;
+            if (hasMore) {
+                results = results.subList(0, limit);
+            }
+            List<ContentDTO> items = mapAll(results);
+            String nextCursor = hasMore ? encodeCursor(results.get(results.size() - 1).getId()) : null;
+            return new ContentPage(items, nextCursor);
         } catch (ServiceException e) {
             throw e; 
+        } catch (IllegalArgumentException e) {
+            throw e;
         } catch (Exception e) {
             throw new ServiceException("Failed to search content", e);
         }
     }
 
+    public List<ContentDTO> searchText(String query, int limit) {
+        return metrics.time("search_text", () -> textSearch(query, limit));
+    }
+
+    private List<ContentDTO> textSearch(String query, int limit) {
+        try {
+            List<ContentNode> results = RequestTiming.phase(REPOSITORY, () -> repository.searchText(query, limit));
+            return mapAll(results);
+        } catch (ServiceException e) {
+            throw e; 
+        } catch (Exception e) {
+            throw new ServiceException("Failed to search content text", e);
+        }
+    }
+
+    /**
+     * The {@code limit} tags and authors held by the most nodes, or the counts
+     * of the given ones when a list of them is not empty.
+     */
+    public ContentFacets getFacets(int limit, List<String> tags, List<String> authors) {
+        return metrics.time("facets", () -> facets(limit, tags, authors));
+    }
+
+    private ContentFacets facets(int limit, List<String> tags, List<String> authors) {
+        try {
+            return RequestTiming.phase(REPOSITORY, () -> new ContentFacets(facetCounts(ContentFacet.TAG, limit, tags),
+                    facetCounts(ContentFacet.AUTHOR, limit, authors)));
+        } catch (Exception e) {
+            throw new ServiceException("Failed to count content facets", e);
+        }
+    }
+
+    private List<FacetCount> facetCounts(ContentFacet facet, int limit, List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return repository.topFacets(facet, limit);
+        }
+        List<FacetCount> counts = new ArrayList<>(values.size());
+        for (String value : values) {
+            counts.add(new FacetCount(value, repository.facetCount(facet, value)));
+        }
+        return counts;
+    }
+
     public Optional<ContentDTO> updateContent(String id, ContentDTO contentDTO) {
+        return updateContent(id, contentDTO, ContentRepository.ANY_VERSION);
+    }
+
+    /**
+     * Updates the content only while it is still at {@code expectedVersion},
+     * a {@link ContentVersionConflictException} tells the caller it changed.
+     */
+    public Optional<ContentDTO> updateContent(String id, ContentDTO contentDTO, long expectedVersion) {
+        return metrics.time("update", () -> update(id, contentDTO, expectedVersion));
+    }
+
+    private Optional<ContentDTO> update(String id, ContentDTO contentDTO, long expectedVersion) {
         try {
             if (contentDTO == null) {
                 throw new ServiceException("ContentDTO cannot be null");
             }
-            Optional<Content> existingContent = repository.findById(id);
-            if (existingContent.isEmpty()) {
-                return Optional.empty();
-            }
-            Content content = contentMapper.mapToContent(contentDTO);
-            Content updatedContent = existingContent.get();
-            updatedContent.setTags(content.getTags());
-            updatedContent.setChildren(content.getChildren());
-            updatedContent.setUpdatedAt(LocalDateTime.now());
-            updatedContent.getJcrMetadata().put("jcr:lastModified", updatedContent.getUpdatedAt().toString());
-            Content savedContent = repository.update(id, updatedContent);
-            return Optional.of(contentMapper.mapToContentDTO(savedContent));
-        } catch (ServiceException e) {
+            // Only tags and children are taken from the request, the repository keeps the rest
+            Content content = RequestTiming.phase(MAPPER, () -> contentMapper.mapToContent(contentDTO));
+            ContentNode savedContent = RequestTiming.phase(REPOSITORY, () -> repository.update(id, content, expectedVersion));
+            metrics.recordTree(content);
+            return Optional.of(RequestTiming.phase(MAPPER, () -> contentMapper.mapToContentDTO(savedContent)));
+        } catch (ResourceNotFoundException e) {
+            return Optional.empty();
+        } catch (ServiceException | ContentVersionConflictException | ContentValidationException e) {
             throw e; 
         } catch (Exception e) {
             throw new ServiceException("Failed to update content with id: " + id, e);
         }
     }
 
-    public boolean deleteContent(String id) {
+    /**
+     * Applies the operations in order, all of them or none. Each node is looked
+     * up and version checked once, inside the repository batch, instead of
+     * being read before every write. A batch that fails comes back with the
+     * failed operation's status and the others marked as not applied.
+     */
+    public BatchResult applyBatch(List<BatchOperation> operations) {
+        return metrics.time("batch", () -> batch(operations));
+    }
+
+    private BatchResult batch(List<BatchOperation> operations) {
         try {
-            Optional<Content> content = repository.findById(id);
-            if (content.isEmpty()) {
-                return false;
+            if (operations == null || operations.isEmpty()) {
+                throw new IllegalArgumentException("A batch needs at least one operation");
+            }
+            List<ContentWrite> writes = RequestTiming.phase(MAPPER, () -> toWrites(operations));
+            List<ContentNode> nodes;
+            try {
+                nodes = RequestTiming.phase(REPOSITORY, () -> repository.applyBatch(writes));
+            } catch (ContentBatchException e) {
+                return failedBatch(operations, e);
+            }
+            List<BatchOperationResult> results = RequestTiming.phase(MAPPER, () -> {
+                List<BatchOperationResult> mapped = new ArrayList<>(nodes.size());
+                for (int i = 0; i < nodes.size(); i++) {
+                    BatchOperation operation = operations.get(i);
+                    ContentNode node = nodes.get(i);
+                    HttpStatus status = operation.getOp() == BatchOperation.Type.CREATE ? HttpStatus.CREATED : HttpStatus.OK;
+                    ContentDTO content = operation.getOp() == BatchOperation.Type.DELETE ? null
+                            : contentMapper.mapToContentDTO(node);
+                    mapped.add(new BatchOperationResult(i, operation.getOp(), status.value(), node.getId(),
+                            node.getVersion(), content, null));
+                }
+                return mapped;
+            });
+            return new BatchResult(true, null, results);
+        } catch (ServiceException | IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ServiceException("Failed to apply content batch", e);
+        }
+    }
+
+    private List<ContentWrite> toWrites(List<BatchOperation> operations) {
+        List<ContentWrite> writes = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+            if (operation == null || operation.getOp() == null) {
+                throw new IllegalArgumentException("Operation " + i + " has no type");
+            }
+            if (operation.getOp() != BatchOperation.Type.CREATE && operation.getId() == null) {
+                throw new IllegalArgumentException("Operation " + i + " needs the id of the content to " + operation.getOp());
+            }
+            if (operation.getOp() != BatchOperation.Type.DELETE && operation.getContent() == null) {
+                throw new IllegalArgumentException("Operation " + i + " needs content to " + operation.getOp());
             }
-            repository.delete(id);
-            return true;
+            long expectedVersion = operation.getExpectedVersion() != null ? operation.getExpectedVersion()
+                    : ContentRepository.ANY_VERSION;
+            switch (operation.getOp()) {
+            case CREATE:
+                Content created = contentMapper.mapToContent(operation.getContent());
+                metrics.recordTree(created);
+                writes.add(new ContentWrite.Save(created));
+                break;
+            case UPDATE:
+                // As for a single update, only tags and children are taken from the request
+                Content updated = contentMapper.mapToContent(operation.getContent());
+                metrics.recordTree(updated);
+                writes.add(new ContentWrite.Update(operation.getId(), updated, expectedVersion));
+                break;
+            default:
+                writes.add(new ContentWrite.Delete(operation.getId(), expectedVersion));
+            }
+        }
+        return writes;
+    }
+
+    private static BatchResult failedBatch(List<BatchOperation> operations, ContentBatchException failure) {
+        List<BatchOperationResult> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+            if (i != failure.getIndex()) {
+                results.add(new BatchOperationResult(i, operation.getOp(), HttpStatus.FAILED_DEPENDENCY.value(),
+                        operation.getId(), null, null, null));
+                continue;
+            }
+            // A conflict carries the current version, so the client can re-read and retry
+            if (failure.getCause() instanceof ContentVersionConflictException conflict) {
+                results.add(new BatchOperationResult(i, operation.getOp(), HttpStatus.CONFLICT.value(), operation.getId(),
+                        conflict.getCurrentVersion(), null, conflict.getMessage()));
+            } else {
+                results.add(new BatchOperationResult(i, operation.getOp(), HttpStatus.NOT_FOUND.value(), operation.getId(),
+                        null, null, failure.getCause().getMessage()));
+            }
+        }
+        return new BatchResult(false, failure.getIndex(), results);
+    }
+
+    private List<ContentDTO> mapAll(List<ContentNode> nodes) {
+        return RequestTiming.phase(MAPPER,
+                () -> nodes.stream().map(contentMapper::mapToContentDTO).collect(Collectors.toList()));
+    }
+
+    private static String encodeCursor(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    public boolean deleteContent(String id) {
+        return deleteContent(id, ContentRepository.ANY_VERSION);
+    }
+
+    public boolean deleteContent(String id, long expectedVersion) {
+        return metrics.time("delete", () -> delete(id, expectedVersion));
+    }
+
+    private boolean delete(String id, long expectedVersion) {
+        try {
+            return RequestTiming.phase(REPOSITORY, () -> {
+                repository.delete(id, expectedVersion);
+                return true;
+            });
+        } catch (ResourceNotFoundException e) {
+            return false;
+        } catch (ContentVersionConflictException e) {
+            throw e;
         } catch (Exception e) {
             throw new ServiceException("Failed to delete content with id: " + id, e);
         }
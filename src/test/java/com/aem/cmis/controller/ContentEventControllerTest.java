@@ -0,0 +1,63 @@
+package com.aem.cmis.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.aem.cmis.events.ContentEventLog;
+import com.aem.cmis.events.ContentEventSink;
+import com.aem.cmis.events.OverflowPolicy;
+
+@WebMvcTest(ContentEventController.class)
+@AutoConfigureMockMvc(addFilters = false)
+public class ContentEventControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private ContentEventLog contentEventLog;
+
+	@BeforeEach
+	void setup() {
+		when(contentEventLog.getEpoch()).thenReturn("epoch-1");
+		when(contentEventLog.subscribe(any(), any(), any(), any())).thenReturn(mock(ContentEventLog.Subscription.class));
+	}
+
+	@Test
+	void streamEvents_lastEventId_resumesAfterThatEvent() throws Exception {
+		mockMvc.perform(get("/content/events").accept(MediaType.TEXT_EVENT_STREAM).header("Last-Event-ID", "epoch-1:5"))
+				.andExpect(status().isOk());
+
+		verify(contentEventLog).subscribe(eq("epoch-1"), eq(6L), eq(OverflowPolicy.SKIP), any(ContentEventSink.class));
+	}
+
+	@Test
+	void streamEvents_from_resumesAfterThatEvent_likeLastEventId() throws Exception {
+		mockMvc.perform(get("/content/events").accept(MediaType.TEXT_EVENT_STREAM).param("from", "epoch-1:5"))
+				.andExpect(status().isOk());
+
+		verify(contentEventLog).subscribe(eq("epoch-1"), eq(6L), eq(OverflowPolicy.SKIP), any(ContentEventSink.class));
+	}
+
+	@Test
+	void streamEvents_bareOffset_isAnOffsetOfTheCurrentFeed() throws Exception {
+		mockMvc.perform(get("/content/events").accept(MediaType.TEXT_EVENT_STREAM).param("from", "5"))
+				.andExpect(status().isOk());
+
+		verify(contentEventLog).subscribe(eq("epoch-1"), eq(6L), eq(OverflowPolicy.SKIP), any(ContentEventSink.class));
+	}
+}
@@ -1,6 +1,6 @@
 package com.aem.cmis.controller;
 
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 
@@ -15,20 +15,46 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.aem.cmis.controller.ContentManagementController;
+import com.aem.cmis.dto.BatchOperation;
+import com.aem.cmis.dto.BatchOperationResult;
+import com.aem.cmis.dto.BatchRequest;
+import com.aem.cmis.dto.BatchResult;
+import com.aem.cmis.dto.BulkImportError;
+import com.aem.cmis.dto.BulkImportResult;
 import com.aem.cmis.dto.ContentDTO;
+import com.aem.cmis.dto.ContentFacets;
+import com.aem.cmis.dto.ContentPage;
+import com.aem.cmis.dto.ContentProjection;
+import com.aem.cmis.exception.ContentVersionConflictException;
+import com.aem.cmis.metrics.ContentMetrics;
 import com.aem.cmis.model.Content;
+import com.aem.cmis.repository.ContentQuery;
+import com.aem.cmis.repository.ContentRepository;
+import com.aem.cmis.repository.FacetCount;
+import com.aem.cmis.service.ContentExportService;
+import com.aem.cmis.service.ContentImportService;
+import com.aem.cmis.service.ContentResponseCache;
 import com.aem.cmis.service.ContentService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.JsonPath;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import org.springframework.http.MediaType;
 
 import java.util.*;
 
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -42,15 +68,47 @@ public class ContentManagementControllerTest {
     @MockBean
     private ContentService service;
 
+    @MockBean
+    private ContentImportService importService;
+
+    @MockBean
+    private ContentExportService exportService;
+
+    @Autowired
+    private ContentResponseCache responseCache;
+
     @Autowired
     private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
     
     private ContentDTO contentDTO;
     private ContentDTO childDTO;
 
     
+	@TestConfiguration
+	static class ResponseCacheConfig {
+		@Bean
+		ContentResponseCache contentResponseCache(ContentService service, ObjectMapper objectMapper) {
+			return new ContentResponseCache(service, objectMapper, 1024 * 1024);
+		}
+
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		ContentMetrics contentMetrics(MeterRegistry meterRegistry) {
+			return new ContentMetrics(meterRegistry);
+		}
+	}
+
 	@BeforeEach
 	void setup() {
+		// The cache outlives a test, responses mocked by an earlier one must not leak
+		responseCache.invalidateAll();
 		contentDTO = createValidContentDTO();
 		childDTO = createValidChildDTO();
 	}
@@ -66,6 +124,7 @@ public class ContentManagementControllerTest {
         dto.setCreatedAt(LocalDateTime.now());
         dto.setUpdatedAt(LocalDateTime.now());
         dto.setPath("/content/article");
+        dto.setVersion(1L);
         return dto;
     }
 
@@ -79,6 +138,7 @@ public class ContentManagementControllerTest {
         child.setCreatedAt(LocalDateTime.now());
         child.setUpdatedAt(LocalDateTime.now());
         child.setPath("content/child");
+        child.setVersion(1L);
         return child;
     }
 
@@ -100,6 +160,20 @@ public class ContentManagementControllerTest {
                 .andExpect(jsonPath("$.details").isArray());
     }
 
+    @Test
+    void createContent_invalidContent_countsValidationFailure() throws Exception {
+        ContentDTO invalid = new ContentDTO();
+        invalid.setTitle("");
+        double before = meterRegistry.counter("content.validation.failures", "operation", "create").count();
+
+        mockMvc.perform(post("/content")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(invalid)))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(before + 1, meterRegistry.counter("content.validation.failures", "operation", "create").count());
+    }
+
     @Test
     void createContent_nullContentDTO_returnsInternalServerError() throws Exception {
         when(service.createContent(null))
@@ -133,13 +207,94 @@ public class ContentManagementControllerTest {
                 .andExpect(jsonPath("$.message").value("An unexpected error occurred"));
     }
 
+    @Test
+    void importContent_ndjsonBody_returnsImportReport() throws Exception {
+        BulkImportResult report = new BulkImportResult(1, 1, List.of(new BulkImportError(2, "Malformed JSON: oops")));
+        when(importService.importContent(any())).thenReturn(report);
+
+        mockMvc.perform(post("/content/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(objectMapper.writeValueAsString(createValidContentDTO()).replace("\n", "") + "\n{oops\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.errors[0].line").value(2));
+    }
+
+    @Test
+    void applyBatch_applied_returnsResultOfEachOperation() throws Exception {
+        BatchRequest request = new BatchRequest(List.of(
+                new BatchOperation(BatchOperation.Type.CREATE, null, contentDTO, null),
+                new BatchOperation(BatchOperation.Type.DELETE, "2", null, 1L)));
+        BatchResult applied = new BatchResult(true, null, List.of(
+                new BatchOperationResult(0, BatchOperation.Type.CREATE, 201, "1", 1L, contentDTO, null),
+                new BatchOperationResult(1, BatchOperation.Type.DELETE, 200, "2", 1L, null, null)));
+        when(service.applyBatch(any())).thenReturn(applied);
+
+        mockMvc.perform(post("/content/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(true))
+                .andExpect(jsonPath("$.results[0].status").value(201))
+                .andExpect(jsonPath("$.results[0].content.title").value("Test Article"))
+                .andExpect(jsonPath("$.results[1].op").value("DELETE"));
+    }
+
+    @Test
+    void applyBatch_conflict_returnsStatusOfTheFailedOperation() throws Exception {
+        BatchRequest request = new BatchRequest(List.of(
+                new BatchOperation(BatchOperation.Type.UPDATE, "1", contentDTO, null),
+                new BatchOperation(BatchOperation.Type.DELETE, "1", null, 1L)));
+        BatchResult failed = new BatchResult(false, 1, List.of(
+                new BatchOperationResult(0, BatchOperation.Type.UPDATE, 424, "1", null, null, null),
+                new BatchOperationResult(1, BatchOperation.Type.DELETE, 409, "1", 2L, null, "Content 1 is at version 2, not 1")));
+        when(service.applyBatch(any())).thenReturn(failed);
+
+        mockMvc.perform(post("/content/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.applied").value(false))
+                .andExpect(jsonPath("$.failedIndex").value(1))
+                .andExpect(jsonPath("$.results[0].status").value(424))
+                .andExpect(jsonPath("$.results[1].version").value(2));
+    }
+
+    @Test
+    void applyBatch_noOperations_returnsBadRequest() throws Exception {
+        mockMvc.perform(post("/content/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\":[]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Validation Failed"));
+    }
+
+    @Test
+    void exportContent_gzip_streamsAttachment() throws Exception {
+        when(exportService.exportContent(any(), eq(true))).thenAnswer(invocation -> {
+            invocation.getArgument(0, java.io.OutputStream.class).write(new byte[] { 0x1f, (byte) 0x8b });
+            return 1L;
+        });
+
+        MvcResult result = mockMvc.perform(get("/content/export").param("gzip", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"content-export.ndjson.gz\""))
+                .andExpect(content().bytes(new byte[] { 0x1f, (byte) 0x8b }));
+    }
+
     // 2. getContent Tests
     @Test
     void getContent_existingIdWithChildren_returnsOk() throws Exception {
         ContentDTO contentDTO = createValidContentDTO();
         contentDTO.setChildren(Arrays.asList(createValidChildDTO()));
 
-        when(service.getContent("1")).thenReturn(Optional.of(contentDTO));
+        when(service.getContent("1", ContentProjection.FULL)).thenReturn(Optional.of(contentDTO));
 
         mockMvc.perform(get("/content/1"))
                 .andExpect(status().isOk())
@@ -148,9 +303,28 @@ public class ContentManagementControllerTest {
                 .andExpect(jsonPath("$.children[0].id").value("2"));
     }
 
+    @Test
+    void getContent_ifNoneMatchCurrentEtag_returnsNotModifiedFromCache() throws Exception {
+        when(service.getContent("1", ContentProjection.FULL)).thenReturn(Optional.of(createValidContentDTO()));
+
+        String etag = mockMvc.perform(get("/content/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/content/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/content/1").header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("1"));
+        verify(service, times(1)).getContent("1", ContentProjection.FULL);
+    }
+
     @Test
     void getContent_nonExistingId_returnsNotFound() throws Exception {
-        when(service.getContent("1")).thenReturn(Optional.empty());
+        when(service.getContent("1", ContentProjection.FULL)).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/content/1"))
                 .andExpect(status().isNotFound())
@@ -161,7 +335,7 @@ public class ContentManagementControllerTest {
 
     @Test
     void getContent_serviceThrowsException_returnsInternalServerError() throws Exception {
-        when(service.getContent("1"))
+        when(service.getContent("1", ContentProjection.FULL))
                 .thenThrow(new ServiceException("Failed to retrieve content"));
 
         mockMvc.perform(get("/content/1"))
@@ -171,6 +345,61 @@ public class ContentManagementControllerTest {
                 .andExpect(jsonPath("$.message").value("An unexpected error occurred"));
     }
 
+    @Test
+    void getContent_depthAndFields_passesProjectionToService() throws Exception {
+        ContentDTO projected = new ContentDTO();
+        projected.setId("1");
+        projected.setTitle("Test Article");
+        projected.setVersion(1L);
+        projected.setChildren(null);
+
+        when(service.getContent("1", ContentProjection.of(0, "title"))).thenReturn(Optional.of(projected));
+
+        mockMvc.perform(get("/content/1").param("depth", "0").param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("1"))
+                .andExpect(jsonPath("$.title").value("Test Article"))
+                .andExpect(jsonPath("$.body").doesNotExist())
+                .andExpect(jsonPath("$.children").doesNotExist());
+    }
+
+    @Test
+    void getContent_unknownField_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/content/1").param("fields", "title,secret"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400))
+                .andExpect(jsonPath("$.message").value("Unknown field: secret"));
+    }
+
+    @Test
+    void getContentByPath_existingPath_returnsOk() throws Exception {
+        when(service.getContentByPath("/content/article", ContentProjection.FULL)).thenReturn(Optional.of(createValidContentDTO()));
+
+        mockMvc.perform(get("/content/by-path/content/article"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value("1"))
+                .andExpect(jsonPath("$.path").value("/content/article"));
+    }
+
+    @Test
+    void getContentByPath_nonExistingPath_returnsNotFound() throws Exception {
+        when(service.getContentByPath("/content/missing", ContentProjection.FULL)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/content/by-path/content/missing"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Content not found with path: /content/missing"));
+    }
+
+    @Test
+    void listChildren_recursive_returnsOk() throws Exception {
+        when(service.listContentByPath("/content", true)).thenReturn(Arrays.asList(createValidContentDTO(), createValidChildDTO()));
+
+        mockMvc.perform(get("/content/children/content").param("recursive", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value("1"))
+                .andExpect(jsonPath("$[1].id").value("2"));
+    }
+
     // 3. searchContent Tests
     @Test
     void searchContent_validTagAndAuthor_returnsOk() throws Exception {
@@ -180,20 +409,97 @@ public class ContentManagementControllerTest {
 
         List<ContentDTO> results = Arrays.asList(contentDTO);
 
-        when(service.searchContent("news", "Admin")).thenReturn(results);
+        when(service.searchContent(ContentQuery.of("news", "Admin"), null, 100)).thenReturn(new ContentPage(results, null));
 
         mockMvc.perform(get("/content/search")
                         .param("tag", "news")
                         .param("author", "Admin"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
                 .andExpect(jsonPath("$[0].id").value("1"))
                 .andExpect(jsonPath("$[0].title").value("Test Article"));
     }
 
+    @Test
+    void searchContent_withLimitAndCursor_returnsNextCursorHeader() throws Exception {
+        when(service.searchContent(ContentQuery.of("news", null), "abc", 1))
+                .thenReturn(new ContentPage(Arrays.asList(createValidContentDTO()), "def"));
+
+        mockMvc.perform(get("/content/search")
+                        .param("tag", "news")
+                        .param("limit", "1")
+                        .param("cursor", "abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "def"))
+                .andExpect(jsonPath("$[0].id").value("1"));
+    }
+
+    @Test
+    void getFacets_namedTags_returnsTheirCountsAndTopAuthors() throws Exception {
+        ContentFacets facets = new ContentFacets(List.of(new FacetCount("news", 12), new FacetCount("aem", 3)),
+                List.of(new FacetCount("admin", 7)));
+        when(service.getFacets(5, List.of("news", "aem"), null)).thenReturn(facets);
+
+        mockMvc.perform(get("/content/facets")
+                        .param("limit", "5")
+                        .param("tag", "news", "aem"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.tags[0].value").value("news"))
+                .andExpect(jsonPath("$.tags[0].count").value(12))
+                .andExpect(jsonPath("$.tags[1].value").value("aem"))
+                .andExpect(jsonPath("$.authors[0].value").value("admin"));
+    }
+
+    @Test
+    void searchContent_excludeTagAndAuthor_searchesWithNegatedQuery() throws Exception {
+        when(service.searchContent(new ContentQuery(null, "Admin", "archived", "Editor"), null, 100))
+                .thenReturn(new ContentPage(Arrays.asList(createValidContentDTO()), null));
+
+        mockMvc.perform(get("/content/search")
+                        .param("author", "Admin")
+                        .param("excludeTag", "archived")
+                        .param("excludeAuthor", "Editor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value("1"));
+    }
+
+    @Test
+    void searchContent_streamMode_writesNewlineDelimitedJson() throws Exception {
+        when(service.searchContent(ContentQuery.of("news", null), null, 256))
+                .thenReturn(new ContentPage(Arrays.asList(createValidContentDTO()), "next"));
+        when(service.searchContent(ContentQuery.of("news", null), "next", 256))
+                .thenReturn(new ContentPage(Arrays.asList(createValidChildDTO()), null));
+
+        MvcResult result = mockMvc.perform(get("/content/search")
+                        .param("tag", "news")
+                        .param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("1", JsonPath.read(lines[0], "$.id"));
+        assertEquals("2", JsonPath.read(lines[1], "$.id"));
+    }
+
+
+    @Test
+    void searchContent_keywordQuery_returnsRankedResults() throws Exception {
+        when(service.searchText("test article", 5)).thenReturn(Arrays.asList(createValidContentDTO()));
+
+        mockMvc.perform(get("/content/search")
+                        .param("q", "test article")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value("1"));
+    }
 
     @Test
     void searchContent_noResults_returnsOkWithEmptyList() throws Exception {
-        when(service.searchContent("unknown", null)).thenReturn(Collections.emptyList());
+        when(service.searchContent(ContentQuery.of("unknown", null), null, 100)).thenReturn(new ContentPage(Collections.emptyList(), null));
 
         mockMvc.perform(get("/content/search")
                         .param("tag", "unknown"))
@@ -205,7 +511,7 @@ public class ContentManagementControllerTest {
 
     @Test
     void searchContent_serviceThrowsException_returnsInternalServerError() throws Exception {
-        when(service.searchContent("news", "Admin"))
+        when(service.searchContent(ContentQuery.of("news", "Admin"), null, 100))
                 .thenThrow(new ServiceException("Failed to search content"));
 
         mockMvc.perform(get("/content/search")
@@ -224,7 +530,7 @@ public class ContentManagementControllerTest {
         updatedDTO.setId("1"); 
         updatedDTO.setTags(Arrays.asList("updated"));
 
-        when(service.updateContent(eq("1"), any(ContentDTO.class))).thenReturn(Optional.of(updatedDTO));
+        when(service.updateContent(eq("1"), any(ContentDTO.class), eq(ContentRepository.ANY_VERSION))).thenReturn(Optional.of(updatedDTO));
 
         mockMvc.perform(patch("/content/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -234,9 +540,40 @@ public class ContentManagementControllerTest {
                 .andExpect(jsonPath("$.tags[0]").value("updated")); 
     }
 
+    @Test
+    void updateContent_ifMatch_passesVersionAndReturnsNewEtag() throws Exception {
+        ContentDTO updatedDTO = createValidContentDTO();
+        updatedDTO.setVersion(4L);
+
+        when(service.updateContent(eq("1"), any(ContentDTO.class), eq(3L))).thenReturn(Optional.of(updatedDTO));
+
+        mockMvc.perform(patch("/content/1")
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createValidContentDTO())))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    void updateContent_staleIfMatch_returnsPreconditionFailed() throws Exception {
+        when(service.updateContent(eq("1"), any(ContentDTO.class), eq(3L)))
+                .thenThrow(new ContentVersionConflictException("1", 3, 5));
+
+        mockMvc.perform(patch("/content/1")
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createValidContentDTO())))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""))
+                .andExpect(jsonPath("$.status").value(412))
+                .andExpect(jsonPath("$.error").value("Precondition Failed"));
+    }
+
     @Test
     void updateContent_nonExistingId_returnsNotFound() throws Exception {
-        when(service.updateContent(eq("1"), any(ContentDTO.class))).thenReturn(Optional.empty());
+        when(service.updateContent(eq("1"), any(ContentDTO.class), eq(ContentRepository.ANY_VERSION))).thenReturn(Optional.empty());
 
         ContentDTO contentDTO = createValidContentDTO();
 
@@ -270,7 +607,7 @@ public class ContentManagementControllerTest {
     @Test
     void updateContent_serviceThrowsException_returnsInternalServerError() throws Exception {
         ContentDTO contentDTO = createValidContentDTO();
-        when(service.updateContent(eq("1"), any(ContentDTO.class)))
+        when(service.updateContent(eq("1"), any(ContentDTO.class), eq(ContentRepository.ANY_VERSION)))
                 .thenThrow(new ServiceException("Failed to update content"));
 
         mockMvc.perform(patch("/content/1")
@@ -285,16 +622,25 @@ public class ContentManagementControllerTest {
     // 5. deleteContent Tests
     @Test
     void deleteContent_existingId_returnsOk() throws Exception {
-        when(service.deleteContent("1")).thenReturn(true);
+        when(service.deleteContent("1", ContentRepository.ANY_VERSION)).thenReturn(true);
 
         mockMvc.perform(delete("/content/1"))
                 .andExpect(status().isOk())
                 .andExpect(content().string("Content and children deleted"));
     }
 
+    @Test
+    void deleteContent_staleIfMatch_returnsPreconditionFailed() throws Exception {
+        when(service.deleteContent("1", 2L)).thenThrow(new ContentVersionConflictException("1", 2, 3));
+
+        mockMvc.perform(delete("/content/1").header(HttpHeaders.IF_MATCH, "\"2\""))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("Content 1 is at version 3, not 2"));
+    }
+
     @Test
     void deleteContent_nonExistingId_returnsNotFound() throws Exception {
-        when(service.deleteContent("1")).thenReturn(false);
+        when(service.deleteContent("1", ContentRepository.ANY_VERSION)).thenReturn(false);
 
         mockMvc.perform(delete("/content/1"))
                 .andExpect(status().isNotFound())
@@ -305,7 +651,7 @@ public class ContentManagementControllerTest {
 
     @Test
     void deleteContent_serviceThrowsException_returnsInternalServerError() throws Exception {
-        when(service.deleteContent("1"))
+        when(service.deleteContent("1", ContentRepository.ANY_VERSION))
                 .thenThrow(new ServiceException("Failed to delete content"));
 
         mockMvc.perform(delete("/content/1"))
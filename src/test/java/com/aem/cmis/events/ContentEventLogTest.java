@@ -0,0 +1,220 @@
+package com.aem.cmis.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.repository.ContentChange;
+import com.aem.cmis.repository.InMemoryContentRepository;
+
+public class ContentEventLogTest {
+
+    private InMemoryContentRepository repository;
+    private ContentEventLog eventLog;
+
+    @BeforeEach
+    void setup() {
+        repository = new InMemoryContentRepository();
+        eventLog = new ContentEventLog(4, 2);
+        repository.addChangeListener(eventLog);
+    }
+
+    @AfterEach
+    void teardown() {
+        eventLog.close();
+    }
+
+    private Content createContent(String title) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor("Admin");
+        content.setTags(new ArrayList<>(List.of("news")));
+        content.setPath("/content/" + title);
+        return content;
+    }
+
+    private ContentNode save(String title) {
+        return repository.save(createContent(title));
+    }
+
+    /**
+     * Keeps what a subscription delivers, "missed:<count>:<resume offset>" for
+     * a gap, "reset:<resume offset>" for an offset of another epoch and
+     * "closed" when the log ends it.
+     */
+    private static class QueueSink implements ContentEventSink {
+        private final BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(ContentEvent event) throws IOException {
+            received.add(event);
+        }
+
+        @Override
+        public void missed(long missed, long resumeOffset) {
+            received.add("missed:" + missed + ":" + resumeOffset);
+        }
+
+        @Override
+        public void reset(long resumeOffset) {
+            received.add("reset:" + resumeOffset);
+        }
+
+        @Override
+        public void close() {
+            received.add("closed");
+        }
+
+        Object next() throws InterruptedException {
+            Object next = received.poll(5, TimeUnit.SECONDS);
+            assertTrue(next != null, "nothing received");
+            return next;
+        }
+
+        long nextOffset() throws InterruptedException {
+            return ((ContentEvent) next()).offset();
+        }
+    }
+
+    @Test
+    void writes_arePublishedWithPathVersionAndStaleIds() {
+        Content article = createContent("article");
+        article.getChildren().add(createContent("article/section"));
+        ContentNode saved = repository.save(article);
+        ContentNode section = saved.getChildren().get(0);
+        repository.update(section.getId(), createContent("ignored"));
+        repository.delete(saved.getId());
+
+        ContentEventLog.Batch batch = eventLog.read(0, 10);
+
+        assertEquals(0, batch.missed());
+        assertEquals(List.of(ContentChange.Type.SAVED, ContentChange.Type.UPDATED, ContentChange.Type.DELETED),
+                batch.events().stream().map(ContentEvent::type).toList());
+        assertEquals(List.of(0L, 1L, 2L), batch.events().stream().map(ContentEvent::offset).toList());
+        ContentEvent updated = batch.events().get(1);
+        assertEquals(section.getId(), updated.id());
+        assertEquals("/content/article/section", updated.path());
+        assertEquals(2, updated.version());
+        assertEquals(List.of(section.getId(), saved.getId()), updated.affectedIds());
+        ContentEvent deleted = batch.events().get(2);
+        assertEquals("/content/article", deleted.path());
+        assertEquals(2, deleted.version());
+    }
+
+    @Test
+    void ring_keepsTheLastCapacityEvents() {
+        for (int i = 0; i < 10; i++) {
+            save("page-" + i);
+        }
+
+        ContentEventLog.Batch batch = eventLog.read(2, 10);
+
+        assertEquals(6, eventLog.oldestOffset());
+        assertEquals(10, eventLog.nextOffset());
+        assertEquals(4, batch.missed());
+        assertEquals(List.of(6L, 7L, 8L, 9L), batch.events().stream().map(ContentEvent::offset).toList());
+        assertEquals("/content/page-9", batch.events().get(3).path());
+        assertTrue(eventLog.read(10, 10).events().isEmpty());
+    }
+
+    @Test
+    void subscriber_resumesFromItsOffset_thenGetsNewEvents() throws Exception {
+        save("first");
+        save("second");
+        save("third");
+        QueueSink sink = new QueueSink();
+
+        eventLog.subscribe(1L, OverflowPolicy.SKIP, sink);
+        assertEquals(1, sink.nextOffset());
+        assertEquals(2, sink.nextOffset());
+
+        save("fourth");
+        assertEquals(3, sink.nextOffset());
+
+        QueueSink newOnly = new QueueSink();
+        eventLog.subscribe(null, OverflowPolicy.SKIP, newOnly);
+        save("fifth");
+        assertEquals(4, newOnly.nextOffset());
+        assertEquals(4, sink.nextOffset());
+        assertEquals(2, eventLog.subscriberCount());
+    }
+
+    @Test
+    void subscriberBehindTheRing_isToldWhatItMissed_thenSkipsOrIsDisconnected() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            save("page-" + i);
+        }
+        QueueSink skipping = new QueueSink();
+        QueueSink disconnected = new QueueSink();
+
+        eventLog.subscribe(3L, OverflowPolicy.SKIP, skipping);
+        eventLog.subscribe(3L, OverflowPolicy.DISCONNECT, disconnected);
+
+        assertEquals("missed:3:6", skipping.next());
+        assertEquals(6, skipping.nextOffset());
+        assertEquals("missed:3:6", disconnected.next());
+        assertEquals("closed", disconnected.next());
+        assertEquals(1, eventLog.subscriberCount());
+    }
+
+    @Test
+    void subscriberFromAnotherEpoch_isReset_thenGetsEveryEventKept() throws Exception {
+        save("before-restart");
+        String oldEpoch = eventLog.getEpoch();
+        String lastSeen = eventLog.eventId(0);
+        eventLog.close();
+        // A restart: a new log whose offsets start over
+        eventLog = new ContentEventLog(4, 2);
+        repository.addChangeListener(eventLog);
+        for (int i = 0; i < 6; i++) {
+            save("page-" + i);
+        }
+        QueueSink resumed = new QueueSink();
+        QueueSink current = new QueueSink();
+
+        eventLog.subscribe(oldEpoch, 1L, OverflowPolicy.SKIP, resumed);
+        eventLog.subscribe(eventLog.getEpoch(), 5L, OverflowPolicy.SKIP, current);
+
+        assertNotEquals(oldEpoch, eventLog.getEpoch());
+        assertEquals(oldEpoch + ":0", lastSeen);
+        assertEquals("reset:2", resumed.next());
+        assertEquals(2, resumed.nextOffset());
+        assertEquals(5, current.nextOffset());
+        save("after-restart");
+        assertEquals(6, current.nextOffset());
+    }
+
+    @Test
+    void failingOrCancelledSubscriber_isDropped() throws Exception {
+        save("first");
+        QueueSink failing = new QueueSink() {
+            @Override
+            public void send(ContentEvent event) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        eventLog.subscribe(0L, OverflowPolicy.SKIP, failing);
+        assertEquals("closed", failing.next());
+
+        QueueSink cancelled = new QueueSink();
+        eventLog.subscribe(null, OverflowPolicy.SKIP, cancelled).cancel();
+        save("second");
+
+        assertEquals(0, eventLog.subscriberCount());
+        assertTrue(cancelled.received.isEmpty());
+    }
+}
@@ -0,0 +1,129 @@
+package com.aem.cmis.mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.aem.cmis.dto.ContentDTO;
+import com.aem.cmis.dto.ContentProjection;
+import com.aem.cmis.exception.ContentValidationException;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+
+public class ContentMapperTest {
+
+    private final ContentMapper mapper = new ContentMapper();
+
+    private ContentNode createTree(String id, int depth) {
+        List<ContentNode> children = new ArrayList<>();
+        if (depth > 0) {
+            children.add(createTree(id + "-0", depth - 1));
+            children.add(createTree(id + "-1", depth - 1));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return new ContentNode(id, "Title " + id, "Body " + id, "Admin", List.of("news"), now, now,
+                "/content/" + id, Map.of("jcr:primaryType", "nt:unstructured"), children, 1);
+    }
+
+    @Test
+    void mapToContentDTO_fullProjection_mapsWholeTree() {
+        ContentDTO dto = mapper.mapToContentDTO(createTree("root", 3));
+
+        assertEquals("Body root", dto.getBody());
+        assertEquals("Body root-1-0-1", dto.getChildren().get(1).getChildren().get(0).getChildren().get(1).getBody());
+        assertEquals(List.of(), dto.getChildren().get(0).getChildren().get(0).getChildren().get(0).getChildren());
+    }
+
+    @Test
+    void mapToContentDTO_depthAndFields_stopsAtDepthAndSkipsUnselectedFields() {
+        ContentDTO dto = mapper.mapToContentDTO(createTree("root", 3), ContentProjection.of(2, "title"));
+
+        assertEquals("Title root", dto.getTitle());
+        assertNull(dto.getBody());
+        assertNull(dto.getPath());
+        assertNull(dto.getJcrMetadata());
+        ContentDTO grandChild = dto.getChildren().get(1).getChildren().get(0);
+        assertEquals("root-1-0", grandChild.getId());
+        assertEquals("Title root-1-0", grandChild.getTitle());
+        assertNull(grandChild.getBody());
+        // Nodes below the requested depth are not mapped at all
+        assertNull(grandChild.getChildren());
+    }
+
+    @Test
+    void projection_rejectsUnknownFieldsAndNegativeDepth() {
+        assertThrows(IllegalArgumentException.class, () -> ContentProjection.of(null, "title,password"));
+        assertThrows(IllegalArgumentException.class, () -> ContentProjection.of(-1, null));
+        assertEquals(ContentProjection.FULL, ContentProjection.of(null, " "));
+    }
+
+    private ContentDTO createDTO(String title, String body) {
+        ContentDTO dto = new ContentDTO();
+        dto.setTitle(title);
+        dto.setBody(body);
+        dto.setAuthor("Admin");
+        return dto;
+    }
+
+    @Test
+    void mapToContent_invalidNodesAtAnyDepth_reportsEveryErrorAtOnce() {
+        ContentDTO root = createDTO("Root", "Body");
+        ContentDTO child = createDTO(" ", "Body");
+        child.setPath("/content/root/child");
+        ContentDTO grandChild = createDTO("Grand child", null);
+        grandChild.setAuthor(null);
+        child.getChildren().add(grandChild);
+        root.getChildren().add(child);
+        root.getChildren().add(null);
+
+        ContentValidationException exception = assertThrows(ContentValidationException.class,
+                () -> mapper.mapToContent(root));
+
+        assertEquals(List.of("Title is mandatory (/content/root/child)", "Body is mandatory (depth 2)",
+                "Author is mandatory (depth 2)", "ContentDTO cannot be null (depth 1)"), exception.getErrors());
+        // One exception for the whole tree, not one wrapped per level
+        assertNull(exception.getCause());
+    }
+
+    @Test
+    void mapBothWays_deepTree_doesNotOverflowTheStack() {
+        int depth = 50_000;
+        ContentDTO root = createDTO("Level 0", "Body");
+        ContentDTO parent = root;
+        for (int level = 1; level < depth; level++) {
+            ContentDTO child = createDTO("Level " + level, "Body");
+            parent.getChildren().add(child);
+            parent = child;
+        }
+        ContentNode node = null;
+        LocalDateTime now = LocalDateTime.now();
+        for (int level = depth - 1; level >= 0; level--) {
+            node = new ContentNode("id-" + level, "Level " + level, "Body", "Admin", null, now, now, null, Map.of(),
+                    node != null ? List.of(node) : List.of(), 1);
+        }
+
+        Content content = mapper.mapToContent(root);
+        ContentDTO dto = mapper.mapToContentDTO(node);
+
+        int levels = 0;
+        for (Content current = content; current != null; current = current.getChildren().isEmpty() ? null
+                : current.getChildren().get(0)) {
+            assertEquals("Level " + levels++, current.getTitle());
+        }
+        assertEquals(depth, levels);
+        levels = 0;
+        for (ContentDTO current = dto; current != null; current = current.getChildren().isEmpty() ? null
+                : current.getChildren().get(0)) {
+            levels++;
+        }
+        assertEquals(depth, levels);
+        assertNull(mapper.mapToContentDTO(node, ContentProjection.of(1, "title")).getChildren().get(0).getChildren());
+    }
+}
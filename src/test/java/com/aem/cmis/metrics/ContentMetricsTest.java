@@ -0,0 +1,107 @@
+package com.aem.cmis.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aem.cmis.dto.ContentDTO;
+import com.aem.cmis.dto.ContentProjection;
+import com.aem.cmis.exception.ContentValidationException;
+import com.aem.cmis.mapper.ContentMapper;
+import com.aem.cmis.repository.InMemoryContentRepository;
+import com.aem.cmis.service.ContentService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ContentMetricsTest {
+
+    private MeterRegistry registry;
+    private InMemoryContentRepository repository;
+    private ContentService service;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        repository = new InMemoryContentRepository();
+        ContentMetrics metrics = new ContentMetrics(registry);
+        metrics.monitor(repository);
+        service = new ContentService(repository, new ContentMapper(), metrics);
+    }
+
+    private ContentDTO createDTO(String title, int children) {
+        ContentDTO dto = new ContentDTO();
+        dto.setTitle(title);
+        dto.setBody("Body of " + title);
+        dto.setAuthor("Admin");
+        dto.setTags(new ArrayList<>(List.of("news")));
+        dto.setPath("/content/" + title);
+        for (int i = 0; i < children; i++) {
+            dto.getChildren().add(createDTO(title + "-" + i, 0));
+        }
+        return dto;
+    }
+
+    private double gauge(String name) {
+        return registry.get(name).gauge().value();
+    }
+
+    @Test
+    void operations_areTimedPerOutcome() {
+        ContentDTO created = service.createContent(createDTO("root", 2));
+        service.getContent(created.getId(), ContentProjection.FULL);
+        service.getContent("missing", ContentProjection.FULL);
+        service.deleteContent("missing");
+        assertTrue(service.updateContent("missing", createDTO("patch", 0)).isEmpty());
+        assertThrows(ContentValidationException.class, () -> service.createContent(createDTO(" ", 0)));
+
+        assertEquals(1, registry.get("content.operations").tag("operation", "create").tag("outcome", "success").timer().count());
+        assertEquals(1, registry.get("content.operations").tag("operation", "get").tag("outcome", "success").timer().count());
+        assertEquals(1, registry.get("content.operations").tag("operation", "get").tag("outcome", "not_found").timer().count());
+        assertEquals(1, registry.get("content.operations").tag("operation", "create").tag("outcome", "invalid").timer().count());
+        assertEquals(1.0, registry.get("content.not.found").tag("operation", "get").counter().count());
+        assertEquals(1.0, registry.get("content.not.found").tag("operation", "delete").counter().count());
+        assertEquals(1.0, registry.get("content.not.found").tag("operation", "update").counter().count());
+        assertEquals(1.0, registry.get("content.validation.failures").tag("operation", "create").counter().count());
+    }
+
+    @Test
+    void storeGauges_followSavesAndDeletes() {
+        assertEquals(0.0, gauge("content.store.nodes"));
+        assertEquals(0.0, gauge("content.store.heap.estimate"));
+
+        ContentDTO first = service.createContent(createDTO("first", 3));
+        service.createContent(createDTO("second", 0));
+
+        assertEquals(5.0, gauge("content.store.nodes"));
+        assertEquals(2.0, gauge("content.store.roots"));
+        double heap = gauge("content.store.heap.estimate");
+        assertTrue(heap > 0);
+        assertEquals(5.0, registry.get("content.index.size").tag("index", "PathIndex").gauge().value());
+        assertTrue(registry.get("content.index.size").tag("index", "FullTextIndex").gauge().value() > 0);
+
+        service.deleteContent(first.getId());
+
+        assertEquals(1.0, gauge("content.store.nodes"));
+        assertEquals(1.0, gauge("content.store.roots"));
+        assertTrue(gauge("content.store.heap.estimate") < heap);
+        assertEquals(1.0, registry.get("content.index.size").tag("index", "PathIndex").gauge().value());
+    }
+
+    @Test
+    void writtenTrees_recordDepthAndFanOut() {
+        ContentDTO root = createDTO("root", 4);
+        root.getChildren().get(0).getChildren().add(createDTO("grand-child", 0));
+
+        service.createContent(root);
+
+        assertEquals(3.0, registry.get("content.tree.depth").summary().max());
+        assertEquals(4.0, registry.get("content.tree.fanout").summary().max());
+    }
+}
@@ -0,0 +1,118 @@
+package com.aem.cmis.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+public class ServerTimingFilterTest {
+
+    private static final byte[] BODY = "{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8);
+
+    private MockHttpServletResponse get(ServerTimingFilter filter, String uri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setQueryString("depth=1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            RequestTiming.phase("repository", () -> "node");
+            RequestTiming.phase("mapper", () -> "dto");
+            RequestTiming.phase("mapper", () -> "dto");
+            res.getOutputStream().write(BODY);
+        });
+        return response;
+    }
+
+    @Test
+    void serverTiming_listsPhasesInOrderAndTotal() throws Exception {
+        MockHttpServletResponse response = get(new ServerTimingFilter(new SlowRequestLog(60_000, 10)), "/content/1");
+
+        String header = response.getHeader(ServerTimingFilter.SERVER_TIMING);
+        assertTrue(header.matches("repository;dur=\\d+\\.\\d{3}, mapper;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}"),
+                header);
+    }
+
+    @Test
+    void serverTiming_responseWithoutBody_stillGetsHeader() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new ServerTimingFilter(new SlowRequestLog(60_000, 10)).doFilter(new MockHttpServletRequest("GET", "/content/1"),
+                response, (req, res) -> ((HttpServletResponse) res).setStatus(304));
+
+        assertTrue(response.getHeader(ServerTimingFilter.SERVER_TIMING).startsWith("total;dur="));
+    }
+
+    @Test
+    void eventStream_isNotTimed_whateverTheClientAccepts() throws Exception {
+        SlowRequestLog log = new SlowRequestLog(0, 10);
+        for (String accept : new String[] { "text/event-stream", "*/*", null }) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/content/events");
+            if (accept != null) {
+                request.addHeader("Accept", accept);
+            }
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            new ServerTimingFilter(log).doFilter(request, response, (req, res) -> res.getOutputStream().write(BODY));
+
+            assertNull(response.getHeader(ServerTimingFilter.SERVER_TIMING), accept);
+        }
+        assertEquals(0, log.getAdded());
+    }
+
+    @Test
+    void otherRequest_acceptingAnEventStream_isStillTimed() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/content/1");
+        request.addHeader("Accept", "text/event-stream, application/json");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        new ServerTimingFilter(new SlowRequestLog(60_000, 10)).doFilter(request, response,
+                (req, res) -> res.getOutputStream().write(BODY));
+
+        assertTrue(response.getHeader(ServerTimingFilter.SERVER_TIMING).startsWith("total;dur="));
+    }
+
+    @Test
+    void slowRequests_areKeptWithPhasesAndPayloadSize() throws Exception {
+        SlowRequestLog log = new SlowRequestLog(0, 10);
+
+        get(new ServerTimingFilter(log), "/content/1");
+
+        SlowRequest slow = log.recent().get(0);
+        assertEquals("GET", slow.method());
+        assertEquals("/content/1?depth=1", slow.uri());
+        assertEquals(200, slow.status());
+        assertEquals(List.of("repository", "mapper", "write"), List.copyOf(slow.phasesMillis().keySet()));
+        assertEquals(-1, slow.requestBytes());
+        assertEquals(BODY.length, slow.responseBytes());
+        assertNull(slow.treeNodes());
+    }
+
+    @Test
+    void slowRequestLog_keepsOnlySlowRequests_newestFirst_upToCapacity() throws Exception {
+        assertTrue(new SlowRequestLog(60_000, 10).recent().isEmpty());
+        SlowRequestLog fastOnly = new SlowRequestLog(60_000, 10);
+        get(new ServerTimingFilter(fastOnly), "/content/1");
+        assertEquals(0, fastOnly.getAdded());
+
+        SlowRequestLog log = new SlowRequestLog(0, 2);
+        ServerTimingFilter filter = new ServerTimingFilter(log);
+        for (int i = 1; i <= 5; i++) {
+            get(filter, "/content/" + i);
+        }
+
+        assertEquals(5, log.getAdded());
+        assertEquals(List.of("/content/5?depth=1", "/content/4?depth=1"),
+                log.recent().stream().map(SlowRequest::uri).toList());
+    }
+
+    @Test
+    void phase_outsideOfARequest_justRuns() {
+        assertEquals("value", RequestTiming.phase("mapper", () -> "value"));
+    }
+}
@@ -0,0 +1,30 @@
+package com.aem.cmis.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Content the tests save, built the same way wherever they need it.
+ */
+public final class ContentFixtures {
+
+    private ContentFixtures() {
+    }
+
+    /**
+     * A tree named {@code title} under {@code /content/}, tagged {@code news},
+     * with {@code children} leaves named {@code <title>-<i>}.
+     */
+    public static Content createTree(String title, int children) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor("Admin");
+        content.setTags(new ArrayList<>(Arrays.asList("news")));
+        content.setPath("/content/" + title);
+        for (int i = 0; i < children; i++) {
+            content.getChildren().add(createTree(title + "-" + i, 0));
+        }
+        return content;
+    }
+}
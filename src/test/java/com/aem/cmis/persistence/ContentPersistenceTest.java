@@ -0,0 +1,252 @@
+package com.aem.cmis.persistence;
+
+import static com.aem.cmis.model.ContentFixtures.createTree;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.repository.ContentWrite;
+import com.aem.cmis.repository.InMemoryContentRepository;
+import com.aem.cmis.repository.UlidGenerator;
+
+public class ContentPersistenceTest {
+
+    private static final long SEGMENT_BYTES = 1024 * 1024;
+
+    private Path directory;
+    private final List<ContentPersistence> opened = new ArrayList<>();
+
+    @BeforeEach
+    void setup() throws IOException {
+        directory = Files.createTempDirectory("content-persistence");
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        closeAll();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private ContentPersistence open(InMemoryContentRepository repository, FsyncPolicy policy) throws IOException {
+        ContentPersistence persistence = new ContentPersistence(repository, directory, policy, 5, SEGMENT_BYTES, 0);
+        persistence.start();
+        opened.add(persistence);
+        return persistence;
+    }
+
+    private void closeAll() throws IOException {
+        for (ContentPersistence persistence : opened) {
+            persistence.close();
+        }
+        opened.clear();
+    }
+
+    @Test
+    void start_afterCrash_replaysSavesUpdatesAndDeletes() throws IOException {
+        InMemoryContentRepository before = new InMemoryContentRepository();
+        open(before, FsyncPolicy.SYNC);
+        ContentNode kept = before.save(createTree("kept", 2));
+        ContentNode removed = before.save(createTree("removed", 1));
+        Content update = new Content();
+        update.setTags(List.of("updated"));
+        update.getChildren().add(createTree("replacement", 0));
+        before.update(kept.getChildren().get(0).getId(), update);
+        before.delete(removed.getId());
+
+        // No close, the first instance is left as a crash would leave it
+        InMemoryContentRepository after = new InMemoryContentRepository();
+        open(after, FsyncPolicy.SYNC);
+
+        assertEquals(before.findByTagOrAuthor(null, null).size(), after.findByTagOrAuthor(null, null).size());
+        ContentNode child = after.findById(kept.getChildren().get(0).getId()).get();
+        assertEquals(List.of("updated"), child.getTags());
+        assertEquals("/content/replacement", child.getChildren().get(0).getPath());
+        assertEquals(child.getUpdatedAt(), before.findById(child.getId()).get().getUpdatedAt());
+        assertEquals(before.findById(kept.getId()).get().getVersion(), after.findById(kept.getId()).get().getVersion());
+        assertFalse(after.findById(removed.getId()).isPresent());
+        assertFalse(after.findByPath("/content/removed-0").isPresent());
+        assertEquals(before.currentSequence(), after.currentSequence());
+    }
+
+    @Test
+    void start_afterCrash_replaysABatchAsOneCommit() throws IOException {
+        InMemoryContentRepository before = new InMemoryContentRepository();
+        open(before, FsyncPolicy.SYNC);
+        ContentNode article = before.save(createTree("article", 2));
+        ContentNode removed = before.save(createTree("removed", 1));
+        Content update = new Content();
+        update.setTags(List.of("updated"));
+        before.applyBatch(List.of(
+                new ContentWrite.Save(createTree("added", 1)),
+                new ContentWrite.Update(article.getChildren().get(0).getId(), update, 1),
+                new ContentWrite.Delete(article.getChildren().get(1).getId(), 1),
+                new ContentWrite.Delete(removed.getId(), 1)));
+        long batchSequence = before.currentSequence();
+
+        InMemoryContentRepository after = new InMemoryContentRepository();
+        open(after, FsyncPolicy.SYNC);
+
+        assertEquals(batchSequence, after.currentSequence());
+        assertEquals(before.findById(article.getId()).get().getVersion(), after.findById(article.getId()).get().getVersion());
+        assertEquals(1, after.findById(article.getId()).get().getChildren().size());
+        assertEquals(List.of("updated"), after.findById(article.getChildren().get(0).getId()).get().getTags());
+        assertFalse(after.findById(article.getChildren().get(1).getId()).isPresent());
+        assertFalse(after.findById(removed.getId()).isPresent());
+        assertFalse(after.findByPath("/content/removed-0").isPresent());
+        assertTrue(after.findByPath("/content/added-0").isPresent());
+        assertEquals(before.findByTagOrAuthor(null, null).size(), after.findByTagOrAuthor(null, null).size());
+    }
+
+    @Test
+    void snapshot_dropsCoveredSegments_andRecoversWithTail() throws IOException {
+        InMemoryContentRepository before = new InMemoryContentRepository();
+        ContentPersistence persistence = open(before, FsyncPolicy.SYNC);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            ids.add(before.save(createTree("tree-" + i, 2)).getId());
+        }
+        assertTrue(persistence.segmentCount() > 1);
+
+        long snapshotSequence = persistence.snapshot();
+
+        assertEquals(before.currentSequence(), snapshotSequence);
+        assertEquals(1, persistence.segmentCount());
+        before.save(createTree("after-snapshot", 1));
+        before.delete(ids.get(0));
+        closeAll();
+
+        InMemoryContentRepository after = new InMemoryContentRepository();
+        open(after, FsyncPolicy.SYNC);
+
+        assertEquals(2_000 * 3 - 3 + 2, after.findByTagOrAuthor(null, null).size());
+        assertTrue(after.findByPath("/content/after-snapshot-0").isPresent());
+        assertFalse(after.findById(ids.get(0)).isPresent());
+        assertEquals(before.currentSequence(), after.currentSequence());
+        // New writes are numbered after the recovered ones
+        after.save(createTree("next", 0));
+        assertEquals(before.currentSequence() + 1, after.currentSequence());
+    }
+
+    @Test
+    void start_truncatesTornRecordAtEndOfLog() throws IOException {
+        InMemoryContentRepository before = new InMemoryContentRepository();
+        open(before, FsyncPolicy.SYNC);
+        for (int i = 0; i < 10; i++) {
+            before.save(createTree("tree-" + i, 1));
+        }
+        closeAll();
+        Path lastSegment;
+        try (Stream<Path> files = Files.list(directory)) {
+            lastSegment = files.filter(file -> file.getFileName().toString().startsWith("wal-"))
+                    .max(Comparator.naturalOrder()).get();
+        }
+        // Header of a record whose body never made it to disk
+        Files.write(lastSegment, new byte[] { 0, 0, 1, 0, 7, 7, 7, 7, 1, 2, 3 }, StandardOpenOption.APPEND);
+        long tornSize = Files.size(lastSegment);
+
+        InMemoryContentRepository after = new InMemoryContentRepository();
+        open(after, FsyncPolicy.SYNC);
+
+        assertEquals(20, after.findByTagOrAuthor(null, null).size());
+        assertEquals(tornSize - 11, Files.size(lastSegment));
+        after.save(createTree("after-restart", 0));
+        InMemoryContentRepository again = new InMemoryContentRepository();
+        open(again, FsyncPolicy.SYNC);
+        assertTrue(again.findByPath("/content/after-restart").isPresent());
+    }
+
+    @Test
+    void codec_roundTripsEveryField() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_789);
+        Map<String, Object> metadata = Map.of("jcr:primaryType", "cq:Page", "count", 3L, "ratio", 0.5,
+                "hidden", true, "list", List.of("a", 1L), "nested", Map.of("key", "value"));
+        ContentNode child = new ContentNode("child", "Child", null, "Editor", null, now, null, "/content/root/child",
+                Map.of(), List.of(), 1);
+        ContentNode root = new ContentNode("root", "Root", "B\u00f6dy", "Admin", List.of("news", "aem"), now, now,
+                "/content/root", metadata, List.of(child), 7);
+        ContentCodec.Buffer buffer = new ContentCodec.Buffer(256);
+
+        ContentCodec.encodeTree(root, buffer);
+        ContentNode decoded = ContentCodec.decodeTree(buffer.asByteBuffer());
+
+        assertEquals("B\u00f6dy", decoded.getBody());
+        assertEquals(List.of("news", "aem"), decoded.getTags());
+        assertEquals(now, decoded.getCreatedAt());
+        assertEquals(metadata, decoded.getJcrMetadata());
+        assertEquals(7, decoded.getVersion());
+        ContentNode decodedChild = decoded.getChildren().get(0);
+        assertNull(decodedChild.getBody());
+        assertNull(decodedChild.getTags());
+        assertNull(decodedChild.getUpdatedAt());
+        assertEquals("/content/root/child", decodedChild.getPath());
+    }
+
+    @Test
+    void codec_writesUlidIdsInBinary_andKeepsOtherIdsAsText() {
+        String ulid = UlidGenerator.INSTANCE.nextId();
+        String uuid = UUID.randomUUID().toString();
+        ContentNode child = new ContentNode(uuid, null, null, null, null, null, null, null, Map.of(), List.of(), 1);
+        ContentNode root = new ContentNode(ulid, null, null, null, null, null, null, null, Map.of(), List.of(child), 1);
+        ContentCodec.Buffer ulidRoot = new ContentCodec.Buffer(128);
+        ContentCodec.Buffer textRoot = new ContentCodec.Buffer(128);
+
+        ContentCodec.encodeTree(root, ulidRoot);
+        ContentCodec.encodeTree(new ContentNode(ulid.toLowerCase(), null, null, null, null, null, null, null, Map.of(),
+                List.of(child), 1), textRoot);
+        ContentNode decoded = ContentCodec.decodeTree(ulidRoot.asByteBuffer());
+
+        assertEquals(ulid, decoded.getId());
+        assertEquals(uuid, decoded.getChildren().get(0).getId());
+        // 4 + 16 bytes instead of 4 + 26, a lower case ULID is not canonical and stays text
+        assertEquals(textRoot.size() - 10, ulidRoot.size());
+        assertEquals(ulid.toLowerCase(), ContentCodec.decodeTree(textRoot.asByteBuffer()).getId());
+    }
+
+    @Test
+    void codec_deepTreeWithSiblings_roundTripsInOrder() {
+        int depth = 50_000;
+        ContentNode chain = null;
+        for (int level = depth - 1; level >= 0; level--) {
+            chain = new ContentNode("level-" + level, null, null, null, null, null, null, null, Map.of(),
+                    chain != null ? List.of(chain) : List.of(), 1);
+        }
+        ContentNode sibling = new ContentNode("sibling", null, null, null, null, null, null, null, Map.of(), List.of(), 1);
+        ContentNode root = new ContentNode("root", null, null, null, null, null, null, null, Map.of(),
+                List.of(chain, sibling), 1);
+        ContentCodec.Buffer buffer = new ContentCodec.Buffer(1024);
+
+        ContentCodec.encodeTree(root, buffer);
+        ContentNode decoded = ContentCodec.decodeTree(buffer.asByteBuffer());
+
+        assertEquals("sibling", decoded.getChildren().get(1).getId());
+        int levels = 0;
+        for (ContentNode node = decoded.getChildren().get(0); node != null;
+                node = node.getChildren().isEmpty() ? null : node.getChildren().get(0)) {
+            assertEquals("level-" + levels++, node.getId());
+        }
+        assertEquals(depth, levels);
+    }
+}
@@ -0,0 +1,271 @@
+package com.aem.cmis.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aem.cmis.exception.ContentVersionConflictException;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+
+public class ContentRepositoryConcurrencyTest {
+
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    private InMemoryContentRepository repository;
+
+    @BeforeEach
+    void setup() {
+        repository = new InMemoryContentRepository();
+    }
+
+    private Content createContent(String title, String... tags) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor("Admin");
+        content.setTags(new ArrayList<>(Arrays.asList(tags)));
+        content.setPath("/content/" + title);
+        return content;
+    }
+
+    private Content createTree(String title, int children) {
+        Content root = createContent(title, "gen-0");
+        for (int i = 0; i < children; i++) {
+            root.getChildren().add(createContent(title + "-child-" + i, "gen-0"));
+        }
+        return root;
+    }
+
+    @Test
+    void update_concurrentWritersOnDifferentChildren_noLostUpdates() throws Exception {
+        ContentNode root = repository.save(createTree("root", THREADS));
+        List<String> childIds = root.getChildren().stream().map(ContentNode::getId).toList();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String childId = childIds.get(t);
+            String tag = "writer-" + t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 200; i++) {
+                    repository.update(childId, createContent("patch", tag, "round-" + i));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        ContentNode stored = repository.findById(root.getId()).orElseThrow();
+        assertEquals(THREADS, stored.getChildren().size());
+        for (int t = 0; t < THREADS; t++) {
+            ContentNode child = stored.getChildren().get(t);
+            assertEquals(childIds.get(t), child.getId());
+            assertEquals(List.of("writer-" + t, "round-199"), child.getTags());
+        }
+    }
+
+    @Test
+    void update_concurrentCompareAndSetWriters_noLostUpdates() throws Exception {
+        ContentNode node = repository.save(createContent("counter", "count-0"));
+        int writesPerThread = 100;
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < writesPerThread; i++) {
+                    // Read, increment, write back only if nobody wrote in between
+                    while (true) {
+                        ContentNode current = repository.findById(node.getId()).orElseThrow();
+                        int count = Integer.parseInt(current.getTags().get(0).substring("count-".length()));
+                        try {
+                            repository.update(node.getId(), createContent("counter", "count-" + (count + 1)),
+                                    current.getVersion());
+                            break;
+                        } catch (ContentVersionConflictException e) {
+                            // Somebody wrote in between, read again
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        ContentNode stored = repository.findById(node.getId()).orElseThrow();
+        assertEquals(List.of("count-" + THREADS * writesPerThread), stored.getTags());
+        assertEquals(1 + THREADS * writesPerThread, stored.getVersion());
+    }
+
+    @Test
+    void facets_concurrentSavesUpdatesAndDeletes_matchARecount() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int writer = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 100; i++) {
+                    ContentNode saved = repository.save(createTree("facets-" + writer + "-" + i, 3));
+                    repository.update(saved.getChildren().get(0).getId(),
+                            createContent("patch", "shared", "round-" + i % 5));
+                    if (i % 3 == 0) {
+                        repository.delete(saved.getId());
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Map<String, Long> recount = new HashMap<>();
+        List<ContentNode> pending = new ArrayList<>(repository.findRoots());
+        while (!pending.isEmpty()) {
+            ContentNode node = pending.remove(pending.size() - 1);
+            for (String tag : Set.copyOf(node.getTags())) {
+                recount.merge(tag, 1L, Long::sum);
+            }
+            pending.addAll(node.getChildren());
+        }
+        for (Map.Entry<String, Long> expected : recount.entrySet()) {
+            assertEquals(expected.getValue().longValue(), repository.facetCount(ContentFacet.TAG, expected.getKey()));
+        }
+        List<FacetCount> top = repository.topFacets(ContentFacet.TAG, recount.size() + 1);
+        assertEquals(recount.size(), top.size());
+        assertEquals(new FacetCount("gen-0", recount.get("gen-0")), top.get(0));
+        assertEquals(repository.nodeCount(), repository.facetCount(ContentFacet.AUTHOR, "admin"));
+    }
+
+    @Test
+    void findById_readersDuringWrites_alwaysSeeConsistentTree() throws Exception {
+        ContentNode root = repository.save(createTree("snapshot", 16));
+        String rootId = root.getId();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Set<String> inconsistencies = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        Future<?> writer = executor.submit(() -> {
+            for (int generation = 1; generation <= 500; generation++) {
+                Content patch = createContent("patch", "gen-" + generation);
+                for (int i = 0; i < 16; i++) {
+                    patch.getChildren().add(createContent("child-" + i, "gen-" + generation));
+                }
+                repository.update(rootId, patch);
+            }
+            running.set(false);
+            return null;
+        });
+        List<Future<?>> readers = new ArrayList<>();
+        for (int t = 1; t < THREADS; t++) {
+            readers.add(executor.submit(() -> {
+                while (running.get()) {
+                    ContentNode snapshot = repository.findById(rootId).orElseThrow();
+                    String generation = snapshot.getTags().get(0);
+                    for (ContentNode child : snapshot.getChildren()) {
+                        if (!child.getTags().equals(List.of(generation))) {
+                            inconsistencies.add(generation + " vs " + child.getTags());
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        writer.get(60, TimeUnit.SECONDS);
+        for (Future<?> reader : readers) {
+            reader.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertTrue(inconsistencies.isEmpty(), () -> "Torn reads: " + inconsistencies);
+        // Children replaced by each update must not linger in the store
+        assertEquals(17, repository.findByTagOrAuthor(null, null).size());
+    }
+
+    @Test
+    void openSnapshot_whileWriting_seesOnePointInTime() throws Exception {
+        // The writer moves the trees to the next generation one after the other, so any
+        // consistent view shows a prefix of trees one generation ahead of the rest
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            ids.add(repository.save(createTree("tree-" + i, 4)).getId());
+        }
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> writer = executor.submit(() -> {
+            for (int generation = 1; running.get(); generation++) {
+                for (String id : ids) {
+                    repository.update(id, createContent("patch", "gen-" + generation));
+                }
+            }
+            return null;
+        });
+        Future<?> creator = executor.submit(() -> {
+            while (running.get()) {
+                repository.delete(repository.save(createTree("churn", 2)).getId());
+            }
+            return null;
+        });
+        try {
+            for (int round = 0; round < 200; round++) {
+                try (ContentSnapshot snapshot = repository.openSnapshot()) {
+                    Map<String, Integer> generations = new HashMap<>();
+                    snapshot.roots().forEach(root -> generations.put(root.getId(),
+                            Integer.parseInt(root.getTags().get(0).substring("gen-".length()))));
+                    assertTrue(generations.keySet().containsAll(ids));
+                    int first = generations.get(ids.get(0));
+                    boolean behind = false;
+                    for (String id : ids) {
+                        int generation = generations.get(id);
+                        if (generation == first - 1) {
+                            behind = true;
+                        } else {
+                            assertEquals(first, generation, "Torn snapshot: " + generations);
+                            assertTrue(!behind, () -> "Torn snapshot: " + generations);
+                        }
+                    }
+                    // The churn trees are saved and deleted in between, never more than one shows up
+                    assertTrue(generations.size() <= ids.size() + 1);
+                }
+            }
+        } finally {
+            running.set(false);
+            writer.get(10, TimeUnit.SECONDS);
+            creator.get(10, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,623 @@
+package com.aem.cmis.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aem.cmis.exception.ContentBatchException;
+import com.aem.cmis.exception.ContentVersionConflictException;
+import com.aem.cmis.exception.ResourceNotFoundException;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.model.TreeWalker;
+
+public class ContentRepositoryTest {
+
+    private InMemoryContentRepository repository;
+
+    @BeforeEach
+    void setup() {
+        repository = new InMemoryContentRepository();
+    }
+
+    private Content createContent(String title, String author, String... tags) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor(author);
+        content.setTags(new ArrayList<>(Arrays.asList(tags)));
+        content.setPath("/content/" + title);
+        return content;
+    }
+
+    private List<String> titles(List<ContentNode> contents) {
+        return contents.stream().map(ContentNode::getTitle).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void findByTagOrAuthor_usesTagAndAuthorIndexes() {
+        Content article = createContent("article", "Admin", "news", "aem");
+        article.getChildren().add(createContent("section", "Editor", "news"));
+        repository.save(article);
+        repository.save(createContent("blog", "admin", "blog"));
+
+        assertEquals(List.of("article", "section"), titles(repository.findByTagOrAuthor("news", null)));
+        assertEquals(List.of("article", "blog"), titles(repository.findByTagOrAuthor(null, "ADMIN")));
+        assertEquals(List.of("article"), titles(repository.findByTagOrAuthor("news", "admin")));
+        assertEquals(3, repository.findByTagOrAuthor(null, null).size());
+        assertTrue(repository.findByTagOrAuthor("unknown", null).isEmpty());
+    }
+
+    @Test
+    void findByTagOrAuthor_reflectsUpdatesAndDeletes() {
+        Content article = createContent("article", "Admin", "news");
+        article.getChildren().add(createContent("section", "Editor", "news"));
+        ContentNode saved = repository.save(article);
+        String childId = saved.getChildren().get(0).getId();
+
+        repository.update(saved.getId(), createContent("ignored", "Admin", "archived"));
+
+        assertTrue(repository.findByTagOrAuthor("news", null).isEmpty());
+        assertEquals(List.of("article"), titles(repository.findByTagOrAuthor("archived", null)));
+        assertTrue(repository.findById(childId).isEmpty());
+
+        repository.delete(saved.getId());
+
+        assertTrue(repository.findByTagOrAuthor("archived", null).isEmpty());
+        assertTrue(repository.findByTagOrAuthor(null, "admin").isEmpty());
+    }
+
+    @Test
+    void findByPath_resolvesNodesAndListsSubtrees() {
+        Content site = createContent("site", "Admin");
+        site.setPath("/content/site");
+        Content page = createContent("page", "Admin");
+        page.setPath("/content/site/en/page");
+        Content asset = createContent("asset", "Admin");
+        asset.setPath("content/site/en/page/asset/");
+        page.getChildren().add(asset);
+        site.getChildren().add(page);
+        ContentNode saved = repository.save(site);
+
+        assertEquals(saved.getId(), repository.findByPath("/content/site").orElseThrow().getId());
+        assertEquals("asset", repository.findByPath("/content/site/en/page/asset").orElseThrow().getTitle());
+        assertTrue(repository.findByPath("/content/site/en").isEmpty());
+        assertEquals(List.of("page"), titles(repository.findByPathPrefix("/content/site", false)));
+        assertEquals(List.of("asset", "page"), titles(repository.findByPathPrefix("/content/site", true)));
+        assertTrue(repository.findByPathPrefix("/content/site", true).get(0).getChildren().isEmpty());
+
+        repository.delete(saved.getChildren().get(0).getId());
+
+        assertTrue(repository.findByPath("/content/site/en/page").isEmpty());
+        assertTrue(repository.findByPathPrefix("/content/site", true).isEmpty());
+    }
+
+    @Test
+    void findByPath_sharedPath_keepsTheOtherNodeAfterADelete() {
+        ContentNode first = repository.save(createContent("page", "Admin"));
+        ContentNode second = repository.save(createContent("page", "Editor"));
+
+        assertEquals(first.getId(), repository.findByPath("/content/page").orElseThrow().getId());
+        assertEquals(2, repository.findByPathPrefix("/content", false).size());
+
+        repository.delete(first.getId());
+        assertEquals(second.getId(), repository.findByPath("/content/page").orElseThrow().getId());
+        repository.save(createContent("page", "Admin"));
+        repository.delete(second.getId());
+        assertEquals("Admin", repository.findByPath("/content/page").orElseThrow().getAuthor());
+    }
+
+    @Test
+    void searchText_ranksTitleMatchesFirstAndHonoursLimit() {
+        Content release = createContent("Release notes", "Admin");
+        release.setBody("What changed in this version");
+        Content guide = createContent("Upgrade guide", "Admin");
+        guide.setBody("Read the release notes before you upgrade. Release dates are listed below.");
+        Content other = createContent("Team page", "Admin");
+        other.setBody("Nothing to see here");
+        repository.save(release);
+        repository.save(guide);
+        repository.save(other);
+
+        List<ContentNode> hits = repository.searchText("RELEASE notes", 10);
+
+        assertEquals(List.of("Release notes", "Upgrade guide"), hits.stream().map(ContentNode::getTitle).collect(Collectors.toList()));
+        assertEquals(1, repository.searchText("release", 1).size());
+        assertTrue(repository.searchText("missing", 10).isEmpty());
+    }
+
+    @Test
+    void findByTagOrAuthor_pagesInStableIdOrder() {
+        for (int i = 0; i < 25; i++) {
+            repository.save(createContent("page-" + i, i % 2 == 0 ? "Admin" : "Editor", "news"));
+        }
+
+        List<String> seen = new ArrayList<>();
+        String afterId = null;
+        List<ContentNode> page;
+        do {
+            page = repository.findByTagOrAuthor("news", "admin", afterId, 5);
+            page.forEach(content -> seen.add(content.getId()));
+            afterId = page.isEmpty() ? null : page.get(page.size() - 1).getId();
+        } while (page.size() == 5);
+
+        assertEquals(13, seen.size());
+        assertEquals(seen.stream().sorted().collect(Collectors.toList()), seen);
+        assertEquals(10, repository.findByTagOrAuthor(null, null, seen.get(0), 10).size());
+    }
+
+    @Test
+    void find_excludingTagOrAuthor_filtersEveryShardAndPagesInIdOrder() {
+        InMemoryContentRepository sharded = new InMemoryContentRepository(6, ForkJoinPool.commonPool());
+        // Enough nodes for the shards to be filtered in parallel
+        for (int i = 0; i < 9_000; i++) {
+            Content content = createContent("item-" + i, i % 3 == 0 ? "Admin" : "Editor", i % 5 == 0 ? "archived" : "news");
+            content.getChildren().add(createContent("item-" + i + "-child", "Editor", "news"));
+            sharded.save(content);
+        }
+        List<ContentNode> all = sharded.findByTagOrAuthor(null, null);
+        ContentQuery excluding = new ContentQuery(null, null, "archived", "ADMIN");
+
+        List<String> seen = new ArrayList<>();
+        String afterId = null;
+        List<ContentNode> page;
+        do {
+            page = sharded.find(excluding, afterId, 1_000);
+            page.forEach(content -> seen.add(content.getId()));
+            afterId = page.isEmpty() ? null : page.get(page.size() - 1).getId();
+        } while (page.size() == 1_000);
+
+        assertEquals(8, sharded.shardCount());
+        assertEquals(18_000, all.size());
+        assertEquals(all.stream().map(ContentNode::getId).sorted().collect(Collectors.toList()),
+                all.stream().map(ContentNode::getId).collect(Collectors.toList()));
+        assertEquals(all.stream().filter(excluding).map(ContentNode::getId).collect(Collectors.toList()), seen);
+        ContentQuery taggedExcluding = new ContentQuery("news", null, null, "editor");
+        assertEquals(all.stream().filter(taggedExcluding).limit(50).collect(Collectors.toList()),
+                sharded.find(taggedExcluding, null, 50));
+    }
+
+    private Content createTree(String title, int depth, int fanOut) {
+        Content content = createContent(title, "Admin", "news");
+        if (depth > 0) {
+            for (int i = 0; i < fanOut; i++) {
+                content.getChildren().add(createTree(title + "-" + i, depth - 1, fanOut));
+            }
+        }
+        return content;
+    }
+
+    @Test
+    void findById_returnsStoredVersionWithoutCopying() {
+        ContentNode saved = repository.save(createTree("tree", 3, 6));
+        ContentNode child = saved.getChildren().get(0);
+
+        assertSame(saved, repository.findById(saved.getId()).orElseThrow());
+        assertSame(child, repository.findById(child.getId()).orElseThrow());
+        assertSame(child, repository.findById(saved.getId()).orElseThrow().getChildren().get(0));
+    }
+
+    @Test
+    void facets_countNodesPerTagAndAuthor_throughSavesUpdatesAndDeletes() {
+        Content article = createContent("article", "Admin", "news", "aem", "news");
+        article.getChildren().add(createContent("section", "Editor", "news"));
+        ContentNode saved = repository.save(article);
+        ContentNode blog = repository.save(createContent("blog", "admin", "blog"));
+
+        assertEquals(List.of(new FacetCount("news", 2), new FacetCount("aem", 1), new FacetCount("blog", 1)),
+                repository.topFacets(ContentFacet.TAG, 10));
+        assertEquals(List.of(new FacetCount("news", 2)), repository.topFacets(ContentFacet.TAG, 1));
+        assertEquals(2, repository.facetCount(ContentFacet.AUTHOR, "ADMIN"));
+        assertEquals(0, repository.facetCount(ContentFacet.TAG, "missing"));
+
+        repository.update(saved.getChildren().get(0).getId(), createContent("ignored", "Editor", "blog"));
+        repository.delete(blog.getId());
+        assertEquals(List.of(new FacetCount("aem", 1), new FacetCount("blog", 1), new FacetCount("news", 1)),
+                repository.topFacets(ContentFacet.TAG, 10));
+        assertEquals(List.of(new FacetCount("admin", 1), new FacetCount("editor", 1)),
+                repository.topFacets(ContentFacet.AUTHOR, 10));
+
+        repository.delete(saved.getId());
+        assertTrue(repository.topFacets(ContentFacet.TAG, 10).isEmpty());
+    }
+
+    @Test
+    void update_rebuildsOnlyTheChangedPath() {
+        ContentNode saved = repository.save(createTree("tree", 2, 3));
+        ContentNode branch = saved.getChildren().get(1);
+        ContentNode leaf = branch.getChildren().get(2);
+
+        repository.update(leaf.getId(), createContent("ignored", "Admin", "changed"));
+
+        ContentNode root = repository.findById(saved.getId()).orElseThrow();
+        assertNotSame(saved, root);
+        assertSame(saved.getChildren().get(0), root.getChildren().get(0));
+        assertSame(saved.getChildren().get(2), root.getChildren().get(2));
+        assertNotSame(branch, root.getChildren().get(1));
+        assertSame(branch.getChildren().get(0), root.getChildren().get(1).getChildren().get(0));
+        assertEquals(List.of("changed"), root.getChildren().get(1).getChildren().get(2).getTags());
+        // The version handed out before the update is untouched
+        assertEquals(List.of("news"), leaf.getTags());
+    }
+
+    // The stored tree as an update would send it back, ids included
+    private static Content toContent(ContentNode root) {
+        return TreeWalker.map(root, (node, depth) -> node.getChildren(), (node, children, depth) -> {
+            Content content = new Content();
+            content.setId(node.getId());
+            content.setTitle(node.getTitle());
+            content.setBody(node.getBody());
+            content.setAuthor(node.getAuthor());
+            content.setTags(node.getTags() != null ? new ArrayList<>(node.getTags()) : null);
+            content.setPath(node.getPath());
+            content.setChildren(children);
+            return content;
+        });
+    }
+
+    @Test
+    void update_reconcilesChildrenByIdOrPath_andWritesOnlyWhatChanged() {
+        ContentNode saved = repository.save(createTree("tree", 2, 3));
+        ContentNode kept = saved.getChildren().get(0);
+        ContentNode renamed = saved.getChildren().get(1);
+        ContentNode dropped = saved.getChildren().get(2);
+        int nodes = repository.nodeCount();
+
+        Content incoming = toContent(saved);
+        // Matched by path once the id is gone
+        incoming.getChildren().get(1).setId(null);
+        incoming.getChildren().get(1).setTitle("renamed");
+        incoming.getChildren().get(1).getChildren().remove(2);
+        incoming.getChildren().set(2, createContent("added", "Editor", "news"));
+        List<String> changes = new ArrayList<>();
+        repository.addChangeListener(change -> changes.addAll(change.getAffectedIds()));
+
+        ContentNode updated = repository.update(saved.getId(), incoming);
+
+        assertSame(kept, updated.getChildren().get(0));
+        ContentNode second = updated.getChildren().get(1);
+        assertEquals(renamed.getId(), second.getId());
+        assertEquals("renamed", second.getTitle());
+        assertEquals(renamed.getVersion() + 1, second.getVersion());
+        assertEquals(renamed.getCreatedAt(), second.getCreatedAt());
+        assertSame(renamed.getChildren().get(0), second.getChildren().get(0));
+        assertEquals(1, updated.getChildren().get(2).getVersion());
+        assertTrue(repository.findById(dropped.getId()).isEmpty());
+        assertTrue(repository.findById(dropped.getChildren().get(0).getId()).isEmpty());
+        assertTrue(repository.findById(renamed.getChildren().get(2).getId()).isEmpty());
+        // The dropped child with its three children and a grandchild of the renamed one go, one is added
+        assertEquals(nodes - 5 + 1, repository.nodeCount());
+        // The root, the renamed child, the added one and the removed nodes; the kept subtree is not rewritten
+        assertEquals(3 + 5, changes.size());
+        assertTrue(!changes.contains(kept.getId()) && !changes.contains(kept.getChildren().get(0).getId()));
+    }
+
+    @Test
+    void update_repeatedPatches_keepStoreSizeBounded() {
+        ContentNode root = repository.save(createTree("tree", 2, 4));
+        int nodes = repository.nodeCount();
+        long heap = repository.estimatedHeapBytes();
+
+        for (int i = 0; i < 200; i++) {
+            Content incoming = toContent(root);
+            Content child = incoming.getChildren().get(i % 4);
+            child.setTags(List.of("round-" + i));
+            // Replace one grandchild with a new one, by path so the id is new
+            child.getChildren().set(0, createContent(child.getTitle() + "-0", "Admin", "round-" + i));
+            root = repository.update(root.getId(), incoming);
+        }
+
+        int[] inTree = new int[1];
+        TreeWalker.visit(root, (node, depth) -> node.getChildren(), (node, depth) -> inTree[0]++);
+        assertEquals(nodes, inTree[0]);
+        assertEquals(nodes, repository.nodeCount());
+        assertTrue(repository.estimatedHeapBytes() < heap * 2,
+                () -> "estimated heap grew from " + heap + " to " + repository.estimatedHeapBytes());
+    }
+
+    @Test
+    void update_withExpectedVersion_bumpsNodeAndAncestorsOrConflicts() {
+        ContentNode saved = repository.save(createTree("tree", 2, 2));
+        ContentNode branch = saved.getChildren().get(0);
+        ContentNode leaf = branch.getChildren().get(1);
+        assertEquals(1, saved.getVersion());
+
+        ContentNode updated = repository.update(leaf.getId(), createContent("x", "Admin", "changed"), 1);
+
+        assertEquals(2, updated.getVersion());
+        assertEquals(2, repository.findById(branch.getId()).get().getVersion());
+        assertEquals(2, repository.findById(saved.getId()).get().getVersion());
+        assertEquals(1, repository.findById(saved.getChildren().get(1).getId()).get().getVersion());
+        ContentVersionConflictException conflict = assertThrows(ContentVersionConflictException.class,
+                () -> repository.update(leaf.getId(), createContent("x", "Admin", "lost"), 1));
+        assertEquals(2, conflict.getCurrentVersion());
+        assertEquals(List.of("changed"), repository.findById(leaf.getId()).get().getTags());
+
+        // Deleting below a node changes it too, so its old version no longer matches
+        repository.delete(leaf.getId(), 2);
+        assertThrows(ContentVersionConflictException.class, () -> repository.delete(saved.getId(), 2));
+        assertTrue(repository.findById(saved.getId()).isPresent());
+        repository.delete(saved.getId(), 3);
+        assertTrue(repository.findById(saved.getId()).isEmpty());
+    }
+
+    @Test
+    void updateAndDelete_missingNode_throwResourceNotFound() {
+        Content tree = createContent("gone", "Admin");
+        tree.getChildren().add(createContent("child", "Admin"));
+        ContentNode saved = repository.save(tree);
+        String childId = saved.getChildren().get(0).getId();
+        repository.delete(saved.getId());
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> repository.update(childId, createContent("x", "Admin", "late"), ContentRepository.ANY_VERSION));
+        assertThrows(ResourceNotFoundException.class, () -> repository.delete(childId));
+        assertThrows(ResourceNotFoundException.class, () -> repository.delete(saved.getId(), 1));
+    }
+
+    @Test
+    void saveUpdateDelete_deepTree_doesNotOverflowTheStack() {
+        int depth = 20_000;
+        Content root = createContent("level-0", "Admin", "deep");
+        Content parent = root;
+        for (int level = 1; level < depth; level++) {
+            Content child = createContent("level-" + level, "Admin", "deep");
+            parent.getChildren().add(child);
+            parent = child;
+        }
+
+        ContentNode saved = repository.save(root);
+        ContentNode leaf = repository.findByPath("/content/level-" + (depth - 1)).orElseThrow();
+        repository.update(leaf.getId(), createContent("ignored", "Admin", "changed"));
+
+        assertEquals(depth, repository.findByTagOrAuthor(null, "Admin").size());
+        assertEquals(2, repository.findById(saved.getId()).orElseThrow().getVersion());
+        repository.delete(saved.getId());
+        assertTrue(repository.findByTagOrAuthor(null, null).isEmpty());
+    }
+
+    @Test
+    void openSnapshot_isolatesTreesFromLaterWrites() {
+        ContentNode updatedLater = repository.save(createTree("updated", 1, 2));
+        ContentNode deletedLater = repository.save(createContent("deleted", "Admin", "news"));
+        ContentNode childDeletedLater = repository.save(createTree("pruned", 1, 2));
+
+        try (ContentSnapshot snapshot = repository.openSnapshot()) {
+            repository.update(updatedLater.getChildren().get(0).getId(), createContent("x", "Admin", "changed"));
+            repository.delete(deletedLater.getId());
+            repository.delete(childDeletedLater.getChildren().get(1).getId());
+            ContentNode createdLater = repository.save(createContent("created", "Admin", "news"));
+
+            Map<String, ContentNode> seen = snapshot.roots()
+                    .collect(Collectors.toMap(ContentNode::getId, root -> root));
+            assertEquals(Set.of(updatedLater.getId(), deletedLater.getId(), childDeletedLater.getId()), seen.keySet());
+            assertSame(updatedLater, seen.get(updatedLater.getId()));
+            assertSame(deletedLater, seen.get(deletedLater.getId()));
+            assertEquals(2, seen.get(childDeletedLater.getId()).getChildren().size());
+            assertTrue(repository.findById(createdLater.getId()).isPresent());
+        }
+
+        try (ContentSnapshot snapshot = repository.openSnapshot()) {
+            Map<String, ContentNode> seen = snapshot.roots()
+                    .collect(Collectors.toMap(ContentNode::getId, root -> root));
+            assertEquals(3, seen.size());
+            assertEquals(List.of("changed"), seen.get(updatedLater.getId()).getChildren().get(0).getTags());
+            assertEquals(1, seen.get(childDeletedLater.getId()).getChildren().size());
+        }
+    }
+
+    @Test
+    void applyBatch_checksEachWriteAgainstTheOnesBeforeIt() {
+        Content article = createContent("article", "Admin", "news");
+        article.getChildren().add(createContent("article/section", "Editor", "news"));
+        article.getChildren().add(createContent("article/aside", "Editor", "news"));
+        ContentNode saved = repository.save(article);
+        ContentNode section = saved.getChildren().get(0);
+        ContentNode aside = saved.getChildren().get(1);
+
+        List<ContentNode> results = repository.applyBatch(List.of(
+                new ContentWrite.Save(createContent("blog", "Admin", "blog")),
+                new ContentWrite.Update(section.getId(), createContent("ignored", "Admin", "changed"), 1),
+                new ContentWrite.Delete(aside.getId(), 1),
+                // The two writes above bumped the root twice
+                new ContentWrite.Update(saved.getId(), createContent("ignored", "Admin", "archived"), 3)));
+
+        assertEquals(4, results.size());
+        assertEquals("blog", repository.findById(results.get(0).getId()).orElseThrow().getTitle());
+        assertEquals(aside, results.get(2));
+        ContentNode root = repository.findById(saved.getId()).orElseThrow();
+        assertEquals(results.get(3), root);
+        assertEquals(4, root.getVersion());
+        assertEquals(List.of("archived"), root.getTags());
+        assertTrue(repository.findById(section.getId()).isEmpty());
+        assertTrue(repository.findById(aside.getId()).isEmpty());
+    }
+
+    @Test
+    void applyBatch_replayingAnotherRepositorysResults_leavesTheSameTree() {
+        Content article = createContent("article", "Admin", "news");
+        article.getChildren().add(createContent("article/section", "Editor", "news"));
+        article.getChildren().add(createContent("article/aside", "Editor", "news"));
+        ContentNode saved = repository.save(article);
+        InMemoryContentRepository replica = new InMemoryContentRepository();
+        replica.applySaved(saved);
+
+        List<ContentNode> results = repository.applyBatch(List.of(
+                new ContentWrite.Update(saved.getChildren().get(0).getId(), createContent("ignored", "Admin", "changed"), 1),
+                new ContentWrite.Delete(saved.getChildren().get(1).getId(), 1)));
+        long sequence = replica.currentSequence();
+        replica.applyBatch(List.of(
+                new ContentWrite.Updated(results.get(0)),
+                new ContentWrite.Delete(results.get(1).getId(), ContentRepository.ANY_VERSION)));
+
+        assertEquals(sequence + 1, replica.currentSequence());
+        ContentNode root = repository.findById(saved.getId()).orElseThrow();
+        ContentNode replayed = replica.findById(saved.getId()).orElseThrow();
+        assertEquals(3, replayed.getVersion());
+        assertEquals(root.getVersion(), replayed.getVersion());
+        assertEquals(1, replayed.getChildren().size());
+        assertEquals(results.get(0).getId(), replayed.getChildren().get(0).getId());
+        assertEquals(List.of("changed"), replayed.getChildren().get(0).getTags());
+        assertTrue(replica.findById(results.get(1).getId()).isEmpty());
+    }
+
+    @Test
+    void applyBatch_updateKeepingChildren_letsLaterWritesReachThem() {
+        Content article = createContent("article", "Admin", "news");
+        article.getChildren().add(createContent("article/section", "Editor", "news"));
+        article.getChildren().add(createContent("article/aside", "Editor", "news"));
+        ContentNode saved = repository.save(article);
+        ContentNode section = saved.getChildren().get(0);
+        ContentNode aside = saved.getChildren().get(1);
+
+        // Keeps the section under a new title, matched by path, and drops the aside
+        Content incoming = createContent("ignored", "Admin", "news");
+        incoming.getChildren().add(createContent("renamed", "Editor", "news"));
+        incoming.getChildren().get(0).setPath(section.getPath());
+        ContentBatchException gone = assertThrows(ContentBatchException.class, () -> repository.applyBatch(List.of(
+                new ContentWrite.Update(saved.getId(), incoming, 1),
+                new ContentWrite.Delete(aside.getId(), ContentRepository.ANY_VERSION))));
+        assertEquals(1, gone.getIndex());
+
+        List<ContentNode> results = repository.applyBatch(List.of(
+                new ContentWrite.Update(saved.getId(), incoming, 1),
+                new ContentWrite.Update(section.getId(), createContent("ignored", "Admin", "changed"), 2)));
+
+        assertEquals(section.getId(), results.get(1).getId());
+        assertEquals(List.of("changed"), repository.findById(section.getId()).orElseThrow().getTags());
+        assertTrue(repository.findById(aside.getId()).isEmpty());
+    }
+
+    @Test
+    void applyBatch_failingWrite_leavesEveryTreeAsItWas() {
+        ContentNode article = repository.save(createContent("article", "Admin", "news"));
+        Content page = createContent("page", "Admin", "news");
+        page.getChildren().add(createContent("page/section", "Editor", "news"));
+        ContentNode pageRoot = repository.save(page);
+        String sectionId = pageRoot.getChildren().get(0).getId();
+        long sequence = repository.currentSequence();
+
+        ContentBatchException conflict = assertThrows(ContentBatchException.class, () -> repository.applyBatch(List.of(
+                new ContentWrite.Save(createContent("blog", "Admin", "blog")),
+                new ContentWrite.Update(article.getId(), createContent("ignored", "Admin", "changed"), 1),
+                new ContentWrite.Delete(article.getId(), 1))));
+        assertEquals(2, conflict.getIndex());
+        assertTrue(conflict.getCause() instanceof ContentVersionConflictException);
+
+        // The update replaces the children of the page, the section is gone by the time it is deleted
+        ContentBatchException gone = assertThrows(ContentBatchException.class, () -> repository.applyBatch(List.of(
+                new ContentWrite.Update(pageRoot.getId(), createContent("ignored", "Admin", "changed"), 1),
+                new ContentWrite.Delete(sectionId, ContentRepository.ANY_VERSION))));
+        assertEquals(1, gone.getIndex());
+        assertTrue(gone.getCause() instanceof ResourceNotFoundException);
+
+        assertEquals(sequence, repository.currentSequence());
+        assertSame(article, repository.findById(article.getId()).orElseThrow());
+        assertSame(pageRoot, repository.findById(pageRoot.getId()).orElseThrow());
+        assertTrue(repository.findByTagOrAuthor("blog", null).isEmpty());
+    }
+
+    /**
+     * Journal whose {@code failAt}-th record fails, as a full disk would, and
+     * that counts the batch records it is given.
+     */
+    private static class FailingJournal implements ContentJournal {
+        private final int failAt;
+        private int records;
+        private int batches;
+
+        FailingJournal(int failAt) {
+            this.failAt = failAt;
+        }
+
+        private void record() {
+            if (++records == failAt) {
+                throw new UncheckedIOException(new IOException("No space left on device"));
+            }
+        }
+
+        @Override
+        public void saved(long sequence, ContentNode root) {
+            record();
+        }
+
+        @Override
+        public void updated(long sequence, ContentNode node) {
+            record();
+        }
+
+        @Override
+        public void deleted(long sequence, String id) {
+            record();
+        }
+
+        @Override
+        public void batch(long sequence, List<ContentNode> roots, List<String> deletedRootIds) {
+            batches++;
+            record();
+        }
+    }
+
+    @Test
+    void applyBatch_journalFails_publishesNoneOfTheBatch() {
+        FailingJournal journal = new FailingJournal(3);
+        repository.setJournal(journal);
+        ContentNode article = repository.save(createContent("article", "Admin", "news"));
+        Content page = createContent("page", "Admin", "news");
+        page.getChildren().add(createContent("page/section", "Editor", "news"));
+        ContentNode pageRoot = repository.save(page);
+        String sectionId = pageRoot.getChildren().get(0).getId();
+        List<ContentWrite> writes = List.of(
+                new ContentWrite.Save(createContent("blog", "Admin", "blog")),
+                new ContentWrite.Update(article.getId(), createContent("ignored", "Admin", "changed"), 1),
+                new ContentWrite.Delete(sectionId, 1),
+                new ContentWrite.Delete(article.getId(), 2));
+
+        assertThrows(UncheckedIOException.class, () -> repository.applyBatch(writes));
+
+        // The whole batch was the one failing record
+        assertEquals(1, journal.batches);
+        assertTrue(repository.findByTagOrAuthor("blog", null).isEmpty());
+        assertSame(article, repository.findById(article.getId()).orElseThrow());
+        assertSame(pageRoot, repository.findById(pageRoot.getId()).orElseThrow());
+        assertTrue(repository.findById(sectionId).isPresent());
+        assertTrue(repository.findByPath("/content/page/section").isPresent());
+        assertTrue(repository.findByTagOrAuthor("changed", null).isEmpty());
+
+        repository.applyBatch(writes);
+
+        assertEquals(2, journal.batches);
+        assertTrue(repository.findById(article.getId()).isEmpty());
+        assertTrue(repository.findById(sectionId).isEmpty());
+        assertEquals(1, repository.findByTagOrAuthor("blog", null).size());
+    }
+
+    @Test
+    void save_sharesRepeatedValues_andDerivesTimestampMetadata() {
+        ContentNode first = repository.save(createContent("first", "Admin", "news", "aem"));
+        ContentNode second = repository.save(createContent("second", "Admin", "news", "aem"));
+        assertSame(first.getAuthor(), second.getAuthor());
+        assertSame(first.getTags(), second.getTags());
+        assertEquals(Map.of("jcr:primaryType", "nt:unstructured", "jcr:created", first.getCreatedAt().toString()),
+                first.getJcrMetadata());
+
+        ContentNode updated = repository.update(first.getId(), createContent("ignored", "Admin", "news", "aem"));
+        assertEquals(first.getCreatedAt().toString(), updated.getJcrMetadata().get("jcr:created"));
+        assertEquals(updated.getUpdatedAt().toString(), updated.getJcrMetadata().get("jcr:lastModified"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.aem.cmis.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class UlidGeneratorTest {
+
+    @Test
+    void ids_sortByMillisecond_andCountUpWithinOne() {
+        AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+        UlidGenerator generator = new UlidGenerator(clock::get);
+
+        String previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            String id = generator.nextId();
+            assertTrue(id.compareTo(previous) > 0, id + " after " + previous);
+            assertEquals(1_700_000_000_000L, ContentId.timestamp(id));
+            previous = id;
+        }
+        clock.set(1_700_000_000_001L);
+        String later = generator.nextId();
+        assertTrue(later.compareTo(previous) > 0);
+        // A clock that goes back does not break the order
+        clock.set(1_600_000_000_000L);
+        assertTrue(generator.nextId().compareTo(later) > 0);
+    }
+
+    @Test
+    void format_roundTrips_andSortsLikeTheNumber() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String previous = null;
+        long previousHigh = 0;
+        long previousLow = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long high = random.nextLong();
+            long low = random.nextLong();
+            String id = ContentId.format(high, low);
+
+            assertEquals(ContentId.LENGTH, id.length());
+            assertTrue(ContentId.isUlid(id), id);
+            assertEquals(high, ContentId.high(id));
+            assertEquals(low, ContentId.low(id));
+            if (previous != null) {
+                int numeric = Long.compareUnsigned(high, previousHigh) != 0 ? Long.compareUnsigned(high, previousHigh)
+                        : Long.compareUnsigned(low, previousLow);
+                assertEquals(Integer.signum(numeric), Integer.signum(id.compareTo(previous)));
+            }
+            previous = id;
+            previousHigh = high;
+            previousLow = low;
+        }
+        assertEquals("7ZZZZZZZZZZZZZZZZZZZZZZZZZ", ContentId.format(-1L, -1L));
+        assertFalse(ContentId.isUlid("8ZZZZZZZZZZZZZZZZZZZZZZZZZ"));
+        assertFalse(ContentId.isUlid(UUID.randomUUID().toString()));
+    }
+
+    @Test
+    void concurrentThreads_neverRepeatAnId() throws Exception {
+        int threads = 8;
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> unique = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                unique.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        seen.add(UlidGenerator.INSTANCE.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : unique) {
+                future.get();
+            }
+            assertEquals(threads * 10_000, seen.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
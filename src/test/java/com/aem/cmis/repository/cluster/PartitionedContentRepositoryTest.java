@@ -0,0 +1,415 @@
+package com.aem.cmis.repository.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aem.cmis.exception.ClusterNodeUnavailableException;
+import com.aem.cmis.exception.ContentValidationException;
+import com.aem.cmis.exception.ContentVersionConflictException;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.repository.ContentChange;
+import com.aem.cmis.repository.ContentFacet;
+import com.aem.cmis.repository.ContentQuery;
+import com.aem.cmis.repository.ContentWrite;
+import com.aem.cmis.repository.FacetCount;
+import com.aem.cmis.repository.InMemoryContentRepository;
+
+public class PartitionedContentRepositoryTest {
+
+    private static final List<String> NODES = List.of("node-1", "node-2", "node-3", "node-4");
+
+    private LoopbackTransport transport;
+    private PartitionedContentRepository cluster;
+
+    @BeforeEach
+    void setup() {
+        transport = new LoopbackTransport();
+        cluster = new PartitionedContentRepository(transport, 2);
+        for (String node : NODES) {
+            transport.start(node);
+            cluster.addNode(node);
+        }
+    }
+
+    private Content createContent(String title, String author, String... tags) {
+        Content content = new Content();
+        content.setTitle(title);
+        content.setBody("Body of " + title);
+        content.setAuthor(author);
+        content.setTags(new ArrayList<>(Arrays.asList(tags)));
+        content.setPath("/content/" + title);
+        return content;
+    }
+
+    private List<ContentNode> saveTrees(int count) {
+        List<ContentNode> roots = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Content content = createContent("page-" + i, i % 3 == 0 ? "Admin" : "Editor", i % 4 == 0 ? "archived" : "news");
+            content.getChildren().add(createContent("page-" + i + "/asset", "Editor", "asset"));
+            roots.add(cluster.save(content));
+        }
+        return roots;
+    }
+
+    private List<String> holders(String rootId) {
+        return cluster.getNodes().stream()
+                .filter(node -> transport.node(node).findById(rootId).isPresent())
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> ids(List<ContentNode> nodes) {
+        return nodes.stream().map(ContentNode::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void save_placesEveryTreeWholeOnItsReplicas() {
+        List<ContentNode> roots = saveTrees(400);
+
+        Map<String, Integer> treesPerNode = new HashMap<>();
+        for (ContentNode root : roots) {
+            List<String> replicas = cluster.replicasOf(root.getId());
+            assertEquals(2, replicas.size());
+            assertEquals(replicas.stream().sorted().collect(Collectors.toList()), holders(root.getId()));
+            String child = root.getChildren().get(0).getId();
+            assertTrue(transport.node(replicas.get(1)).findById(child).isPresent());
+            replicas.forEach(node -> treesPerNode.merge(node, 1, Integer::sum));
+        }
+        // 800 replicas over 4 nodes, none far off its share
+        for (String node : NODES) {
+            int trees = treesPerNode.getOrDefault(node, 0);
+            assertTrue(trees > 100 && trees < 300, node + " holds " + trees);
+        }
+        ContentNode child = roots.get(7).getChildren().get(0);
+        assertEquals(child, cluster.findById(child.getId()).orElseThrow());
+        assertEquals(roots.get(7).getId(), cluster.findRootId(child.getId()).orElseThrow());
+        assertTrue(cluster.findById("missing").isEmpty());
+    }
+
+    @Test
+    void search_gathersEveryNode_withoutTheReplicaRepeats() {
+        List<ContentNode> roots = saveTrees(300);
+        InMemoryContentRepository single = new InMemoryContentRepository();
+        roots.forEach(single::applySaved);
+        ContentQuery excluding = new ContentQuery(null, null, "archived", "admin");
+
+        List<String> seen = new ArrayList<>();
+        String afterId = null;
+        List<ContentNode> page;
+        do {
+            page = cluster.find(excluding, afterId, 40);
+            seen.addAll(ids(page));
+            afterId = page.isEmpty() ? null : page.get(page.size() - 1).getId();
+        } while (page.size() == 40);
+
+        assertEquals(ids(single.find(excluding, null, Integer.MAX_VALUE)), seen);
+        assertEquals(ids(single.findByTagOrAuthor("news", "admin")), ids(cluster.findByTagOrAuthor("news", "admin")));
+        assertEquals(ids(single.findByPathPrefix("/content", false)), ids(cluster.findByPathPrefix("/content", false)));
+        assertEquals(300, cluster.findRoots().size());
+        assertEquals("page-12", cluster.findByPath("/content/page-12").orElseThrow().getTitle());
+        List<ContentNode> hits = cluster.searchText("asset", 500);
+        assertEquals(300, hits.size());
+        assertEquals(300, hits.stream().map(ContentNode::getId).distinct().count());
+    }
+
+    @Test
+    void save_assignsIdsFromTheConfiguredGenerator() {
+        AtomicInteger next = new AtomicInteger();
+        cluster = new PartitionedContentRepository(transport, 2, PartitionedContentRepository.DEFAULT_VIRTUAL_NODES,
+                ForkJoinPool.commonPool(), () -> "id-" + next.incrementAndGet());
+        for (String node : NODES) {
+            cluster.addNode(node);
+        }
+        Content content = createContent("page", "Admin", "news");
+        content.getChildren().add(createContent("page/asset", "Editor", "asset"));
+
+        ContentNode saved = cluster.save(content);
+        List<ContentNode> batch = cluster.saveAll(List.of(createContent("other", "Admin", "news")));
+
+        assertEquals(List.of("id-1", "id-2"),
+                List.of(saved.getId(), saved.getChildren().get(0).getId()).stream().sorted().toList());
+        assertEquals("id-3", batch.get(0).getId());
+        assertEquals(saved, cluster.findById(saved.getId()).orElseThrow());
+        assertTrue(cluster.findById("id-3").isPresent());
+    }
+
+    @Test
+    void updateAndDelete_reachEveryReplica() {
+        ContentNode root = saveTrees(1).get(0);
+        ContentNode child = root.getChildren().get(0);
+
+        cluster.update(child.getId(), createContent("ignored", "Admin", "changed"), 1);
+
+        for (String node : cluster.replicasOf(root.getId())) {
+            ContentNode stored = transport.node(node).findById(root.getId()).orElseThrow();
+            assertEquals(2, stored.getVersion());
+            assertEquals(List.of("changed"), stored.getChildren().get(0).getTags());
+        }
+        assertThrows(ContentVersionConflictException.class,
+                () -> cluster.update(child.getId(), createContent("ignored", "Admin", "lost"), 1));
+
+        cluster.delete(root.getId(), 2);
+
+        assertEquals(List.of(), holders(root.getId()));
+        assertTrue(cluster.findById(child.getId()).isEmpty());
+    }
+
+    @Test
+    void applyBatch_onOnePartition_runsOnItsReplicas_withTheNewTreesPlacedThere() {
+        List<ContentNode> roots = saveTrees(50);
+        ContentNode first = roots.get(0);
+        List<String> replicas = cluster.replicasOf(first.getId());
+        ContentNode second = roots.stream().skip(1)
+                .filter(root -> cluster.replicasOf(root.getId()).equals(replicas))
+                .findFirst().orElseThrow();
+
+        Map<String, Long> sequences = new HashMap<>();
+        replicas.forEach(node -> sequences.put(node, ((InMemoryContentRepository) transport.node(node)).currentSequence()));
+
+        List<ContentNode> results = cluster.applyBatch(List.of(
+                new ContentWrite.Save(createContent("blog", "Admin", "blog")),
+                new ContentWrite.Update(first.getChildren().get(0).getId(), createContent("ignored", "Admin", "changed"), 1),
+                new ContentWrite.Delete(second.getId(), 1)));
+
+        ContentNode created = results.get(0);
+        assertEquals(replicas.stream().sorted().collect(Collectors.toList()), holders(created.getId()));
+        for (String node : replicas) {
+            assertEquals(2, transport.node(node).findById(first.getId()).orElseThrow().getVersion());
+        }
+        assertEquals(List.of(), holders(second.getId()));
+        assertEquals(50, cluster.findRoots().size());
+        // Primary and replica each commit the batch at once
+        for (String node : replicas) {
+            assertEquals(sequences.get(node) + 1, ((InMemoryContentRepository) transport.node(node)).currentSequence());
+        }
+    }
+
+    @Test
+    void applyBatch_acrossPartitions_isRejected_andWritesNothing() {
+        List<ContentNode> roots = saveTrees(50);
+        ContentNode first = roots.get(0);
+        ContentNode other = roots.stream()
+                .filter(root -> !cluster.replicasOf(root.getId()).equals(cluster.replicasOf(first.getId())))
+                .findFirst().orElseThrow();
+
+        assertThrows(ContentValidationException.class, () -> cluster.applyBatch(List.of(
+                new ContentWrite.Save(createContent("blog", "Admin", "blog")),
+                new ContentWrite.Update(first.getId(), createContent("ignored", "Admin", "changed"), 1),
+                new ContentWrite.Delete(other.getId(), 1))));
+
+        assertEquals(50, cluster.findRoots().size());
+        assertEquals(1, cluster.findById(first.getId()).orElseThrow().getVersion());
+        assertTrue(cluster.findById(other.getId()).isPresent());
+    }
+
+    @Test
+    void applyBatch_newTreeThatCannotBePlacedWithTheOthers_failsTheBatch() {
+        AtomicInteger next = new AtomicInteger();
+        cluster = new PartitionedContentRepository(transport, 2, PartitionedContentRepository.DEFAULT_VIRTUAL_NODES,
+                ForkJoinPool.commonPool(), () -> next.get() < 0 ? "fixed" : "id-" + next.incrementAndGet());
+        for (String node : NODES) {
+            cluster.addNode(node);
+        }
+        List<ContentNode> roots = saveTrees(20);
+        ContentNode elsewhere = roots.stream()
+                .filter(root -> !new HashSet<>(cluster.replicasOf(root.getId()))
+                        .equals(new HashSet<>(cluster.replicasOf("fixed"))))
+                .findFirst().orElseThrow();
+        next.set(-1);
+
+        assertThrows(ContentValidationException.class, () -> cluster.applyBatch(List.of(
+                new ContentWrite.Update(elsewhere.getId(), createContent("ignored", "Admin", "changed"), 1),
+                new ContentWrite.Save(createContent("blog", "Admin", "blog")))));
+
+        assertEquals(20, cluster.findRoots().size());
+        assertEquals(1, cluster.findById(elsewhere.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void facets_countEveryTreeOnce_asTheNodesJoinAndLeave() {
+        List<ContentNode> roots = saveTrees(100);
+        cluster.delete(roots.get(1).getId());
+
+        List<FacetCount> expected = List.of(new FacetCount("asset", 99), new FacetCount("news", 74),
+                new FacetCount("archived", 25));
+        assertEquals(expected, cluster.topFacets(ContentFacet.TAG, 10));
+        assertEquals(expected.subList(0, 2), cluster.topFacets(ContentFacet.TAG, 2));
+        assertEquals(164, cluster.facetCount(ContentFacet.AUTHOR, "editor"));
+        assertEquals(34, cluster.facetCount(ContentFacet.AUTHOR, "Admin"));
+
+        transport.start("node-5");
+        cluster.addNode("node-5");
+        assertEquals(expected, cluster.topFacets(ContentFacet.TAG, 10));
+
+        cluster.removeNode("node-1");
+        assertEquals(expected, cluster.topFacets(ContentFacet.TAG, 10));
+        assertEquals(164, cluster.facetCount(ContentFacet.AUTHOR, "editor"));
+    }
+
+    @Test
+    void changes_areForwardedOncePerWrite_withoutTheMovesOfARebalance() {
+        List<ContentChange> changes = new ArrayList<>();
+        cluster.addChangeListener(changes::add);
+
+        List<ContentNode> roots = saveTrees(50);
+        cluster.update(roots.get(0).getId(), createContent("ignored", "Admin", "changed"));
+        cluster.delete(roots.get(1).getId());
+        assertEquals(52, changes.size());
+
+        changes.clear();
+        transport.start("node-5");
+        cluster.addNode("node-5");
+        cluster.removeNode("node-1");
+        cluster.addNode("node-1");
+        assertEquals(List.of(), changes);
+
+        cluster.update(roots.get(2).getId(), createContent("ignored", "Admin", "moved"));
+        assertEquals(1, changes.size());
+        assertEquals(ContentChange.Type.UPDATED, changes.get(0).getType());
+        assertEquals(roots.get(2).getId(), changes.get(0).getId());
+    }
+
+    @Test
+    void unavailablePrimary_readsAndWritesGoToTheOtherReplica() {
+        List<ContentNode> roots = saveTrees(100);
+        ContentNode root = roots.get(0);
+        List<String> replicas = cluster.replicasOf(root.getId());
+        transport.setAvailable(replicas.get(0), false);
+
+        assertEquals(root, cluster.findById(root.getId()).orElseThrow());
+        assertEquals(100, cluster.findRoots().size());
+        ContentNode updated = cluster.update(root.getId(), createContent("ignored", "Admin", "failover"));
+        assertEquals(updated, transport.node(replicas.get(1)).findById(root.getId()).orElseThrow());
+
+        transport.setAvailable(replicas.get(1), false);
+        assertThrows(ClusterNodeUnavailableException.class, () -> cluster.applySaved(updated));
+    }
+
+    @Test
+    void primaryBackFromDown_isBroughtUpToDate_beforeItServesOrTakesAWrite() {
+        Content content = createContent("page", "Admin", "news");
+        content.getChildren().add(createContent("page/a", "Editor", "asset"));
+        content.getChildren().add(createContent("page/b", "Editor", "asset"));
+        ContentNode root = cluster.save(content);
+        String a = root.getChildren().get(0).getId();
+        String b = root.getChildren().get(1).getId();
+        List<String> replicas = cluster.replicasOf(root.getId());
+
+        transport.setAvailable(replicas.get(0), false);
+        cluster.update(a, createContent("ignored", "Admin", "missed"), 1);
+        transport.setAvailable(replicas.get(0), true);
+
+        assertEquals(2, cluster.findById(root.getId()).orElseThrow().getVersion());
+        assertEquals(2, transport.node(replicas.get(0)).findById(root.getId()).orElseThrow().getVersion());
+
+        transport.setAvailable(replicas.get(0), false);
+        cluster.update(a, createContent("ignored", "Admin", "missed-again"), 2);
+        transport.setAvailable(replicas.get(0), true);
+        cluster.update(b, createContent("ignored", "Admin", "after"), 1);
+
+        for (String node : replicas) {
+            ContentNode stored = transport.node(node).findById(root.getId()).orElseThrow();
+            assertEquals(4, stored.getVersion());
+            assertEquals(List.of("missed-again"), stored.getChildren().get(0).getTags());
+            assertEquals(List.of("after"), stored.getChildren().get(1).getTags());
+        }
+    }
+
+    @Test
+    void rootDeletedWhileAReplicaWasDown_isNotHandedBack() {
+        ContentNode root = saveTrees(1).get(0);
+        List<String> replicas = cluster.replicasOf(root.getId());
+
+        transport.setAvailable(replicas.get(1), false);
+        cluster.delete(root.getId(), 1);
+        transport.setAvailable(replicas.get(1), true);
+
+        assertTrue(cluster.findById(root.getId()).isEmpty());
+        assertEquals(List.of(), holders(root.getId()));
+    }
+
+    @Test
+    void addNode_movesOnlyTheTreesItNowReplicates() {
+        List<ContentNode> roots = saveTrees(1_000);
+        Map<String, List<String>> before = new HashMap<>();
+        roots.forEach(root -> before.put(root.getId(), cluster.replicasOf(root.getId())));
+
+        transport.start("node-5");
+        int copied = cluster.addNode("node-5");
+
+        int moved = 0;
+        for (ContentNode root : roots) {
+            List<String> after = cluster.replicasOf(root.getId());
+            assertEquals(after.stream().sorted().collect(Collectors.toList()), holders(root.getId()));
+            List<String> kept = new ArrayList<>(before.get(root.getId()));
+            kept.retainAll(after);
+            if (after.contains("node-5")) {
+                // The new node takes one replica, the other stays where it was
+                assertEquals(1, kept.size());
+                moved++;
+            } else {
+                assertEquals(before.get(root.getId()), after);
+            }
+        }
+        assertEquals(moved, copied);
+        // Its fair share is 2 of 5 replicas, a rehash of every tree would move most of them
+        assertTrue(moved > 250 && moved < 550, moved + " of 1000 trees moved");
+        assertEquals(1_000, cluster.findRoots().size());
+    }
+
+    @Test
+    void movedArcs_holdExactlyTheKeysWhoseReplicasChanged() {
+        ConsistentHashRing ring = new ConsistentHashRing(PartitionedContentRepository.DEFAULT_VIRTUAL_NODES);
+        NODES.forEach(ring::add);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            keys.add("key-" + i);
+        }
+
+        for (Runnable change : List.<Runnable>of(() -> ring.add("node-5"), () -> ring.remove("node-2"))) {
+            Map<String, List<String>> before = new HashMap<>();
+            keys.forEach(key -> before.put(key, ring.ownersOf(key, 2)));
+            NavigableMap<Long, String> points = ring.points();
+            change.run();
+
+            ConsistentHashRing.Arcs moved = ring.movedArcs(points, 2);
+            int changed = 0;
+            for (String key : keys) {
+                boolean moves = !before.get(key).equals(ring.ownersOf(key, 2));
+                assertEquals(moves, moved.contains(key), key);
+                changed += moves ? 1 : 0;
+            }
+            assertTrue(changed > 0 && changed < keys.size(), changed + " keys moved");
+        }
+    }
+
+    @Test
+    void removeNode_copiesItsTreesToTheNodesReplacingIt() {
+        List<ContentNode> roots = saveTrees(300);
+        transport.setAvailable("node-2", false);
+
+        int copied = cluster.removeNode("node-2");
+
+        assertEquals(3, cluster.getNodes().size());
+        assertTrue(copied > 0);
+        for (ContentNode root : roots) {
+            assertEquals(cluster.replicasOf(root.getId()).stream().sorted().collect(Collectors.toList()),
+                    holders(root.getId()));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.aem.cmis.service;
+
+import static com.aem.cmis.model.ContentFixtures.createTree;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aem.cmis.dto.BulkImportResult;
+import com.aem.cmis.mapper.ContentMapper;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.repository.InMemoryContentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validation;
+
+public class ContentExportServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private InMemoryContentRepository repository;
+    private ContentExportService exportService;
+
+    @BeforeEach
+    void setup() {
+        repository = new InMemoryContentRepository();
+        exportService = new ContentExportService(repository, new ContentMapper(), objectMapper);
+    }
+
+    @Test
+    void exportContent_writesOneLinePerTree() throws Exception {
+        repository.save(createTree("first", 2));
+        repository.save(createTree("second", 0));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = exportService.exportContent(output, false);
+
+        String[] lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2L, exported);
+        assertEquals(2, lines.length);
+        int children = 0;
+        for (String line : lines) {
+            children += objectMapper.readTree(line).get("children").size();
+        }
+        assertEquals(2, children);
+    }
+
+    @Test
+    void exportContent_gzip_roundTripsThroughImport() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            repository.save(createTree("tree-" + i, 3));
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.exportContent(output, true);
+
+        InMemoryContentRepository target = new InMemoryContentRepository();
+        ContentImportService importService = new ContentImportService(target, new ContentMapper(), objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), 16);
+        BulkImportResult result = importService.importContent(
+                new GZIPInputStream(new ByteArrayInputStream(output.toByteArray())));
+
+        assertEquals(50, result.getImported());
+        assertEquals(0, result.getFailed());
+        assertEquals(200, target.findByTagOrAuthor("news", null).size());
+        assertTrue(target.findByPath("/content/tree-7-2").isPresent());
+    }
+
+    @Test
+    void exportContent_writesDuringExport_areNotExported() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Content tree = createTree("tree-" + i, 1);
+            // Larger than the export buffer, so every tree reaches the output while the export runs
+            tree.setBody("x".repeat(100_000));
+            ids.add(repository.save(tree).getId());
+        }
+        // Deletes a tree and adds a new one whenever a tree is written
+        OutputStream output = new ByteArrayOutputStream() {
+            private int next;
+
+            @Override
+            public synchronized void write(byte[] bytes, int offset, int length) {
+                super.write(bytes, offset, length);
+                if (next < ids.size()) {
+                    repository.delete(ids.get(next++));
+                    repository.save(createTree("late", 0));
+                }
+            }
+        };
+
+        long exported = exportService.exportContent(output, false);
+
+        assertEquals(20L, exported);
+        // By the time the export finished, every exported tree had been replaced
+        assertTrue(repository.findByTagOrAuthor(null, null).stream()
+                .allMatch(node -> node.getPath().equals("/content/late")));
+        String body = output.toString();
+        assertTrue(!body.contains("/content/late"));
+        for (String id : ids) {
+            assertTrue(body.contains(id));
+        }
+    }
+}
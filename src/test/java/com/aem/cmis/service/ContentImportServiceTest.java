@@ -0,0 +1,82 @@
+package com.aem.cmis.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aem.cmis.dto.BulkImportError;
+import com.aem.cmis.dto.BulkImportResult;
+import com.aem.cmis.mapper.ContentMapper;
+import com.aem.cmis.repository.ContentRepository;
+import com.aem.cmis.repository.InMemoryContentRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validation;
+
+public class ContentImportServiceTest {
+
+    private ContentRepository repository;
+
+    @BeforeEach
+    void setup() {
+        repository = new InMemoryContentRepository();
+    }
+
+    private ContentImportService createService(int batchSize) {
+        return new ContentImportService(repository, new ContentMapper(), new ObjectMapper().findAndRegisterModules(),
+                Validation.buildDefaultValidatorFactory().getValidator(), batchSize);
+    }
+
+    private static String record(int i) {
+        return "{\"id\":\"import-" + i + "\",\"title\":\"Title " + i + "\",\"body\":\"Body " + i + "\","
+                + "\"author\":\"Importer\",\"tags\":[\"imported\"],\"path\":\"/content/import/" + i + "\","
+                + "\"children\":[{\"title\":\"Child " + i + "\",\"body\":\"Child body\",\"author\":\"Importer\","
+                + "\"path\":\"/content/import/" + i + "/child\"}]}";
+    }
+
+    private static InputStream lines(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importContent_badLinesAreReportedAndSkipped() {
+        BulkImportResult result = createService(2).importContent(lines(
+                record(1),
+                "{not json",
+                "",
+                record(2),
+                "{\"id\":\"x\",\"title\":\"\",\"body\":\"Body\",\"author\":\"Importer\",\"path\":\"/content/x\"}",
+                "[]",
+                record(3)));
+
+        assertEquals(3, result.getImported());
+        assertEquals(3, result.getFailed());
+        assertEquals(List.of(2L, 5L, 6L), result.getErrors().stream().map(BulkImportError::getLine).toList());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Malformed JSON"));
+        assertTrue(result.getErrors().get(1).getMessage().contains("Title is mandatory"));
+        assertEquals(6, repository.findByTagOrAuthor(null, "importer").size());
+        assertTrue(repository.findByPath("/content/import/3/child").isPresent());
+    }
+
+    @Test
+    void importContent_recordFailingInBatch_otherRecordsOfTheBatchAreStored() {
+        BulkImportResult result = createService(10).importContent(lines(
+                record(1),
+                "{\"id\":\"x\",\"title\":\"Broken\",\"body\":\"Body\",\"author\":\"Importer\",\"path\":\"/content/x\","
+                        + "\"tags\":[\"ok\",null]}",
+                record(2)));
+
+        assertEquals(2, result.getImported());
+        assertEquals(1, result.getFailed());
+        assertEquals(2L, result.getErrors().get(0).getLine());
+        assertTrue(repository.findByPath("/content/x").isEmpty());
+        assertEquals(2, repository.findByTagOrAuthor("imported", null).size());
+    }
+}
@@ -0,0 +1,170 @@
+package com.aem.cmis.service;
+
+import static com.aem.cmis.model.ContentFixtures.createTree;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.aem.cmis.dto.ContentDTO;
+import com.aem.cmis.dto.ContentProjection;
+import com.aem.cmis.mapper.ContentMapper;
+import com.aem.cmis.model.Content;
+import com.aem.cmis.model.ContentNode;
+import com.aem.cmis.repository.ContentRepository;
+import com.aem.cmis.repository.InMemoryContentRepository;
+import com.aem.cmis.service.ContentResponseCache.CachedContent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ContentResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private ContentRepository repository;
+    private ContentResponseCache cache;
+
+    @BeforeEach
+    void setup() {
+        repository = new InMemoryContentRepository();
+        cache = createCache(1024 * 1024);
+    }
+
+    private ContentResponseCache createCache(long maxBytes) {
+        ContentResponseCache responseCache = new ContentResponseCache(
+                new ContentService(repository, new ContentMapper()), objectMapper, maxBytes);
+        repository.addChangeListener(responseCache);
+        return responseCache;
+    }
+
+    private CachedContent get(String id) {
+        return cache.getContent(id, ContentProjection.FULL).get();
+    }
+
+    @Test
+    void getContent_repeatedRead_servesSameBytesAndEtag() {
+        String id = repository.save(createTree("article", 2)).getId();
+
+        CachedContent first = get(id);
+        CachedContent second = get(id);
+        CachedContent projected = cache.getContent(id, ContentProjection.of(0, "title")).get();
+
+        assertSame(first, second);
+        assertTrue(first.etag().startsWith("\"") && first.etag().endsWith("\""));
+        assertNotEquals(first.etag(), projected.etag());
+        assertTrue(first.matches("W/" + first.etag()));
+        assertTrue(first.matches("\"other\", " + first.etag()));
+        assertFalse(first.matches("\"other\""));
+        assertFalse(cache.getContent("missing", ContentProjection.FULL).isPresent());
+    }
+
+    @Test
+    void getContent_nullFields_keptInFullResponsesAndOmittedFromProjections() throws Exception {
+        Content content = createTree("article", 1);
+        content.setTags(null);
+        String id = repository.save(content).getId();
+
+        JsonNode full = objectMapper.readTree(get(id).body());
+        JsonNode projected = objectMapper.readTree(cache.getContent(id, ContentProjection.of(0, "title")).get().body());
+
+        assertTrue(full.has("tags") && full.get("tags").isNull());
+        assertTrue(full.get("children").get(0).has("children"));
+        assertTrue(projected.has("title") && projected.has("version"));
+        assertFalse(projected.has("tags"));
+        assertFalse(projected.has("body"));
+        assertFalse(projected.has("children"));
+    }
+
+    @Test
+    void update_invalidatesNodeAndAncestorsOnly() {
+        ContentNode article = repository.save(createTree("article", 2));
+        String otherId = repository.save(createTree("other", 1)).getId();
+        String changedId = article.getChildren().get(0).getId();
+        String siblingId = article.getChildren().get(1).getId();
+        CachedContent root = get(article.getId());
+        CachedContent changed = get(changedId);
+        CachedContent sibling = get(siblingId);
+        CachedContent other = get(otherId);
+
+        Content update = new Content();
+        update.setTags(List.of("updated"));
+        repository.update(changedId, update);
+
+        assertNotSame(root, get(article.getId()));
+        assertNotEquals(root.etag(), get(article.getId()).etag());
+        assertNotEquals(changed.etag(), get(changedId).etag());
+        assertSame(sibling, get(siblingId));
+        assertSame(other, get(otherId));
+    }
+
+    @Test
+    void delete_invalidatesRemovedNodesAndAncestors() {
+        ContentNode article = repository.save(createTree("article", 2));
+        String removedId = article.getChildren().get(0).getId();
+        CachedContent root = get(article.getId());
+        get(removedId);
+
+        repository.delete(removedId);
+
+        assertFalse(cache.getContent(removedId, ContentProjection.FULL).isPresent());
+        assertNotEquals(root.etag(), get(article.getId()).etag());
+        repository.delete(article.getId());
+        assertFalse(cache.getContent(article.getId(), ContentProjection.FULL).isPresent());
+    }
+
+    @Test
+    void getContent_staysWithinMaxBytes() {
+        cache = createCache(64 * 1024);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            ids.add(repository.save(createTree("tree-" + i, 3)).getId());
+        }
+
+        for (String id : ids) {
+            get(id);
+        }
+
+        assertTrue(cache.sizeInBytes() <= 64 * 1024);
+        assertTrue(cache.sizeInBytes() > 32 * 1024);
+        // The most recent read is still cached
+        assertSame(get(ids.get(ids.size() - 1)), get(ids.get(ids.size() - 1)));
+    }
+
+    @Test
+    void getContent_writeWhileRendering_doesNotCacheStaleResponse() {
+        ContentNode article = repository.save(createTree("article", 1));
+        String childId = article.getChildren().get(0).getId();
+        AtomicBoolean writeDuringRead = new AtomicBoolean(true);
+        // Reads the tree, then lets a write commit before the response is cached
+        ContentService racingService = new ContentService(repository, new ContentMapper()) {
+            @Override
+            public Optional<ContentDTO> getContent(String id, ContentProjection projection) {
+                Optional<ContentDTO> content = super.getContent(id, projection);
+                if (writeDuringRead.getAndSet(false)) {
+                    Content update = new Content();
+                    update.setTags(List.of("updated"));
+                    repository.update(childId, update);
+                }
+                return content;
+            }
+        };
+        cache = new ContentResponseCache(racingService, objectMapper, 1024 * 1024);
+        repository.addChangeListener(cache);
+
+        CachedContent stale = get(article.getId());
+        CachedContent current = get(article.getId());
+
+        assertNotSame(stale, current);
+        assertTrue(new String(current.body()).contains("updated"));
+        assertSame(current, get(article.getId()));
+    }
+}